@@ -0,0 +1,57 @@
+package com.mobiquityinc.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Inputs of the benchmarks - always generated from a seed so every run measures the same data
+ * (input files are written by the WorkloadGenerator of the packer)
+ * Lines follow the rules of the challenge: capacity and weights up to 100, costs up to 100
+ */
+
+public final class BenchmarkInputs {
+
+	public static final int MAX_WEIGHT = 100;
+	public static final int MAX_COST   = 100;
+
+	private BenchmarkInputs(){
+	}
+
+	// e.g. 81 : (1,53.38,€45) (2,88.62,€98)
+	public static String line(Random random, int numOfItems, int precision){
+		StringBuilder line = new StringBuilder();
+		line.append(random.nextInt(MAX_WEIGHT) + 1).append(" :");
+		for (int i = 1; i <= numOfItems; i++){
+			line.append(" (").append(i)
+				.append(',').append(weight(random, precision).toPlainString())
+				.append(",€").append(random.nextInt(MAX_COST) + 1)
+				.append(')');
+		}
+		return line.toString();
+	}
+
+	// items as the parser returns them - weights scaled by 10^precision and sorted
+	public static List<ItemEntity> items(Random random, int numOfItems, int precision){
+		List<ItemEntity> items = new ArrayList<>(numOfItems);
+		for (int i = 1; i <= numOfItems; i++){
+			int weight = weight(random, precision).movePointRight(precision).intValueExact();
+			items.add(new ItemEntity(i, weight, random.nextInt(MAX_COST) + 1));
+		}
+		Collections.sort(items);
+		return items;
+	}
+
+	// (0, MAX_WEIGHT] with the given number of digits after the dot
+	private static BigDecimal weight(Random random, int precision){
+		int factor = 1;
+		for (int i = 0; i < precision; i++){
+			factor *= 10;
+		}
+		return BigDecimal.valueOf(random.nextInt(MAX_WEIGHT * factor) + 1, precision);
+	}
+}
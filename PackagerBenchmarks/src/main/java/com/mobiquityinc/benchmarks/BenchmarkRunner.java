@@ -0,0 +1,28 @@
+package com.mobiquityinc.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs the benchmarks with the gc profiler, which adds the allocation rate
+ * (gc.alloc.rate and gc.alloc.rate.norm - bytes per operation) to the throughput and average time
+ *
+ * usage: java -jar target/benchmarks.jar [JMH options] [benchmark name regex]
+ * e.g.   java -jar target/benchmarks.jar KnapSackBenchmark -p precision=2
+ */
+
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException{
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,61 @@
+package com.mobiquityinc.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+
+/*
+ * KnapSackPackagingStrategy.selectItems over item counts and weight precisions
+ * The capacity is the max capacity of the challenge (100) so W = 100 * 10^precision
+ * FULL_MATRIX with 200 items and precision 3 allocates about 80MB per call
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnapSackBenchmark {
+
+	@Param({"15", "50", "200"})
+	private int numOfItems;
+
+	@Param({"0", "1", "2", "3"})
+	private int precision;
+
+	@Param({"FULL_MATRIX", "ROLLING_ROW"})
+	private MemoryMode memoryMode;
+
+	private KnapSackPackagingStrategy strategy;
+	private List<ItemEntity> items;
+	private int capacity;
+
+	@Setup
+	public void setup(){
+		strategy = new KnapSackPackagingStrategy(memoryMode);
+		items    = BenchmarkInputs.items(new Random(numOfItems * 31 + precision), numOfItems, precision);
+		capacity = BenchmarkInputs.MAX_WEIGHT * (int) Math.pow(10, precision);
+	}
+
+	@Benchmark
+	public List<ItemEntity> selectItems(){
+		return strategy.selectItems(items, capacity);
+	}
+}
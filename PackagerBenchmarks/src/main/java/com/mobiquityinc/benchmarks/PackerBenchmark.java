@@ -0,0 +1,100 @@
+package com.mobiquityinc.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mobiquityinc.generator.WorkloadConfiguration;
+import com.mobiquityinc.generator.WorkloadGenerator;
+import com.mobiquityinc.packer.Packer;
+import com.mobiquityinc.packer.PackerConfiguration;
+
+/*
+ * Packer.pack end to end - read, parse, solve and write - on a file of the WorkloadGenerator
+ * The results are written to a Writer which only consumes the characters
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackerBenchmark {
+
+	@Param({"1000", "10000"})
+	private int numOfLines;
+
+	@Param({"15"})
+	private int numOfItems;
+
+	@Param({"2"})
+	private int precision;
+
+	@Param({"1", "4"})
+	private int parallelism;
+
+	private Path file;
+	private PackerConfiguration configuration;
+
+	@Setup
+	public void setup() throws IOException{
+		file = Files.createTempFile("packer-benchmark", ".txt");
+		WorkloadConfiguration workload = new WorkloadConfiguration();
+		workload.setSeed(7);
+		workload.setLines(numOfLines);
+		workload.setItems(1, numOfItems);
+		workload.setPrecision(precision);
+		new WorkloadGenerator(workload).generate(file);
+		configuration = new PackerConfiguration(precision, parallelism);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException{
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public void pack(Blackhole blackhole){
+		Packer.pack(file, new BlackholeWriter(blackhole), configuration);
+	}
+
+	private static class BlackholeWriter extends Writer {
+
+		private final Blackhole blackhole;
+
+		private BlackholeWriter(Blackhole blackhole){
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			blackhole.consume(cbuf);
+			blackhole.consume(len);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.mobiquityinc.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mobiquityinc.entities.ParsedLineEntity;
+import com.mobiquityinc.packer.parsers.DefaultPackerParser;
+
+/*
+ * DefaultPackerParser.parse of one line
+ * numOfItems is at most 15 - the parser rejects longer lines
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({"1", "5", "15"})
+	private int numOfItems;
+
+	@Param({"0", "2", "4"})
+	private int precision;
+
+	private DefaultPackerParser parser;
+	private String line;
+
+	@Setup
+	public void setup(){
+		parser = new DefaultPackerParser((int) Math.pow(10, precision));
+		line   = BenchmarkInputs.line(new Random(numOfItems * 31 + precision), numOfItems, precision);
+	}
+
+	@Benchmark
+	public ParsedLineEntity parse(){
+		return parser.parse(line);
+	}
+}
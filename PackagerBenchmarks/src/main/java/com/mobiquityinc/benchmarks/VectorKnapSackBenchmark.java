@@ -0,0 +1,70 @@
+package com.mobiquityinc.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.VectorKnapSackPackagingStrategy;
+
+/*
+ * Rolling row knapsack - scalar row update against the Vector API one (VectorKnapSackPackagingStrategy)
+ * on wide capacities, W = 100 * 10^precision
+ * The fork runs with --add-modules jdk.incubator.vector, setup fails if the vector kernel is not used
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorKnapSackBenchmark {
+
+	@Param({"15", "50"})
+	private int numOfItems;
+
+	@Param({"2", "3", "4"})
+	private int precision;
+
+	@Param({"scalar", "vector"})
+	private String kernel;
+
+	private KnapSackPackagingStrategy strategy;
+	private List<ItemEntity> items;
+	private int capacity;
+
+	@Setup
+	public void setup(){
+		if ("vector".equals(kernel)){
+			VectorKnapSackPackagingStrategy vectorKnapSack = new VectorKnapSackPackagingStrategy();
+			if (!vectorKnapSack.isVectorized()){
+				throw new IllegalStateException(vectorKnapSack.report());
+			}
+			strategy = vectorKnapSack;
+		} else {
+			strategy = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+		}
+		items    = BenchmarkInputs.items(new Random(numOfItems * 31 + precision), numOfItems, precision);
+		capacity = BenchmarkInputs.MAX_WEIGHT * (int) Math.pow(10, precision);
+	}
+
+	@Benchmark
+	public List<ItemEntity> selectItems(){
+		return strategy.selectItems(items, capacity);
+	}
+}
@@ -0,0 +1,50 @@
+package com.mobiquityinc.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mobiquityinc.com.viewer.DefaultPackagingViewer;
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * DefaultPackagingViewer.convertToString of a selection
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewerBenchmark {
+
+	@Param({"0", "5", "15"})
+	private int numOfSelectedItems;
+
+	private DefaultPackagingViewer viewer;
+	private List<ItemEntity> selectedItems;
+
+	@Setup
+	public void setup(){
+		viewer        = new DefaultPackagingViewer();
+		selectedItems = BenchmarkInputs.items(new Random(numOfSelectedItems), numOfSelectedItems, 2);
+	}
+
+	@Benchmark
+	public String convertToString(){
+		return viewer.convertToString(selectedItems);
+	}
+}
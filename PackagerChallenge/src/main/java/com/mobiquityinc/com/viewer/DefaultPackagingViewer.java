@@ -1,9 +1,11 @@
 package com.mobiquityinc.com.viewer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
 
 public class DefaultPackagingViewer implements IPackagingViewer {
@@ -32,4 +34,22 @@ public class DefaultPackagingViewer implements IPackagingViewer {
 		  }
 	}
 	
+	// same output without boxing the ids
+	@Override
+	public String convertToString(ItemBatch selected){
+		int count = selected.getCount();
+		if (count == 0){
+			return ("-");
+		}
+		int[] itemsIndexes = Arrays.copyOf(selected.getIds(), count);
+		Arrays.sort(itemsIndexes);
+		StringBuilder builder = new StringBuilder(count * 3);
+		builder.append(itemsIndexes[0]);
+		for (int i = 1; i < count; i++){
+			builder.append(',');
+			builder.append(itemsIndexes[i]);
+		}
+		return (builder.toString());
+	}
+	
 }
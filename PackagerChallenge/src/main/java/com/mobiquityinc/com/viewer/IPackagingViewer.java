@@ -2,9 +2,15 @@ package com.mobiquityinc.com.viewer;
 
 import java.util.List;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
 
 public interface IPackagingViewer {
 	public void showItems(List<ItemEntity> list);
 	public String convertToString(List<ItemEntity> list);
+	
+	// by default an adapter of the list based method
+	public default String convertToString(ItemBatch selected){
+		return convertToString(selected.toList());
+	}
 }
@@ -0,0 +1,200 @@
+package com.mobiquityinc.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The items of one package as primitive arrays (struct of arrays) plus the package capacity
+ * The same data as ParsedLineEntity without boxing - item i is (ids[i], weights[i], costs[i]) for i < count
+ *
+ * Batches are meant to be reused from line to line: clear() keeps the arrays,
+ * they only grow when a line has more items than any line before.
+ * getIds(), getWeights() and getCosts() return the arrays themselves (valid up to getCount())
+ * so the hot loops can read them directly.
+ */
+
+public class ItemBatch {
+
+	// lines up to this many items are sorted by insertion, longer runs are merged (see sortByWeight)
+	private static final int INSERTION_SORT_ITEMS = 32;
+
+	private int capacity;
+	private int count;
+	private int[] ids;
+	private int[] weights;
+	private int[] costs;
+	// merge buffers of sortByWeight, allocated for the first long line and kept as the arrays
+	private int[] mergeIds, mergeWeights, mergeCosts;
+
+	public ItemBatch(){
+		this(16);
+	}
+
+	public ItemBatch(int initialSize){
+		ids     = new int[initialSize];
+		weights = new int[initialSize];
+		costs   = new int[initialSize];
+	}
+
+	public static ItemBatch of(List<ItemEntity> itemsList, int capacity){
+		ItemBatch batch = new ItemBatch(itemsList.size());
+		batch.setItems(itemsList);
+		batch.setCapacity(capacity);
+		return batch;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	public int getWeight(int index) {
+		return weights[index];
+	}
+
+	public int getCost(int index) {
+		return costs[index];
+	}
+
+	public int[] getIds() {
+		return ids;
+	}
+
+	public int[] getWeights() {
+		return weights;
+	}
+
+	public int[] getCosts() {
+		return costs;
+	}
+
+	// remove all the items, the arrays are kept
+	public void clear(){
+		count = 0;
+	}
+
+	// make room for numOfItems items without growing again
+	public void reserve(int numOfItems){
+		if (ids.length < numOfItems){
+			ids     = Arrays.copyOf(ids, numOfItems);
+			weights = Arrays.copyOf(weights, numOfItems);
+			costs   = Arrays.copyOf(costs, numOfItems);
+		}
+	}
+
+	public void add(int id, int weight, int cost){
+		if (count == ids.length){
+			reserve(Math.max(16, count * 2));
+		}
+		ids[count]     = id;
+		weights[count] = weight;
+		costs[count]   = cost;
+		count++;
+	}
+
+	/*
+	 * stable sort by weight - same order as Collections.sort of ItemEntity
+	 * insertion sort is the cheapest for the short lines (15 items by default), longer lines (up to 10,000 items
+	 * with the large profile) are sorted in runs of INSERTION_SORT_ITEMS which are merged bottom up - O(n log n)
+	 */
+	public void sortByWeight(){
+		for (int from = 0; from < count; from += INSERTION_SORT_ITEMS){
+			insertionSort(from, Math.min(from + INSERTION_SORT_ITEMS, count));
+		}
+		if (count <= INSERTION_SORT_ITEMS){
+			return;
+		}
+		if (mergeIds == null || mergeIds.length < count){
+			mergeIds     = new int[ids.length];
+			mergeWeights = new int[ids.length];
+			mergeCosts   = new int[ids.length];
+		}
+		for (int width = INSERTION_SORT_ITEMS; width < count; width *= 2){
+			for (int from = 0; from < count - width; from += 2 * width){
+				merge(from, from + width, Math.min(from + 2 * width, count));
+			}
+		}
+	}
+
+	private void insertionSort(int from, int to){
+		for (int i = from + 1; i < to; i++){
+			int id = ids[i], weight = weights[i], cost = costs[i];
+			int j = i - 1;
+			while (j >= from && weights[j] > weight){
+				ids[j + 1]     = ids[j];
+				weights[j + 1] = weights[j];
+				costs[j + 1]   = costs[j];
+				j--;
+			}
+			ids[j + 1]     = id;
+			weights[j + 1] = weight;
+			costs[j + 1]   = cost;
+		}
+	}
+
+	// merge the sorted runs [from, middle) and [middle, to) - the first run wins equal weights (stable)
+	private void merge(int from, int middle, int to){
+		int a = from, b = middle;
+		for (int k = from; k < to; k++){
+			int i = b == to || (a < middle && weights[a] <= weights[b]) ? a++ : b++;
+			mergeIds[k]     = ids[i];
+			mergeWeights[k] = weights[i];
+			mergeCosts[k]   = costs[i];
+		}
+		System.arraycopy(mergeIds, from, ids, from, to - from);
+		System.arraycopy(mergeWeights, from, weights, from, to - from);
+		System.arraycopy(mergeCosts, from, costs, from, to - from);
+	}
+
+	/*
+	 * Adapters from/to the list based API
+	 */
+
+	// replace the items, the capacity is not changed
+	public void setItems(List<ItemEntity> itemsList){
+		clear();
+		reserve(itemsList.size());
+		for (ItemEntity item : itemsList){
+			add(item.getId(), item.getWeight(), item.getCost());
+		}
+	}
+
+	public List<ItemEntity> toList(){
+		List<ItemEntity> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++){
+			items.add(new ItemEntity(ids[i], weights[i], costs[i]));
+		}
+		return items;
+	}
+
+	public ParsedLineEntity toParsedLineEntity(){
+		ParsedLineEntity parsedLineEntity = new ParsedLineEntity();
+		parsedLineEntity.setMaxWeight(capacity);
+		parsedLineEntity.setItemsList(toList());
+		return parsedLineEntity;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("ItemBatch [capacity=").append(capacity).append(", items=[");
+		for (int i = 0; i < count; i++){
+			if (i > 0){
+				builder.append(", ");
+			}
+			builder.append('(').append(ids[i]).append(',').append(weights[i]).append(',').append(costs[i]).append(')');
+		}
+		return builder.append("]]").toString();
+	}
+}
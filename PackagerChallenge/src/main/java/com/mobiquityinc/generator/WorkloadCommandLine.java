@@ -0,0 +1,154 @@
+package com.mobiquityinc.generator;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.generator.WorkloadConfiguration.ItemCountDistribution;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
+
+/*
+ * Command line arguments of the WorkloadGenerator
+ *
+ * usage: WorkloadGenerator <output file path> [options]
+ *
+ * options (see WorkloadConfiguration for the defaults):
+ *   --seed S                  random seed
+ *   --lines N                 number of lines
+ *   --items MIN-MAX           number of items per line, e.g. 1-15 or 15
+ *   --distribution uniform|skewed   distribution of the number of items
+ *   --precision P             digits after the dot of the weights
+ *   --max-weight W            max weight of an item
+ *   --max-cost C              max cost of an item
+ *   --max-capacity C          max capacity of a line
+ *   --capacity-ratio R        capacity / total weight of the line
+ *   --currency S              currency sign
+ *   --duplicates F            fraction of duplicate lines
+ *   --invalid F               fraction of invalid lines
+ *   --profile challenge|large limits broken by the invalid lines
+ *
+ * throw APIException in case the arguments are not valid
+ */
+
+public class WorkloadCommandLine {
+
+	private String outputPath;
+	private final WorkloadConfiguration configuration = new WorkloadConfiguration();
+
+	private WorkloadCommandLine(){
+	}
+
+	public static WorkloadCommandLine parse(String[] args){
+		WorkloadCommandLine commandLine = new WorkloadCommandLine();
+		WorkloadConfiguration configuration = commandLine.configuration;
+		for (int i = 0; i < args.length; i++){
+			String arg = args[i];
+			if ("--seed".equals(arg)){
+				configuration.setSeed(parseLongArgument(args, ++i));
+			} else if ("--lines".equals(arg)){
+				configuration.setLines(parseLongArgument(args, ++i));
+			} else if ("--items".equals(arg)){
+				parseItems(configuration, args, ++i);
+			} else if ("--distribution".equals(arg)){
+				configuration.setDistribution(parseDistribution(parseStringArgument(args, ++i)));
+			} else if ("--precision".equals(arg)){
+				configuration.setPrecision(parseIntArgument(args, ++i));
+			} else if ("--max-weight".equals(arg)){
+				configuration.setMaxWeight(parseIntArgument(args, ++i));
+			} else if ("--max-cost".equals(arg)){
+				configuration.setMaxCost(parseIntArgument(args, ++i));
+			} else if ("--max-capacity".equals(arg)){
+				configuration.setMaxCapacity(parseIntArgument(args, ++i));
+			} else if ("--capacity-ratio".equals(arg)){
+				configuration.setCapacityRatio(parseDoubleArgument(args, ++i));
+			} else if ("--currency".equals(arg)){
+				configuration.setCurrencySign(parseStringArgument(args, ++i));
+			} else if ("--duplicates".equals(arg)){
+				configuration.setDuplicateFraction(parseDoubleArgument(args, ++i));
+			} else if ("--invalid".equals(arg)){
+				configuration.setInvalidFraction(parseDoubleArgument(args, ++i));
+			} else if ("--profile".equals(arg)){
+				String value = parseStringArgument(args, ++i);
+				ConstraintProfile constraints = ConstraintProfile.byName(value);
+				if (constraints == null){
+					throw new APIException("Unknown profile: " + value + " expected challenge or large");
+				}
+				configuration.setConstraints(constraints);
+			} else if (arg.startsWith("--")){
+				throw new APIException("Unknown parameter: " + arg);
+			} else if (commandLine.outputPath == null){
+				commandLine.outputPath = arg;
+			} else {
+				throw new APIException("Unexpected parameter: " + arg);
+			}
+		}
+		if (commandLine.outputPath == null){
+			throw new APIException("Output file path is requierd as a parameter");
+		}
+		return commandLine;
+	}
+
+	private static void parseItems(WorkloadConfiguration configuration, String[] args, int index){
+		String value = parseStringArgument(args, index);
+		int dash = value.indexOf('-');
+		try {
+			if (dash < 0){
+				int items = Integer.parseInt(value);
+				configuration.setItems(items, items);
+			} else {
+				configuration.setItems(Integer.parseInt(value.substring(0, dash)), Integer.parseInt(value.substring(dash + 1)));
+			}
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects MIN-MAX: " + value);
+		}
+	}
+
+	private static ItemCountDistribution parseDistribution(String value){
+		if ("uniform".equals(value)){
+			return ItemCountDistribution.UNIFORM;
+		} else if ("skewed".equals(value)){
+			return ItemCountDistribution.SKEWED;
+		}
+		throw new APIException("Unknown distribution: " + value + " expected uniform or skewed");
+	}
+
+	private static String parseStringArgument(String[] args, int index){
+		if (index >= args.length){
+			throw new APIException("Missing value for parameter " + args[index - 1]);
+		}
+		return args[index];
+	}
+
+	private static long parseLongArgument(String[] args, int index){
+		String value = parseStringArgument(args, index);
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects a number: " + value);
+		}
+	}
+
+	private static int parseIntArgument(String[] args, int index){
+		String value = parseStringArgument(args, index);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects a number: " + value);
+		}
+	}
+
+	private static double parseDoubleArgument(String[] args, int index){
+		String value = parseStringArgument(args, index);
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects a number: " + value);
+		}
+	}
+
+	public String getOutputPath() {
+		return outputPath;
+	}
+
+	public WorkloadConfiguration getConfiguration() {
+		return configuration;
+	}
+
+}
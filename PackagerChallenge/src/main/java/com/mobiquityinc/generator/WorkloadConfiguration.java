@@ -0,0 +1,205 @@
+package com.mobiquityinc.generator;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
+
+/*
+ * Options of the WorkloadGenerator
+ *
+ * seed              : same seed and options - same file, byte for byte (default 1)
+ * lines             : number of lines (default 1000)
+ * minItems/maxItems : number of items per line (default 1 to 15)
+ * distribution      : UNIFORM - every count between minItems and maxItems is as likely
+ *                     SKEWED  - mostly short lines, few long ones (cube of a uniform number)
+ * precision         : digits after the dot of the weights (default 2)
+ * maxWeight         : weights are in (0, maxWeight] (default 100)
+ * maxCost           : costs are in [1, maxCost] (default 100)
+ * maxCapacity       : the capacity is never above it (default 100)
+ * capacityRatio     : capacity = capacityRatio * total weight of the line, rounded (default 0.25)
+ * currencySign      : sign written before the costs (default €)
+ * duplicateFraction : fraction of lines which repeat one of the last lines written (default 0)
+ * invalidFraction   : fraction of lines with one deliberate error the parsers reject (default 0)
+ * constraints       : limits the invalid lines break (too many items, too big capacity) (default CHALLENGE)
+ *
+ * The defaults are the limits of the challenge, so all the lines which are not
+ * deliberately invalid are accepted by DefaultPackerParser.
+ */
+
+public class WorkloadConfiguration {
+
+	public enum ItemCountDistribution {
+		UNIFORM,
+		SKEWED
+	}
+
+	private long seed = 1;
+	private long lines = 1000;
+	private int minItems = 1;
+	private int maxItems = 15;
+	private ItemCountDistribution distribution = ItemCountDistribution.UNIFORM;
+	private int precision = 2;
+	private int maxWeight = 100;
+	private int maxCost = 100;
+	private int maxCapacity = 100;
+	private double capacityRatio = 0.25;
+	private String currencySign = "\u20ac";
+	private double duplicateFraction = 0;
+	private double invalidFraction = 0;
+	private ConstraintProfile constraints = ConstraintProfile.CHALLENGE;
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public long getLines() {
+		return lines;
+	}
+
+	public void setLines(long lines) {
+		if (lines < 0){
+			throw new APIException("Number of lines must not be negative: " + lines);
+		}
+		this.lines = lines;
+	}
+
+	public int getMinItems() {
+		return minItems;
+	}
+
+	public int getMaxItems() {
+		return maxItems;
+	}
+
+	// a line needs at least one item to be in the format <capacity> : <items>
+	public void setItems(int minItems, int maxItems) {
+		if (minItems < 1 || maxItems < minItems){
+			throw new APIException("Invalid number of items per line: " + minItems + " to " + maxItems);
+		}
+		this.minItems = minItems;
+		this.maxItems = maxItems;
+	}
+
+	public ItemCountDistribution getDistribution() {
+		return distribution;
+	}
+
+	public void setDistribution(ItemCountDistribution distribution) {
+		this.distribution = distribution;
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	public void setPrecision(int precision) {
+		if (precision < 0 || precision > 6){
+			throw new APIException("Precision must be between 0 and 6: " + precision);
+		}
+		this.precision = precision;
+	}
+
+	public int getMaxWeight() {
+		return maxWeight;
+	}
+
+	public void setMaxWeight(int maxWeight) {
+		if (maxWeight < 1){
+			throw new APIException("Max weight must be positive: " + maxWeight);
+		}
+		this.maxWeight = maxWeight;
+	}
+
+	public int getMaxCost() {
+		return maxCost;
+	}
+
+	public void setMaxCost(int maxCost) {
+		if (maxCost < 1){
+			throw new APIException("Max cost must be positive: " + maxCost);
+		}
+		this.maxCost = maxCost;
+	}
+
+	public int getMaxCapacity() {
+		return maxCapacity;
+	}
+
+	public void setMaxCapacity(int maxCapacity) {
+		if (maxCapacity < 0){
+			throw new APIException("Max capacity must not be negative: " + maxCapacity);
+		}
+		this.maxCapacity = maxCapacity;
+	}
+
+	public double getCapacityRatio() {
+		return capacityRatio;
+	}
+
+	public void setCapacityRatio(double capacityRatio) {
+		if (!(capacityRatio >= 0)){
+			throw new APIException("Capacity ratio must not be negative: " + capacityRatio);
+		}
+		this.capacityRatio = capacityRatio;
+	}
+
+	public String getCurrencySign() {
+		return currencySign;
+	}
+
+	// a single character which is not a digit, e.g. € or $
+	public void setCurrencySign(String currencySign) {
+		if (currencySign == null || currencySign.codePointCount(0, currencySign.length()) != 1 ||
+			Character.isDigit(currencySign.codePointAt(0)) || Character.isWhitespace(currencySign.codePointAt(0))){
+			throw new APIException("Invalid currency sign: " + currencySign);
+		}
+		this.currencySign = currencySign;
+	}
+
+	public double getDuplicateFraction() {
+		return duplicateFraction;
+	}
+
+	public void setDuplicateFraction(double duplicateFraction) {
+		this.duplicateFraction = verifyFraction("Duplicate", duplicateFraction);
+	}
+
+	public double getInvalidFraction() {
+		return invalidFraction;
+	}
+
+	public void setInvalidFraction(double invalidFraction) {
+		this.invalidFraction = verifyFraction("Invalid", invalidFraction);
+	}
+
+	public ConstraintProfile getConstraints() {
+		return constraints;
+	}
+
+	public void setConstraints(ConstraintProfile constraints) {
+		if (constraints == null){
+			throw new APIException("Constraints must not be null");
+		}
+		this.constraints = constraints;
+	}
+
+	private static double verifyFraction(String name, double fraction){
+		if (!(fraction >= 0 && fraction <= 1)){
+			throw new APIException(name + " fraction must be between 0 and 1: " + fraction);
+		}
+		return fraction;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkloadConfiguration [seed=" + seed + ", lines=" + lines + ", minItems=" + minItems
+				+ ", maxItems=" + maxItems + ", distribution=" + distribution + ", precision=" + precision
+				+ ", maxWeight=" + maxWeight + ", maxCost=" + maxCost + ", maxCapacity=" + maxCapacity
+				+ ", capacityRatio=" + capacityRatio + ", currencySign=" + currencySign
+				+ ", duplicateFraction=" + duplicateFraction + ", invalidFraction=" + invalidFraction
+				+ ", constraints=" + constraints.getName() + "]";
+	}
+}
@@ -0,0 +1,300 @@
+package com.mobiquityinc.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Synthetic input files for the Packer, in the format of the challenge:
+ * 81 : (1,53.38,€45) (2,88.62,€98) (3,78.48,€3)
+ *
+ * Each line is formatted straight into bytes (no String.format, no boxing) and written through
+ * a 1MB buffer, so multi gigabyte files are written at about the speed of the disk.
+ * The output depends only on the WorkloadConfiguration - same seed, same bytes.
+ *
+ * Deliberately invalid lines have exactly one of the errors of InvalidKind,
+ * all of them are rejected by DefaultPackerParser (and ByteScanningPackerParser) with the limits of
+ * WorkloadConfiguration.getConstraints().
+ * Duplicate lines repeat one of the last RECENT_LINES lines written, valid or not.
+ *
+ * usage: WorkloadGenerator <output file path> [options] - see WorkloadCommandLine
+ */
+
+public class WorkloadGenerator {
+
+	private static final int BUFFER_SIZE  = 1024 * 1024;
+	private static final int RECENT_LINES = 1024;
+
+	public enum InvalidKind {
+		MISSING_SEPARATOR,
+		CAPACITY_TOO_BIG,
+		DUPLICATE_ID,
+		ZERO_WEIGHT,
+		ZERO_COST,
+		MISSING_CURRENCY_SIGN,
+		TOO_MANY_ITEMS
+	}
+
+	private final WorkloadConfiguration configuration;
+	private final byte[] currencySign;
+	private final int weightFactor;
+
+	// statistics of the last generate call
+	private long linesWritten;
+	private long duplicateLines;
+	private long invalidLines;
+	private long bytesWritten;
+
+	public WorkloadGenerator(WorkloadConfiguration configuration){
+		this.configuration = configuration;
+		this.currencySign  = configuration.getCurrencySign().getBytes(StandardCharsets.UTF_8);
+		int factor = 1;
+		for (int i = 0; i < configuration.getPrecision(); i++){
+			factor *= 10;
+		}
+		this.weightFactor = factor;
+	}
+
+	public void generate(Path file){
+		try (OutputStream out = Files.newOutputStream(file)){
+			generate(out);
+		} catch (IOException e) {
+			throw new APIException("IOException when writing workload file: " + e.getMessage());
+		}
+	}
+
+	// the stream is flushed but not closed
+	public void generate(OutputStream out){
+		linesWritten   = 0;
+		duplicateLines = 0;
+		invalidLines   = 0;
+		bytesWritten   = 0;
+
+		SplittableRandom random = new SplittableRandom(configuration.getSeed());
+		Line line = new Line();
+		byte[][] recentLines = new byte[RECENT_LINES][];
+		int[] recentLengths  = new int[RECENT_LINES];
+		long generatedLines  = 0;
+
+		try {
+			BufferedOutputStream buffer = new BufferedOutputStream(out, BUFFER_SIZE);
+			for (long i = 0; i < configuration.getLines(); i++){
+				if (generatedLines > 0 && random.nextDouble() < configuration.getDuplicateFraction()){
+					int recent = random.nextInt((int) Math.min(generatedLines, RECENT_LINES));
+					buffer.write(recentLines[recent], 0, recentLengths[recent]);
+					bytesWritten += recentLengths[recent];
+					duplicateLines++;
+				} else {
+					InvalidKind invalidKind = null;
+					if (random.nextDouble() < configuration.getInvalidFraction()){
+						invalidKind = InvalidKind.values()[random.nextInt(InvalidKind.values().length)];
+						invalidLines++;
+					}
+					generateLine(random, invalidKind, line);
+					buffer.write(line.bytes, 0, line.length);
+					bytesWritten += line.length;
+
+					// keep the line for duplicates
+					int slot = (int) (generatedLines++ % RECENT_LINES);
+					if (recentLines[slot] == null || recentLines[slot].length < line.length){
+						recentLines[slot] = new byte[line.bytes.length];
+					}
+					System.arraycopy(line.bytes, 0, recentLines[slot], 0, line.length);
+					recentLengths[slot] = line.length;
+				}
+				linesWritten++;
+			}
+			buffer.flush();
+		} catch (IOException e) {
+			throw new APIException("IOException when writing workload: " + e.getMessage());
+		}
+	}
+
+	private void generateLine(SplittableRandom random, InvalidKind invalidKind, Line line){
+		int numOfItems = numOfItems(random);
+		if (invalidKind == InvalidKind.TOO_MANY_ITEMS){
+			numOfItems = Math.max(numOfItems, configuration.getConstraints().getMaxItemsNum() + 1);
+		} else if (invalidKind == InvalidKind.DUPLICATE_ID){
+			numOfItems = Math.max(numOfItems, 2);
+		}
+
+		line.ensureItems(numOfItems);
+		int[] ids     = line.ids;
+		int[] weights = line.weights;
+		int[] costs   = line.costs;
+		long totalWeight = 0;
+		for (int i = 0; i < numOfItems; i++){
+			ids[i]     = i + 1;
+			weights[i] = 1 + random.nextInt(configuration.getMaxWeight() * weightFactor);
+			costs[i]   = 1 + random.nextInt(configuration.getMaxCost());
+			totalWeight += weights[i];
+		}
+		long capacity = Math.min(configuration.getMaxCapacity(),
+								 Math.round(configuration.getCapacityRatio() * totalWeight / weightFactor));
+
+		int corrupted = random.nextInt(numOfItems);
+		boolean separator   = true;
+		boolean signMissing = false;
+		if (invalidKind != null){
+			switch (invalidKind){
+				case MISSING_SEPARATOR:
+					separator = false;
+					break;
+				case CAPACITY_TOO_BIG:
+					capacity = Math.max(configuration.getMaxCapacity(), configuration.getConstraints().getMaxPackageCap()) + 1 + random.nextInt(100);
+					break;
+				case DUPLICATE_ID:
+					ids[corrupted == 0 ? 1 : corrupted] = ids[0];
+					break;
+				case ZERO_WEIGHT:
+					weights[corrupted] = 0;
+					break;
+				case ZERO_COST:
+					costs[corrupted] = 0;
+					break;
+				case MISSING_CURRENCY_SIGN:
+					signMissing = true;
+					break;
+				default:
+					break;
+			}
+		}
+
+		line.length = 0;
+		line.appendNumber(capacity);
+		line.append((byte) ' ');
+		if (separator){
+			line.append((byte) ':');
+		}
+		for (int i = 0; i < numOfItems; i++){
+			line.append((byte) ' ');
+			line.append((byte) '(');
+			line.appendNumber(ids[i]);
+			line.append((byte) ',');
+			line.appendWeight(weights[i]);
+			line.append((byte) ',');
+			if (!(signMissing && i == corrupted)){
+				line.append(currencySign);
+			}
+			line.appendNumber(costs[i]);
+			line.append((byte) ')');
+		}
+		line.append((byte) '\n');
+	}
+
+	private int numOfItems(SplittableRandom random){
+		int range = configuration.getMaxItems() - configuration.getMinItems() + 1;
+		if (configuration.getDistribution() == WorkloadConfiguration.ItemCountDistribution.SKEWED){
+			double u = random.nextDouble();
+			return configuration.getMinItems() + (int) (range * u * u * u);
+		}
+		return configuration.getMinItems() + random.nextInt(range);
+	}
+
+	public long getLinesWritten() {
+		return linesWritten;
+	}
+
+	public long getDuplicateLines() {
+		return duplicateLines;
+	}
+
+	public long getInvalidLines() {
+		return invalidLines;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	// e.g. lines=1000 duplicates=100 invalid=10 bytes=152331
+	public String report(){
+		return "lines=" + linesWritten + " duplicates=" + duplicateLines + " invalid=" + invalidLines
+				+ " bytes=" + bytesWritten;
+	}
+
+	/*
+	 * the items and the bytes of the current line - reused from line to line
+	 */
+	private class Line {
+
+		private int[] ids     = new int[0];
+		private int[] weights = new int[0];
+		private int[] costs   = new int[0];
+
+		private byte[] bytes = new byte[1024];
+		private int length;
+		private final byte[] digits = new byte[20];
+
+		private void ensureItems(int numOfItems){
+			if (ids.length < numOfItems){
+				ids     = new int[numOfItems];
+				weights = new int[numOfItems];
+				costs   = new int[numOfItems];
+			}
+		}
+
+		private void append(byte b){
+			ensureCapacity(1);
+			bytes[length++] = b;
+		}
+
+		private void append(byte[] b){
+			ensureCapacity(b.length);
+			System.arraycopy(b, 0, bytes, length, b.length);
+			length += b.length;
+		}
+
+		// not negative numbers only
+		private void appendNumber(long number){
+			int count = 0;
+			do {
+				digits[count++] = (byte) ('0' + number % 10);
+				number /= 10;
+			} while (number != 0);
+			ensureCapacity(count);
+			while (count > 0){
+				bytes[length++] = digits[--count];
+			}
+		}
+
+		// scaled weight -> integer part '.' precision digits
+		private void appendWeight(int weight){
+			appendNumber(weight / weightFactor);
+			int precision = configuration.getPrecision();
+			if (precision > 0){
+				ensureCapacity(precision + 1);
+				bytes[length++] = '.';
+				int fraction = weight % weightFactor;
+				for (int i = length + precision - 1; i >= length; i--){
+					bytes[i] = (byte) ('0' + fraction % 10);
+					fraction /= 10;
+				}
+				length += precision;
+			}
+		}
+
+		private void ensureCapacity(int extra){
+			if (length + extra > bytes.length){
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+			}
+		}
+	}
+
+	public static void main(String[] args){
+		WorkloadCommandLine commandLine = WorkloadCommandLine.parse(args);
+		WorkloadGenerator generator = new WorkloadGenerator(commandLine.getConfiguration());
+		long start = System.nanoTime();
+		generator.generate(Paths.get(commandLine.getOutputPath()));
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		System.err.println(generator.report() + " time=" + millis + "ms");
+	}
+}
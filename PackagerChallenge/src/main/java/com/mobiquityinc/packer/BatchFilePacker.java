@@ -0,0 +1,407 @@
+package com.mobiquityinc.packer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.CompressedStreams.Compression;
+
+/*
+ * Batch mode of the Packer - many input files in one JVM
+ *
+ * Inputs are files, directories (the files directly in them) or glob patterns (e.g. "in/*.txt", "in/**.txt"),
+ * resolved to a sorted list of files without duplicates (see resolve).
+ * The files are packed on a ForkJoinPool of configuration.getParallelism() threads, each file by one thread
+ * (lines of a file are not split between threads - there are many files to keep the threads busy).
+ * All the files share one Packer, so its solver chain, cache and counters are created once.
+ *
+ * Output, one of:
+ *   packToDirectory - <directory>/<input file name>.out per input file, same content as the Packer output
+ *                     (.out.gz / .out.zz compressed with setOutputCompression)
+ *   packTagged      - one stream, the results of each file after a "# <input path>" line. Files are written
+ *                     as a whole when they are done, in the order they are done (in input order with one thread)
+ *
+ * An invalid line fails its file only: the file is reported in the Summary (and its partial .out file is
+ * deleted), the other files are still packed. With PackerConfiguration.isSkipInvalidLines() the invalid lines
+ * are recorded to the error writer of the Packer and their files are packed; once more than
+ * getMaxInvalidLines() lines are invalid the file being packed and all the following ones fail.
+ *
+ * usage: Packer <file, directory or glob pattern> ... [--output-dir <dir> | --output <file path>] [options]
+ */
+
+public class BatchFilePacker {
+
+	public static final String OUTPUT_SUFFIX = ".out";
+	public static final String TAG_PREFIX    = "# ";
+
+	private static final String GLOB_CHARS = "*?[{";
+
+	private final PackerConfiguration configuration;
+	private final Packer packer;
+	private Compression outputCompression = Compression.NONE;
+
+	public BatchFilePacker(PackerConfiguration configuration){
+		this.configuration = configuration;
+		this.packer = new Packer(configuration);
+	}
+
+	/*
+	 * Inputs
+	 */
+
+	public static boolean isGlob(String pattern){
+		for (int i = 0; i < pattern.length(); i++){
+			if (GLOB_CHARS.indexOf(pattern.charAt(i)) >= 0){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * the files of the patterns - in the order of the patterns, each pattern sorted, no duplicates
+	 * throw APIException when a file does not exist or a directory / glob pattern has no files
+	 */
+	public static List<Path> resolve(List<String> patterns){
+		Set<Path> files = new LinkedHashSet<>();
+		for (String pattern : patterns){
+			List<Path> matched;
+			if (isGlob(pattern)){
+				matched = resolveGlob(pattern);
+			} else {
+				Path path = Paths.get(pattern);
+				if (Files.isDirectory(path)){
+					matched = list(path, 1, file -> true);
+				} else if (Files.isRegularFile(path)){
+					matched = Collections.singletonList(path);
+				} else {
+					throw new APIException("Input file not found: " + pattern);
+				}
+			}
+			if (matched.isEmpty()){
+				throw new APIException("No input file in: " + pattern);
+			}
+			files.addAll(matched);
+		}
+		return new ArrayList<>(files);
+	}
+
+	// the directory part before the first glob character is walked, the rest is matched against the files in it
+	private static List<Path> resolveGlob(String pattern){
+		int firstGlob = 0;
+		while (GLOB_CHARS.indexOf(pattern.charAt(firstGlob)) < 0){
+			firstGlob++;
+		}
+		int separator = Math.max(pattern.lastIndexOf('/', firstGlob), pattern.lastIndexOf(File.separatorChar, firstGlob));
+		String directory = pattern.substring(0, separator + 1);
+		String relativePattern = pattern.substring(separator + 1);
+		Path root = Paths.get(directory.isEmpty() ? "." : directory);
+		if (!Files.isDirectory(root)){
+			throw new APIException("Input directory not found: " + root);
+		}
+		int depth = relativePattern.contains("**") ? Integer.MAX_VALUE
+												   : relativePattern.split("[/\\\\]").length;
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + relativePattern);
+		List<Path> matched = list(root, depth, file -> matcher.matches(root.relativize(file)));
+		if (directory.isEmpty()){
+			// "*.txt" gives "a.txt" and not "./a.txt"
+			List<Path> relative = new ArrayList<>(matched.size());
+			for (Path file : matched){
+				relative.add(root.relativize(file));
+			}
+			return relative;
+		}
+		return matched;
+	}
+
+	private static List<Path> list(Path directory, int depth, Predicate<Path> filter){
+		try (Stream<Path> paths = Files.walk(directory, depth)){
+			return paths.filter(Files::isRegularFile).filter(filter).sorted().collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new APIException("IOException when listing input files: " + e.getMessage());
+		}
+	}
+
+	/*
+	 * Packing
+	 */
+
+	/*
+	 * the results of each input to <directory>/<input file name>.out, the directory is created when missing
+	 * throw APIException when two inputs have the same file name
+	 */
+	public Summary packToDirectory(List<Path> inputs, Path directory){
+		Set<String> names = new HashSet<>();
+		for (Path input : inputs){
+			if (!names.add(input.getFileName().toString())){
+				throw new APIException("Two input files are named " + input.getFileName() + ", use --output instead of --output-dir");
+			}
+		}
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new APIException("IOException when creating output directory: " + e.getMessage());
+		}
+		return packAll(inputs, input -> {
+			Path output = directory.resolve(input.getFileName() + OUTPUT_SUFFIX + CompressedStreams.suffixOf(outputCompression));
+			try (Writer out = new BufferedWriter(Packer.openOutput(output, outputCompression))){
+				long lines = packer.packFile(input, out);
+				out.write('\n');
+				return lines;
+			} catch (IOException e) {
+				throw new APIException("IOException when writing output file: " + e.getMessage());
+			} catch (APIException e) {
+				try {
+					Files.deleteIfExists(output);
+				} catch (IOException deleteException) {
+					// the error of the line is the one to report
+				}
+				throw e;
+			}
+		});
+	}
+
+	// the results of all the inputs to out, each one after a "# <input path>" line - out is flushed but not closed
+	public Summary packTagged(List<Path> inputs, Writer out){
+		Summary summary = packAll(inputs, input -> {
+			StringWriter results = new StringWriter();
+			long lines = packer.packFile(input, results);
+			synchronized (out){
+				try {
+					out.write(TAG_PREFIX + input + '\n');
+					out.write(results.toString());
+					out.write('\n');
+				} catch (IOException e) {
+					throw new APIException("IOException when writing results: " + e.getMessage());
+				}
+			}
+			return lines;
+		});
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new APIException("IOException when writing results: " + e.getMessage());
+		}
+		return summary;
+	}
+
+	// packs one file, return its number of lines
+	private interface FilePacking {
+		long pack(Path input);
+	}
+
+	private Summary packAll(List<Path> inputs, FilePacking filePacking){
+		FileResult[] results = new FileResult[inputs.size()];
+		long start = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(configuration.getParallelism());
+		try {
+			pool.invoke(new PackTask(inputs, filePacking, results, 0, inputs.size()));
+		} finally {
+			pool.shutdown();
+		}
+		List<FileResult> files = new ArrayList<>(results.length);
+		Collections.addAll(files, results);
+		return new Summary(files, System.nanoTime() - start);
+	}
+
+	// halves the range of files until one file is left
+	private static class PackTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Path> inputs;
+		private final FilePacking filePacking;
+		private final FileResult[] results;
+		private final int from;
+		private final int to;
+
+		private PackTask(List<Path> inputs, FilePacking filePacking, FileResult[] results, int from, int to){
+			this.inputs = inputs;
+			this.filePacking = filePacking;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1){
+				int middle = (from + to) >>> 1;
+				invokeAll(new PackTask(inputs, filePacking, results, from, middle),
+						  new PackTask(inputs, filePacking, results, middle, to));
+				return;
+			}
+			if (from == to){
+				return;
+			}
+			Path input = inputs.get(from);
+			long start = System.nanoTime();
+			try {
+				long lines = filePacking.pack(input);
+				results[from] = new FileResult(input, lines, System.nanoTime() - start, null);
+			} catch (APIException e) {
+				results[from] = new FileResult(input, 0, System.nanoTime() - start, e.getMessage());
+			}
+		}
+	}
+
+	// compression of the packToDirectory files, their names get the suffix of the compression (e.g. a.txt.out.gz)
+	public void setOutputCompression(Compression outputCompression){
+		this.outputCompression = outputCompression;
+	}
+
+	// error records of the invalid lines of all the files (see Packer.setErrorWriter)
+	public void setErrorWriter(Writer errors){
+		packer.setErrorWriter(errors);
+	}
+
+	// counters of the shared Packer (planner, reduction, cache, metrics...) - empty when there are none
+	public String packerReport(){
+		return packer.report();
+	}
+
+	/*
+	 * Results
+	 */
+
+	public static class FileResult {
+
+		private final Path input;
+		private final long lines;
+		private final long nanos;
+		private final String error;
+
+		private FileResult(Path input, long lines, long nanos, String error){
+			this.input = input;
+			this.lines = lines;
+			this.nanos = nanos;
+			this.error = error;
+		}
+
+		public Path getInput() {
+			return input;
+		}
+
+		public long getLines() {
+			return lines;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		// null when the file was packed
+		public String getError() {
+			return error;
+		}
+
+		public boolean isFailed() {
+			return error != null;
+		}
+	}
+
+	public static class Summary {
+
+		private final List<FileResult> files;
+		private final long nanos;
+
+		private Summary(List<FileResult> files, long nanos){
+			this.files = files;
+			this.nanos = nanos;
+		}
+
+		// in input order
+		public List<FileResult> getFiles() {
+			return files;
+		}
+
+		// wall clock time of the whole batch
+		public long getNanos() {
+			return nanos;
+		}
+
+		public long getLines(){
+			long lines = 0;
+			for (FileResult file : files){
+				lines += file.getLines();
+			}
+			return lines;
+		}
+
+		public List<FileResult> getFailedFiles(){
+			return files.stream().filter(FileResult::isFailed).collect(Collectors.toList());
+		}
+
+		// e.g. files=120 failed=1 lines=1200000 time=5300ms throughput=226415 lines/s
+		//      failed in/bad.txt: <message>
+		public String report(){
+			long millis = nanos / 1_000_000;
+			long throughput = nanos == 0 ? 0 : Math.round(getLines() * 1e9 / nanos);
+			StringBuilder report = new StringBuilder();
+			report.append("files=").append(files.size()).append(" failed=").append(getFailedFiles().size())
+				  .append(" lines=").append(getLines()).append(" time=").append(millis).append("ms")
+				  .append(" throughput=").append(throughput).append(" lines/s");
+			for (FileResult file : getFailedFiles()){
+				report.append("\nfailed ").append(file.getInput()).append(": ").append(file.getError());
+			}
+			return report.toString();
+		}
+	}
+
+	/*
+	 * Batch mode of Packer.main - the summary and the Packer counters go to the standard error
+	 * throw APIException at the end when some of the files failed
+	 */
+	static void run(PackerCommandLine commandLine){
+		List<Path> inputs = resolve(commandLine.getInputPaths());
+		BatchFilePacker batchPacker = new BatchFilePacker(commandLine.getConfiguration());
+		batchPacker.packer.publishMetrics("batch");
+		Summary summary;
+		try (Writer errors = Packer.openErrors(commandLine.getErrorsPath())){
+			if (errors != null){
+				batchPacker.setErrorWriter(errors);
+			}
+			batchPacker.setOutputCompression(commandLine.getCompression());
+			if (commandLine.getOutputDirectory() != null){
+				summary = batchPacker.packToDirectory(inputs, Paths.get(commandLine.getOutputDirectory()));
+			} else if (commandLine.getOutputPath() != null){
+				try (Writer out = new BufferedWriter(Packer.openOutput(Paths.get(commandLine.getOutputPath()), commandLine.getCompression()))){
+					summary = batchPacker.packTagged(inputs, out);
+				}
+			} else {
+				summary = batchPacker.packTagged(inputs, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+			}
+		} catch (IOException e) {
+			throw new APIException("IOException when writing output file: " + e.getMessage());
+		}
+		System.err.println(summary.report());
+		String report = batchPacker.packerReport();
+		if (!report.isEmpty()){
+			System.err.println(report);
+		}
+		if (!summary.getFailedFiles().isEmpty()){
+			throw new APIException(summary.getFailedFiles().size() + " of " + inputs.size() + " files failed");
+		}
+	}
+}
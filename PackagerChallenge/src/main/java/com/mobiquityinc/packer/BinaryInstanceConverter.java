@@ -0,0 +1,103 @@
+package com.mobiquityinc.packer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.parsers.BinaryInstanceWriter;
+import com.mobiquityinc.packer.parsers.IParsingAlgorithm;
+
+/*
+ * Converts a text input of the Packer to a binary pre-parsed input (see BinaryInstanceFormat)
+ *
+ * Each line is parsed once, by the parser and with the limits of the configuration (same as the Packer),
+ * and written as the parser left it. Lines the parser rejects are written with their message, so a replay
+ * gets the same results and errors as the text. The Packer recognizes a binary input by its first bytes
+ * and reads it with BinaryInstanceReader - no text parsing at all (see Packer, "Binary inputs").
+ * Compressed text inputs are converted as well (see CompressedStreams).
+ *
+ * usage: BinaryInstanceConverter <text input> <binary output> [--parser default|scanner] [--profile challenge|large]
+ */
+
+public class BinaryInstanceConverter {
+
+	private final IParsingAlgorithm parser;
+	private final int weightFactor;
+	private long lines;
+	private long invalidLines;
+
+	public BinaryInstanceConverter(PackerConfiguration configuration){
+		this.weightFactor = Packer.weightFactorOf(configuration);
+		this.parser       = Packer.createParser(configuration, weightFactor);
+	}
+
+	// return the number of lines - throw APIException when the input can't be read (the output is deleted) or written
+	public long convert(Path input, Path output){
+		ItemBatch batch = new ItemBatch();
+		long converted = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(CompressedStreams.openInput(input), StandardCharsets.UTF_8));
+			 BinaryInstanceWriter writer = new BinaryInstanceWriter(output, weightFactor)){
+			String line;
+			while ((line = reader.readLine()) != null){
+				String error;
+				try {
+					// same message as the Packer for an empty line
+					error = parser.parse(line, batch) ? null : "Line is empty";
+				} catch (APIException e) {
+					error = e.getMessage();
+				}
+				if (error == null){
+					writer.write(batch);
+				} else {
+					writer.writeInvalid(error);
+					invalidLines++;
+				}
+				converted++;
+			}
+			// the header is written once the whole input was read, a failed read leaves no output
+			writer.finish();
+		} catch (IOException e) {
+			throw new APIException("IOException when converting file: " + e.getMessage());
+		}
+		lines += converted;
+		return converted;
+	}
+
+	// e.g. binary lines=1000 invalid=3
+	public String report(){
+		return "binary lines=" + lines + " invalid=" + invalidLines;
+	}
+
+	public static void main(String[] args){
+		PackerConfiguration configuration = new PackerConfiguration();
+		String input = null;
+		String output = null;
+		for (int i = 0; i < args.length; i++){
+			String arg = args[i];
+			if ("--parser".equals(arg) || "--profile".equals(arg)){
+				i = PackerCommandLine.parseOption(configuration, args, i);
+			} else if (arg.startsWith("--")){
+				throw new APIException("Unknown parameter: " + arg);
+			} else if (input == null){
+				input = arg;
+			} else if (output == null){
+				output = arg;
+			} else {
+				throw new APIException("Unexpected parameter: " + arg);
+			}
+		}
+		if (output == null){
+			throw new APIException("Text input and binary output file paths are required as parameters");
+		}
+		BinaryInstanceConverter converter = new BinaryInstanceConverter(configuration);
+		long start = System.nanoTime();
+		converter.convert(Paths.get(input), Paths.get(output));
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		System.err.println(converter.report() + " time=" + millis + "ms");
+	}
+}
@@ -0,0 +1,137 @@
+package com.mobiquityinc.packer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Progress of a Packer run to an output file (see Packer.processWithCheckpoints)
+ *
+ * lineNumber   : lines whose results are in the output
+ * inputOffset  : byte offset of the input right after these lines
+ * outputOffset : byte offset of the output right after their results
+ * invalidLines : invalid lines among them (PackerConfiguration.isSkipInvalidLines())
+ * errorsOffset : byte offset of the errors file right after their error records (0 without an errors file)
+ * inputSize, inputModified : of the input file - a resumed run checks the input was not changed
+ *
+ * The file is a small properties text file. write() replaces it atomically (a temporary file forced to the disk
+ * and moved over it), so after a crash the file holds either the previous or the new checkpoint.
+ */
+
+public class Checkpoint {
+
+	public static final String FILE_SUFFIX = ".checkpoint";
+
+	private final long lineNumber;
+	private final long inputOffset;
+	private final long outputOffset;
+	private final long invalidLines;
+	private final long errorsOffset;
+	private final long inputSize;
+	private final long inputModified;
+
+	public Checkpoint(long lineNumber, long inputOffset, long outputOffset, long invalidLines, long errorsOffset,
+					  long inputSize, long inputModified){
+		this.lineNumber    = lineNumber;
+		this.inputOffset   = inputOffset;
+		this.outputOffset  = outputOffset;
+		this.invalidLines  = invalidLines;
+		this.errorsOffset  = errorsOffset;
+		this.inputSize     = inputSize;
+		this.inputModified = inputModified;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	public long getInputOffset() {
+		return inputOffset;
+	}
+
+	public long getOutputOffset() {
+		return outputOffset;
+	}
+
+	public long getInvalidLines() {
+		return invalidLines;
+	}
+
+	public long getErrorsOffset() {
+		return errorsOffset;
+	}
+
+	public long getInputSize() {
+		return inputSize;
+	}
+
+	public long getInputModified() {
+		return inputModified;
+	}
+
+	// the checkpoint file of an output file - <output>.checkpoint
+	public static Path pathOf(Path output){
+		return output.resolveSibling(output.getFileName() + FILE_SUFFIX);
+	}
+
+	// null when there is no checkpoint file - throw APIException when it can't be read
+	public static Checkpoint read(Path path){
+		if (!Files.exists(path)){
+			return null;
+		}
+		Properties properties = new Properties();
+		try {
+			properties.load(new StringReader(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+			return new Checkpoint(parse(properties, "lineNumber"), parse(properties, "inputOffset"),
+								  parse(properties, "outputOffset"), parse(properties, "invalidLines"),
+								  parse(properties, "errorsOffset"),
+								  parse(properties, "inputSize"), parse(properties, "inputModified"));
+		} catch (IOException e) {
+			throw new APIException("IOException when reading checkpoint " + path + ": " + e.getMessage());
+		}
+	}
+
+	private static long parse(Properties properties, String key){
+		String value = properties.getProperty(key);
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NullPointerException | NumberFormatException e) {
+			throw new APIException("Invalid checkpoint - " + key + "=" + value);
+		}
+	}
+
+	public void write(Path path){
+		String text = "lineNumber=" + lineNumber + "\ninputOffset=" + inputOffset + "\noutputOffset=" + outputOffset
+					+ "\ninvalidLines=" + invalidLines + "\nerrorsOffset=" + errorsOffset
+					+ "\ninputSize=" + inputSize + "\ninputModified=" + inputModified + "\n";
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+														StandardOpenOption.TRUNCATE_EXISTING)){
+				ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+				while (bytes.hasRemaining()){
+					channel.write(bytes);
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new APIException("IOException when writing checkpoint " + path + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Checkpoint [lineNumber=" + lineNumber + ", inputOffset=" + inputOffset + ", outputOffset=" + outputOffset
+				+ ", invalidLines=" + invalidLines + ", errorsOffset=" + errorsOffset + "]";
+	}
+}
@@ -0,0 +1,235 @@
+package com.mobiquityinc.packer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Compressed input and output files of the Packer
+ *
+ * Inputs are recognized by their first bytes, whatever their name:
+ *   GZIP    - 1f 8b (.gz files, also several concatenated members)
+ *   DEFLATE - the zlib header of a 32K window deflate stream: 78 01 / 78 5e / 78 9c / 78 da (.zz files)
+ *             (other window sizes are not recognized - e.g. "80" in a text file is a valid zlib header of a 2K window)
+ *   NONE    - anything else, read as it is
+ * A compressed input is decompressed on its own thread into a few large blocks ahead of the reader
+ * (ReadAheadInputStream), so decompression and parsing run at the same time and nothing is written to the disk.
+ *
+ * Outputs are compressed with the Compression given (--compress gzip|deflate).
+ */
+
+public class CompressedStreams {
+
+	public enum Compression {
+		NONE,
+		GZIP,
+		DEFLATE
+	}
+
+	// file read and inflater buffers
+	private static final int IO_BUFFER_SIZE = 256 * 1024;
+	// blocks decompressed ahead of the reader
+	private static final int BLOCK_SIZE     = 1024 * 1024;
+	private static final int BLOCKS_AHEAD   = 4;
+
+	private CompressedStreams(){
+	}
+
+	// the compression of the file by its first bytes - throw APIException when it can't be read
+	public static Compression detect(Path path){
+		try (InputStream in = Files.newInputStream(path)){
+			byte[] header = new byte[2];
+			int length = in.readNBytes(header, 0, 2);
+			return length < 2 ? Compression.NONE : detect(header[0] & 0xff, header[1] & 0xff);
+		} catch (IOException e) {
+			throw new APIException("Exception when trying to open file: " + e.getMessage());
+		}
+	}
+
+	private static Compression detect(int first, int second){
+		if (first == 0x1f && second == 0x8b){
+			return Compression.GZIP;
+		}
+		// zlib: deflate with a 32K window, no preset dictionary, one of the four compression levels
+		if (first == 0x78 && (second == 0x01 || second == 0x5e || second == 0x9c || second == 0xda)){
+			return Compression.DEFLATE;
+		}
+		return Compression.NONE;
+	}
+
+	/*
+	 * the (decompressed) content of the file from the given offset of the content
+	 * an uncompressed file is positioned right away, a compressed one is decompressed up to the offset
+	 */
+	public static InputStream openInput(Path path, long offset) throws IOException {
+		Compression compression = detect(path);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		if (compression == Compression.NONE){
+			channel.position(offset);
+			return Channels.newInputStream(channel);
+		}
+		InputStream in = new BufferedInputStream(Channels.newInputStream(channel), IO_BUFFER_SIZE);
+		try {
+			// GZIPInputStream reads the gzip header right away
+			in = compression == Compression.GZIP ? new GZIPInputStream(in, IO_BUFFER_SIZE) : new InflaterInputStream(in);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+		InputStream content = new ReadAheadInputStream(in, path.getFileName().toString());
+		try {
+			content.skipNBytes(offset);
+		} catch (IOException e) {
+			content.close();
+			throw e;
+		}
+		return content;
+	}
+
+	public static InputStream openInput(Path path) throws IOException {
+		return openInput(path, 0);
+	}
+
+	// a new (or truncated) file - closing the stream finishes the compressed format
+	public static OutputStream openOutput(Path path, Compression compression) throws IOException {
+		OutputStream out = Files.newOutputStream(path);
+		if (compression == Compression.GZIP){
+			return new GZIPOutputStream(out, IO_BUFFER_SIZE);
+		} else if (compression == Compression.DEFLATE){
+			return new DeflaterOutputStream(out, new Deflater(), IO_BUFFER_SIZE) {
+				@Override
+				public void close() throws IOException {
+					// the Deflater given is not ended by DeflaterOutputStream
+					try {
+						super.close();
+					} finally {
+						def.end();
+					}
+				}
+			};
+		}
+		return new BufferedOutputStream(out, IO_BUFFER_SIZE);
+	}
+
+	// the file suffix of the compression - .gz, .zz or none
+	public static String suffixOf(Compression compression){
+		return compression == Compression.GZIP ? ".gz" : compression == Compression.DEFLATE ? ".zz" : "";
+	}
+
+	/*
+	 * Reads the source on a daemon thread into blocks of BLOCK_SIZE bytes, up to BLOCKS_AHEAD blocks ahead
+	 * of the reader. An exception of the source is thrown to the reader when it gets there.
+	 * close() stops the thread and closes the source.
+	 */
+	static class ReadAheadInputStream extends InputStream {
+
+		// end of the source
+		private static final byte[] END = new byte[0];
+
+		private final InputStream source;
+		private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(BLOCKS_AHEAD);
+		private final Thread reader;
+		private volatile IOException failure;
+		private byte[] block;
+		private int position;
+
+		ReadAheadInputStream(InputStream source, String name){
+			this.source = source;
+			this.reader = new Thread(this::readAhead, "packer-read-ahead-" + name);
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		private void readAhead(){
+			try {
+				while (true){
+					byte[] buffer = new byte[BLOCK_SIZE];
+					int length = source.readNBytes(buffer, 0, BLOCK_SIZE);
+					if (length > 0){
+						blocks.put(length == BLOCK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+					}
+					if (length < BLOCK_SIZE){
+						break;
+					}
+				}
+			} catch (IOException e) {
+				failure = e;
+			} catch (InterruptedException e) {
+				// closed by the reader
+				return;
+			}
+			try {
+				blocks.put(END);
+			} catch (InterruptedException e) {
+				// closed by the reader
+			}
+		}
+
+		// false at the end of the source
+		private boolean nextBlock() throws IOException {
+			while (block == null || position == block.length){
+				if (block == END){
+					return false;
+				}
+				try {
+					block = blocks.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while reading " + reader.getName());
+				}
+				position = 0;
+				if (block == END && failure != null){
+					throw failure;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return nextBlock() ? block[position++] & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0){
+				return 0;
+			}
+			if (!nextBlock()){
+				return -1;
+			}
+			int count = Math.min(length, block.length - position);
+			System.arraycopy(block, position, bytes, offset, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.interrupt();
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			source.close();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.mobiquityinc.packer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * UTF-8 line reader which knows the byte offset of the input after the last line read (see Checkpoint)
+ *
+ * Same lines as BufferedReader.readLine() over an UTF-8 InputStreamReader: a line ends with "\n", "\r" or "\r\n",
+ * the terminator is not part of the line and malformed bytes are replaced the same way.
+ * A line is decoded only once its terminator (or the end of the input) was read, so getOffset() is always
+ * the offset of the start of the next line.
+ */
+
+class LineOffsetReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream in;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	// bytes of the current line
+	private byte[] line = new byte[256];
+	private long offset;
+
+	// offset - the byte offset of in in the input (i.e. the bytes before it were skipped)
+	LineOffsetReader(InputStream in, long offset){
+		this.in     = in;
+		this.offset = offset;
+	}
+
+	// null at the end of the input
+	String readLine() throws IOException {
+		int length = 0;
+		while (true){
+			if (!fill()){
+				return length == 0 ? null : decode(length);
+			}
+			byte b = buffer[position++];
+			offset++;
+			if (b == '\n'){
+				return decode(length);
+			}
+			if (b == '\r'){
+				// a '\n' right after it is part of the same terminator - read it now so the offset is after it
+				if (fill() && buffer[position] == '\n'){
+					position++;
+					offset++;
+				}
+				return decode(length);
+			}
+			if (length == line.length){
+				line = Arrays.copyOf(line, length * 2);
+			}
+			line[length++] = b;
+		}
+	}
+
+	// false at the end of the input
+	private boolean fill() throws IOException {
+		if (position < limit){
+			return true;
+		}
+		limit    = Math.max(in.read(buffer), 0);
+		position = 0;
+		return limit > 0;
+	}
+
+	// the byte offset of the input after the last line read, with its terminator
+	long getOffset(){
+		return offset;
+	}
+
+	private String decode(int length){
+		return new String(line, 0, length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -1,21 +1,53 @@
 package com.mobiquityinc.packer;
 
 import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import com.mobiquityinc.com.viewer.DefaultPackagingViewer;
-import com.mobiquityinc.entities.ParsedLineEntity;
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.exception.APIException;
 import com.mobiquityinc.packer.controller.LineParserController;
 import com.mobiquityinc.packer.controller.PackerController;
+import com.mobiquityinc.packer.CompressedStreams.Compression;
+import com.mobiquityinc.packer.ParallelLineProcessor.LineSource;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
+import com.mobiquityinc.packer.parsers.BinaryInstanceReader;
+import com.mobiquityinc.packer.parsers.ByteScanningPackerParser;
 import com.mobiquityinc.packer.parsers.DefaultPackerParser;
+import com.mobiquityinc.packer.parsers.IParsingAlgorithm;
+import com.mobiquityinc.packer.stratetgy.CachingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.FptasPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.IPackagingAlgorithm;
 import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.NormalizingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.ParetoFrontierPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.PlanningPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.ReducingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.ScratchArena;
+import com.mobiquityinc.packer.stratetgy.SubsetEnumerationPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.VectorKnapSackPackagingStrategy;
 
 /***
  * 
@@ -56,6 +88,10 @@ import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
  *	 MAX ITEMS NUMBER        =  15
  *	 MAX PACKAGE CAPACITY    = 100
  *
+ *   These are the limits of ConstraintProfile.CHALLENGE (the default), the LARGE profile
+ *   (command line option --profile large) accepts up to 10000 items and capacities up to 100000.
+ *   Each parser has its own profile.
+ *
  *   The program can be used by calling com.mobiquityinc.packer.Packer static method:
  *	 String pack(String filepath);
  *   Where filepath is an absolute file path to the input file
@@ -104,13 +140,101 @@ import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
  * 
  * 		Complexity
  *  	Time  Complexity: O(nW)
- *  	Space Complexity: O(nW)
+ *  	Space Complexity: O(nW) - the Packer uses the ROLLING_ROW mode of the strategy
+ *  	                  which keeps one row of values and nW bits of decisions
  *  
  *  	Where: W is the max capacity fixed by the weight factor
  *  		   So, if capacity = w and the precision is 2 then W = 100*w
  *  
  *  		   n = number of items.
  *  
+ * 		Parallel mode:
+ * 		Lines are independent test cases, therefore they can be parsed and solved by a pool of workers.
+ * 		Use Packer.pack(filePath, parallelism) or the command line option --parallel N
+ * 		The results are returned in the order of the input lines (see ParallelLineProcessor)
+ * 
+ * 		Solvers:
+ * 		The knapsack cost depends on the capacity, i.e. grows by 10 with each digit of precision.
+ * 		SubsetEnumerationPackagingStrategy (option --solver enumeration) enumerates the subsets of the items
+ * 		in Gray code order (meet in the middle for more than 20 items) - O(2^n) regardless of the capacity
+ * 		Both return the same selection, ties included.
+ * 		PlanningPackagingStrategy (option --solver planner) estimates per line the cost of the capacity knapsack,
+ * 		a knapsack indexed by the total cost, subset enumeration and branch and bound, and runs the cheapest.
+ * 		The command line prints the engines used, their time and time per estimated step to the standard error.
+ * 		ParetoFrontierPackagingStrategy (option --solver pareto) keeps only the non dominated (weight, cost)
+ * 		states of the items seen so far, so it scales with the size of that frontier and not with n * capacity.
+ * 		FptasPackagingStrategy (option --approximate EPS) is not exact: it scales the costs down so the time is
+ * 		O(n^2 / EPS), and each selection is within (1 - EPS) of the optimum. The worst and mean achieved bound
+ * 		(selection / LP upper bound) are printed to the standard error.
+ * 		VectorKnapSackPackagingStrategy (option --solver vector) is the knapsack with the row update on IntVector
+ * 		lanes (Java Vector API), same selection. It needs java --add-modules jdk.incubator.vector and falls back
+ * 		to the scalar row update otherwise - the kernel used is printed to the standard error.
+ * 
+ * 		Normalization:
+ * 		Before solving, the weights and the capacity of each line are divided by the GCD of the weights
+ * 		(NormalizingPackagingStrategy), e.g. whole number weights with precision 2 are divided by 100 at least.
+ * 		The same subsets fit so the results do not change. Use --no-normalize to turn it off.
+ * 
+ * 		Reduction:
+ * 		Before normalization each line goes through ReducingPackagingStrategy: when all the items fit they
+ * 		are selected right away, items dominated by lighter and not cheaper items which fill the package are
+ * 		dropped and items are fixed in or out when the LP bound can't reach the greedy packing otherwise.
+ * 		Only the remaining core is solved. Use --no-reduce to turn it off, --metrics prints its counters.
+ * 
+ * 		Cache:
+ * 		Repeated lines (same capacity and items, in any order) can be answered from a bounded LRU cache
+ * 		of results (CachingPackagingStrategy, option --cache N). Its hit/miss/eviction counters are printed
+ * 		to the standard error at the end.
+ * 
+ * 		Parsers:
+ * 		DefaultPackerParser is used by default. ByteScanningPackerParser (option --parser scanner)
+ * 		applies the same rules while scanning the UTF-8 bytes of the line, without split/regex/float parsing
+ * 
+ * 		Streaming:
+ * 		Packer.pack(Path in, Writer out) (or OutputStream) writes the results as soon as their chunk is solved
+ * 		so memory usage does not depend on the size of the input file.
+ * 		The command line always streams its results, to the standard output or to --output <file path>
+ * 
+ * 		Items:
+ * 		Lines are parsed into an ItemBatch (ids, weights and costs as int arrays) which goes through
+ * 		the parser, the solver and the viewer without boxing. The List<ItemEntity> API is kept, strategies
+ * 		and parsers which don't implement the ItemBatch methods are adapted from their list methods.
+ * 		The batches and the solver buffers are per thread scratch buffers (ScratchArena), sized to the
+ * 		largest line seen so far and dropped after being idle for a while, so steady state solving
+ * 		allocates (almost) nothing per line. Lines are read and solved in chunks of CHUNK_SIZE lines
+ * 		with one call to the batch API of the solver.
+ * 
+ * 		Grouped lines:
+ * 		With --group-items the lines of a chunk (GROUP_CHUNK_SIZE lines) which have the same items and different
+ * 		capacities are solved by one run of the solver at their largest capacity (PackerController.selectItemsGrouped),
+ * 		the results are still written in the input lines order.
+ * 
+ * 		Invalid lines:
+ * 		By default the first invalid line stops the run with APIException. With --skip-invalid an invalid line
+ * 		gets INVALID_LINE_RESULT in the output and a "<file>:<line number>: <message>" record in the error stream
+ * 		(--errors <file path>, the standard error otherwise), and the run goes on. --max-invalid N stops the run
+ * 		after N invalid lines (the results written so far are kept). The counts are printed at the end.
+ * 
+ * 		Checkpoints:
+ * 		With --output <file> --checkpoint the run records every 100000 lines (--checkpoint-lines N) the input byte
+ * 		offset, the line number and the output byte offset of the results forced to the disk (<file>.checkpoint).
+ * 		Running the same command again after a crash resumes from there with the same final output (and the same
+ * 		--errors file, truncated to its checkpointed offset as well).
+ * 
+ * 		Compressed files:
+ * 		gzip and deflate (zlib) inputs are read as they are, recognized by their first bytes and not by their name.
+ * 		The decompression runs on its own thread ahead of the parsing (see CompressedStreams).
+ * 		--compress gzip|deflate compresses the output file (or the files of --output-dir, named <input>.out.gz / .zz).
+ * 
+ * 		Binary inputs:
+ * 		BinaryInstanceConverter writes a text input as the parser leaves it (see BinaryInstanceFormat). The Packer
+ * 		recognizes such a file by its first bytes and reads the lines straight into the solver input by line number
+ * 		(BinaryInstanceReader) - replays of the same dataset skip the text parsing, with the same results and errors.
+ * 
+ * 		Server:
+ * 		PackerServer (com.mobiquityinc.packer.server) keeps one Packer running and packs lines sent to it over
+ * 		local HTTP (POST /pack, GET /health), so the JVM start up and the warm up are paid once.
+ * 
  * 		Build:
  * 		Standard maven - use 'mvn clean install' from root directory
  *
@@ -118,71 +242,609 @@ import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
 
 public class Packer {
 	
+	// the result of an invalid line when PackerConfiguration.isSkipInvalidLines()
+	public static final String INVALID_LINE_RESULT = "error";
+	// --checkpoint
+	public static final int DEFAULT_CHECKPOINT_LINES = 100_000;
+	
+	private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+	// prefix of the result of an invalid line in a chunk, followed by the message - results never start with it
+	private static final char INVALID_LINE_MARK = '\0';
+	private static final int CHUNK_SIZE         = ParallelLineProcessor.DEFAULT_CHUNK_SIZE;
+	// lines are grouped within a chunk - a larger chunk finds more lines with the same items
+	private static final int GROUP_CHUNK_SIZE   = 4096;
+	
 	private final String         filePath;
 	private LineParserController parserController;
 	private PackerController     packagerController;
 	private int weightFactor = 1;
+	private int parallelism  = 1;
+	// only set for the PLANNER solver - to report which engines were used
+	private PlanningPackagingStrategy planner;
+	// only set for the FPTAS solver - to report the achieved bound
+	private FptasPackagingStrategy approximation;
+	// only set for the VECTOR_DP solver - to report the kernel used
+	private VectorKnapSackPackagingStrategy vectorKnapSack;
+	// only set when the reduction is enabled - to report its counters (with the metrics)
+	private ReducingPackagingStrategy reduction;
+	// only set when the cache is enabled - to report its counters
+	private CachingPackagingStrategy cache;
+	// only set when the metrics are enabled
+	private PackerMetrics metrics;
+	// without normalization the capacity of the line is the capacity solved
+	private boolean recordCapacity;
+	private int metricsInterval;
+	// solve the lines with the same items together (PackerController.selectItemsGrouped)
+	private boolean groupLines;
+	private int chunkSize = CHUNK_SIZE;
+	// invalid lines are written as INVALID_LINE_RESULT and recorded to errors instead of stopping the run
+	private boolean skipInvalidLines;
+	private long maxInvalidLines;
+	private Writer errors = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+	private final AtomicLong invalidLines = new AtomicLong();
+	private final LongAdder packedLines   = new LongAdder();
+	private volatile boolean invalidLinesExceeded;
 	
 	public Packer(String filePath){
-		this(filePath,2);
+		this(filePath, new PackerConfiguration());
 	}
 	
 	public Packer(String filePath, int weightPrecision){
+		this(filePath, new PackerConfiguration(weightPrecision, PackerConfiguration.DEFAULT_PARALLELISM));
+	}
+	
+	// without an input file - lines are given to packLines(...) (see PackerServer)
+	public Packer(PackerConfiguration configuration){
+		this(null, configuration);
+	}
+	
+	public Packer(String filePath, PackerConfiguration configuration){
 		this.filePath = filePath;
-		this.weightFactor = (int) Math.pow(10d, (double)weightPrecision);
-		parserController     = new LineParserController(new DefaultPackerParser(weightFactor));
-		packagerController   = new PackerController(new KnapSackPackagingStrategy(),
+		this.weightFactor = weightFactorOf(configuration);
+		this.parallelism  = configuration.getParallelism();
+		this.skipInvalidLines = configuration.isSkipInvalidLines();
+		this.maxInvalidLines  = configuration.getMaxInvalidLines();
+		if (configuration.isGroupLines()){
+			groupLines = true;
+			chunkSize  = GROUP_CHUNK_SIZE;
+		}
+		if (configuration.isMetrics()){
+			metrics = new PackerMetrics();
+			recordCapacity = !configuration.isNormalizeWeights();
+			metricsInterval = configuration.getMetricsInterval();
+		}
+		// both the parser and the strategy are stateless and can be shared by parallel workers
+		parserController     = new LineParserController(createParser(configuration, weightFactor));
+		packagerController   = new PackerController(createStrategy(configuration),
 													new DefaultPackagingViewer());
+		packagerController.setMetrics(metrics);
 	}
 	
+	// the weights and capacities are multiplied by it - 10 to the power of the weight precision
+	static int weightFactorOf(PackerConfiguration configuration){
+		return (int) Math.pow(10d, (double)configuration.getWeightPrecision());
+	}
+	
+	// also used by BinaryInstanceConverter, so a binary input holds the lines as this Packer parses them
+	static IParsingAlgorithm createParser(PackerConfiguration configuration, int weightFactor){
+		if (configuration.getParserType() == PackerConfiguration.ParserType.BYTE_SCANNER){
+			return new ByteScanningPackerParser(weightFactor, configuration.getConstraints());
+		}
+		return new DefaultPackerParser(weightFactor, configuration.getConstraints());
+	}
+	
+	private IPackagingAlgorithm createStrategy(PackerConfiguration configuration){
+		IPackagingAlgorithm strategy;
+		if (configuration.getSolverType() == PackerConfiguration.SolverType.SUBSET_ENUMERATION){
+			strategy = new SubsetEnumerationPackagingStrategy();
+		} else if (configuration.getSolverType() == PackerConfiguration.SolverType.PLANNER){
+			planner  = new PlanningPackagingStrategy();
+			planner.setMetrics(metrics);
+			strategy = planner;
+		} else if (configuration.getSolverType() == PackerConfiguration.SolverType.PARETO){
+			strategy = new ParetoFrontierPackagingStrategy();
+		} else if (configuration.getSolverType() == PackerConfiguration.SolverType.FPTAS){
+			approximation = new FptasPackagingStrategy(configuration.getEpsilon());
+			approximation.setMetrics(metrics);
+			strategy      = approximation;
+		} else if (configuration.getSolverType() == PackerConfiguration.SolverType.VECTOR_DP){
+			vectorKnapSack = new VectorKnapSackPackagingStrategy();
+			vectorKnapSack.setMetrics(metrics);
+			strategy       = vectorKnapSack;
+		} else {
+			KnapSackPackagingStrategy knapSack = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+			knapSack.setMetrics(metrics);
+			strategy = knapSack;
+		}
+		if (configuration.isNormalizeWeights()){
+			NormalizingPackagingStrategy normalizing = new NormalizingPackagingStrategy(strategy);
+			normalizing.setMetrics(metrics);
+			strategy = normalizing;
+		}
+		if (configuration.isReduceItems()){
+			reduction = new ReducingPackagingStrategy(strategy);
+			strategy  = reduction;
+		}
+		if (configuration.isCacheEnabled()){
+			cache    = new CachingPackagingStrategy(strategy, configuration.getCacheSize());
+			strategy = cache;
+		}
+		return strategy;
+	}
+	
+	// return all the results as one string - the results are kept in memory
 	private String process(){
+		StringWriter writer = new StringWriter();
+		process(writer);
+		return writer.toString();
+	}
+	
+	/*
+	 * Stream the results to the writer - the results are written chunk by chunk
+	 * therefore memory usage does not depend on the size of the input.
+	 * Results are separated by "\n", there is no separator after the last result.
+	 * The writer is flushed but not closed.
+	 */
+	private void process(Writer out){
+		process(filePath, out, parallelism);
+	}
+	
+	/*
+	 * Stream the results of one input file on the calling thread (see BatchFilePacker)
+	 * return the number of lines
+	 */
+	long packFile(Path in, Writer out){
+		return process(in.toString(), out, 1);
+	}
+	
+	// return the number of lines
+	long process(String path, Writer out, int threads){
+		if (invalidLinesExceeded){
+			// e.g. the next files of a batch
+			throw new APIException("More than " + maxInvalidLines + " invalid lines, the run was stopped");
+		}
+		if (BinaryInstanceReader.isBinary(Paths.get(path))){
+			return processBinary(path, out, threads);
+		}
 		InputStreamReader inputStream = null;
 		try {
+			// gzip and deflate inputs are decompressed on the fly (see CompressedStreams)
+			InputStream in = CompressedStreams.openInput(Paths.get(path));
+			if (metrics != null){
+				in = metrics.meter(in);
+			}
 			// by using UTF-8 encoding we can handle signs such as '€'
-			inputStream = new InputStreamReader(new FileInputStream(filePath), "UTF-8");
-		} catch (UnsupportedEncodingException | FileNotFoundException e) {
+			inputStream = new InputStreamReader(in, "UTF-8");
+		} catch (IOException e) {
 			e.printStackTrace();
 			throw new APIException("Exception when trying to open file: " + e.getMessage());
 		}
-		String line;
-		List<String> strResults = new ArrayList<>();
+		ResultWriter resultWriter = new ResultWriter(path, out, 0, null);
 
 		// Ensures that each resource is closed at the end of the statement
 		try(BufferedReader reader = new BufferedReader(inputStream)) {
-				while ((line = reader.readLine()) != null){
-					// parse each line to a ParsedLineEntity - note that the weight and maxCapacity
-					// are corrected according to the correct factor by which the parser was constructed
-					// This
-					ParsedLineEntity parsedLine = parserController.parse(line);
-					
-					// Send the information to the packer implementation
-					// the packer compute the selected items and by using the viewer return the result string
-					strResults.add(packagerController.selectItems(parsedLine.getItemsList(),
-												   				  parsedLine.getMaxWeight()));
-				}
-				
+				processLines(reader::readLine, resultWriter, threads);
+				out.flush();
+				return resultWriter.count;
 		} 
 		catch (IOException e) {
 			throw new APIException("IOException when processing file: " + e.getMessage());
 		} 
+		catch (APIException e) {
+			if (invalidLinesExceeded){
+				// keep the results written before the run was stopped
+				flushQuietly(out);
+			}
+			throw e;
+		}
+		finally {
+			packedLines.add(resultWriter.count);
+		}
+	}
+	
+	/*
+	 * Stream the results of a binary pre-parsed input (see BinaryInstanceConverter) - the lines are read
+	 * straight into the solver input by line number, there is no text to parse
+	 * return the number of lines
+	 */
+	private long processBinary(String path, Writer out, int threads){
+		ResultWriter resultWriter = new ResultWriter(path, out, 0, null);
+		try (BinaryInstanceReader reader = BinaryInstanceReader.open(Paths.get(path))){
+			if (reader.getWeightFactor() != weightFactor){
+				throw new APIException("Binary input " + path + " was converted with weight factor " + reader.getWeightFactor()
+										+ ", the Packer uses " + weightFactor);
+			}
+			long lines = reader.size();
+			if (threads > 1){
+				new ParallelLineProcessor(threads, chunkSize, null)
+						.process(lines, (from, to) -> processRecords(reader, from, to), resultWriter);
+			} else {
+				for (long from = 0; from < lines; from += chunkSize){
+					writeResults(processRecords(reader, from, Math.min(lines, from + chunkSize)), resultWriter);
+				}
+			}
+			out.flush();
+			return resultWriter.count;
+		}
+		catch (IOException e) {
+			throw new APIException("IOException when processing file: " + e.getMessage());
+		}
+		catch (APIException e) {
+			if (invalidLinesExceeded){
+				flushQuietly(out);
+			}
+			throw e;
+		}
+		finally {
+			packedLines.add(resultWriter.count);
+		}
+	}
+	
+	private void processLines(LineSource reader, ResultWriter resultWriter, int threads) throws IOException {
+		if (threads > 1){
+			new ParallelLineProcessor(threads, chunkSize, this::processChunk).process(reader, resultWriter);
+		} else {
+			String line;
+			List<String> chunk = new ArrayList<>(chunkSize);
+			while ((line = reader.readLine()) != null){
+				chunk.add(line);
+				if (chunk.size() == chunkSize){
+					writeResults(processChunk(chunk), resultWriter);
+					chunk.clear();
+				}
+			}
+			writeResults(processChunk(chunk), resultWriter);
+		}
+	}
+	
+	/*
+	 * Stream the results to the output file with checkpoints (see Checkpoint): every checkpointLines lines
+	 * the output is flushed and forced to the disk, then the checkpoint file (Checkpoint.pathOf(output)) is replaced.
+	 * When the checkpoint file exists the run resumes from it - the output is truncated to the checkpointed offset
+	 * and the input is read from the checkpointed byte offset - so the output is the same as the one of
+	 * an uninterrupted run. The results end with a line separator (same as --output) and the checkpoint file
+	 * is deleted when the run is done.
+	 * throw APIException when the input file changed since the checkpoint
+	 * return the number of lines
+	 */
+	public long processWithCheckpoints(Path output, int checkpointLines){
+		return processWithCheckpoints(output, checkpointLines, null);
+	}
+	
+	/*
+	 * same with the error records of the invalid lines written to errorsPath (--errors), which is checkpointed
+	 * as the output - a resumed run truncates it to the checkpointed offset instead of recreating it, so it has
+	 * the records of an uninterrupted run. errorsPath null - the error writer of setErrorWriter(), not checkpointed
+	 */
+	public long processWithCheckpoints(Path output, int checkpointLines, Path errorsPath){
+		if (checkpointLines < 1){
+			throw new APIException("Checkpoint lines must be at least 1: " + checkpointLines);
+		}
+		Path input = Paths.get(filePath);
+		if (BinaryInstanceReader.isBinary(input)){
+			// a replay of a binary input is fast enough to be run again
+			throw new APIException("Checkpoints are not supported for the binary input " + input);
+		}
+		Path checkpointPath = Checkpoint.pathOf(output);
+		Checkpoint checkpoint = Checkpoint.read(checkpointPath);
+		Writer previousErrors = errors;
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			 FileChannel errorsChannel = errorsPath == null ? null
+					 : FileChannel.open(errorsPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+			long inputSize     = Files.size(input);
+			long inputModified = Files.getLastModifiedTime(input).toMillis();
+			if (checkpoint == null){
+				checkpoint = new Checkpoint(0, 0, 0, 0, 0, inputSize, inputModified);
+			} else if (checkpoint.getInputSize() != inputSize || checkpoint.getInputModified() != inputModified){
+				throw new APIException("Input file " + input + " changed since the checkpoint " + checkpointPath);
+			} else if (channel.size() < checkpoint.getOutputOffset()){
+				throw new APIException("Output file " + output + " is shorter than the checkpoint " + checkpointPath);
+			} else if (errorsChannel != null && errorsChannel.size() < checkpoint.getErrorsOffset()){
+				throw new APIException("Errors file " + errorsPath + " is shorter than the checkpoint " + checkpointPath);
+			}
+			// the results after the checkpoint (if any) are written again
+			channel.truncate(checkpoint.getOutputOffset());
+			channel.position(checkpoint.getOutputOffset());
+			invalidLines.set(checkpoint.getInvalidLines());
+			if (errorsChannel != null){
+				// same for the error records, they are flushed as they are written
+				errorsChannel.truncate(checkpoint.getErrorsOffset());
+				errorsChannel.position(checkpoint.getErrorsOffset());
+				errors = new OutputStreamWriter(Channels.newOutputStream(errorsChannel), StandardCharsets.UTF_8);
+			}
+			
+			InputStream in = CompressedStreams.openInput(input, checkpoint.getInputOffset());
+			Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+											OUTPUT_BUFFER_SIZE);
+			CheckpointWriter checkpoints = new CheckpointWriter(checkpointPath, checkpoint, checkpointLines, channel, out,
+															   errorsChannel);
+			ResultWriter resultWriter = new ResultWriter(filePath, out, checkpoint.getLineNumber(), checkpoints);
+			try (LineOffsetReader reader = new LineOffsetReader(metrics == null ? in : metrics.meter(in), checkpoint.getInputOffset())){
+				processLines(() -> checkpoints.lineRead(reader), resultWriter, parallelism);
+			} finally {
+				// with the lines of the checkpoint, their invalid lines were restored above
+				packedLines.add(resultWriter.count);
+			}
+			out.write(System.lineSeparator());
+			out.flush();
+			channel.force(false);
+			Files.deleteIfExists(checkpointPath);
+			return resultWriter.count;
+		} catch (IOException e) {
+			throw new APIException("IOException when processing file: " + e.getMessage());
+		} finally {
+			errors = previousErrors;
+		}
+	}
+	
+	/*
+	 * checkpoints of processWithCheckpoints - the reader side keeps the input offset of every checkpointLines lines,
+	 * the writer side writes the checkpoint once the results of these lines are written
+	 * (with --parallel the reader is some chunks ahead of the writer, both run on the calling thread)
+	 */
+	private class CheckpointWriter {
+		
+		private final Path path;
+		private final Checkpoint start;
+		private final int checkpointLines;
+		private final FileChannel output;
+		private final Writer out;
+		// the errors file, null when it is not checkpointed
+		private final FileChannel errorsOutput;
+		// line number and input offset of the lines read but not written yet
+		private final Deque<long[]> pending = new ArrayDeque<>();
+		private long linesRead;
 		
-		// build from all results string the output
-		return buildStringResult(strResults);
+		private CheckpointWriter(Path path, Checkpoint start, int checkpointLines, FileChannel output, Writer out,
+								 FileChannel errorsOutput){
+			this.path            = path;
+			this.start           = start;
+			this.checkpointLines = checkpointLines;
+			this.output          = output;
+			this.out             = out;
+			this.errorsOutput    = errorsOutput;
+			this.linesRead       = start.getLineNumber();
+		}
+		
+		private String lineRead(LineOffsetReader reader) throws IOException {
+			String line = reader.readLine();
+			if (line != null && ++linesRead % checkpointLines == 0){
+				pending.add(new long[] {linesRead, reader.getOffset()});
+			}
+			return line;
+		}
+		
+		private void resultWritten(long lineNumber) throws IOException {
+			if (pending.isEmpty() || pending.peek()[0] != lineNumber){
+				return;
+			}
+			long inputOffset = pending.poll()[1];
+			out.flush();
+			output.force(false);
+			long errorsOffset = 0;
+			if (errorsOutput != null){
+				// the records of these lines are already flushed
+				errorsOutput.force(false);
+				errorsOffset = errorsOutput.position();
+			}
+			new Checkpoint(lineNumber, inputOffset, output.position(), invalidLines.get(), errorsOffset,
+						   start.getInputSize(), start.getInputModified()).write(path);
+		}
+	}
+	
+	private static void flushQuietly(Writer out){
+		try {
+			out.flush();
+		} catch (IOException e) {
+			// the error which stopped the run is the one to report
+		}
+	}
+	
+	/*
+	 * Parse and solve the lines, one result per line in the same order
+	 * throw APIException for the first invalid line (INVALID_LINE_RESULT when skipping invalid lines,
+	 * without an error record). Thread safe.
+	 */
+	public String[] packLines(List<String> lines){
+		String[] results = processChunk(lines);
+		if (skipInvalidLines){
+			for (int i = 0; i < results.length; i++){
+				if (isInvalidLine(results[i])){
+					results[i] = INVALID_LINE_RESULT;
+				}
+			}
+		}
+		return results;
+	}
+	
+	private String[] processChunk(List<String> lines){
+		return processChunk(lines.size(), (i, target) -> parserController.parse(lines.get(i), target));
+	}
+	
+	// the lines [from, to) of a binary input - read straight into the batches, there is no text to parse
+	private String[] processRecords(BinaryInstanceReader reader, long from, long to){
+		return processChunk((int) (to - from), (i, target) -> {
+			reader.read(from + i, target);
+			return true;
+		});
+	}
+	
+	// fill target with line i of the chunk - false for an empty line, APIException for an invalid one
+	private interface ChunkLines {
+		boolean parse(int index, ItemBatch target);
+	}
+	
+	private String[] processChunk(int numOfLines, ChunkLines lines){
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			// parse each line to an ItemBatch - note that the weight and maxCapacity
+			// are corrected according to the correct factor by which the parser was constructed
+			List<ItemBatch> items = arena.batches(ScratchArena.Use.LINES, numOfLines);
+			String[] invalidLineErrors;
+			if (metrics != null){
+				invalidLineErrors = parseChunk(numOfLines, lines, items);
+			} else {
+				invalidLineErrors = null;
+				for (int i = 0; i < numOfLines; i++){
+					try {
+						if (!lines.parse(i, items.get(i))){
+							throw new APIException("Line is empty");
+						}
+					} catch (APIException e) {
+						invalidLineErrors = invalidLine(invalidLineErrors, numOfLines, i, e);
+					}
+				}
+			}
+			
+			// Send the information to the packer implementation
+			// the packer compute the selected items and by using the viewer return the result strings
+			if (invalidLineErrors == null){
+				return solve(items);
+			}
+			return solveValidLines(items, invalidLineErrors);
+		} finally {
+			arena.release();
+		}
+	}
+	
+	private String[] solve(List<ItemBatch> items){
+		return groupLines ? packagerController.selectItemsGrouped(items) : packagerController.selectItems(items);
+	}
+	
+	// the results of the valid lines and the marked error of the invalid ones, in the lines order
+	private String[] solveValidLines(List<ItemBatch> items, String[] invalidLineErrors){
+		List<ItemBatch> validItems = new ArrayList<>(items.size());
+		for (int i = 0; i < items.size(); i++){
+			if (invalidLineErrors[i] == null){
+				validItems.add(items.get(i));
+			}
+		}
+		String[] validResults = solve(validItems);
+		String[] results = new String[items.size()];
+		for (int i = 0, k = 0; i < results.length; i++){
+			results[i] = invalidLineErrors[i] == null ? validResults[k++] : INVALID_LINE_MARK + invalidLineErrors[i];
+		}
+		return results;
+	}
+	
+	// throw the error of the line unless invalid lines are skipped - return the errors of the chunk with this one
+	private String[] invalidLine(String[] invalidLineErrors, int numOfLines, int index, APIException e){
+		if (!skipInvalidLines){
+			throw e;
+		}
+		if (invalidLineErrors == null){
+			invalidLineErrors = new String[numOfLines];
+		}
+		invalidLineErrors[index] = e.getMessage();
+		return invalidLineErrors;
+	}
+	
+	private static boolean isInvalidLine(String result){
+		return !result.isEmpty() && result.charAt(0) == INVALID_LINE_MARK;
+	}
+	
+	// same as the parse loop of processChunk with the metrics
+	private String[] parseChunk(int numOfLines, ChunkLines lines, List<ItemBatch> items){
+		long start = System.nanoTime();
+		String[] invalidLineErrors = null;
+		for (int i = 0; i < numOfLines; i++){
+			boolean parsed;
+			try {
+				parsed = lines.parse(i, items.get(i));
+				if (!parsed){
+					throw new APIException("Line is empty");
+				}
+			} catch (APIException e) {
+				metrics.recordRejectedLine();
+				invalidLineErrors = invalidLine(invalidLineErrors, numOfLines, i, e);
+				continue;
+			}
+			ItemBatch line = items.get(i);
+			metrics.recordLine(line.getCount());
+			if (recordCapacity){
+				metrics.recordScaledCapacity(line.getCapacity());
+			}
+		}
+		metrics.record(PackerMetrics.Stage.PARSE, System.nanoTime() - start);
+		return invalidLineErrors;
+	}
+	
+	private static void writeResults(String[] results, ResultWriter resultWriter){
+		for (String result : results){
+			resultWriter.accept(result);
+		}
 	}
 	
 	/* 
 	 * each result will be placed in a new line
+	 * invalid lines (skipInvalidLines) get INVALID_LINE_RESULT and their error record - results come in the
+	 * lines order, so the count is the line number
 	 */	
-	private static String buildStringResult(List<String> strResults){
-		StringBuilder builder = new StringBuilder();
-		if (!strResults.isEmpty()){
-			builder.append(strResults.remove(0));
-			while (!strResults.isEmpty()){
-				builder.append("\n");
-				builder.append(strResults.remove(0));
+	private class ResultWriter implements Consumer<String> {
+		
+		private final String path;
+		private final Writer out;
+		// processWithCheckpoints only
+		private final CheckpointWriter checkpoints;
+		private boolean first;
+		private long count;
+		
+		// startLine - lines whose results are already in out (a resumed run)
+		private ResultWriter(String path, Writer out, long startLine, CheckpointWriter checkpoints){
+			this.path        = path;
+			this.out         = out;
+			this.checkpoints = checkpoints;
+			this.count       = startLine;
+			this.first       = startLine == 0;
+		}
+		
+		@Override
+		public void accept(String result) {
+			try {
+				if (!first){
+					out.write('\n');
+				}
+				count++;
+				if (isInvalidLine(result)){
+					out.write(INVALID_LINE_RESULT);
+					recordInvalidLine(path + ":" + count + ": " + result.substring(1));
+				} else {
+					out.write(result);
+				}
+				first = false;
+				if (checkpoints != null){
+					checkpoints.resultWritten(count);
+				}
+			} catch (IOException e) {
+				throw new APIException("IOException when writing results: " + e.getMessage());
 			}
 		}
-		return builder.toString();
+	}
+	
+	// write the error record and stop the run when there are more than maxInvalidLines
+	private void recordInvalidLine(String record){
+		try {
+			synchronized (errors){
+				errors.write(record);
+				errors.write(System.lineSeparator());
+				errors.flush();
+			}
+		} catch (IOException e) {
+			throw new APIException("IOException when writing errors: " + e.getMessage());
+		}
+		if (invalidLines.incrementAndGet() > maxInvalidLines && maxInvalidLines >= 0){
+			invalidLinesExceeded = true;
+			throw new APIException("More than " + maxInvalidLines + " invalid lines, the run was stopped at " + record);
+		}
+	}
+	
+	// error records of the invalid lines (skipInvalidLines) - the standard error by default, flushed but not closed
+	public void setErrorWriter(Writer errors){
+		this.errors = errors;
+	}
+	
+	public long getInvalidLines(){
+		return invalidLines.get();
 	}
 
 	public static String pack(String filePath){
@@ -190,13 +852,139 @@ public class Packer {
 		return packer.process();
 	}
 	
+	// parallelism - number of worker threads, 1 means sequential processing
+	public static String pack(String filePath, int parallelism){
+		return pack(filePath, new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, parallelism));
+	}
+	
+	public static String pack(String filePath, PackerConfiguration configuration){
+		Packer packer = new Packer(filePath, configuration);
+		return packer.process();
+	}
 	
+	/*
+	 * Streaming API - results are written to out line by line (see process(Writer))
+	 */
+	public static void pack(Path in, Writer out){
+		pack(in, out, new PackerConfiguration());
+	}
+	
+	public static void pack(Path in, Writer out, PackerConfiguration configuration){
+		Packer packer = new Packer(in.toString(), configuration);
+		packer.process(new BufferedWriter(out, OUTPUT_BUFFER_SIZE));
+	}
+	
+	// results are encoded in UTF-8
+	public static void pack(Path in, OutputStream out){
+		pack(in, out, new PackerConfiguration());
+	}
+	
+	public static void pack(Path in, OutputStream out, PackerConfiguration configuration){
+		pack(in, new OutputStreamWriter(out, StandardCharsets.UTF_8), configuration);
+	}
+	
+	/*
+	 * usage: Packer <file path> ... [options] - see PackerCommandLine
+	 * 
+	 * results are streamed to the output file, or to the standard output when no output file is given
+	 * several files, a directory or a glob pattern are packed in one run by BatchFilePacker
+	 */
 	public static void main(String[] args){
-		if(args.length == 1){
-			System.out.println(Packer.pack(args[0]));
-		} else {
-			throw new APIException("Full file path is requierd as a parameter");
+		PackerCommandLine commandLine = PackerCommandLine.parse(args);
+		if (commandLine.isBatch()){
+			BatchFilePacker.run(commandLine);
+			return;
+		}
+		Path in = Paths.get(commandLine.getInputPath());
+		Packer packer = new Packer(in.toString(), commandLine.getConfiguration());
+		packer.publishMetrics("packer");
+		boolean checkpoints = commandLine.getCheckpointLines() > 0;
+		// with checkpoints the errors file is opened by processWithCheckpoints, a resumed run must not truncate it
+		try (Writer errors = checkpoints ? null : openErrors(commandLine.getErrorsPath())){
+			if (errors != null){
+				packer.setErrorWriter(errors);
+			}
+			if (checkpoints){
+				packer.processWithCheckpoints(Paths.get(commandLine.getOutputPath()), commandLine.getCheckpointLines(),
+											  commandLine.getErrorsPath() == null ? null : Paths.get(commandLine.getErrorsPath()));
+			} else if (commandLine.getOutputPath() == null){
+				Writer out = new OutputStreamWriter(System.out);
+				packer.process(new BufferedWriter(out, OUTPUT_BUFFER_SIZE));
+				System.out.println();
+			} else {
+				try (Writer out = openOutput(Paths.get(commandLine.getOutputPath()), commandLine.getCompression())){
+					packer.process(new BufferedWriter(out, OUTPUT_BUFFER_SIZE));
+					out.write(System.lineSeparator());
+				}
+			}
+		} catch (IOException e) {
+			throw new APIException("IOException when writing output file: " + e.getMessage());
+		}
+		String report = packer.report();
+		if (!report.isEmpty()){
+			System.err.println(report);
+		}
+	}
+	
+	// the --output file, compressed with --compress
+	static Writer openOutput(Path path, Compression compression) throws IOException {
+		return new OutputStreamWriter(CompressedStreams.openOutput(path, compression), StandardCharsets.UTF_8);
+	}
+	
+	// the --errors file (null when not given - the standard error is used)
+	static Writer openErrors(String errorsPath) throws IOException {
+		return errorsPath == null ? null : Files.newBufferedWriter(Paths.get(errorsPath), StandardCharsets.UTF_8);
+	}
+	
+	// the counters of the planner, the FPTAS solver, the reduction, the cache and the metrics - when used
+	// null unless PackerConfiguration.isMetrics()
+	public PackerMetrics getMetrics(){
+		return metrics;
+	}
+	
+	/*
+	 * register the metrics MBean under the given name and start their periodic dump to the standard error
+	 * (PackerConfiguration.getMetricsInterval()) - does nothing when the metrics are off
+	 */
+	public void publishMetrics(String name){
+		if (metrics != null){
+			metrics.registerMBean(name);
+			if (metricsInterval > 0){
+				metrics.startDump(System.err, metricsInterval);
+			}
+		}
+	}
+	
+	public String report(){
+		StringBuilder report = new StringBuilder();
+		if (planner != null){
+			report.append(planner.report()).append('\n');
+		}
+		if (approximation != null){
+			report.append(approximation.report()).append('\n');
+		}
+		if (vectorKnapSack != null){
+			report.append(vectorKnapSack.report()).append('\n');
+		}
+		// the reduction is on by default - its counters are diagnostics, printed with --metrics only
+		if (reduction != null && metrics != null){
+			report.append(reduction.report()).append('\n');
+		}
+		if (cache != null){
+			report.append(cache.report()).append('\n');
+		}
+		if (groupLines){
+			report.append(packagerController.groupingReport()).append('\n');
+		}
+		if (skipInvalidLines){
+			// e.g. invalid lines=3 of 1000 max=10
+			report.append("invalid lines=").append(invalidLines.get()).append(" of ").append(packedLines.sum())
+				  .append(" max=").append(maxInvalidLines < 0 ? "none" : String.valueOf(maxInvalidLines)).append('\n');
+		}
+		if (metrics != null){
+			report.append(metrics.getReport()).append('\n');
 		}
+		return report.toString().trim();
 	}
 	
 }
@@ -0,0 +1,274 @@
+package com.mobiquityinc.packer;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.CompressedStreams.Compression;
+import com.mobiquityinc.packer.PackerConfiguration.ParserType;
+import com.mobiquityinc.packer.PackerConfiguration.SolverType;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
+
+/*
+ * Command line arguments of the Packer
+ *
+ * usage: Packer <file path> [options]
+ *        Packer <file, directory or glob pattern> ... [options]   - batch mode, see BatchFilePacker
+ *
+ * options:
+ *   --parallel N            number of worker threads (default 1), in batch mode the number of files packed at a time
+ *   --output <file path>    stream the results to a file instead of the standard output
+ *                           in batch mode the results of all the files, each file after a "# <input path>" line
+ *   --output-dir <dir>      batch mode - the results of each input file to <dir>/<input file name>.out
+ *   --parser default|scanner  line parser implementation (default: default)
+ *   --solver dp|enumeration|planner|pareto|vector   packaging algorithm (default: dp)
+ *                           vector runs the dp on the Java Vector API - start java with --add-modules jdk.incubator.vector
+ *                           and prints the kernel used to the standard error at the end
+ *                           planner prints which engines were used to the standard error at the end
+ *   --approximate EPS       approximate solver (FPTAS) - each selection is within (1 - EPS) of the optimum
+ *                           prints the achieved bound (worst and mean selection / upper bound) to the standard error
+ *   --profile challenge|large   limits of the lines (default: challenge) - see ConstraintProfile
+ *   --no-normalize          solve with the weights as parsed, without dividing them by their GCD
+ *   --no-reduce             send all the items to the solver, without the reduction stage
+ *                           (with --metrics the reduction counters are printed to the standard error at the end)
+ *   --cache N               keep the results of the last N distinct lines (LRU), 0 disables (default 0)
+ *                           prints the hit/miss/eviction counters to the standard error at the end
+ *   --metrics               per stage counters and latencies (read, parse, solve, render), published as the MBean
+ *                           com.mobiquityinc.packer:type=PackerMetrics and printed to the standard error at the end
+ *   --metrics-interval S    --metrics and also print them to the standard error every S seconds
+ *   --group-items           solve the lines with the same items and different capacities together
+ *                           (one knapsack run at the largest capacity), prints the groups to the standard error
+ *   --skip-invalid          an invalid line gets the result "error" and a "<file>:<line>: <message>" record in the
+ *                           error stream instead of stopping the run - prints the counts to the standard error
+ *   --max-invalid N         --skip-invalid and stop the run after N invalid lines
+ *   --errors <file path>    the error records to a file instead of the standard error
+ *   --checkpoint            with --output - record the progress to <output>.checkpoint every 100000 lines,
+ *                           a run with the same input and output resumes from it (see Checkpoint)
+ *   --checkpoint-lines N    --checkpoint every N lines
+ *   --compress gzip|deflate with --output or --output-dir - compress the results (--output-dir files get .gz / .zz)
+ *                           compressed inputs are read as they are, whatever the option (see CompressedStreams)
+ *
+ * throw APIException in case the arguments are not valid
+ */
+
+public class PackerCommandLine {
+
+	private final List<String> inputPaths = new ArrayList<>();
+	private String outputPath;
+	private String outputDirectory;
+	private String errorsPath;
+	// 0 - no checkpoints
+	private int checkpointLines;
+	private Compression compression = Compression.NONE;
+	private final PackerConfiguration configuration = new PackerConfiguration();
+
+	private PackerCommandLine(){
+	}
+
+	public static PackerCommandLine parse(String[] args){
+		PackerCommandLine commandLine = new PackerCommandLine();
+		for (int i = 0; i < args.length; i++){
+			String arg = args[i];
+			int last = parseOption(commandLine.configuration, args, i);
+			if (last >= 0){
+				i = last;
+			} else if ("--output".equals(arg)){
+				commandLine.outputPath = parseStringArgument(args, ++i);
+			} else if ("--output-dir".equals(arg)){
+				commandLine.outputDirectory = parseStringArgument(args, ++i);
+			} else if ("--skip-invalid".equals(arg)){
+				commandLine.configuration.setSkipInvalidLines(true);
+			} else if ("--max-invalid".equals(arg)){
+				commandLine.configuration.setSkipInvalidLines(true);
+				commandLine.configuration.setMaxInvalidLines(parseIntArgument(args, ++i));
+			} else if ("--errors".equals(arg)){
+				commandLine.errorsPath = parseStringArgument(args, ++i);
+			} else if ("--checkpoint".equals(arg)){
+				commandLine.checkpointLines = Packer.DEFAULT_CHECKPOINT_LINES;
+			} else if ("--checkpoint-lines".equals(arg)){
+				commandLine.checkpointLines = parseIntArgument(args, ++i);
+				if (commandLine.checkpointLines < 1){
+					throw new APIException("Checkpoint lines must be at least 1: " + commandLine.checkpointLines);
+				}
+			} else if ("--compress".equals(arg)){
+				commandLine.compression = parseCompression(parseStringArgument(args, ++i));
+			} else if (arg.startsWith("--")){
+				throw new APIException("Unknown parameter: " + arg);
+			} else {
+				commandLine.inputPaths.add(arg);
+			}
+		}
+		if (commandLine.inputPaths.isEmpty()){
+			throw new APIException("Full file path is requierd as a parameter");
+		}
+		if (commandLine.outputPath != null && commandLine.outputDirectory != null){
+			throw new APIException("Parameters --output and --output-dir can't be used together");
+		}
+		if (commandLine.checkpointLines > 0 && (commandLine.outputPath == null || commandLine.isBatch())){
+			throw new APIException("Parameter --checkpoint needs one input file and --output");
+		}
+		if (commandLine.compression != Compression.NONE && commandLine.outputPath == null && commandLine.outputDirectory == null){
+			throw new APIException("Parameter --compress needs --output or --output-dir");
+		}
+		if (commandLine.compression != Compression.NONE && commandLine.checkpointLines > 0){
+			// the checkpointed output offset can't be resumed in the middle of a compressed stream
+			throw new APIException("Parameters --compress and --checkpoint can't be used together");
+		}
+		return commandLine;
+	}
+
+	/*
+	 * parse the configuration option at args[index] (--parallel, --parser, --solver, --approximate, --profile,
+	 * --no-normalize, --no-reduce, --cache, --metrics, --metrics-interval, --group-items) into configuration
+	 * return the index of the last argument used by the option, -1 if args[index] is not one of them
+	 * (used by other command lines running a Packer, e.g. ServerCommandLine)
+	 */
+	public static int parseOption(PackerConfiguration configuration, String[] args, int index){
+		String arg = args[index];
+		if ("--parallel".equals(arg)){
+			configuration.setParallelism(parseIntArgument(args, ++index));
+		} else if ("--parser".equals(arg)){
+			configuration.setParserType(parseParserType(parseStringArgument(args, ++index)));
+		} else if ("--no-normalize".equals(arg)){
+			configuration.setNormalizeWeights(false);
+		} else if ("--no-reduce".equals(arg)){
+			configuration.setReduceItems(false);
+		} else if ("--cache".equals(arg)){
+			configuration.setCacheSize(parseIntArgument(args, ++index));
+		} else if ("--solver".equals(arg)){
+			configuration.setSolverType(parseSolverType(parseStringArgument(args, ++index)));
+		} else if ("--approximate".equals(arg)){
+			configuration.setSolverType(SolverType.FPTAS);
+			configuration.setEpsilon(parseDoubleArgument(args, ++index));
+		} else if ("--profile".equals(arg)){
+			configuration.setConstraints(parseProfile(parseStringArgument(args, ++index)));
+		} else if ("--metrics".equals(arg)){
+			configuration.setMetrics(true);
+		} else if ("--metrics-interval".equals(arg)){
+			configuration.setMetrics(true);
+			configuration.setMetricsInterval(parseIntArgument(args, ++index));
+		} else if ("--group-items".equals(arg)){
+			configuration.setGroupLines(true);
+		} else {
+			return -1;
+		}
+		return index;
+	}
+
+	public static String parseStringArgument(String[] args, int index){
+		if (index >= args.length){
+			throw new APIException("Missing value for parameter " + args[index - 1]);
+		}
+		return args[index];
+	}
+
+	private static ParserType parseParserType(String value){
+		if ("default".equals(value)){
+			return ParserType.DEFAULT;
+		} else if ("scanner".equals(value)){
+			return ParserType.BYTE_SCANNER;
+		}
+		throw new APIException("Unknown parser: " + value + " expected default or scanner");
+	}
+
+	private static Compression parseCompression(String value){
+		if ("gzip".equals(value)){
+			return Compression.GZIP;
+		} else if ("deflate".equals(value)){
+			return Compression.DEFLATE;
+		}
+		throw new APIException("Unknown compression: " + value + " expected gzip or deflate");
+	}
+
+	private static SolverType parseSolverType(String value){
+		if ("dp".equals(value)){
+			return SolverType.KNAPSACK_DP;
+		} else if ("enumeration".equals(value)){
+			return SolverType.SUBSET_ENUMERATION;
+		} else if ("planner".equals(value)){
+			return SolverType.PLANNER;
+		} else if ("pareto".equals(value)){
+			return SolverType.PARETO;
+		} else if ("vector".equals(value)){
+			return SolverType.VECTOR_DP;
+		}
+		throw new APIException("Unknown solver: " + value + " expected dp, enumeration, planner, pareto or vector");
+	}
+
+	private static ConstraintProfile parseProfile(String value){
+		ConstraintProfile constraints = ConstraintProfile.byName(value);
+		if (constraints == null){
+			throw new APIException("Unknown profile: " + value + " expected challenge or large");
+		}
+		return constraints;
+	}
+
+	private static double parseDoubleArgument(String[] args, int index){
+		String value = parseStringArgument(args, index);
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects a number: " + value);
+		}
+	}
+
+	public static int parseIntArgument(String[] args, int index){
+		String value = parseStringArgument(args, index);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e){
+			throw new APIException("Parameter " + args[index - 1] + " expects a number: " + value);
+		}
+	}
+
+	// the first input path
+	public String getInputPath() {
+		return inputPaths.get(0);
+	}
+
+	// files, directories or glob patterns, in the order given
+	public List<String> getInputPaths() {
+		return inputPaths;
+	}
+
+	// null unless --output-dir was given
+	public String getOutputDirectory() {
+		return outputDirectory;
+	}
+
+	/*
+	 * several inputs, a directory, a glob pattern or --output-dir - processed by BatchFilePacker
+	 * otherwise a single file processed by the Packer itself
+	 */
+	public boolean isBatch() {
+		return inputPaths.size() > 1 || outputDirectory != null
+				|| BatchFilePacker.isGlob(inputPaths.get(0)) || Files.isDirectory(Paths.get(inputPaths.get(0)));
+	}
+
+	// null when the results should be written to the standard output
+	public String getOutputPath() {
+		return outputPath;
+	}
+
+	// lines between two checkpoints, 0 when there are no checkpoints
+	public int getCheckpointLines() {
+		return checkpointLines;
+	}
+
+	// of the --output file or the --output-dir files, NONE unless --compress was given
+	public Compression getCompression() {
+		return compression;
+	}
+
+	// null when the error records of the invalid lines should be written to the standard error
+	public String getErrorsPath() {
+		return errorsPath;
+	}
+
+	public PackerConfiguration getConfiguration() {
+		return configuration;
+	}
+
+}
@@ -0,0 +1,230 @@
+package com.mobiquityinc.packer;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
+import com.mobiquityinc.packer.stratetgy.FptasPackagingStrategy;
+
+/*
+ * Run options of the Packer
+ *
+ * weightPrecision : number of digits after the decimal dot taken into account (default 2)
+ * parallelism     : number of worker threads used to parse and solve lines (default 1 - sequential)
+ *                   results are always returned in the order of the input lines
+ * parserType      : DEFAULT      - DefaultPackerParser
+ *                   BYTE_SCANNER - ByteScanningPackerParser, same rules without split/regex/float parsing
+ * solverType      : KNAPSACK_DP        - KnapSackPackagingStrategy (rolling row)
+ *                   SUBSET_ENUMERATION - SubsetEnumerationPackagingStrategy, does not depend on the capacity
+ *                   PLANNER            - PlanningPackagingStrategy, picks the cheapest engine per line
+ *                   PARETO             - ParetoFrontierPackagingStrategy, keeps only the non dominated states
+ *                   FPTAS              - FptasPackagingStrategy, approximate - within (1 - epsilon) of the optimum
+ *                   VECTOR_DP          - VectorKnapSackPackagingStrategy, KNAPSACK_DP with the row update on
+ *                                        the Java Vector API (scalar when jdk.incubator.vector is not available)
+ * epsilon         : error bound of the FPTAS solver (default 0.01)
+ * constraints     : limits of the parser (default ConstraintProfile.CHALLENGE)
+ * normalizeWeights: divide the weights and the capacity of each line by the weights GCD before solving
+ *                   (NormalizingPackagingStrategy) - same results with a narrower knapsack (default true)
+ * reduceItems     : fix items in/out by a trivial fit check, dominance and LP bounds before solving
+ *                   (ReducingPackagingStrategy) - only the rest goes to the solver, same results (default true)
+ * cacheSize       : max number of results kept by the LRU cache (CachingPackagingStrategy) - 0 disables it (default 0)
+ * metrics         : collect per stage counters and latency histograms (PackerMetrics) (default false)
+ * metricsInterval : seconds between two text dumps of the metrics, 0 - no periodic dump (default 0)
+ * groupLines      : lines of a chunk with the same items and different capacities are solved by one
+ *                   multi capacity run of the solver (PackerController.selectItemsGrouped) (default false)
+ * skipInvalidLines: an invalid line gets Packer.INVALID_LINE_RESULT and an error record instead of stopping
+ *                   the run (default false)
+ * maxInvalidLines : with skipInvalidLines - the run stops after this many invalid lines, -1 - no limit (default -1)
+ */
+
+public class PackerConfiguration {
+
+	public static final int DEFAULT_WEIGHT_PRECISION = 2;
+	public static final int DEFAULT_PARALLELISM      = 1;
+	public static final int DEFAULT_CACHE_SIZE       = 0;
+
+	public enum ParserType {
+		DEFAULT,
+		BYTE_SCANNER
+	}
+
+	public enum SolverType {
+		KNAPSACK_DP,
+		SUBSET_ENUMERATION,
+		PLANNER,
+		PARETO,
+		FPTAS,
+		VECTOR_DP
+	}
+
+	private int weightPrecision = DEFAULT_WEIGHT_PRECISION;
+	private int parallelism     = DEFAULT_PARALLELISM;
+	private ParserType parserType = ParserType.DEFAULT;
+	private SolverType solverType = SolverType.KNAPSACK_DP;
+	private boolean normalizeWeights = true;
+	private boolean reduceItems = true;
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+	private ConstraintProfile constraints = ConstraintProfile.CHALLENGE;
+	private double epsilon = FptasPackagingStrategy.DEFAULT_EPSILON;
+	private boolean metrics;
+	private int metricsInterval;
+	private boolean groupLines;
+	private boolean skipInvalidLines;
+	private long maxInvalidLines = -1;
+
+	public PackerConfiguration(){
+	}
+
+	public PackerConfiguration(int weightPrecision, int parallelism){
+		setWeightPrecision(weightPrecision);
+		setParallelism(parallelism);
+	}
+
+	public int getWeightPrecision() {
+		return weightPrecision;
+	}
+
+	public void setWeightPrecision(int weightPrecision) {
+		if (weightPrecision < 0){
+			throw new APIException("Weight precision must not be negative: " + weightPrecision);
+		}
+		this.weightPrecision = weightPrecision;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1){
+			throw new APIException("Parallelism must be at least 1: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	public ParserType getParserType() {
+		return parserType;
+	}
+
+	public void setParserType(ParserType parserType) {
+		this.parserType = parserType;
+	}
+
+	public SolverType getSolverType() {
+		return solverType;
+	}
+
+	public void setSolverType(SolverType solverType) {
+		this.solverType = solverType;
+	}
+
+	public boolean isNormalizeWeights() {
+		return normalizeWeights;
+	}
+
+	public void setNormalizeWeights(boolean normalizeWeights) {
+		this.normalizeWeights = normalizeWeights;
+	}
+
+	public boolean isReduceItems() {
+		return reduceItems;
+	}
+
+	public void setReduceItems(boolean reduceItems) {
+		this.reduceItems = reduceItems;
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	public void setCacheSize(int cacheSize) {
+		if (cacheSize < 0){
+			throw new APIException("Cache size must not be negative: " + cacheSize);
+		}
+		this.cacheSize = cacheSize;
+	}
+
+	public ConstraintProfile getConstraints() {
+		return constraints;
+	}
+
+	public void setConstraints(ConstraintProfile constraints) {
+		if (constraints == null){
+			throw new APIException("Constraints must not be null");
+		}
+		this.constraints = constraints;
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(double epsilon) {
+		this.epsilon = FptasPackagingStrategy.verifyEpsilon(epsilon);
+	}
+
+	public boolean isMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(boolean metrics) {
+		this.metrics = metrics;
+	}
+
+	public int getMetricsInterval() {
+		return metricsInterval;
+	}
+
+	public void setMetricsInterval(int metricsInterval) {
+		if (metricsInterval < 0){
+			throw new APIException("Metrics interval must not be negative: " + metricsInterval);
+		}
+		this.metricsInterval = metricsInterval;
+	}
+
+	public boolean isGroupLines() {
+		return groupLines;
+	}
+
+	public void setGroupLines(boolean groupLines) {
+		this.groupLines = groupLines;
+	}
+
+	public boolean isSkipInvalidLines() {
+		return skipInvalidLines;
+	}
+
+	public void setSkipInvalidLines(boolean skipInvalidLines) {
+		this.skipInvalidLines = skipInvalidLines;
+	}
+
+	public long getMaxInvalidLines() {
+		return maxInvalidLines;
+	}
+
+	public void setMaxInvalidLines(long maxInvalidLines) {
+		if (maxInvalidLines < -1){
+			throw new APIException("Max invalid lines must be -1 (no limit) or more: " + maxInvalidLines);
+		}
+		this.maxInvalidLines = maxInvalidLines;
+	}
+
+	public boolean isCacheEnabled(){
+		return cacheSize > 0;
+	}
+
+	public boolean isParallel(){
+		return parallelism > 1;
+	}
+
+	@Override
+	public String toString() {
+		return "PackerConfiguration [weightPrecision=" + weightPrecision + ", parallelism=" + parallelism
+				+ ", parserType=" + parserType + ", solverType=" + solverType
+				+ ", normalizeWeights=" + normalizeWeights + ", reduceItems=" + reduceItems + ", cacheSize=" + cacheSize
+				+ ", constraints=" + constraints.getName() + ", epsilon=" + epsilon
+				+ ", metrics=" + metrics + ", metricsInterval=" + metricsInterval
+				+ ", groupLines=" + groupLines + ", skipInvalidLines=" + skipInvalidLines
+				+ ", maxInvalidLines=" + maxInvalidLines + "]";
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.mobiquityinc.packer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Parse and solve the lines of an input on a pool of worker threads
+ *
+ * Lines are read by the calling thread and grouped into chunks,
+ * each chunk is solved by one worker. Chunks results are handed to the consumer
+ * strictly in the input order, so the output is identical to the sequential one.
+ *
+ * Only a bounded number of chunks are in flight at any time,
+ * so memory does not grow with the size of the input.
+ *
+ * In case a line is not valid the APIException of the first invalid line
+ * (in input order) is thrown - same as in the sequential processing.
+ *
+ * Each chunk is handed to the chunk processor as a whole (one result per line)
+ * so it can solve all its lines with one batch call.
+ */
+
+public class ParallelLineProcessor {
+
+	public static final int DEFAULT_CHUNK_SIZE    = 256;
+	private static final int PENDING_CHUNKS_RATIO = 4;
+
+	private final int parallelism;
+	private final int chunkSize;
+	private final Function<List<String>, String[]> chunkProcessor;
+
+	// chunkProcessor must be thread safe as it is called by several workers at the same time
+	public ParallelLineProcessor(int parallelism, Function<List<String>, String[]> chunkProcessor){
+		this(parallelism, DEFAULT_CHUNK_SIZE, chunkProcessor);
+	}
+
+	// chunkSize - number of lines handed to the chunk processor at a time
+	// chunkProcessor may be null when only ranges of lines are processed (see process(numOfLines, ...))
+	public ParallelLineProcessor(int parallelism, int chunkSize, Function<List<String>, String[]> chunkProcessor){
+		if (parallelism < 1){
+			throw new APIException("Parallelism must be at least 1: " + parallelism);
+		}
+		if (chunkSize < 1){
+			throw new APIException("Chunk size must be at least 1: " + chunkSize);
+		}
+		this.parallelism    = parallelism;
+		this.chunkSize      = chunkSize;
+		this.chunkProcessor = chunkProcessor;
+	}
+
+	public void process(BufferedReader reader, Consumer<String> resultConsumer) throws IOException {
+		process((LineSource) reader::readLine, resultConsumer);
+	}
+
+	// lines from any source (e.g. LineOffsetReader), read by the calling thread only
+	public void process(LineSource reader, Consumer<String> resultConsumer) throws IOException {
+		try (Pipeline pipeline = new Pipeline(resultConsumer)){
+			List<String> chunk = new ArrayList<>(chunkSize);
+			String line;
+			while ((line = reader.readLine()) != null){
+				chunk.add(line);
+				if (chunk.size() == chunkSize){
+					pipeline.submit(new ChunkTask(chunk));
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+			if (!chunk.isEmpty()){
+				pipeline.submit(new ChunkTask(chunk));
+			}
+			pipeline.drain();
+		}
+	}
+
+	/*
+	 * lines 0..numOfLines - 1 of an input which workers can read by line number (e.g. BinaryInstanceReader)
+	 * each chunk is the range of lines [from, to) handed to rangeProcessor - the chunk processor is not used
+	 */
+	public void process(long numOfLines, RangeProcessor rangeProcessor, Consumer<String> resultConsumer){
+		try (Pipeline pipeline = new Pipeline(resultConsumer)){
+			for (long from = 0; from < numOfLines; from += chunkSize){
+				long start = from;
+				long end   = Math.min(numOfLines, from + chunkSize);
+				pipeline.submit(() -> rangeProcessor.process(start, end));
+			}
+			pipeline.drain();
+		}
+	}
+
+	/*
+	 * chunks solved by the workers and consumed in the order submitted
+	 * submit waits for the oldest chunk once there are enough in flight - this keeps memory bounded
+	 */
+	private class Pipeline implements AutoCloseable {
+
+		private final ExecutorService executor = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory());
+		private final Deque<Future<String[]>> pending = new ArrayDeque<>();
+		private final int maxPendingChunks = parallelism * PENDING_CHUNKS_RATIO;
+		private final Consumer<String> resultConsumer;
+
+		private Pipeline(Consumer<String> resultConsumer){
+			this.resultConsumer = resultConsumer;
+		}
+
+		private void submit(Callable<String[]> task){
+			pending.add(executor.submit(task));
+			if (pending.size() >= maxPendingChunks){
+				consume(pending.poll(), resultConsumer);
+			}
+		}
+
+		private void drain(){
+			while (!pending.isEmpty()){
+				consume(pending.poll(), resultConsumer);
+			}
+		}
+
+		@Override
+		public void close(){
+			// in case of an exception - there is no point to continue with the rest of the chunks
+			for (Future<String[]> future : pending){
+				future.cancel(true);
+			}
+			executor.shutdownNow();
+		}
+	}
+
+	private void consume(Future<String[]> future, Consumer<String> resultConsumer){
+		try {
+			for (String result : future.get()){
+				resultConsumer.accept(result);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Interrupted while waiting for line results");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			throw new APIException("Exception when processing lines: " + cause);
+		}
+	}
+
+	// same contract as BufferedReader.readLine() - null at the end of the input
+	public interface LineSource {
+		String readLine() throws IOException;
+	}
+
+	// results of the lines [from, to), one per line - must be thread safe
+	public interface RangeProcessor {
+		String[] process(long from, long to);
+	}
+
+	private class ChunkTask implements Callable<String[]> {
+
+		private final List<String> lines;
+
+		private ChunkTask(List<String> lines){
+			this.lines = lines;
+		}
+
+		@Override
+		public String[] call() {
+			return chunkProcessor.apply(lines);
+		}
+	}
+
+	// daemon threads so an abandoned pool never keeps the JVM alive
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger poolNumber = new AtomicInteger(1);
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		private final String prefix = "packer-" + poolNumber.getAndIncrement() + "-worker-";
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
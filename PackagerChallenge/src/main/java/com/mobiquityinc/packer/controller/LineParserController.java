@@ -1,5 +1,6 @@
 package com.mobiquityinc.packer.controller;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ParsedLineEntity;
 import com.mobiquityinc.packer.parsers.IParsingAlgorithm;
 
@@ -24,5 +25,10 @@ public class LineParserController {
 	public ParsedLineEntity parse(String line){
 		return parsingAlgorithm.parse(line);
 	}
+	
+	// boxing free path - return false for an empty line
+	public boolean parse(String line, ItemBatch target){
+		return parsingAlgorithm.parse(line, target);
+	}
 
 }
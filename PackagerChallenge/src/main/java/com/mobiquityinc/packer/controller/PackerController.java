@@ -1,23 +1,189 @@
 package com.mobiquityinc.packer.controller;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.mobiquityinc.com.viewer.IPackagingViewer;
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
 import com.mobiquityinc.packer.stratetgy.IPackagingAlgorithm;
+import com.mobiquityinc.packer.stratetgy.ScratchArena;
 
 public class PackerController {
 	
 	IPackagingAlgorithm selector;
 	IPackagingViewer viewer;
+	// optional - solve and render time of the batch API
+	PackerMetrics metrics;
+	// selectItemsGrouped - groups of lines solved together and their lines
+	private final LongAdder groups       = new LongAdder();
+	private final LongAdder groupedLines = new LongAdder();
 
 	public PackerController(IPackagingAlgorithm selector, IPackagingViewer viewer){
 		this.selector = selector;
 		this.viewer   = viewer;
 	}
 	
+	public void setMetrics(PackerMetrics metrics){
+		this.metrics = metrics;
+	}
+	
 	public String selectItems(List<ItemEntity> itemsList, int capacity){
 		List<ItemEntity> selectedItemsList =  selector.selectItems(itemsList, capacity);
 		return viewer.convertToString(selectedItemsList);
 	}
+	
+	// boxing free path - the capacity is the capacity of the batch
+	public String selectItems(ItemBatch items){
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			ItemBatch selectedItems = arena.batch(ScratchArena.Use.SELECTED);
+			selector.selectItems(items, selectedItems);
+			return viewer.convertToString(selectedItems);
+		} finally {
+			arena.release();
+		}
+	}
+	
+	// batch API - one result per line, in the order of the lines
+	public String[] selectItems(List<ItemBatch> lines){
+		String[] results = new String[lines.size()];
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			List<ItemBatch> selectedLines = arena.batches(ScratchArena.Use.SELECTED, lines.size());
+			long start = metrics == null ? 0 : System.nanoTime();
+			selector.selectItems(lines, selectedLines);
+			long solved = metrics == null ? 0 : System.nanoTime();
+			for (int i = 0; i < results.length; i++){
+				results[i] = viewer.convertToString(selectedLines.get(i));
+			}
+			if (metrics != null){
+				metrics.record(PackerMetrics.Stage.SOLVE, solved - start);
+				metrics.record(PackerMetrics.Stage.RENDER, System.nanoTime() - solved);
+			}
+		} finally {
+			arena.release();
+		}
+		return results;
+	}
+	
+	/*
+	 * batch API which solves the lines with the same items (ids, weights and costs in the same order - the parser
+	 * sorts them) and different capacities together, with one multi capacity call of the algorithm
+	 * (see IPackagingAlgorithm.selectItems(ItemBatch, int[], List)). Same results as selectItems(lines).
+	 */
+	public String[] selectItemsGrouped(List<ItemBatch> lines){
+		String[] results = new String[lines.size()];
+		Map<ItemsKey, List<Integer>> linesByItems = new HashMap<>();
+		for (int i = 0; i < lines.size(); i++){
+			linesByItems.computeIfAbsent(new ItemsKey(lines.get(i)), key -> new ArrayList<>(1)).add(i);
+		}
+		
+		long solveNanos  = 0;
+		long renderNanos = 0;
+		List<ItemBatch> singleLines = new ArrayList<>(lines.size());
+		List<Integer>   singleIndexes = new ArrayList<>(lines.size());
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			for (List<Integer> indexes : linesByItems.values()){
+				if (indexes.size() == 1){
+					singleLines.add(lines.get(indexes.get(0)));
+					singleIndexes.add(indexes.get(0));
+					continue;
+				}
+				int[] capacities = new int[indexes.size()];
+				for (int k = 0; k < capacities.length; k++){
+					capacities[k] = lines.get(indexes.get(k)).getCapacity();
+				}
+				List<ItemBatch> selectedLines = arena.batches(ScratchArena.Use.SELECTED, capacities.length);
+				long start = System.nanoTime();
+				selector.selectItems(lines.get(indexes.get(0)), capacities, selectedLines);
+				long solved = System.nanoTime();
+				for (int k = 0; k < capacities.length; k++){
+					results[indexes.get(k)] = viewer.convertToString(selectedLines.get(k));
+				}
+				solveNanos  += solved - start;
+				renderNanos += System.nanoTime() - solved;
+				groups.increment();
+				groupedLines.add(capacities.length);
+			}
+			
+			if (!singleLines.isEmpty()){
+				List<ItemBatch> selectedLines = arena.batches(ScratchArena.Use.SELECTED, singleLines.size());
+				long start = System.nanoTime();
+				selector.selectItems(singleLines, selectedLines);
+				long solved = System.nanoTime();
+				for (int k = 0; k < singleLines.size(); k++){
+					results[singleIndexes.get(k)] = viewer.convertToString(selectedLines.get(k));
+				}
+				solveNanos  += solved - start;
+				renderNanos += System.nanoTime() - solved;
+			}
+		} finally {
+			arena.release();
+		}
+		if (metrics != null){
+			metrics.record(PackerMetrics.Stage.SOLVE, solveNanos);
+			metrics.record(PackerMetrics.Stage.RENDER, renderNanos);
+		}
+		return results;
+	}
+	
+	// lines solved by selectItemsGrouped together with other lines of the same items
+	public long getGroupedLines(){
+		return groupedLines.sum();
+	}
+	
+	public long getGroups(){
+		return groups.sum();
+	}
+	
+	// e.g. grouping groups=12 lines=40 - 40 lines were solved by 12 DP runs
+	public String groupingReport(){
+		return "grouping groups=" + getGroups() + " lines=" + getGroupedLines();
+	}
+	
+	// the items of a line as a hash key - the batch is not copied, it must not change while the key is used
+	private static class ItemsKey {
+		
+		private final ItemBatch items;
+		private final int hash;
+		
+		private ItemsKey(ItemBatch items){
+			this.items = items;
+			int h = items.getCount();
+			for (int i = 0; i < items.getCount(); i++){
+				h = 31 * h + items.getId(i);
+				h = 31 * h + items.getWeight(i);
+				h = 31 * h + items.getCost(i);
+			}
+			this.hash = h;
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof ItemsKey))
+				return false;
+			ItemBatch other = ((ItemsKey) obj).items;
+			if (hash != ((ItemsKey) obj).hash || other.getCount() != items.getCount())
+				return false;
+			for (int i = 0; i < items.getCount(); i++){
+				if (other.getId(i) != items.getId(i) || other.getWeight(i) != items.getWeight(i)
+						|| other.getCost(i) != items.getCost(i))
+					return false;
+			}
+			return true;
+		}
+	}
 }
@@ -0,0 +1,90 @@
+package com.mobiquityinc.packer.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Lock free histogram of non negative long values (nanoseconds, item counts, capacities)
+ *
+ * Values are counted in power of two buckets: bucket k holds the values of k significant bits,
+ * i.e. [2^(k-1), 2^k), bucket 0 holds 0. Recording a value is a few LongAdder increments
+ * without allocation, so it can be called from all the worker threads on every line.
+ * Percentiles are the upper end of their bucket (capped by the max), i.e. at most 2 times the exact value.
+ */
+
+public class Histogram {
+
+	private static final int BUCKETS = 65;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum   = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public Histogram(){
+		for (int k = 0; k < BUCKETS; k++){
+			buckets[k] = new LongAdder();
+		}
+	}
+
+	// negative values are counted as 0
+	public void record(long value){
+		if (value < 0){
+			value = 0;
+		}
+		buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount(){
+		return count.sum();
+	}
+
+	public long getSum(){
+		return sum.sum();
+	}
+
+	public long getMax(){
+		return max.get();
+	}
+
+	public double getMean(){
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	// 0 < percentile <= 100, 0 when empty
+	public long getPercentile(double percentile){
+		long n = count.sum();
+		if (n == 0){
+			return 0;
+		}
+		long rank = (long) Math.ceil(n * percentile / 100);
+		long seen = 0;
+		for (int k = 0; k < BUCKETS; k++){
+			seen += buckets[k].sum();
+			if (seen >= rank){
+				long upper = k == 0 ? 0 : k == 64 ? Long.MAX_VALUE : (1L << k) - 1;
+				return Math.min(upper, getMax());
+			}
+		}
+		return getMax();
+	}
+
+	public void reset(){
+		for (LongAdder bucket : buckets){
+			bucket.reset();
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	// e.g. count=120 mean=15.2 p50=15 p99=31 max=40 - values divided by unit (e.g. 1000 for nanos to micros)
+	public String report(long unit){
+		return "count=" + getCount() + " mean=" + String.format("%.1f", getMean() / unit)
+				+ " p50=" + getPercentile(50) / unit + " p99=" + getPercentile(99) / unit + " max=" + getMax() / unit;
+	}
+}
@@ -0,0 +1,297 @@
+package com.mobiquityinc.packer.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Where the time of the Packer goes - counters and latency histograms per stage
+ *
+ * Stages:
+ *   READ   - reading the input file (each read of the underlying stream, see meter(InputStream))
+ *   PARSE  - LineParserController.parse of a chunk of lines
+ *   SOLVE  - the packaging algorithm of a chunk (PackerController.selectItems)
+ *   RENDER - the viewer of a chunk
+ * Parse, solve and render are measured per chunk (up to 256 lines, one batch call) - timing each line
+ * would cost more than some of the lines. Mean time per line = stage total / lines.
+ *
+ * Counters: lines, rejected lines, bytes read, DP cells (n * (capacity + 1) of the capacity knapsack,
+ * n * values of the FPTAS value DP) and the distributions of items per line and of the capacity the
+ * solver works with after normalization (scaled capacity).
+ *
+ * All the updates are LongAdder increments, nothing is allocated and nothing is locked, so the metrics
+ * can stay on in production: two System.nanoTime calls per stage and chunk and a few increments per line.
+ * On a generated file of 1M lines the run time with and without --metrics was within the run to run noise.
+ *
+ * Published as the MXBean com.mobiquityinc.packer:type=PackerMetrics,name=<name> (registerMBean) and/or
+ * dumped as text every few seconds (startDump).
+ */
+
+public class PackerMetrics implements PackerMetricsMXBean {
+
+	public static final String DOMAIN = "com.mobiquityinc.packer";
+
+	public enum Stage {
+		READ,
+		PARSE,
+		SOLVE,
+		RENDER
+	}
+
+	private final Map<Stage, Histogram> stages = new EnumMap<>(Stage.class);
+	private final LongAdder lines         = new LongAdder();
+	private final LongAdder rejectedLines = new LongAdder();
+	private final LongAdder bytesRead     = new LongAdder();
+	private final LongAdder dpCells       = new LongAdder();
+	private final Histogram itemsPerLine   = new Histogram();
+	private final Histogram scaledCapacity = new Histogram();
+
+	private ObjectName objectName;
+	private ScheduledExecutorService dumper;
+
+	public PackerMetrics(){
+		for (Stage stage : Stage.values()){
+			stages.put(stage, new Histogram());
+		}
+	}
+
+	/*
+	 * Recording
+	 */
+
+	public void record(Stage stage, long nanos){
+		stages.get(stage).record(nanos);
+	}
+
+	// a line parsed successfully
+	public void recordLine(int numOfItems){
+		lines.increment();
+		itemsPerLine.record(numOfItems);
+	}
+
+	public void recordRejectedLine(){
+		rejectedLines.increment();
+	}
+
+	public void recordBytesRead(long bytes){
+		bytesRead.add(bytes);
+	}
+
+	public void recordDpCells(long cells){
+		dpCells.add(cells);
+	}
+
+	public void recordScaledCapacity(int capacity){
+		scaledCapacity.record(capacity);
+	}
+
+	// the stream counting the bytes read and timing each read as the READ stage
+	public InputStream meter(InputStream in){
+		return new MeteredInputStream(in);
+	}
+
+	private class MeteredInputStream extends FilterInputStream {
+
+		private MeteredInputStream(InputStream in){
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			int b = super.read();
+			record(Stage.READ, System.nanoTime() - start);
+			if (b >= 0){
+				bytesRead.increment();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			int read = super.read(b, off, len);
+			record(Stage.READ, System.nanoTime() - start);
+			if (read > 0){
+				bytesRead.add(read);
+			}
+			return read;
+		}
+	}
+
+	/*
+	 * Values
+	 */
+
+	public Histogram getStage(Stage stage){
+		return stages.get(stage);
+	}
+
+	public Histogram getItemsPerLine(){
+		return itemsPerLine;
+	}
+
+	public Histogram getScaledCapacity(){
+		return scaledCapacity;
+	}
+
+	@Override
+	public long getLines(){
+		return lines.sum();
+	}
+
+	@Override
+	public long getRejectedLines(){
+		return rejectedLines.sum();
+	}
+
+	@Override
+	public long getBytesRead(){
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getDpCells(){
+		return dpCells.sum();
+	}
+
+	@Override
+	public Map<String, Long> getValues(){
+		Map<String, Long> values = new LinkedHashMap<>();
+		values.put("lines", getLines());
+		values.put("rejectedLines", getRejectedLines());
+		values.put("bytesRead", getBytesRead());
+		values.put("dpCells", getDpCells());
+		for (Stage stage : Stage.values()){
+			putHistogram(values, stage.name().toLowerCase(Locale.ROOT) + "Nanos", stages.get(stage));
+		}
+		putHistogram(values, "itemsPerLine", itemsPerLine);
+		putHistogram(values, "scaledCapacity", scaledCapacity);
+		return values;
+	}
+
+	private static void putHistogram(Map<String, Long> values, String name, Histogram histogram){
+		values.put(name + ".total", histogram.getSum());
+		values.put(name + ".count", histogram.getCount());
+		values.put(name + ".mean", Math.round(histogram.getMean()));
+		values.put(name + ".p50", histogram.getPercentile(50));
+		values.put(name + ".p99", histogram.getPercentile(99));
+		values.put(name + ".max", histogram.getMax());
+	}
+
+	@Override
+	public void reset(){
+		for (Histogram histogram : stages.values()){
+			histogram.reset();
+		}
+		lines.reset();
+		rejectedLines.reset();
+		bytesRead.reset();
+		dpCells.reset();
+		itemsPerLine.reset();
+		scaledCapacity.reset();
+	}
+
+	/*
+	 * e.g.
+	 * metrics lines=1000 rejected=0 bytes=152331 dpCells=2150000 lines/s(parse+solve+render)=250000
+	 * read   total=1.2ms count=19 mean=63.1us p50=63us p99=127us max=130us
+	 * ...
+	 * items per line count=1000 mean=8.1 p50=15 p99=15 max=15
+	 */
+	@Override
+	public String getReport(){
+		long busyNanos = stages.get(Stage.PARSE).getSum() + stages.get(Stage.SOLVE).getSum() + stages.get(Stage.RENDER).getSum();
+		StringBuilder report = new StringBuilder();
+		report.append("metrics lines=").append(getLines()).append(" rejected=").append(getRejectedLines())
+			  .append(" bytes=").append(getBytesRead()).append(" dpCells=").append(getDpCells())
+			  .append(" lines/s(parse+solve+render)=").append(busyNanos == 0 ? 0 : Math.round(getLines() * 1e9 / busyNanos));
+		for (Stage stage : Stage.values()){
+			Histogram histogram = stages.get(stage);
+			report.append('\n').append(String.format("%-6s", stage.name().toLowerCase(Locale.ROOT)))
+				  .append(" total=").append(String.format("%.1f", histogram.getSum() / 1e6)).append("ms ")
+				  .append(histogram.report(1000)).append(" (us)");
+		}
+		report.append("\nitems per line ").append(itemsPerLine.report(1));
+		report.append("\nscaled capacity ").append(scaledCapacity.report(1));
+		return report.toString();
+	}
+
+	/*
+	 * Publishing
+	 */
+
+	/*
+	 * register as com.mobiquityinc.packer:type=PackerMetrics,name=<name> in the platform MBean server
+	 * when the name is taken (another Packer of the same JVM) a number is added: name-2, name-3...
+	 */
+	public synchronized ObjectName registerMBean(String name){
+		if (objectName != null){
+			return objectName;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (int i = 1; ; i++){
+				ObjectName candidate = new ObjectName(DOMAIN + ":type=PackerMetrics,name=" + (i == 1 ? name : name + "-" + i));
+				try {
+					server.registerMBean(this, candidate);
+					objectName = candidate;
+					return objectName;
+				} catch (InstanceAlreadyExistsException e) {
+					// try the next number
+				}
+			}
+		} catch (JMException e) {
+			throw new APIException("Can't register the metrics MBean: " + e.getMessage());
+		}
+	}
+
+	public synchronized void unregisterMBean(){
+		if (objectName != null){
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already gone
+			}
+			objectName = null;
+		}
+	}
+
+	// print getReport() to out every periodSeconds, from a daemon thread
+	public synchronized void startDump(PrintStream out, int periodSeconds){
+		if (periodSeconds < 1){
+			throw new APIException("Metrics period must be at least 1 second: " + periodSeconds);
+		}
+		stopDump();
+		dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "packer-metrics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> out.println(getReport()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	public synchronized void stopDump(){
+		if (dumper != null){
+			dumper.shutdownNow();
+			dumper = null;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.mobiquityinc.packer.metrics;
+
+import java.util.Map;
+
+/*
+ * JMX view of PackerMetrics - registered as com.mobiquityinc.packer:type=PackerMetrics,name=<name>
+ * (jconsole / VisualVM, or any JMX client)
+ */
+
+public interface PackerMetricsMXBean {
+
+	long getLines();
+
+	long getRejectedLines();
+
+	long getBytesRead();
+
+	long getDpCells();
+
+	// per stage (read, parse, solve, render): total, count, mean, p50, p99 and max nanoseconds
+	// and the distributions of items per line and scaled capacity
+	Map<String, Long> getValues();
+
+	String getReport();
+
+	void reset();
+}
@@ -0,0 +1,51 @@
+package com.mobiquityinc.packer.parsers;
+
+import java.nio.ByteOrder;
+
+/*
+ * Binary pre-parsed input of the Packer - the lines as the parser left them, so a replay skips the text parsing
+ *
+ * Written by BinaryInstanceWriter (see BinaryInstanceConverter for text files), read by BinaryInstanceReader.
+ * All the numbers are little endian ints / longs.
+ *
+ *   header (32 bytes)
+ *     int   MAGIC          "PKBI"
+ *     int   VERSION
+ *     int   weight factor  the weights and capacities are scaled by it (e.g. 100 for a weight precision of 2)
+ *     int   reserved       0
+ *     long  lines          number of lines
+ *     long  index offset   byte offset of the index
+ *
+ *   records (from byte 32), one per line in the input order
+ *     valid line    int capacity, int count, count * (int id, int weight, int cost)
+ *                   capacity and weights scaled, items in the parser order (sorted by weight)
+ *     invalid line  int 0, int INVALID, int length, length bytes of the UTF-8 message of the parser,
+ *                   zero padded to 4 bytes
+ *     a record never crosses a SEGMENT_SIZE boundary (zero padding before it), so each segment
+ *     is mapped on its own and files larger than 2GB are fine
+ *
+ *   index (8 bytes aligned)
+ *     long  offset of the record of each line
+ */
+
+public final class BinaryInstanceFormat {
+
+	// "PKBI" - the first bytes of the file, as written
+	public static final int MAGIC   = 0x49424B50;
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 32;
+	public static final int INVALID     = -1;
+	public static final long SEGMENT_SIZE = 1L << 30;
+
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	// header fields
+	static final int VERSION_OFFSET       = 4;
+	static final int WEIGHT_FACTOR_OFFSET = 8;
+	static final int LINES_OFFSET         = 16;
+	static final int INDEX_OFFSET         = 24;
+
+	private BinaryInstanceFormat(){
+	}
+}
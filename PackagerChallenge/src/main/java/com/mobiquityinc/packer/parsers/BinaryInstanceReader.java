@@ -0,0 +1,168 @@
+package com.mobiquityinc.packer.parsers;
+
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.BYTE_ORDER;
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.HEADER_SIZE;
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.SEGMENT_SIZE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Reads a binary pre-parsed input (see BinaryInstanceFormat) straight into the solver input
+ *
+ * The file is memory mapped (one mapping per segment) and read with absolute gets only, so any line
+ * can be read at any time through the index and the reader is thread safe - the workers of a parallel
+ * run each read their own lines. read(line, target) has the contract of IParsingAlgorithm.parse(line, target)
+ * without the text: the capacity and the items of the line as the parser left them (scaled, sorted by weight),
+ * and the APIException of the parser for a line it rejected.
+ *
+ * The records are checked against the file size only - the limits of the lines were checked by the parser
+ * when the file was written, with the weight factor of getWeightFactor().
+ */
+
+public class BinaryInstanceReader implements Closeable {
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteBuffer[] segments;
+	private final long fileSize;
+	private final int weightFactor;
+	private final long lines;
+	private final long indexOffset;
+
+	private BinaryInstanceReader(Path path, FileChannel channel) throws IOException {
+		this.path     = path;
+		this.channel  = channel;
+		this.fileSize = channel.size();
+		if (fileSize < HEADER_SIZE){
+			throw corrupt("no header");
+		}
+		segments = new ByteBuffer[(int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+		for (int k = 0; k < segments.length; k++){
+			long start = k * SEGMENT_SIZE;
+			segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, fileSize - start))
+								 .order(BYTE_ORDER);
+		}
+		ByteBuffer header = segments[0];
+		if (header.getInt(0) != BinaryInstanceFormat.MAGIC){
+			throw corrupt("not a binary input");
+		}
+		if (header.getInt(BinaryInstanceFormat.VERSION_OFFSET) != BinaryInstanceFormat.VERSION){
+			throw corrupt("version " + header.getInt(BinaryInstanceFormat.VERSION_OFFSET) + " is not supported");
+		}
+		weightFactor = header.getInt(BinaryInstanceFormat.WEIGHT_FACTOR_OFFSET);
+		lines        = header.getLong(BinaryInstanceFormat.LINES_OFFSET);
+		indexOffset  = header.getLong(BinaryInstanceFormat.INDEX_OFFSET);
+		if (lines < 0 || indexOffset < HEADER_SIZE || indexOffset % Long.BYTES != 0
+				|| indexOffset + lines * Long.BYTES != fileSize){
+			throw corrupt("the index does not match the file size");
+		}
+	}
+
+	// throw APIException when the file can't be read or is not a binary input
+	public static BinaryInstanceReader open(Path path){
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			return new BinaryInstanceReader(path, channel);
+		} catch (IOException | APIException e) {
+			if (channel != null){
+				try {
+					channel.close();
+				} catch (IOException closeException) {
+					// the first error is the one to report
+				}
+			}
+			if (e instanceof APIException){
+				throw (APIException) e;
+			}
+			throw new APIException("Exception when trying to open file: " + e.getMessage());
+		}
+	}
+
+	// the file starts with the magic of a binary input - a text or compressed input never does
+	public static boolean isBinary(Path path){
+		try (InputStream in = Files.newInputStream(path)){
+			byte[] magic = new byte[Integer.BYTES];
+			return in.readNBytes(magic, 0, magic.length) == magic.length
+					&& ByteBuffer.wrap(magic).order(BYTE_ORDER).getInt() == BinaryInstanceFormat.MAGIC;
+		} catch (IOException e) {
+			throw new APIException("Exception when trying to open file: " + e.getMessage());
+		}
+	}
+
+	// number of lines
+	public long size(){
+		return lines;
+	}
+
+	// the weights and capacities are scaled by it
+	public int getWeightFactor(){
+		return weightFactor;
+	}
+
+	/*
+	 * the capacity and the items of the line (from 0) into target
+	 * throw APIException with the message of the parser when the line was rejected
+	 */
+	public void read(long line, ItemBatch target){
+		if (line < 0 || line >= lines){
+			throw new APIException("Line " + line + " is out of the range 0.." + (lines - 1) + " of " + path);
+		}
+		long offset = getLong(indexOffset + line * Long.BYTES);
+		if (offset < HEADER_SIZE || offset % Integer.BYTES != 0 || offset + 8 > indexOffset
+				|| offset % SEGMENT_SIZE + 8 > SEGMENT_SIZE){
+			throw corrupt("bad offset of line " + line);
+		}
+		ByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+		int position = (int) (offset % SEGMENT_SIZE);
+		int capacity = segment.getInt(position);
+		int count    = segment.getInt(position + 4);
+		position += 8;
+		if (count == BinaryInstanceFormat.INVALID){
+			checkRecord(line, offset, 12, segment);
+			int length = segment.getInt(position);
+			checkRecord(line, offset, length < 0 ? 0 : 12L + length, segment);
+			byte[] message = new byte[length];
+			segment.get(position + 4, message);
+			throw new APIException(new String(message, StandardCharsets.UTF_8));
+		}
+		checkRecord(line, offset, 8 + 12L * count, segment);
+		target.clear();
+		target.reserve(count);
+		for (int i = 0; i < count; i++, position += 12){
+			target.add(segment.getInt(position), segment.getInt(position + 4), segment.getInt(position + 8));
+		}
+		target.setCapacity(capacity);
+	}
+
+	private void checkRecord(long line, long offset, long size, ByteBuffer segment){
+		if (size < 8 || offset + size > indexOffset || offset % SEGMENT_SIZE + size > segment.limit()){
+			throw corrupt("bad record of line " + line);
+		}
+	}
+
+	private long getLong(long offset){
+		return segments[(int) (offset / SEGMENT_SIZE)].getLong((int) (offset % SEGMENT_SIZE));
+	}
+
+	private APIException corrupt(String reason){
+		return new APIException("Invalid binary input " + path + ": " + reason);
+	}
+
+	@Override
+	public void close() throws IOException {
+		// the mappings are released by the garbage collector
+		channel.close();
+	}
+}
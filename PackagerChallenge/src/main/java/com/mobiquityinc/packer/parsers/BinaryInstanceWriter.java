@@ -0,0 +1,184 @@
+package com.mobiquityinc.packer.parsers;
+
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.BYTE_ORDER;
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.HEADER_SIZE;
+import static com.mobiquityinc.packer.parsers.BinaryInstanceFormat.SEGMENT_SIZE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Writes the lines to a binary pre-parsed input (see BinaryInstanceFormat), one record per write
+ *
+ * The index is written to a temporary file next to the output and appended by finish(),
+ * so memory does not grow with the number of lines. The header is written last -
+ * a file which was not finished has no magic and is not taken for a binary input,
+ * and close() without finish() (e.g. the input could not be read) deletes it.
+ * Not thread safe.
+ */
+
+public class BinaryInstanceWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	private final Path path;
+	private final int weightFactor;
+	private final FileChannel channel;
+	private final FileChannel indexChannel;
+	private final ByteBuffer buffer      = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+	private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BYTE_ORDER);
+	// file offset of the next byte written
+	private long position = HEADER_SIZE;
+	private long lines;
+	private boolean closed;
+
+	public BinaryInstanceWriter(Path path, int weightFactor) throws IOException {
+		if (weightFactor < 1){
+			throw new APIException("Weight factor must be positive: " + weightFactor);
+		}
+		this.path         = path;
+		this.weightFactor = weightFactor;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+										StandardOpenOption.WRITE);
+		try {
+			this.indexChannel = FileChannel.open(path.resolveSibling(path.getFileName() + ".index.tmp"),
+												 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+												 StandardOpenOption.READ, StandardOpenOption.WRITE,
+												 StandardOpenOption.DELETE_ON_CLOSE);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		// room for the header
+		channel.position(HEADER_SIZE);
+	}
+
+	// the capacity and the items of a parsed line
+	public void write(ItemBatch batch) throws IOException {
+		int count = batch.getCount();
+		startRecord(8 + 12L * count);
+		putInt(batch.getCapacity());
+		putInt(count);
+		int[] ids = batch.getIds(), weights = batch.getWeights(), costs = batch.getCosts();
+		for (int i = 0; i < count; i++){
+			putInt(ids[i]);
+			putInt(weights[i]);
+			putInt(costs[i]);
+		}
+	}
+
+	// a line the parser rejected - the reader throws APIException with this message
+	public void writeInvalid(String message) throws IOException {
+		byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+		int padding = -bytes.length & 3;
+		startRecord(12L + bytes.length + padding);
+		putInt(0);
+		putInt(BinaryInstanceFormat.INVALID);
+		putInt(bytes.length);
+		for (int i = 0; i < bytes.length + padding; i++){
+			putByte(i < bytes.length ? bytes[i] : 0);
+		}
+	}
+
+	// number of lines written so far
+	public long size(){
+		return lines;
+	}
+
+	// the index offset of this line and the padding which keeps the record within one segment
+	private void startRecord(long size) throws IOException {
+		if (size > SEGMENT_SIZE){
+			throw new APIException("Line " + (lines + 1) + " is too large for a binary input: " + size + " bytes");
+		}
+		if (position % SEGMENT_SIZE + size > SEGMENT_SIZE){
+			while (position % SEGMENT_SIZE != 0){
+				putInt(0);
+			}
+		}
+		if (indexBuffer.remaining() < Long.BYTES){
+			drain(indexBuffer, indexChannel);
+		}
+		indexBuffer.putLong(position);
+		lines++;
+	}
+
+	private void putInt(int value) throws IOException {
+		if (buffer.remaining() < Integer.BYTES){
+			drain(buffer, channel);
+		}
+		buffer.putInt(value);
+		position += Integer.BYTES;
+	}
+
+	private void putByte(byte value) throws IOException {
+		if (!buffer.hasRemaining()){
+			drain(buffer, channel);
+		}
+		buffer.put(value);
+		position++;
+	}
+
+	private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// append the index and write the header - all the lines were written
+	public void finish() throws IOException {
+		if (closed){
+			throw new APIException("Binary input " + path + " is already closed");
+		}
+		closed = true;
+		try (FileChannel out = channel; FileChannel index = indexChannel){
+			// the index is 8 bytes aligned (records are 4 bytes aligned) so an entry never crosses a segment
+			if (position % Long.BYTES != 0){
+				putInt(0);
+			}
+			drain(buffer, channel);
+			drain(indexBuffer, indexChannel);
+			long indexOffset = position;
+			long indexSize = index.position();
+			for (long transferred = 0; transferred < indexSize; ){
+				transferred += index.transferTo(transferred, indexSize - transferred, out);
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+			header.putInt(BinaryInstanceFormat.MAGIC)
+				  .putInt(BinaryInstanceFormat.VERSION)
+				  .putInt(weightFactor)
+				  .putInt(0)
+				  .putLong(lines)
+				  .putLong(indexOffset)
+				  .flip();
+			while (header.hasRemaining()){
+				out.write(header, HEADER_SIZE - header.remaining());
+			}
+		}
+	}
+
+	// delete the file unless finish() was called - the lines written so far are not a binary input
+	@Override
+	public void close() throws IOException {
+		if (closed){
+			return;
+		}
+		closed = true;
+		try {
+			indexChannel.close();
+		} finally {
+			channel.close();
+			Files.deleteIfExists(path);
+		}
+	}
+}
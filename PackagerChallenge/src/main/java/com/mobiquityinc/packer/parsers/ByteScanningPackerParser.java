@@ -0,0 +1,577 @@
+package com.mobiquityinc.packer.parsers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ParsedLineEntity;
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Parser which scans the UTF-8 bytes of a line directly
+ *
+ * Same line format, validation rules and APIException messages as DefaultPackerParser
+ * however, there are no String.split, regular expressions, float parsing or boxing on the way:
+ *  - numbers are read digit by digit
+ *  - weights are read straight into scaled fixed point integers
+ *    i.e. with weightFactor = 100 "53.389" becomes 5338 (the extra digits are truncated, as before)
+ *  - currency signs are compared as UTF-8 sequences, so multi-byte signs such as '€' work as well
+ *  - all buffers are reused (one set per thread), nothing is allocated per line by scan(...)
+ *    Strings are built only for the APIException messages
+ *
+ * Differences from DefaultPackerParser:
+ *  - weights must be plain decimal numbers ("1e2", "0x10", "NaN" are rejected as invalid triplets)
+ *  - since there is no float rounding a weight such as 0.29 is scaled to exactly 29
+ *  - malformed triplets such as "(" or an empty cost throw APIException and not StringIndexOutOfBoundsException
+ *
+ * The parser is thread safe - each thread gets its own scratch buffers.
+ */
+
+public class ByteScanningPackerParser implements IParsingAlgorithm {
+
+	private static final byte WEIGHT_SEP  = ':';
+	private static final byte VALS_SEP    = ',';
+	private static final byte TRIPLET_OPEN  = '(';
+	private static final byte TRIPLET_CLOSE = ')';
+
+	// fraction digits beyond this are truncated anyway for any reasonable weight factor
+	private static final int MAX_FRACTION_DIGITS = 9;
+	private static final int MAX_INTEGER_DIGITS  = 9;
+	private static final long INVALID_NUMBER     = Long.MIN_VALUE;
+
+	private final int weightFactor;
+	private final ConstraintProfile constraints;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+	/*
+	 * Constructors
+	 */
+
+	// by using the default send weight factor is 10 to the power of 2
+	// i.e. weight precision of 2 decimal places after the dot
+	public ByteScanningPackerParser(){
+		this(100);
+	}
+
+	// receive weightFactor by which weight and max capacity will be multiply
+	public ByteScanningPackerParser(int weightFactor){
+		this(weightFactor, ConstraintProfile.CHALLENGE);
+	}
+
+	public ByteScanningPackerParser(int weightFactor, ConstraintProfile constraints){
+		constraints.verifyWeightFactor(weightFactor);
+		this.weightFactor = weightFactor;
+		this.constraints  = constraints;
+	}
+
+	public ConstraintProfile getConstraints() {
+		return constraints;
+	}
+
+
+	/*
+	 * per thread buffers
+	 */
+	private static class Scratch {
+
+		private byte[] encoded = new byte[256];
+		private final ItemBatch target = new ItemBatch();
+		private final IntHashSet idsSet  = new IntHashSet();
+
+		// currency sign of the current line (a UTF-8 sequence)
+		private final byte[] currencySign = new byte[4];
+		private int currencySignLength;
+
+		// current line - used only to build exception messages
+		private String line;
+		private byte[] buf;
+		private int lineStart;
+		private int lineEnd;
+
+		// encode the line into the reusable buffer, return the number of bytes
+		private int encode(String str){
+			int length = str.length();
+			if (encoded.length < length * 3){
+				encoded = new byte[length * 3];
+			}
+			int pos = 0;
+			for (int i = 0; i < length; i++){
+				char c = str.charAt(i);
+				if (c < 0x80){
+					encoded[pos++] = (byte) c;
+				} else if (c < 0x800){
+					encoded[pos++] = (byte) (0xC0 | (c >> 6));
+					encoded[pos++] = (byte) (0x80 | (c & 0x3F));
+				} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(str.charAt(i + 1))){
+					int codePoint = Character.toCodePoint(c, str.charAt(++i));
+					encoded[pos++] = (byte) (0xF0 | (codePoint >> 18));
+					encoded[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					encoded[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					encoded[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+				} else if (Character.isSurrogate(c)){
+					encoded[pos++] = '?';
+				} else {
+					encoded[pos++] = (byte) (0xE0 | (c >> 12));
+					encoded[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					encoded[pos++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+			return pos;
+		}
+	}
+
+
+	// Exposed method by the interface
+	// Allows the user to send a line an receive back an entity represents it
+	@Override
+	public ParsedLineEntity parse(String line) {
+		if (ParsersTools.isNullOrEmpty(line)){
+			return null;
+		}
+		Scratch s = scratch.get();
+		int length = s.encode(line);
+		s.line = line;
+		try {
+			scan(s, s.encoded, 0, length, s.target);
+		} finally {
+			s.line = null;
+		}
+		return s.target.toParsedLineEntity();
+	}
+
+	// boxing free entry point - the line is scanned into target
+	@Override
+	public boolean parse(String line, ItemBatch target) {
+		if (ParsersTools.isNullOrEmpty(line)){
+			return false;
+		}
+		Scratch s = scratch.get();
+		int length = s.encode(line);
+		s.line = line;
+		try {
+			scan(s, s.encoded, 0, length, target);
+		} finally {
+			s.line = null;
+		}
+		return true;
+	}
+
+	/*
+	 * Scan the UTF-8 bytes buf[off, off + len) of one line (without the line terminator) into target
+	 * return false for an empty line (DefaultPackerParser returns null for it) and true otherwise
+	 *
+	 * throw APIException in case the line is not valid
+	 */
+	public boolean scan(byte[] buf, int off, int len, ItemBatch target){
+		if (len == 0){
+			return false;
+		}
+		scan(scratch.get(), buf, off, len, target);
+		return true;
+	}
+
+	private void scan(Scratch s, byte[] buf, int off, int len, ItemBatch target){
+		int end = off + len;
+		s.buf       = buf;
+		s.lineStart = off;
+		s.lineEnd   = end;
+		s.currencySignLength = 0;
+		s.idsSet.clear();
+
+		// the line must have exactly two parts separated by ':'
+		// (as String.split - trailing empty parts are ignored)
+		int weightSep = indexOf(buf, off, end, WEIGHT_SEP);
+		if (weightSep < 0){
+			throw formatException(s);
+		}
+		int itemsEnd = indexOf(buf, weightSep + 1, end, WEIGHT_SEP);
+		if (itemsEnd < 0){
+			itemsEnd = end;
+		} else {
+			for (int i = itemsEnd; i < end; i++){
+				if (buf[i] != WEIGHT_SEP){
+					throw formatException(s);
+				}
+			}
+		}
+		if (itemsEnd == weightSep + 1){
+			throw formatException(s);
+		}
+
+		target.setCapacity(parseMaxWeight(s, buf, off, weightSep));
+		parseTriplets(s, buf, weightSep + 1, itemsEnd, target);
+	}
+
+	/* get the max weight from the line
+	 * or throw APIException if line is not in correct format
+	 */
+	private int parseMaxWeight(Scratch s, byte[] buf, int from, int to){
+		int start = trimStart(buf, from, to);
+		int end   = trimEnd(buf, start, to);
+		long packageCapacity = parseInteger(buf, start, end);
+		if (packageCapacity == INVALID_NUMBER){
+			throw new APIException("Line: " + line(s) + " weight is not a number");
+		}
+		if (packageCapacity > constraints.getMaxPackageCap() || packageCapacity < 0){
+			throw new APIException("Line: " + line(s) + " too invalid packageCapacity " + packageCapacity);
+		}
+		return (int) packageCapacity * weightFactor;
+	}
+
+	/* scan the triplets (index,weight,cost) into target
+	 * Weight value is multiply by weightFactor to allow knapsack algorithm to work
+	 *
+	 * throw APIException in case an invalid triplet detected
+	 */
+	private void parseTriplets(Scratch s, byte[] buf, int from, int to, ItemBatch target){
+		int maxWeight = target.getCapacity();
+		int maxScaledWeight = (int)(constraints.getMaxWeight() * weightFactor);
+		int start = trimStart(buf, from, to);
+		int end   = trimEnd(buf, start, to);
+
+		int tripletsNum = countTriplets(buf, start, end);
+		if (tripletsNum > constraints.getMaxItemsNum()){
+			throw new APIException("Line: " + line(s) + " too many triplets, max triplets number: " + constraints.getMaxItemsNum());
+		}
+		target.clear();
+		target.reserve(tripletsNum);
+		s.idsSet.ensureCapacity(tripletsNum);
+
+		int pos = start;
+		while (pos <= end){
+			int tripletEnd = pos;
+			while (tripletEnd < end && !isSeparator(buf[tripletEnd])){
+				tripletEnd++;
+			}
+			parseTriplet(s, buf, pos, tripletEnd, from, to, maxWeight, maxScaledWeight, target);
+
+			pos = tripletEnd;
+			while (pos < end && isSeparator(buf[pos])){
+				pos++;
+			}
+			if (pos == end){
+				break;
+			}
+		}
+
+		// sort by weight to ensure item order so the result
+		// will include the lowest weight for the same price of different items combination
+		target.sortByWeight();
+	}
+
+	private void parseTriplet(Scratch s, byte[] buf, int from, int to, int tripletsFrom, int tripletsTo,
+							  int maxWeight, int maxScaledWeight, ItemBatch target){
+		int start = trimStart(buf, from, to);
+		int end   = trimEnd(buf, start, to);
+		boolean opened = end > start && buf[start] == TRIPLET_OPEN;
+		boolean closed = end > start && buf[end - 1] == TRIPLET_CLOSE;
+		if ((!opened && closed) || end - start < 2){
+			throw new APIException("Line: " + line(s) + " invalie triplet found: " + text(buf, from, to));
+		}
+
+		// the three values separated by ',' (as String.split - trailing empty values are ignored)
+		// without the first and the last character, whole UTF-8 sequences as DefaultPackerParser drops them
+		int valsStart = start + 1;
+		while (valsStart < end && isContinuation(buf[valsStart])){
+			valsStart++;
+		}
+		int valsEnd = end - 1;
+		while (valsEnd > valsStart && isContinuation(buf[valsEnd])){
+			valsEnd--;
+		}
+		int firstSep  = indexOf(buf, valsStart, valsEnd, VALS_SEP);
+		int secondSep = firstSep < 0 ? -1 : indexOf(buf, firstSep + 1, valsEnd, VALS_SEP);
+		int thirdSep  = secondSep < 0 ? -1 : indexOf(buf, secondSep + 1, valsEnd, VALS_SEP);
+		int costEnd   = thirdSep < 0 ? valsEnd : thirdSep;
+		boolean valid = secondSep >= 0 && costEnd > secondSep + 1;
+		for (int i = costEnd; valid && i < valsEnd; i++){
+			valid = buf[i] == VALS_SEP;
+		}
+		if (!valid){
+			throw new APIException("Line: " + line(s) + " invalie triplet found : " + text(buf, tripletsFrom, tripletsTo));
+		}
+
+		// 1) parse id and verify there are no duplicate and id is bigger than 0
+		long id = parseInteger(buf, trimStart(buf, valsStart, firstSep), trimEnd(buf, valsStart, firstSep));
+		if (id == INVALID_NUMBER){
+			throw invalidTriplet(s, buf, tripletsFrom, tripletsTo);
+		}
+		if (id < 0 || !s.idsSet.add((int) id)){
+			throw new APIException("Line: " + line(s) + " duplicate or negative id(s)");
+		}
+
+		// 2) parse weight, verify if valid and correct it by weightFactor
+		int weightStart = trimStart(buf, firstSep + 1, secondSep);
+		int weightEnd   = trimEnd(buf, weightStart, secondSep);
+		long correctedWeight = parseScaledWeight(buf, weightStart, weightEnd);
+		if (correctedWeight == INVALID_NUMBER){
+			throw invalidTriplet(s, buf, tripletsFrom, tripletsTo);
+		}
+		if (correctedWeight < 0 || correctedWeight > maxScaledWeight){
+			throw new APIException("Line: " + line(s) + " invalie triplet found (weight is not valid): " + text(buf, tripletsFrom, tripletsTo));
+		}
+
+		// 3) parse cost, make sure cost is bigger than 0
+		int costStart = trimStart(buf, secondSep + 1, costEnd);
+		costEnd       = trimEnd(buf, costStart, costEnd);
+		int amountStart = stripCurrencySign(s, buf, costStart, costEnd, tripletsFrom, tripletsTo);
+		long cost = parseInteger(buf, trimStart(buf, amountStart, costEnd), trimEnd(buf, amountStart, costEnd));
+		if (cost == INVALID_NUMBER){
+			throw invalidTriplet(s, buf, tripletsFrom, tripletsTo);
+		}
+		if (cost <= 0){
+			throw new APIException("Line: " + line(s) + " Cost must be positive");
+		}
+
+		// 4) skip triple that it's weight is bigger than the max allowed weight
+		// 	  There is no point to check this item as it will not fit the package for sure
+		if (correctedWeight <= maxWeight){
+			target.add((int) id, (int) correctedWeight, (int) cost);
+		}
+	}
+
+	/* verify currency sign (see DefaultPackerParser.stripCurrencySign)
+	 * the sign is the first UTF-8 sequence of the cost
+	 *
+	 * return the position of the amount after the sign
+	 */
+	private int stripCurrencySign(Scratch s, byte[] buf, int from, int to, int tripletsFrom, int tripletsTo){
+		if (from == to){
+			throw invalidTriplet(s, buf, tripletsFrom, tripletsTo);
+		}
+		int signLength = Math.min(utf8Length(buf[from]), to - from);
+
+		// get first currency sign seen to verify the currency in use is the same for all items
+		if (s.currencySignLength == 0){
+			System.arraycopy(buf, from, s.currencySign, 0, signLength);
+			s.currencySignLength = signLength;
+		}
+
+		if (ParsersTools.isNumeric((char) buf[from])){
+			throw new APIException("Line: " + line(s) + " invalie triplet found: " + text(buf, from, to));
+		}
+
+		boolean sameSign = signLength == s.currencySignLength;
+		for (int i = 0; sameSign && i < signLength; i++){
+			sameSign = buf[from + i] == s.currencySign[i];
+		}
+		if (!sameSign){
+			throw new APIException("Line: " + line(s) + " different currency signs where found: " + text(buf, from, to));
+		}
+		return from + signLength;
+	}
+
+
+	/*
+	 * Number scanning
+	 */
+
+	// same syntax as Integer.parseInt: optional sign followed by digits
+	// return INVALID_NUMBER in case of a syntax error or an int overflow
+	private static long parseInteger(byte[] buf, int from, int to){
+		if (from >= to){
+			return INVALID_NUMBER;
+		}
+		boolean negative = buf[from] == '-';
+		int pos = (negative || buf[from] == '+') ? from + 1 : from;
+		if (pos == to){
+			return INVALID_NUMBER;
+		}
+		long value = 0;
+		for (; pos < to; pos++){
+			int digit = buf[pos] - '0';
+			if (digit < 0 || digit > 9){
+				return INVALID_NUMBER;
+			}
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1){
+				return INVALID_NUMBER;
+			}
+		}
+		value = negative ? -value : value;
+		return (value > Integer.MAX_VALUE) ? INVALID_NUMBER : value;
+	}
+
+	// decimal number [+-]digits[.digits] scaled by the weight factor and truncated
+	// return INVALID_NUMBER in case of a syntax error, -1 for a weight which is not positive
+	// and Long.MAX_VALUE for a weight which is too big
+	private long parseScaledWeight(byte[] buf, int from, int to){
+		if (from >= to){
+			return INVALID_NUMBER;
+		}
+		boolean negative = buf[from] == '-';
+		int pos = (negative || buf[from] == '+') ? from + 1 : from;
+		boolean anyDigit = false;
+
+		long integerPart = 0;
+		int integerDigits = 0;
+		for (; pos < to && isDigit(buf[pos]); pos++){
+			anyDigit = true;
+			if (integerPart != 0 || buf[pos] != '0'){
+				integerDigits++;
+			}
+			if (integerDigits <= MAX_INTEGER_DIGITS){
+				integerPart = integerPart * 10 + (buf[pos] - '0');
+			}
+		}
+
+		// digits beyond MAX_FRACTION_DIGITS are truncated by any weight factor up to 10^9
+		long fraction = 0;
+		long fractionScale = 1;
+		boolean positiveFraction = false;
+		if (pos < to && buf[pos] == '.'){
+			int fractionDigits = 0;
+			for (pos++; pos < to && isDigit(buf[pos]); pos++){
+				anyDigit = true;
+				positiveFraction |= buf[pos] != '0';
+				if (++fractionDigits <= MAX_FRACTION_DIGITS){
+					fraction = fraction * 10 + (buf[pos] - '0');
+					fractionScale *= 10;
+				}
+			}
+		}
+		if (pos != to || !anyDigit){
+			return INVALID_NUMBER;
+		}
+
+		if (negative || (integerPart == 0 && !positiveFraction)){
+			return -1;
+		}
+		if (integerDigits > MAX_INTEGER_DIGITS){
+			return Long.MAX_VALUE;
+		}
+		return integerPart * weightFactor + (fraction * weightFactor) / fractionScale;
+	}
+
+	private static boolean isDigit(byte b){
+		return b >= '0' && b <= '9';
+	}
+
+
+	/*
+	 * Bytes tools
+	 */
+
+	private static int indexOf(byte[] buf, int from, int to, byte b){
+		for (int i = from; i < to; i++){
+			if (buf[i] == b){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// same as String.trim - remove control characters and spaces
+	private static int trimStart(byte[] buf, int from, int to){
+		while (from < to && (buf[from] & 0xFF) <= ' '){
+			from++;
+		}
+		return from;
+	}
+
+	private static int trimEnd(byte[] buf, int from, int to){
+		while (to > from && (buf[to - 1] & 0xFF) <= ' '){
+			to--;
+		}
+		return to;
+	}
+
+	// a UTF-8 byte after the first one of a sequence (10xxxxxx)
+	private static boolean isContinuation(byte b){
+		return (b & 0xC0) == 0x80;
+	}
+
+	// same characters as the regular expression \s
+	private static boolean isSeparator(byte b){
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+
+	private static int countTriplets(byte[] buf, int from, int to){
+		int count = 1;
+		for (int i = from; i < to; i++){
+			if (isSeparator(buf[i]) && !isSeparator(buf[i - 1])){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	// number of bytes of the UTF-8 sequence starting with lead
+	// a byte which is not a valid lead byte is taken as a sequence of its own
+	private static int utf8Length(byte lead){
+		int b = lead & 0xFF;
+		if (b >= 0xF0 && b <= 0xF4){
+			return 4;
+		} else if (b >= 0xE0){
+			return (b < 0xF0) ? 3 : 1;
+		} else if (b >= 0xC2){
+			return 2;
+		}
+		return 1;
+	}
+
+
+	/*
+	 * Exception messages - Strings are built only here
+	 */
+
+	private static String line(Scratch s){
+		return (s.line != null) ? s.line : text(s.buf, s.lineStart, s.lineEnd);
+	}
+
+	private static String text(byte[] buf, int from, int to){
+		return new String(buf, from, to - from, StandardCharsets.UTF_8);
+	}
+
+	private static APIException formatException(Scratch s){
+		return new APIException("Line: " + line(s) + " is not in format <weight> : <list of items>");
+	}
+
+	private static APIException invalidTriplet(Scratch s, byte[] buf, int tripletsFrom, int tripletsTo){
+		return new APIException("Line: " + line(s) + " invalie triplet found: " + text(buf, tripletsFrom, tripletsTo));
+	}
+
+
+	/*
+	 * Open addressing set of ints for the duplicate ids check
+	 * cleared in O(1) by using a generation stamp per slot
+	 */
+	private static class IntHashSet {
+
+		private int[] keys   = new int[64];
+		private int[] stamps = new int[64];
+		private int generation = 1;
+
+		private void ensureCapacity(int size){
+			if (keys.length < size * 2){
+				int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+				keys   = new int[capacity];
+				stamps = new int[capacity];
+				generation = 1;
+			}
+		}
+
+		private void clear(){
+			if (++generation == 0){
+				Arrays.fill(stamps, 0);
+				generation = 1;
+			}
+		}
+
+		// return false if the key is already in the set
+		private boolean add(int key){
+			int mask = keys.length - 1;
+			int slot = (key * 0x9E3779B9) >>> 16 & mask;
+			while (stamps[slot] == generation){
+				if (keys[slot] == key){
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot]   = key;
+			stamps[slot] = generation;
+			return true;
+		}
+	}
+}
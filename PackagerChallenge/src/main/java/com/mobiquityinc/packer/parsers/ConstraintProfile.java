@@ -0,0 +1,88 @@
+package com.mobiquityinc.packer.parsers;
+
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Limits a parser applies to each line
+ *
+ * maxWeight      : max weight of an item (before it is scaled by the weight factor)
+ * maxItemsNum    : max number of items in a line
+ * maxPackageCap  : max capacity of a package (before it is scaled by the weight factor)
+ *
+ * CHALLENGE - the limits of the challenge: 100 / 15 / 100 (default)
+ * LARGE     - hundreds to thousands of items against large capacities: 100000 / 10000 / 100000
+ *             with precision 2 the capacity is up to 10^7 - use a solver which does not depend
+ *             on the capacity (e.g. --solver pareto or planner), and ByteScanningPackerParser
+ *             since DefaultPackerParser reads the weights as floats (about 7 significant digits)
+ *
+ * A profile is immutable and belongs to the parser it is given to,
+ * so parsers with different limits can be used at the same time.
+ */
+
+public final class ConstraintProfile {
+
+	public static final ConstraintProfile CHALLENGE = new ConstraintProfile("challenge", 100.0f, 15, 100);
+	public static final ConstraintProfile LARGE     = new ConstraintProfile("large", 100_000.0f, 10_000, 100_000);
+
+	private final String name;
+	private final float  maxWeight;
+	private final int    maxItemsNum;
+	private final int    maxPackageCap;
+
+	public ConstraintProfile(float maxWeight, int maxItemsNum, int maxPackageCap){
+		this("custom", maxWeight, maxItemsNum, maxPackageCap);
+	}
+
+	private ConstraintProfile(String name, float maxWeight, int maxItemsNum, int maxPackageCap){
+		if (!(maxWeight > 0) || maxItemsNum < 1 || maxPackageCap < 0){
+			throw new APIException("Invalid constraints: max weight " + maxWeight + ", max items " + maxItemsNum
+									+ ", max package capacity " + maxPackageCap);
+		}
+		this.name          = name;
+		this.maxWeight     = maxWeight;
+		this.maxItemsNum   = maxItemsNum;
+		this.maxPackageCap = maxPackageCap;
+	}
+
+	// challenge or large, null for any other name
+	public static ConstraintProfile byName(String name){
+		if (CHALLENGE.name.equals(name)){
+			return CHALLENGE;
+		} else if (LARGE.name.equals(name)){
+			return LARGE;
+		}
+		return null;
+	}
+
+	/*
+	 * the scaled capacity and weights have to be ints
+	 * throw APIException when the weight factor makes them overflow
+	 */
+	public void verifyWeightFactor(int weightFactor){
+		if ((long) maxPackageCap * weightFactor > Integer.MAX_VALUE || (double) maxWeight * weightFactor > Integer.MAX_VALUE){
+			throw new APIException("Weight factor " + weightFactor + " is too big for the " + name + " constraints");
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public float getMaxWeight() {
+		return maxWeight;
+	}
+
+	public int getMaxItemsNum() {
+		return maxItemsNum;
+	}
+
+	public int getMaxPackageCap() {
+		return maxPackageCap;
+	}
+
+	@Override
+	public String toString() {
+		return "ConstraintProfile [name=" + name + ", maxWeight=" + maxWeight + ", maxItemsNum=" + maxItemsNum
+				+ ", maxPackageCap=" + maxPackageCap + "]";
+	}
+}
@@ -16,15 +16,29 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	private static final String tripletSep = "\\s+";
 	private static final String valsSep    = ",";
 	
-	public static Float   MAX_WEIGHT      = 100.0f;
-	public static Integer MAX_ITEMS_NUM   = 15;
-	public static Integer MAX_PACKAGE_CAP = 100;
+	// limits of the challenge - see ConstraintProfile.CHALLENGE
+	public static final float MAX_WEIGHT      = 100.0f;
+	public static final int   MAX_ITEMS_NUM   = 15;
+	public static final int   MAX_PACKAGE_CAP = 100;
 	
-	private String line;
-	private Character currencySign = null;
 	private int weightFactor = 1;
+	// the limits of this parser only
+	private final ConstraintProfile constraints;
 	
-	private final Set<Integer> idsSet = new HashSet<>();
+	/*
+	 * State of a single parse call.
+	 * Kept out of the parser fields so one parser instance can be shared
+	 * by several threads (see Packer parallel mode)
+	 */
+	private static class LineContext {
+		private final String line;
+		private Character currencySign = null;
+		private final Set<Integer> idsSet = new HashSet<>();
+		
+		private LineContext(String line){
+			this.line = line;
+		}
+	}
 	
 	
 	/*
@@ -40,15 +54,22 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	// receive weightFactor by which weight and max capacity will be multiply
 	// this is needed in order to use the knapsack algorithm that works only with Integers
 	public DefaultPackerParser(int weightFactor){
-		this.weightFactor = weightFactor;
+		this(weightFactor, ConstraintProfile.CHALLENGE);
 	}
 	
 	// use if one wishes to change the constraints
 	public DefaultPackerParser(float max_weight, int max_items_num, int max_package_cap, int weightFactor){
-		this(weightFactor);
-		MAX_WEIGHT = max_weight;
-		MAX_ITEMS_NUM = max_items_num;
-		MAX_PACKAGE_CAP = max_package_cap;
+		this(weightFactor, new ConstraintProfile(max_weight, max_items_num, max_package_cap));
+	}
+	
+	public DefaultPackerParser(int weightFactor, ConstraintProfile constraints){
+		constraints.verifyWeightFactor(weightFactor);
+		this.weightFactor = weightFactor;
+		this.constraints  = constraints;
+	}
+	
+	public ConstraintProfile getConstraints() {
+		return constraints;
 	}
 	
 	
@@ -57,17 +78,17 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	/* get the max weight from the line
 	 * or throw APIException if line is not in correct format
 	 */	
-	private Integer parseMaxWeight(final String maxWeightStr){
+	private Integer parseMaxWeight(final LineContext ctx, final String maxWeightStr){
 		Integer packageCapacity = null;
 		try{
 			packageCapacity = Integer.parseInt(maxWeightStr.trim());
-			if (packageCapacity <= MAX_PACKAGE_CAP && packageCapacity >= 0){
+			if (packageCapacity <= constraints.getMaxPackageCap() && packageCapacity >= 0){
 				// place to print info to log
 			} else {
-				throw new APIException("Line: " + line + " too invalid packageCapacity " + packageCapacity);
+				throw new APIException("Line: " + ctx.line + " too invalid packageCapacity " + packageCapacity);
 			}
 		} catch (NumberFormatException nfe){
-			throw new APIException("Line: " + line + " weight is not a number");
+			throw new APIException("Line: " + ctx.line + " weight is not a number");
 		}
 		return packageCapacity * weightFactor;
 	}
@@ -79,38 +100,38 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	 * 
 	 * throw APIException in case an invalid triplet detected
 	 */
-	private List<ItemEntity> parseTriplets(final String tripletsStr, final int maxWeight){
+	private List<ItemEntity> parseTriplets(final LineContext ctx, final String tripletsStr, final int maxWeight){
 		
 		List<ItemEntity> selectedItems = new ArrayList<>();
 
 			String[] parts = tripletsStr.trim().split(tripletSep);
-			if (parts.length > MAX_ITEMS_NUM){
-				throw new APIException("Line: " + line + " too many triplets, max triplets number: " + MAX_ITEMS_NUM);
+			if (parts.length > constraints.getMaxItemsNum()){
+				throw new APIException("Line: " + ctx.line + " too many triplets, max triplets number: " + constraints.getMaxItemsNum());
 			}
 			for (String triplet : parts){
 
-					String values[] = stripTriplet(triplet);
+					String values[] = stripTriplet(ctx, triplet);
 					
 					if (values.length != 3){
-						throw new APIException("Line: " + line + " invalie triplet found : " + tripletsStr);
+						throw new APIException("Line: " + ctx.line + " invalie triplet found : " + tripletsStr);
 					}
 					
 					try{
 						// 1) parse id and verify there are no duplicate and id is bigger than 0
 						Integer id = Integer.parseInt(values[0].trim());
-						verifyId(id);
+						verifyId(ctx, id);
 
 						// 2) parse weight, verify if valid and correct it by weightFactor
 						Float weight = Float.parseFloat(values[1].trim());
 						if (!isValidWeight(weight)){
-							throw new APIException("Line: " + line + " invalie triplet found (weight is not valid): " + tripletsStr);
+							throw new APIException("Line: " + ctx.line + " invalie triplet found (weight is not valid): " + tripletsStr);
 						}
 						
 						Integer correctedWeight = (int)(weight*weightFactor);
 						
 						// 3) parse cost, make sure cost is bigger than 0
-						Integer cost = Integer.parseInt(stripCurrencySign(values[2]));
-						verifyCost(cost);
+						Integer cost = Integer.parseInt(stripCurrencySign(ctx, values[2]));
+						verifyCost(ctx, cost);
 						
 						// 4) skip triple that it's weight is bigger than the max allowed weight
 						// 	  There is no point to check this item as it will not fit the package for sure
@@ -118,24 +139,24 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 							selectedItems.add(new ItemEntity(id, correctedWeight, cost));
 						}
 					} catch (NumberFormatException npe){
-						throw new APIException("Line: " + line + " invalie triplet found: " + tripletsStr);
+						throw new APIException("Line: " + ctx.line + " invalie triplet found: " + tripletsStr);
 					}
-
-				// 5) sort by weight to ensure item order so the result
-				//    will include the lowest weight for the same price of different items combination
-				//    so if items 1 & 3 weight 100, items 2 & 7 weight 80 and both
-				//    combinations cost the same then items 2 & 7 will be selected
-				Collections.sort(selectedItems);
 			}
 
+			// 5) sort by weight to ensure item order so the result
+			//    will include the lowest weight for the same price of different items combination
+			//    so if items 1 & 3 weight 100, items 2 & 7 weight 80 and both
+			//    combinations cost the same then items 2 & 7 will be selected
+			Collections.sort(selectedItems);
+
 		
 		return selectedItems;
 	}
 	
-	private String[] stripTriplet(String str){
+	private String[] stripTriplet(LineContext ctx, String str){
 		String triplet = str.trim();
 		if (!triplet.startsWith("(") && triplet.endsWith(")")){
-			throw new APIException("Line: " + line + " invalie triplet found: " + str);
+			throw new APIException("Line: " + ctx.line + " invalie triplet found: " + str);
 		} 
 		
 		String tripleVals = triplet.substring(1, triplet.length() - 1);
@@ -152,7 +173,7 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	 *  - There is not currency sign (i.e. it is a number)
 	 * 
 	 */
-	private String stripCurrencySign(String tripletsStr){
+	private String stripCurrencySign(LineContext ctx, String tripletsStr){
 
 		tripletsStr = tripletsStr.trim();
 		
@@ -160,16 +181,16 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 		
 		// get first currency sign seen to verify the currency in use is the same for all items
 		// this is to make sure we compare prices with the same unit
-		if (currencySign == null){
-			currencySign = csign;
+		if (ctx.currencySign == null){
+			ctx.currencySign = csign;
 		}
 		
 		if (ParsersTools.isNumeric(csign)){
-			throw new APIException("Line: " + line + " invalie triplet found: " + tripletsStr);
+			throw new APIException("Line: " + ctx.line + " invalie triplet found: " + tripletsStr);
 		}
 		
-		if (!currencySign.equals(csign)){
-			throw new APIException("Line: " + line + " different currency signs where found: " + tripletsStr);
+		if (!ctx.currencySign.equals(csign)){
+			throw new APIException("Line: " + ctx.line + " different currency signs where found: " + tripletsStr);
 		}
 		
 		return tripletsStr.substring(1).trim();
@@ -180,49 +201,44 @@ public class DefaultPackerParser implements IParsingAlgorithm {
 	// when precision is 2 (i.e. weightFactor = 100)
 	// however, weight of 100.01 and capacity of 100 is not valid
 	private boolean isValidWeight(float weight){
-		if ((int)(weight*weightFactor) > (int)(MAX_WEIGHT*weightFactor) || weight <= 0)
+		if ((int)(weight*weightFactor) > (int)(constraints.getMaxWeight()*weightFactor) || weight <= 0)
 			return false;
 		else
 			return true;
 	}
 	
-	private void verifyCost(int cost){
+	private void verifyCost(LineContext ctx, int cost){
 		if (cost <= 0){
-			throw new APIException("Line: " + line + " Cost must be positive");
+			throw new APIException("Line: " + ctx.line + " Cost must be positive");
 		}
 	}
 	
-	private void verifyId(Integer id){
-		if (id < 0 || idsSet.contains(id)){
-			throw new APIException("Line: " + line + " duplicate or negative id(s)");
+	private void verifyId(LineContext ctx, Integer id){
+		if (id < 0 || ctx.idsSet.contains(id)){
+			throw new APIException("Line: " + ctx.line + " duplicate or negative id(s)");
 		} else{
-			idsSet.add(id);
+			ctx.idsSet.add(id);
 		}
 	}
 	
-	private void clean(){
-		currencySign = null;
-	}
-	
 	
 	// Exposed method by the interface
 	// Allows the user to send a line an receive back an entity represents it
+	// The parser holds no per line state and therefore it is thread safe
 	@Override
 	public ParsedLineEntity parse(String line) {
 		
 		ParsedLineEntity parsedLineEntity = null;
-		idsSet.clear();
-		this.line = line;
 		if (!ParsersTools.isNullOrEmpty(line)){
 			String[] parts = line.split(weightSep);
 			if (parts.length != 2){
 				throw new APIException("Line: " + line + " is not in format <weight> : <list of items>");
 			}
-			clean();
+			LineContext ctx = new LineContext(line);
 			parsedLineEntity = new ParsedLineEntity();
-			int maxWeight = parseMaxWeight(parts[0]);
+			int maxWeight = parseMaxWeight(ctx, parts[0]);
 			parsedLineEntity.setMaxWeight(maxWeight);
-			parsedLineEntity.setItemsList(parseTriplets(parts[1], maxWeight));
+			parsedLineEntity.setItemsList(parseTriplets(ctx, parts[1], maxWeight));
 		}
 		return parsedLineEntity;
 	}
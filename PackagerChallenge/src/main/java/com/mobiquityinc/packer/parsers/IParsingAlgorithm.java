@@ -1,9 +1,26 @@
 package com.mobiquityinc.packer.parsers;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ParsedLineEntity;
 
 public interface IParsingAlgorithm {
 
 	 public ParsedLineEntity parse(String line);
+	 
+	 /*
+	  * Parse the line into target (capacity and items sorted by weight)
+	  * return false for an empty line (for which parse(line) returns null)
+	  * 
+	  * by default an adapter of parse(line) - parsers which can fill the batch directly override it
+	  */
+	 public default boolean parse(String line, ItemBatch target){
+		 ParsedLineEntity parsedLine = parse(line);
+		 if (parsedLine == null){
+			 return false;
+		 }
+		 target.setItems(parsedLine.getItemsList());
+		 target.setCapacity(parsedLine.getMaxWeight());
+		 return true;
+	 }
 	
 }
@@ -0,0 +1,270 @@
+package com.mobiquityinc.packer.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.Packer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Long running packing server - one Packer (parser, solver chain, cache) shared by all the requests,
+ * so the JVM start up, the JIT warm up and the cache are paid once and not per input file.
+ *
+ * Local HTTP (com.sun.net.httpserver, no dependencies), plain text UTF-8:
+ *   POST /pack    body: one or more lines in the format of the input file
+ *                 200 - one result per line, '\n' separated, same order (same text as the Packer output)
+ *                 400 - a line is not valid, the body is the APIException message
+ *                 413 - body bigger than maxRequestBytes
+ *                 503 - too many requests (maxConcurrent + maxQueued) or the server is stopping
+ *   GET  /health  200 "UP" + the request counters and the Packer report, 503 "STOPPING" while stopping
+ *
+ * Threads:
+ *   Each request is handled by its own thread - a virtual thread when the JVM has them (Java 21+), looked up
+ *   by reflection since the build targets Java 17, otherwise a cached pool of daemon platform threads.
+ *   Reading the request and writing the response may block as much as they like, solving is limited to
+ *   maxConcurrent requests at the same time (the solver is CPU bound, more would only share the cores).
+ *   Requests are admitted up to maxConcurrent + maxQueued, beyond that they get 503 right away instead
+ *   of piling up in memory.
+ *   The scratch buffers of the solver are per thread (ScratchArena), a virtual thread starts with empty
+ *   ones - the price of a thread per request is growing them once per request instead of once per thread.
+ *
+ * stop() stops accepting connections, gives the running requests up to shutdownSeconds to finish and
+ * then stops their threads. main() registers it as a shutdown hook, so Ctrl-C / SIGTERM stop gracefully.
+ *
+ * usage: PackerServer [options] - see ServerCommandLine
+ *   curl --data-binary @input.txt http://127.0.0.1:8080/pack
+ */
+
+public class PackerServer {
+
+	public static final String PACK_PATH   = "/pack";
+	public static final String HEALTH_PATH = "/health";
+
+	private final ServerConfiguration configuration;
+	private final Packer packer;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	// requests admitted (solving or waiting) and requests solving
+	private final Semaphore admitted;
+	private final Semaphore solving;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile boolean stopping;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder lines    = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder failed   = new LongAdder();
+
+	private PackerServer(ServerConfiguration configuration) throws IOException {
+		this.configuration = configuration;
+		this.packer   = new Packer(configuration.getPackerConfiguration());
+		this.admitted = new Semaphore(configuration.getMaxConcurrent() + configuration.getMaxQueued());
+		this.solving  = new Semaphore(configuration.getMaxConcurrent());
+		this.executor = newRequestExecutor();
+		this.server   = HttpServer.create(new InetSocketAddress(configuration.getHost(), configuration.getPort()), 0);
+		server.createContext(PACK_PATH, this::handlePack);
+		server.createContext(HEALTH_PATH, this::handleHealth);
+		server.setExecutor(executor);
+	}
+
+	// create and start a server - throw APIException when it can't listen on the host/port
+	public static PackerServer start(ServerConfiguration configuration){
+		PackerServer packerServer;
+		try {
+			packerServer = new PackerServer(configuration);
+		} catch (IOException e) {
+			throw new APIException("IOException when starting the server on " + configuration.getHost() + ":"
+					+ configuration.getPort() + ": " + e.getMessage());
+		}
+		packerServer.server.start();
+		return packerServer;
+	}
+
+	// thread per request - virtual when available
+	private static ExecutorService newRequestExecutor(){
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger threadNumber = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "packer-server-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/*
+	 * Handlers
+	 */
+
+	private void handlePack(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())){
+				respond(exchange, 405, "Use POST");
+				return;
+			}
+			if (stopping || !admitted.tryAcquire()){
+				rejected.increment();
+				respond(exchange, 503, stopping ? "STOPPING" : "Too many requests");
+				return;
+			}
+			inFlight.incrementAndGet();
+			try {
+				requests.increment();
+				byte[] body = readBody(exchange.getRequestBody(), configuration.getMaxRequestBytes());
+				if (body == null){
+					failed.increment();
+					respond(exchange, 413, "Request bigger than " + configuration.getMaxRequestBytes() + " bytes");
+					return;
+				}
+				List<String> requestLines = splitLines(new String(body, StandardCharsets.UTF_8));
+				String[] results;
+				solving.acquireUninterruptibly();
+				try {
+					results = packer.packLines(requestLines);
+				} catch (APIException e) {
+					failed.increment();
+					respond(exchange, 400, e.getMessage());
+					return;
+				} finally {
+					solving.release();
+				}
+				lines.add(requestLines.size());
+				respond(exchange, 200, String.join("\n", results));
+			} finally {
+				inFlight.decrementAndGet();
+				admitted.release();
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleHealth(HttpExchange exchange) throws IOException {
+		try {
+			if (stopping){
+				respond(exchange, 503, "STOPPING");
+				return;
+			}
+			String report = packer.report();
+			respond(exchange, 200, "UP\n" + report() + (report.isEmpty() ? "" : "\n" + report));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// null when the body is bigger than maxBytes
+	private static byte[] readBody(InputStream in, int maxBytes) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) > 0){
+			if (body.size() + read > maxBytes){
+				return null;
+			}
+			body.write(buffer, 0, read);
+		}
+		return body.toByteArray();
+	}
+
+	// '\n' or "\r\n" separated, a last empty line (the body ends with a new line) is dropped
+	static List<String> splitLines(String body){
+		List<String> result = new ArrayList<>();
+		int start = 0;
+		while (start < body.length()){
+			int end = body.indexOf('\n', start);
+			if (end < 0){
+				end = body.length();
+			}
+			int lineEnd = end > start && body.charAt(end - 1) == '\r' ? end - 1 : end;
+			result.add(body.substring(start, lineEnd));
+			start = end + 1;
+		}
+		return result;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0){
+			try (OutputStream out = exchange.getResponseBody()){
+				out.write(bytes);
+			}
+		}
+	}
+
+	/*
+	 * Life cycle
+	 */
+
+	// the actual port - useful when the configuration asked for port 0
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+
+	public boolean isStopping(){
+		return stopping;
+	}
+
+	/*
+	 * stop accepting requests, wait up to shutdownSeconds for the running ones and stop the threads
+	 * calling it again does nothing
+	 */
+	public void stop(){
+		synchronized (this){
+			if (stopping){
+				return;
+			}
+			stopping = true;
+		}
+		// one deadline for both waits - the executor gets what is left after the server
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(configuration.getShutdownSeconds());
+		server.stop(configuration.getShutdownSeconds());
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)){
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// e.g. requests=10 lines=1500 rejected=0 failed=1 inFlight=2
+	public String report(){
+		return "requests=" + requests.sum() + " lines=" + lines.sum() + " rejected=" + rejected.sum()
+				+ " failed=" + failed.sum() + " inFlight=" + inFlight.get();
+	}
+
+	public static void main(String[] args){
+		ServerCommandLine commandLine = ServerCommandLine.parse(args);
+		PackerServer packerServer = start(commandLine.getConfiguration());
+		packerServer.packer.publishMetrics("server");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			packerServer.stop();
+			System.err.println(packerServer.report());
+		}, "packer-server-shutdown"));
+		System.err.println("Packer server listening on http://" + commandLine.getConfiguration().getHost() + ":"
+				+ packerServer.getPort() + PACK_PATH);
+	}
+}
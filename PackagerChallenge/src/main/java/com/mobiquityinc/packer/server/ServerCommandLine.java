@@ -0,0 +1,66 @@
+package com.mobiquityinc.packer.server;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.PackerCommandLine;
+
+/*
+ * Command line arguments of the PackerServer
+ *
+ * usage: PackerServer [options]
+ *
+ * options:
+ *   --host <address>        address to listen on (default 127.0.0.1)
+ *   --port N                port to listen on, 0 picks a free one (default 8080)
+ *   --max-concurrent N      requests solved at the same time (default number of processors)
+ *   --max-queued N          requests waiting on top of them, more are rejected with 503 (default 256)
+ *   --max-request-bytes N   bigger requests are rejected with 413 (default 8MB)
+ *   --shutdown-seconds N    time given to the running requests on shutdown (default 10)
+ *   and the solver options of the Packer: --parser, --solver, --approximate, --profile,
+ *   --no-normalize, --no-reduce, --cache, --metrics, --metrics-interval (see PackerCommandLine)
+ *
+ * throw APIException in case the arguments are not valid
+ */
+
+public class ServerCommandLine {
+
+	private final ServerConfiguration configuration = new ServerConfiguration();
+
+	private ServerCommandLine(){
+	}
+
+	public static ServerCommandLine parse(String[] args){
+		ServerCommandLine commandLine = new ServerCommandLine();
+		ServerConfiguration configuration = commandLine.configuration;
+		for (int i = 0; i < args.length; i++){
+			String arg = args[i];
+			if ("--host".equals(arg)){
+				configuration.setHost(PackerCommandLine.parseStringArgument(args, ++i));
+			} else if ("--port".equals(arg)){
+				configuration.setPort(PackerCommandLine.parseIntArgument(args, ++i));
+			} else if ("--max-concurrent".equals(arg)){
+				configuration.setMaxConcurrent(PackerCommandLine.parseIntArgument(args, ++i));
+			} else if ("--max-queued".equals(arg)){
+				configuration.setMaxQueued(PackerCommandLine.parseIntArgument(args, ++i));
+			} else if ("--max-request-bytes".equals(arg)){
+				configuration.setMaxRequestBytes(PackerCommandLine.parseIntArgument(args, ++i));
+			} else if ("--shutdown-seconds".equals(arg)){
+				configuration.setShutdownSeconds(PackerCommandLine.parseIntArgument(args, ++i));
+			} else if ("--parallel".equals(arg)){
+				// each request is solved by its own thread
+				throw new APIException("Parameter --parallel is not used by the server, use --max-concurrent");
+			} else {
+				int last = PackerCommandLine.parseOption(configuration.getPackerConfiguration(), args, i);
+				if (last < 0){
+					throw new APIException("Unknown parameter: " + arg);
+				}
+				i = last;
+			}
+		}
+		return commandLine;
+	}
+
+	public ServerConfiguration getConfiguration() {
+		return configuration;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.mobiquityinc.packer.server;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.PackerConfiguration;
+
+/*
+ * Run options of the PackerServer
+ *
+ * host                 : address to listen on (default 127.0.0.1 - local clients only)
+ * port                 : port to listen on, 0 picks a free port (default 8080)
+ * maxConcurrent        : max number of requests solved at the same time (default number of processors)
+ * maxQueued            : max number of requests waiting for a solving slot, on top of maxConcurrent
+ *                        requests beyond that are rejected with 503 right away (default 256)
+ * maxRequestBytes      : max size of a request body, bigger requests are rejected with 413 (default 8MB)
+ * shutdownSeconds      : time given to the running requests to finish on stop() (default 10)
+ * packerConfiguration  : parser and solver options of the Packer (its parallelism is not used -
+ *                        each request is solved by the thread handling it)
+ */
+
+public class ServerConfiguration {
+
+	public static final String DEFAULT_HOST             = "127.0.0.1";
+	public static final int    DEFAULT_PORT             = 8080;
+	public static final int    DEFAULT_MAX_QUEUED       = 256;
+	public static final int    DEFAULT_MAX_REQUEST_BYTES = 8 * 1024 * 1024;
+	public static final int    DEFAULT_SHUTDOWN_SECONDS = 10;
+
+	private String host = DEFAULT_HOST;
+	private int port = DEFAULT_PORT;
+	private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+	private int maxQueued = DEFAULT_MAX_QUEUED;
+	private int maxRequestBytes = DEFAULT_MAX_REQUEST_BYTES;
+	private int shutdownSeconds = DEFAULT_SHUTDOWN_SECONDS;
+	private PackerConfiguration packerConfiguration = new PackerConfiguration();
+
+	public ServerConfiguration(){
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		if (host == null || host.isEmpty()){
+			throw new APIException("Host must not be empty");
+		}
+		this.host = host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		if (port < 0 || port > 65535){
+			throw new APIException("Port must be between 0 and 65535: " + port);
+		}
+		this.port = port;
+	}
+
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		if (maxConcurrent < 1){
+			throw new APIException("Max concurrent requests must be at least 1: " + maxConcurrent);
+		}
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	public void setMaxQueued(int maxQueued) {
+		if (maxQueued < 0){
+			throw new APIException("Max queued requests must not be negative: " + maxQueued);
+		}
+		this.maxQueued = maxQueued;
+	}
+
+	public int getMaxRequestBytes() {
+		return maxRequestBytes;
+	}
+
+	public void setMaxRequestBytes(int maxRequestBytes) {
+		if (maxRequestBytes < 1){
+			throw new APIException("Max request size must be at least 1 byte: " + maxRequestBytes);
+		}
+		this.maxRequestBytes = maxRequestBytes;
+	}
+
+	public int getShutdownSeconds() {
+		return shutdownSeconds;
+	}
+
+	public void setShutdownSeconds(int shutdownSeconds) {
+		if (shutdownSeconds < 0){
+			throw new APIException("Shutdown time must not be negative: " + shutdownSeconds);
+		}
+		this.shutdownSeconds = shutdownSeconds;
+	}
+
+	public PackerConfiguration getPackerConfiguration() {
+		return packerConfiguration;
+	}
+
+	public void setPackerConfiguration(PackerConfiguration packerConfiguration) {
+		if (packerConfiguration == null){
+			throw new APIException("Packer configuration must not be null");
+		}
+		this.packerConfiguration = packerConfiguration;
+	}
+
+	@Override
+	public String toString() {
+		return "ServerConfiguration [host=" + host + ", port=" + port + ", maxConcurrent=" + maxConcurrent
+				+ ", maxQueued=" + maxQueued + ", maxRequestBytes=" + maxRequestBytes
+				+ ", shutdownSeconds=" + shutdownSeconds + ", packerConfiguration=" + packerConfiguration + "]";
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Common flow of the exact packaging strategies:
+ * check the input, remove the items which can not fit and solve the rest
+ *
+ * Tie break - all exact strategies must return the same selection as KnapSackPackagingStrategy:
+ * among all the subsets with the maximal cost which fit the capacity,
+ * the one which skips the item with the highest index whenever possible, and so on downwards.
+ * In other words: if subset i is represented by a bit mask where the bit of items[k] is 2^k
+ * then the selection is the optimal subset with the smallest mask.
+ * Since the parser sorts the items by weight, this prefers the lighter items.
+ *
+ * The selected items are returned from the highest index to the lowest.
+ */
+
+public abstract class AbstractPackagingStrategy implements IPackagingAlgorithm {
+
+	@Override
+	public List<ItemEntity> selectItems(final List<ItemEntity> itemsList, final int capacity) {
+
+		// in case input is not applicable for calculation
+		// return empty list as a result
+		// not applicable : empty or null itemList or negative capacity
+		if (!isCalculationRequired(itemsList, capacity)){
+			return Collections.emptyList();
+		}
+
+		// make sure there are no items with larger weight than the capacity
+		// to avoid unnecessary calculations
+		List<ItemEntity> validItems = removeTooBigItems(itemsList, capacity);
+		if (validItems.isEmpty()){
+			return validItems;
+		}
+
+		ItemEntity[] items = validItems.toArray(new ItemEntity[validItems.size()]);
+		return findOptimalChoise(items, capacity);
+	}
+
+	/*
+	 * items - at least one item, all items weight is at most capacity
+	 */
+	protected abstract List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity);
+
+	private boolean isCalculationRequired(List<ItemEntity> itemsList, int capacity){
+		if (itemsList == null   ||
+			itemsList.isEmpty() ||
+			capacity < 0 ){
+			return false;
+		} else
+			return true;
+	}
+
+	private List<ItemEntity> removeTooBigItems(final List<ItemEntity> itemsList, final int capacity){
+
+		List<ItemEntity> valieItems = new ArrayList<>();
+
+		for (ItemEntity item :itemsList){
+			if (item.getWeight() <= capacity)
+				valieItems.add(item);
+		}
+
+		return valieItems;
+	}
+
+	// selected items from a bit mask - from the highest index to the lowest
+	protected static List<ItemEntity> itemsOfMask(ItemEntity[] items, long mask){
+		List<ItemEntity> choosenItems = new ArrayList<>(Long.bitCount(mask));
+		for (int i = items.length - 1; i >= 0; i--){
+			if ((mask & (1L << i)) != 0){
+				choosenItems.add(items[i]);
+			}
+		}
+		return choosenItems;
+	}
+}
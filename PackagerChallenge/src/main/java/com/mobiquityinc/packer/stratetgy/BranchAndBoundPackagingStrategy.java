@@ -0,0 +1,114 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Knapsack by depth first branch and bound
+ *
+ * The items are decided from the last one down to the first, skipping an item is tried before taking it.
+ * This visits the subsets in increasing mask order, therefore keeping only strictly better solutions
+ * gives the same tie break as KnapSackPackagingStrategy (see AbstractPackagingStrategy).
+ *
+ * A branch is cut when the linear relaxation bound of the items still undecided
+ * (greedy by cost/weight ratio, the last item taken fractionally) can't beat the best solution found.
+ *
+ * Time: exponential in the worst case, usually far less; does not depend on the capacity.
+ * Space: O(n)
+ */
+
+public class BranchAndBoundPackagingStrategy extends AbstractPackagingStrategy {
+
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		Search search = new Search(items, capacity);
+		search.branch(items.length, 0, 0);
+
+		List<ItemEntity> choosenItems = new ArrayList<>();
+		for (int i = items.length - 1; i >= 0; i--){
+			if (search.bestTaken[i]){
+				choosenItems.add(items[i]);
+			}
+		}
+		return choosenItems;
+	}
+
+	private static class Search {
+
+		private final int[] weights;
+		private final int[] costs;
+		private final int capacity;
+
+		// items indexes by decreasing cost/weight ratio - for the bound
+		private final Integer[] byRatio;
+
+		private final boolean[] taken;
+		private final boolean[] bestTaken;
+		private long bestValue = 0;
+
+		private Search(ItemEntity[] items, int capacity){
+			int numOfItems = items.length;
+			this.capacity = capacity;
+			weights = new int[numOfItems];
+			costs   = new int[numOfItems];
+			byRatio = new Integer[numOfItems];
+			for (int i = 0; i < numOfItems; i++){
+				weights[i] = items[i].getWeight();
+				costs[i]   = items[i].getCost();
+				byRatio[i] = i;
+			}
+			// a/b > c/d <=> a*d > c*b (weights are not negative)
+			Arrays.sort(byRatio, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return Long.compare((long) costs[b] * weights[a], (long) costs[a] * weights[b]);
+				}
+			});
+			taken     = new boolean[numOfItems];
+			bestTaken = new boolean[numOfItems];
+		}
+
+		// items [0, undecided) are not decided yet
+		private void branch(int undecided, long weight, long value){
+			if (undecided == 0){
+				if (value > bestValue){
+					bestValue = value;
+					System.arraycopy(taken, 0, bestTaken, 0, taken.length);
+				}
+				return;
+			}
+			if (value + bound(undecided, capacity - weight) <= bestValue){
+				return;
+			}
+			int item = undecided - 1;
+			branch(item, weight, value);
+			if (weight + weights[item] <= capacity){
+				taken[item] = true;
+				branch(item, weight + weights[item], value + costs[item]);
+				taken[item] = false;
+			}
+		}
+
+		// linear relaxation of the items [0, undecided) with the remaining capacity
+		private long bound(int undecided, long remaining){
+			long bound = 0;
+			for (int index : byRatio){
+				if (index >= undecided){
+					continue;
+				}
+				if (weights[index] <= remaining){
+					remaining -= weights[index];
+					bound     += costs[index];
+				} else {
+					bound += costs[index] * remaining / weights[index];
+					break;
+				}
+			}
+			return bound;
+		}
+	}
+}
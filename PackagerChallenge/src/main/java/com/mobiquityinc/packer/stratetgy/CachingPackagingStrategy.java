@@ -0,0 +1,329 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Bounded LRU cache of results in front of a packaging algorithm
+ *
+ * Key: the capacity and the (id, weight, cost) tuples of the items sorted by id.
+ * The selection also depends on the order of the items when there are ties (see AbstractPackagingStrategy),
+ * so when the list is not ordered by (weight, id) - e.g. equal weights not in id order -
+ * the ids in list order are added to the key as well. Equal keys therefore always mean equal lists
+ * up to a reordering that can't change the selection.
+ *
+ * Value: the positions of the selected items in the list, so a hit returns the items of the caller's list.
+ * The ItemBatch paths build the same key from the batch arrays and store the same positions, so list and batch
+ * calls share the entries and a hit on a batch allocates the key only.
+ *
+ * Lines with duplicate ids are not cached (the parsers reject them anyway).
+ * Thread safe - the lookups are synchronized, the wrapped algorithm is called outside of the lock
+ * so two threads missing the same key at the same time may both compute it.
+ */
+
+public class CachingPackagingStrategy implements IPackagingAlgorithm {
+
+	private final IPackagingAlgorithm selector;
+	private final int maxEntries;
+	private final Map<CacheKey, int[]> cache;
+
+	private final LongAdder hits      = new LongAdder();
+	private final LongAdder misses    = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public CachingPackagingStrategy(IPackagingAlgorithm selector, final int maxEntries){
+		if (maxEntries < 1){
+			throw new IllegalArgumentException("Cache size must be at least 1: " + maxEntries);
+		}
+		this.selector   = selector;
+		this.maxEntries = maxEntries;
+		// access order - the eldest entry is the least recently used one
+		this.cache = new LinkedHashMap<CacheKey, int[]>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, int[]> eldest) {
+				if (size() > maxEntries){
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	// several capacities of the same items are solved together by the wrapped algorithm, without the cache
+	@Override
+	public void selectItems(ItemBatch items, int[] capacities, List<ItemBatch> selectedLines) {
+		selector.selectItems(items, capacities, selectedLines);
+	}
+
+	@Override
+	public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+		if (itemsList == null || itemsList.isEmpty() || capacity < 0){
+			return selector.selectItems(itemsList, capacity);
+		}
+		CacheKey key = CacheKey.of(itemsList, capacity);
+		if (key == null){
+			return selector.selectItems(itemsList, capacity);
+		}
+
+		int[] positions;
+		synchronized (cache){
+			positions = cache.get(key);
+		}
+		if (positions != null){
+			hits.increment();
+			List<ItemEntity> selectedItems = new ArrayList<>(positions.length);
+			for (int position : positions){
+				selectedItems.add(itemsList.get(position));
+			}
+			return selectedItems;
+		}
+
+		misses.increment();
+		List<ItemEntity> selectedItems = selector.selectItems(itemsList, capacity);
+		positions = positionsOf(itemsList, selectedItems);
+		synchronized (cache){
+			cache.put(key, positions);
+		}
+		return selectedItems;
+	}
+
+	/*
+	 * Boxing free path - a hit copies the selected positions of the batch, a miss goes to the batch path
+	 * of the wrapped algorithm
+	 */
+	@Override
+	public void selectItems(ItemBatch items, ItemBatch selected) {
+		CacheKey key = keyOf(items);
+		if (key == null || !selectCached(key, items, selected)){
+			selector.selectItems(items, selected);
+			if (key != null){
+				put(key, positionsOf(items, selected));
+			}
+		}
+	}
+
+	/*
+	 * Batch API - the hits are answered from the cache, the misses are solved in one batch call
+	 * of the wrapped algorithm (into the caller's selected batches) and cached
+	 */
+	@Override
+	public void selectItems(List<ItemBatch> lines, List<ItemBatch> selectedLines) {
+		List<ItemBatch> missedLines    = new ArrayList<>();
+		List<ItemBatch> missedSelected = new ArrayList<>();
+		List<CacheKey>  missedKeys     = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++){
+			ItemBatch items = lines.get(i);
+			CacheKey key = keyOf(items);
+			if (key == null || !selectCached(key, items, selectedLines.get(i))){
+				missedLines.add(items);
+				missedSelected.add(selectedLines.get(i));
+				missedKeys.add(key);
+			}
+		}
+		if (missedLines.isEmpty()){
+			return;
+		}
+		selector.selectItems(missedLines, missedSelected);
+		for (int i = 0; i < missedLines.size(); i++){
+			if (missedKeys.get(i) != null){
+				put(missedKeys.get(i), positionsOf(missedLines.get(i), missedSelected.get(i)));
+			}
+		}
+	}
+
+	// null when the batch is not cached (empty, negative capacity or duplicate ids)
+	private CacheKey keyOf(ItemBatch items){
+		if (items.getCount() == 0 || items.getCapacity() < 0){
+			return null;
+		}
+		return CacheKey.of(items);
+	}
+
+	// a hit is copied into selected - return false (and count a miss) when the key is not cached
+	private boolean selectCached(CacheKey key, ItemBatch items, ItemBatch selected){
+		int[] positions;
+		synchronized (cache){
+			positions = cache.get(key);
+		}
+		if (positions == null){
+			misses.increment();
+			return false;
+		}
+		hits.increment();
+		selected.clear();
+		selected.setCapacity(items.getCapacity());
+		selected.reserve(positions.length);
+		for (int position : positions){
+			selected.add(items.getId(position), items.getWeight(position), items.getCost(position));
+		}
+		return true;
+	}
+
+	private void put(CacheKey key, int[] positions){
+		synchronized (cache){
+			cache.put(key, positions);
+		}
+	}
+
+	private static int[] positionsOf(ItemBatch items, ItemBatch selected){
+		Map<Integer, Integer> positionById = new HashMap<>();
+		for (int i = 0; i < items.getCount(); i++){
+			positionById.put(items.getId(i), i);
+		}
+		int[] positions = new int[selected.getCount()];
+		for (int i = 0; i < positions.length; i++){
+			positions[i] = positionById.get(selected.getId(i));
+		}
+		return positions;
+	}
+
+	private static int[] positionsOf(List<ItemEntity> itemsList, List<ItemEntity> selectedItems){
+		Map<Integer, Integer> positionById = new HashMap<>();
+		for (int i = 0; i < itemsList.size(); i++){
+			positionById.put(itemsList.get(i).getId(), i);
+		}
+		int[] positions = new int[selectedItems.size()];
+		for (int i = 0; i < positions.length; i++){
+			positions[i] = positionById.get(selectedItems.get(i).getId());
+		}
+		return positions;
+	}
+
+	public int getMaxEntries(){
+		return maxEntries;
+	}
+
+	public int size(){
+		synchronized (cache){
+			return cache.size();
+		}
+	}
+
+	public long getHits(){
+		return hits.sum();
+	}
+
+	public long getMisses(){
+		return misses.sum();
+	}
+
+	public long getEvictions(){
+		return evictions.sum();
+	}
+
+	// e.g. cache size=10/1000 hits=90 misses=10 evictions=0
+	public String report(){
+		return "cache size=" + size() + "/" + maxEntries + " hits=" + getHits() + " misses=" + getMisses()
+				+ " evictions=" + getEvictions();
+	}
+
+	private static final class CacheKey {
+
+		// capacity, n, (id, weight, cost) * n sorted by id [, ids in list order]
+		private final int[] data;
+		private final int hash;
+
+		private CacheKey(int[] data){
+			this.data = data;
+			this.hash = Arrays.hashCode(data);
+		}
+
+		// null when the list can't be cached
+		private static CacheKey of(List<ItemEntity> itemsList, int capacity){
+			int numOfItems = itemsList.size();
+			ItemEntity[] byId = itemsList.toArray(new ItemEntity[numOfItems]);
+			Arrays.sort(byId, (a, b) -> a.getId().compareTo(b.getId()));
+			for (int i = 1; i < numOfItems; i++){
+				if (byId[i].getId().equals(byId[i - 1].getId())){
+					return null;
+				}
+			}
+
+			boolean canonicalOrder = true;
+			for (int i = 1; i < numOfItems && canonicalOrder; i++){
+				ItemEntity previous = itemsList.get(i - 1);
+				ItemEntity current  = itemsList.get(i);
+				int compare = previous.getWeight().compareTo(current.getWeight());
+				canonicalOrder = compare < 0 || (compare == 0 && previous.getId() < current.getId());
+			}
+
+			int[] data = new int[2 + 3 * numOfItems + (canonicalOrder ? 0 : numOfItems)];
+			data[0] = capacity;
+			data[1] = numOfItems;
+			int index = 2;
+			for (ItemEntity item : byId){
+				data[index++] = item.getId();
+				data[index++] = item.getWeight();
+				data[index++] = item.getCost();
+			}
+			if (!canonicalOrder){
+				for (ItemEntity item : itemsList){
+					data[index++] = item.getId();
+				}
+			}
+			return new CacheKey(data);
+		}
+
+		// same key as of(list, capacity) for the same items - sorted by id as (id << 32 | position)
+		private static CacheKey of(ItemBatch items){
+			int numOfItems = items.getCount();
+			int[] ids = items.getIds(), weights = items.getWeights(), costs = items.getCosts();
+			long[] byId = new long[numOfItems];
+			for (int i = 0; i < numOfItems; i++){
+				byId[i] = ((long) ids[i] << 32) | i;
+			}
+			Arrays.sort(byId);
+			for (int i = 1; i < numOfItems; i++){
+				if ((int) (byId[i] >> 32) == (int) (byId[i - 1] >> 32)){
+					return null;
+				}
+			}
+
+			boolean canonicalOrder = true;
+			for (int i = 1; i < numOfItems && canonicalOrder; i++){
+				canonicalOrder = weights[i - 1] < weights[i] || (weights[i - 1] == weights[i] && ids[i - 1] < ids[i]);
+			}
+
+			int[] data = new int[2 + 3 * numOfItems + (canonicalOrder ? 0 : numOfItems)];
+			data[0] = items.getCapacity();
+			data[1] = numOfItems;
+			int index = 2;
+			for (long entry : byId){
+				int position = (int) entry;
+				data[index++] = ids[position];
+				data[index++] = weights[position];
+				data[index++] = costs[position];
+			}
+			if (!canonicalOrder){
+				System.arraycopy(ids, 0, data, index, numOfItems);
+			}
+			return new CacheKey(data);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof CacheKey))
+				return false;
+			CacheKey other = (CacheKey) obj;
+			return hash == other.hash && Arrays.equals(data, other.data);
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
+import com.mobiquityinc.packer.stratetgy.ScratchArena.Use;
+
+/*
+ * Approximate packaging - a fully polynomial time approximation scheme (FPTAS)
+ *
+ * The costs are scaled down by K = epsilon * L / n, where L = max(greedy packing, most expensive item)
+ * is a lower bound of the optimum, and rounded down. The scaled problem is solved exactly by a knapsack
+ * over the total scaled cost (min weight per scaled value, one row plus n decision bits per value).
+ * Rounding loses less than K per item, so less than epsilon * L <= epsilon * OPT in total:
+ *   value of the selection >= (1 - epsilon) * OPT
+ * Since OPT <= U, the LP (Dantzig) bound, the scaled values never exceed U / K <= 2n / epsilon
+ * so the time is O(n^2 / epsilon) and does not depend on the capacity or on the size of the costs.
+ * When K would be below 1 the costs are not scaled at all and the selection is optimal
+ * (though ties are not broken as in AbstractPackagingStrategy).
+ *
+ * The achieved bound of a line is value / min(U, value / (1 - epsilon)) - the selection is at least
+ * that fraction of the optimum, never less than 1 - epsilon (1 when no scaling was needed).
+ * approximate(...) returns it per call, report() sums it up.
+ * Behind ReducingPackagingStrategy the bound is the one of the core, the whole line is at least as close.
+ *
+ * The selected items are returned from the highest index to the lowest.
+ * Thread safe - the buffers are the ScratchArena of the calling thread.
+ */
+
+public class FptasPackagingStrategy implements IPackagingAlgorithm {
+
+	public static final double DEFAULT_EPSILON = 0.01;
+
+	// the decision bits of the scaled knapsack - 512MB at most
+	public static final long MAX_DECISION_BITS = PlanningPackagingStrategy.MAX_DECISION_BITS;
+
+	private final double epsilon;
+
+	private final LongAdder   lines         = new LongAdder();
+	private final LongAdder   exactLines    = new LongAdder();
+	private final DoubleAdder achievedBound = new DoubleAdder();
+	// lowest achieved bound, as the bits of a double (positive doubles compare as their bits)
+	private final AtomicLong  worstBound    = new AtomicLong(Double.doubleToLongBits(1.0));
+	// optional - counts the cells of the value DP
+	private PackerMetrics metrics;
+
+	public FptasPackagingStrategy(){
+		this(DEFAULT_EPSILON);
+	}
+
+	public FptasPackagingStrategy(double epsilon){
+		this.epsilon = verifyEpsilon(epsilon);
+	}
+
+	public static double verifyEpsilon(double epsilon){
+		if (!(epsilon > 0 && epsilon < 1)){
+			throw new APIException("Epsilon must be between 0 and 1 (exclusive): " + epsilon);
+		}
+		return epsilon;
+	}
+
+	public void setMetrics(PackerMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	/*
+	 * Selection of one call and its quality
+	 */
+	public static class Approximation {
+
+		private final List<ItemEntity> items;
+		private final long value;
+		private final long upperBound;
+		private final double epsilon;
+
+		private Approximation(List<ItemEntity> items, long value, long upperBound, double epsilon){
+			this.items      = items;
+			this.value      = value;
+			this.upperBound = upperBound;
+			this.epsilon    = epsilon;
+		}
+
+		// from the highest index to the lowest
+		public List<ItemEntity> getItems() {
+			return items;
+		}
+
+		public long getValue() {
+			return value;
+		}
+
+		// the optimum is at most this value
+		public long getUpperBound() {
+			return upperBound;
+		}
+
+		public double getEpsilon() {
+			return epsilon;
+		}
+
+		// value / upper bound - at least 1 - epsilon, 1 when nothing can be packed
+		public double getAchievedBound() {
+			return boundOf(value, upperBound);
+		}
+
+		@Override
+		public String toString() {
+			return "Approximation [value=" + value + ", upperBound=" + upperBound + ", epsilon=" + epsilon
+					+ ", achievedBound=" + getAchievedBound() + "]";
+		}
+	}
+
+	@Override
+	public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+		return approximate(itemsList, capacity, epsilon).getItems();
+	}
+
+	// epsilon of this call only
+	public Approximation approximate(List<ItemEntity> itemsList, int capacity, double epsilon){
+		verifyEpsilon(epsilon);
+		if (itemsList == null || itemsList.isEmpty() || capacity < 0){
+			return new Approximation(new ArrayList<ItemEntity>(), 0, 0, epsilon);
+		}
+		int numOfItems = itemsList.size();
+		int[] weights  = new int[numOfItems];
+		int[] costs    = new int[numOfItems];
+		for (int i = 0; i < numOfItems; i++){
+			weights[i] = itemsList.get(i).getWeight();
+			costs[i]   = itemsList.get(i).getCost();
+		}
+		int[] selected = new int[numOfItems];
+		long[] bounds  = new long[2];
+		int numOfSelected = solve(weights, costs, numOfItems, capacity, epsilon, selected, bounds);
+
+		List<ItemEntity> selectedItems = new ArrayList<>(numOfSelected);
+		for (int k = 0; k < numOfSelected; k++){
+			selectedItems.add(itemsList.get(selected[k]));
+		}
+		return new Approximation(selectedItems, bounds[0], bounds[1], epsilon);
+	}
+
+	@Override
+	public void selectItems(ItemBatch items, ItemBatch selected) {
+		approximate(items, selected, epsilon);
+	}
+
+	// epsilon of this call only - return the achieved bound
+	public double approximate(ItemBatch items, ItemBatch selectedItems, double epsilon){
+		verifyEpsilon(epsilon);
+		selectedItems.clear();
+		selectedItems.setCapacity(items.getCapacity());
+		int numOfItems = items.getCount();
+		if (numOfItems == 0 || items.getCapacity() < 0){
+			return 1.0;
+		}
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			int[] selected = arena.ints(Use.SELECTED_INDEXES, numOfItems);
+			long[] bounds  = arena.longs(Use.PREFIX_COSTS, 2);
+			int numOfSelected = solve(items.getWeights(), items.getCosts(), numOfItems, items.getCapacity(), epsilon, selected, bounds);
+			selectedItems.reserve(numOfSelected);
+			for (int k = 0; k < numOfSelected; k++){
+				int i = selected[k];
+				selectedItems.add(items.getId(i), items.getWeight(i), items.getCost(i));
+			}
+			return boundOf(bounds[0], bounds[1]);
+		} finally {
+			arena.release();
+		}
+	}
+
+	/*
+	 * selected - the indexes of the selected items, from the highest to the lowest
+	 * bounds   - [value of the selection, upper bound of the optimum]
+	 * return the number of selected items
+	 */
+	private int solve(int[] weights, int[] costs, int numOfItems, int capacity, double epsilon, int[] selected, long[] bounds){
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			// the items which can be selected, by cost/weight (highest first) for the bounds
+			int[] order = arena.ints(Use.ORDER, numOfItems);
+			int n = 0;
+			long maxCost = 0;
+			for (int i = 0; i < numOfItems; i++){
+				if (weights[i] <= capacity && costs[i] > 0){
+					order[n++] = i;
+					maxCost = Math.max(maxCost, costs[i]);
+				}
+			}
+			if (n == 0){
+				bounds[0] = 0;
+				bounds[1] = 0;
+				record(epsilon, 1.0, true);
+				return 0;
+			}
+			ReducingPackagingStrategy.sortByRatio(order, n, arena.ints(Use.ORDER_MERGE, n), weights, costs);
+
+			// greedy lower bound and LP upper bound
+			long greedy = 0, room = capacity;
+			long upperBound = -1, lpRoom = capacity, lpValue = 0;
+			for (int p = 0; p < n; p++){
+				int i = order[p];
+				if (weights[i] <= room){
+					room   -= weights[i];
+					greedy += costs[i];
+				}
+				if (upperBound < 0){
+					if (weights[i] <= lpRoom){
+						lpRoom  -= weights[i];
+						lpValue += costs[i];
+					} else {
+						upperBound = lpValue + lpRoom * costs[i] / weights[i];
+					}
+				}
+			}
+			if (upperBound < 0){
+				upperBound = lpValue;
+			}
+			long lowerBound = Math.max(greedy, maxCost);
+
+			// scale - K >= 1 or no scaling at all
+			double factor = epsilon * lowerBound / n;
+			boolean exact = factor <= 1;
+			if (exact){
+				factor = 1;
+			}
+			int[] scaled = arena.ints(Use.RANKS, numOfItems);
+			long totalScaled = 0;
+			for (int p = 0; p < n; p++){
+				int i = order[p];
+				scaled[i] = (int) (costs[i] / factor);
+				totalScaled += scaled[i];
+			}
+			// + n for the rounding of the divisions
+			long maxValue = Math.min(totalScaled, (long) (upperBound / factor) + n);
+			if ((maxValue + 1) * n > MAX_DECISION_BITS || maxValue >= Integer.MAX_VALUE - 1){
+				throw new APIException("Line of " + n + " items is too large for epsilon " + epsilon);
+			}
+
+			// minWeight[v] = min weight of a subset with scaled cost exactly v which fits, MAX_VALUE when none
+			int values = (int) maxValue + 1;
+			int words  = (values >>> 6) + 1;
+			int[] minWeight = arena.ints(Use.ROW, values);
+			long[] decisions = arena.longs(Use.DECISIONS, n * words);
+			if (metrics != null){
+				metrics.recordDpCells((long) n * values);
+			}
+			Arrays.fill(minWeight, 0, values, Integer.MAX_VALUE);
+			Arrays.fill(decisions, 0, n * words, 0L);
+			minWeight[0] = 0;
+
+			// the items in index order - the decisions are rebuilt from the last one down
+			int k = 0;
+			int[] items = arena.ints(Use.INDEXES, n);
+			for (int i = 0; i < numOfItems; i++){
+				if (weights[i] <= capacity && costs[i] > 0){
+					items[k++] = i;
+				}
+			}
+			long reached = 0;
+			for (k = 0; k < n; k++){
+				int i = items[k];
+				int weight = weights[i];
+				int value  = scaled[i];
+				reached = Math.min(maxValue, reached + value);
+				int base = k * words;
+				for (int v = (int) reached; v >= value; v--){
+					long with = (long) minWeight[v - value] + weight;
+					if (with < minWeight[v] && with <= capacity){
+						minWeight[v] = (int) with;
+						decisions[base + (v >>> 6)] |= 1L << v;
+					}
+				}
+			}
+
+			int best = (int) maxValue;
+			while (minWeight[best] > capacity){
+				best--;
+			}
+
+			int numOfSelected = 0;
+			long value = 0;
+			for (k = n - 1; k >= 0 && best > 0; k--){
+				if ((decisions[k * words + (best >>> 6)] & (1L << best)) != 0){
+					int i = items[k];
+					selected[numOfSelected++] = i;
+					value += costs[i];
+					best  -= scaled[i];
+				}
+			}
+			bounds[0] = value;
+			bounds[1] = exact ? value : Math.max(value, Math.min(upperBound, guaranteedBound(value, epsilon)));
+			record(epsilon, boundOf(value, bounds[1]), exact);
+			return numOfSelected;
+		} finally {
+			arena.release();
+		}
+	}
+
+	// the optimum is at most value / (1 - epsilon) - rounded down, checked against the double rounding
+	private static long guaranteedBound(long value, double epsilon){
+		long bound = (long) Math.floor(value / (1 - epsilon));
+		while ((bound + 1) * (1 - epsilon) <= value){
+			bound++;
+		}
+		return bound;
+	}
+
+	private static double boundOf(long value, long upperBound){
+		return upperBound == 0 ? 1.0 : (double) value / upperBound;
+	}
+
+	// the counters are the ones of the configured epsilon - calls with their own epsilon are not counted
+	private void record(double epsilon, double bound, boolean exact){
+		if (epsilon != this.epsilon){
+			return;
+		}
+		lines.increment();
+		if (exact){
+			exactLines.increment();
+		}
+		achievedBound.add(bound);
+		long bits = Double.doubleToLongBits(bound);
+		worstBound.accumulateAndGet(bits, Math::min);
+	}
+
+	// lines solved with the configured epsilon
+	public long getLines(){
+		return lines.sum();
+	}
+
+	// lines solved without scaling
+	public long getExactLines(){
+		return exactLines.sum();
+	}
+
+	public double getWorstAchievedBound(){
+		return Double.longBitsToDouble(worstBound.get());
+	}
+
+	public double getMeanAchievedBound(){
+		long count = getLines();
+		return count == 0 ? 1.0 : achievedBound.sum() / count;
+	}
+
+	// e.g. fptas epsilon=0.01 lines=100 exact=20 achieved bound: worst=0.9951 mean=0.9993
+	public String report(){
+		return "fptas epsilon=" + epsilon + " lines=" + getLines() + " exact=" + getExactLines()
+				+ " achieved bound: worst=" + String.format("%.4f", getWorstAchievedBound())
+				+ " mean=" + String.format("%.4f", getMeanAchievedBound());
+	}
+}
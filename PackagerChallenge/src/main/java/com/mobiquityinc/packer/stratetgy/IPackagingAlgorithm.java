@@ -2,10 +2,54 @@ package com.mobiquityinc.packer.stratetgy;
 
 import java.util.List;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
 
 public interface IPackagingAlgorithm {
 
 	public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity);
 	
+	/*
+	 * Select the items of the batch for its capacity into selected (cleared first)
+	 * The selection is the same as selectItems(list, capacity), in the same order.
+	 * 
+	 * by default an adapter of the list based method - strategies with a primitive hot path override it
+	 */
+	public default void selectItems(ItemBatch items, ItemBatch selected){
+		selected.clear();
+		selected.setCapacity(items.getCapacity());
+		for (ItemEntity item : selectItems(items.toList(), items.getCapacity())){
+			selected.add(item.getId(), item.getWeight(), item.getCost());
+		}
+	}
+	
+	/*
+	 * Batch API - solve many lines in one call
+	 * the selection of lines.get(i) is put in selectedLines.get(i) (selectedLines has at least as many batches)
+	 */
+	public default void selectItems(List<ItemBatch> lines, List<ItemBatch> selectedLines){
+		for (int i = 0; i < lines.size(); i++){
+			selectItems(lines.get(i), selectedLines.get(i));
+		}
+	}
+	
+	/*
+	 * Multi capacity API - the same items for several capacities (the capacity of items is not used)
+	 * the selection for capacities[k] is put in selectedLines.get(k), same as selectItems(items, selected)
+	 * with that capacity.
+	 * 
+	 * by default each capacity is solved on its own - KnapSackPackagingStrategy answers all of them from one DP
+	 */
+	public default void selectItems(ItemBatch items, int[] capacities, List<ItemBatch> selectedLines){
+		int capacity = items.getCapacity();
+		try {
+			for (int k = 0; k < capacities.length; k++){
+				items.setCapacity(capacities[k]);
+				selectItems(items, selectedLines.get(k));
+			}
+		} finally {
+			items.setCapacity(capacity);
+		}
+	}
+	
 }
@@ -1,71 +1,237 @@
 package com.mobiquityinc.packer.stratetgy;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
 
 /*
  * Knapsack algorithm implementation
  * see https://en.wikipedia.org/wiki/Knapsack_problem for details about the algorithm
  * 
+ * Two memory modes, both return exactly the same selected items:
+ * FULL_MATRIX - the classic (n+1) x (capacity+1) matrix of values
+ * ROLLING_ROW - one row of values which is updated in place for each item
+ *               plus one take/skip bit per item and capacity for reconstructing the selection
+ *               i.e. about 32 times less memory than the full matrix
+ * 
+ * Both modes run on primitive arrays - the list based API unboxes the items once,
+ * selectItems(ItemBatch, ItemBatch) reads the arrays of the batch directly.
+ * The ROLLING_ROW buffers come from the ScratchArena of the thread, so once warmed up
+ * the ItemBatch path allocates nothing per line.
+ * 
+ * Multi capacity: the rolling row holds the best value of every capacity up to the one solved,
+ * so selectItems(items, capacities, selectedLines) answers all the capacities of the same items from one DP
+ * (used by the Packer to solve lines which only differ by their capacity once).
  */
 
-public class KnapSackPackagingStrategy implements IPackagingAlgorithm {
+public class KnapSackPackagingStrategy extends AbstractPackagingStrategy {
+	
+	public enum MemoryMode {
+		FULL_MATRIX,
+		ROLLING_ROW
+	}
+	
+	private final MemoryMode memoryMode;
+	// ROLLING_ROW - update of the row by one item
+	private final RowKernel rowKernel;
+	// optional - counts the cells of the knapsack
+	private PackerMetrics metrics;
+	
+	public KnapSackPackagingStrategy(){
+		this(MemoryMode.FULL_MATRIX);
+	}
+	
+	public KnapSackPackagingStrategy(MemoryMode memoryMode){
+		this(memoryMode, RowKernel.SCALAR);
+	}
+	
+	// see VectorKnapSackPackagingStrategy
+	KnapSackPackagingStrategy(MemoryMode memoryMode, RowKernel rowKernel){
+		this.memoryMode = memoryMode;
+		this.rowKernel  = rowKernel;
+	}
+	
+	RowKernel getRowKernel() {
+		return rowKernel;
+	}
 	
-	private List<ItemEntity> removeTooBigItems(final List<ItemEntity> itemsList, final int capacity){
+	public MemoryMode getMemoryMode() {
+		return memoryMode;
+	}
+	
+	public void setMetrics(PackerMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		// unbox the items once - the loops below read primitive arrays only
+		int numOfItems = items.length;
+		int[] weights = new int[numOfItems];
+		int[] costs   = new int[numOfItems];
+		for (int i = 0; i < numOfItems; i++){
+			weights[i] = items[i].getWeight();
+			costs[i]   = items[i].getCost();
+		}
 		
-		List<ItemEntity> valieItems = new ArrayList<>();
+		int[] selected = new int[numOfItems];
+		int numOfSelected = findOptimalChoise(weights, costs, numOfItems, capacity, selected);
 		
-		for (ItemEntity item :itemsList){
-			if (item.getWeight() <= capacity)
-				valieItems.add(item);
+		List<ItemEntity> choosenItems = new ArrayList<>(numOfSelected);
+		for (int k = 0; k < numOfSelected; k++){
+			choosenItems.add(items[selected[k]]);
 		}
-		
-		return valieItems;
+		return choosenItems;
 	}
 	
+	/*
+	 * Boxing free path
+	 * items heavier than the capacity don't need to be removed - they are never selected
+	 * and don't change the selection of the others
+	 */
 	@Override
-	public List<ItemEntity> selectItems(final List<ItemEntity> itemsList, final int capacity) {
-		
-		// in case input is not applicable for calculation
-		// return empty list as a result
-		// not applicable : empty or null itemList or negative capacity
-		if (!isCalculationRequired(itemsList, capacity)){
-			return Collections.emptyList();
+	public void selectItems(ItemBatch items, ItemBatch selectedItems) {
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			selectItems(arena, items, selectedItems);
+		} finally {
+			arena.release();
+		}
+	}
+	
+	// many lines with a single arena acquisition
+	@Override
+	public void selectItems(List<ItemBatch> lines, List<ItemBatch> selectedLines) {
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			for (int i = 0; i < lines.size(); i++){
+				selectItems(arena, lines.get(i), selectedLines.get(i));
+			}
+		} finally {
+			arena.release();
 		}
+	}
+	
+	/*
+	 * Multi capacity API - one rolling row DP at the largest capacity answers all the capacities:
+	 * the values and the take/skip decisions of the capacities below it are the same as when solving them
+	 * on their own, so each selection is exactly the one selectItems(items, selected) returns for it
+	 */
+	@Override
+	public void selectItems(ItemBatch items, int[] capacities, List<ItemBatch> selectedLines) {
+		int numOfItems  = items.getCount();
+		int maxCapacity = -1;
+		for (int capacity : capacities){
+			maxCapacity = Math.max(maxCapacity, capacity);
+		}
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			int wordsPerItem = 0;
+			if (numOfItems > 0 && maxCapacity >= 0){
+				if (metrics != null){
+					metrics.recordDpCells((long) numOfItems * (maxCapacity + 1));
+				}
+				wordsPerItem = fillRollingRow(arena, items.getWeights(), items.getCosts(), numOfItems, maxCapacity);
+			}
+			int[] row        = arena.ints(ScratchArena.Use.ROW, maxCapacity + 1);
+			long[] decisions = arena.longs(ScratchArena.Use.DECISIONS, 0);
+			int[] selected   = arena.ints(ScratchArena.Use.SELECTED_INDEXES, numOfItems);
+			for (int k = 0; k < capacities.length; k++){
+				ItemBatch selectedItems = selectedLines.get(k);
+				selectedItems.clear();
+				selectedItems.setCapacity(capacities[k]);
+				if (numOfItems == 0 || capacities[k] < 0){
+					continue;
+				}
+				int numOfSelected = selectedOfRollingRow(row, decisions, wordsPerItem, items.getWeights(), items.getCosts(),
+														 numOfItems, capacities[k], selected);
+				selectedItems.reserve(numOfSelected);
+				for (int s = 0; s < numOfSelected; s++){
+					int i = selected[s];
+					selectedItems.add(items.getId(i), items.getWeight(i), items.getCost(i));
+				}
+			}
+		} finally {
+			arena.release();
+		}
+	}
+	
+	// list version of the multi capacity API - one selection per capacity, the items of the list
+	public List<List<ItemEntity>> selectItems(List<ItemEntity> itemsList, int[] capacities) {
+		ItemBatch items = ItemBatch.of(itemsList, 0);
+		List<ItemBatch> selectedLines = new ArrayList<>(capacities.length);
+		for (int k = 0; k < capacities.length; k++){
+			selectedLines.add(new ItemBatch());
+		}
+		selectItems(items, capacities, selectedLines);
 		
-		// make sure there are no items with larger weight than the capacity
-		// to avoid unnecessary calculations
-		List<ItemEntity> validItems = removeTooBigItems(itemsList, capacity);
-		if (validItems.isEmpty()){
-			return validItems;
+		// the selected ids back to the items of the list
+		Map<Integer, ItemEntity> itemsById = new HashMap<>();
+		for (ItemEntity item : itemsList){
+			itemsById.put(item.getId(), item);
+		}
+		List<List<ItemEntity>> result = new ArrayList<>(capacities.length);
+		for (ItemBatch selectedItems : selectedLines){
+			List<ItemEntity> choosenItems = new ArrayList<>(selectedItems.getCount());
+			for (int s = 0; s < selectedItems.getCount(); s++){
+				choosenItems.add(itemsById.get(selectedItems.getId(s)));
+			}
+			result.add(choosenItems);
+		}
+		return result;
+	}
+	
+	private void selectItems(ScratchArena arena, ItemBatch items, ItemBatch selectedItems) {
+		selectedItems.clear();
+		selectedItems.setCapacity(items.getCapacity());
+		int numOfItems = items.getCount();
+		if (numOfItems == 0 || items.getCapacity() < 0){
+			return;
 		}
 		
-		// calculate matrix and return selected items
-		ItemEntity[] items = validItems.toArray(new ItemEntity[validItems.size()]);
-		return findOptimalChoise(items, capacity);
+		int[] selected = arena.ints(ScratchArena.Use.SELECTED_INDEXES, numOfItems);
+		int numOfSelected = findOptimalChoise(items.getWeights(), items.getCosts(), numOfItems, items.getCapacity(), selected);
+		selectedItems.reserve(numOfSelected);
+		for (int k = 0; k < numOfSelected; k++){
+			int i = selected[k];
+			selectedItems.add(items.getId(i), items.getWeight(i), items.getCost(i));
+		}
 	}
 	
-	private boolean isCalculationRequired(List<ItemEntity> itemsList, int capacity){
-		if (itemsList == null   ||
-			itemsList.isEmpty() ||
-			capacity < 0 ){
-			return false;
-		} else
-			return true;
+	/*
+	 * calculate matrix and fill selected with the indexes of the selected items (highest index first)
+	 * return the number of selected items
+	 */
+	private int findOptimalChoise(int[] weights, int[] costs, int numOfItems, int capacity, int[] selected) {
+		if (metrics != null){
+			metrics.recordDpCells((long) numOfItems * (capacity + 1));
+		}
+		if (memoryMode == MemoryMode.ROLLING_ROW){
+			ScratchArena arena = ScratchArena.acquire();
+			try {
+				return findOptimalChoiseRollingRow(arena, weights, costs, numOfItems, capacity, selected);
+			} finally {
+				arena.release();
+			}
+		}
+		return findOptimalChoiseFullMatrix(weights, costs, numOfItems, capacity, selected);
 	}
 	
-	private List<ItemEntity> findOptimalChoise(ItemEntity[] items, Integer capacity) {
+	private int findOptimalChoiseFullMatrix(int[] weights, int[] costs, int numOfItems, int capacity, int[] selected) {
 
 		    // knapsack matrix
-		    int[][] matrix = createMatrix(items.length, capacity);
+		    int[][] matrix = createMatrix(numOfItems, capacity);
 		    
 		    // perform iterative knapsack algorithm (dynamic programming)
-		    int maxValue = calculateMaxValue(matrix, items, items.length, capacity);
+		    int maxValue = calculateMaxValue(matrix, weights, costs, numOfItems, capacity);
 		    
-		    return calculateSelectedItems(matrix, items.length, items, capacity, maxValue);
+		    return calculateSelectedItems(matrix, numOfItems, weights, costs, capacity, maxValue, selected);
 		}
 	
 	private int[][] createMatrix(int numOfItems, int capacity){
@@ -75,40 +241,89 @@ public class KnapSackPackagingStrategy implements IPackagingAlgorithm {
 	    return matrix;
 	}
 	
-	private int calculateMaxValue(int[][] matrix, ItemEntity[] items, int numOfItems, int capacity){
+	private int calculateMaxValue(int[][] matrix, int[] weights, int[] costs, int numOfItems, int capacity){
 	    // we iterate on items
 	    for (int i = 1; i <= numOfItems; i++) {
+	      int weight = weights[i - 1];
+	      int cost   = costs[i - 1];
 	      // we iterate on each capacity
 	      for (int j = 0; j <= capacity; j++) {
-	        if (items[i - 1].getWeight() > j)
+	        if (weight > j)
 	          matrix[i][j] = matrix[i-1][j];
 	        else
 	          // we maximize value at this rank in the matrix
-	          matrix[i][j] = Math.max(matrix[i-1][j], matrix[i-1][j - items[i-1].getWeight()] 
-					  + items[i-1].getCost());
+	          matrix[i][j] = Math.max(matrix[i-1][j], matrix[i-1][j - weight] + cost);
 	      }
 	    }
-	    
 	    return matrix[numOfItems][capacity];
 	}
 	
-	private List<ItemEntity> calculateSelectedItems(int[][] matrix, int numOfItems,
-											  ItemEntity[] items, int capacity,
-											  int maxValue){
+	private int calculateSelectedItems(int[][] matrix, int numOfItems,
+									   int[] weights, int[] costs, int capacity,
+									   int maxValue, int[] selected){
 		
-		  List<ItemEntity> choosenItems = new ArrayList<>();
+		  int numOfSelected = 0;
 
 		  for (int i = numOfItems; i > 0  &&  maxValue > 0; i--) {
 		     if (maxValue != matrix[i-1][capacity]) {
 		    	 // add item to package
-		         choosenItems.add(items[i-1]);
+		         selected[numOfSelected++] = i - 1;
 		        
 		        // remove items value and weight - item is in package
-		         maxValue -= items[i-1].getCost();
-		         capacity -= items[i-1].getWeight();
+		         maxValue -= costs[i-1];
+		         capacity -= weights[i-1];
 		      }
 		    }  
 	  
-		 return choosenItems;
+		 return numOfSelected;
+	}
+	
+	/*
+	 * Same algorithm with one row of values:
+	 * iterating the capacities from the highest to the lowest allows updating the row in place
+	 * since row[j - weight] still holds the value of the previous item.
+	 * decisions holds one bit per item and capacity - set when taking the item is strictly better,
+	 * which is exactly when matrix[i][j] != matrix[i-1][j] in the full matrix
+	 * row and decisions are reused scratch buffers - cleared here
+	 */
+	private int findOptimalChoiseRollingRow(ScratchArena arena, int[] weights, int[] costs, int numOfItems, int capacity, int[] selected){
+		int wordsPerItem = fillRollingRow(arena, weights, costs, numOfItems, capacity);
+		return selectedOfRollingRow(arena.ints(ScratchArena.Use.ROW, capacity + 1), arena.longs(ScratchArena.Use.DECISIONS, 0),
+									wordsPerItem, weights, costs, numOfItems, capacity, selected);
+	}
+	
+	// fill the row and the decisions of the arena for all the capacities up to capacity, return the words per item
+	private int fillRollingRow(ScratchArena arena, int[] weights, int[] costs, int numOfItems, int capacity){
+		int[] row = arena.ints(ScratchArena.Use.ROW, capacity + 1);
+		Arrays.fill(row, 0, capacity + 1, 0);
+		int wordsPerItem = (capacity >>> 6) + 1;
+		long[] decisions = arena.longs(ScratchArena.Use.DECISIONS, numOfItems * wordsPerItem);
+		Arrays.fill(decisions, 0, numOfItems * wordsPerItem, 0L);
+		
+		for (int i = 0; i < numOfItems; i++){
+			rowKernel.update(row, decisions, i * wordsPerItem, weights[i], costs[i], capacity);
+		}
+		return wordsPerItem;
+	}
+	
+	/*
+	 * the selection for any capacity up to the one the decisions were filled for
+	 * row[j] is the best value for capacity j, so one fill answers all of them
+	 */
+	private static int selectedOfRollingRow(int[] row, long[] decisions, int wordsPerItem,
+											int[] weights, int[] costs, int numOfItems, int capacity, int[] selected){
+		int numOfSelected = 0;
+		int maxValue = row[capacity];
+		for (int i = numOfItems - 1; i >= 0 && maxValue > 0; i--){
+			if ((decisions[i * wordsPerItem + (capacity >>> 6)] & (1L << capacity)) != 0){
+				// add item to package
+				selected[numOfSelected++] = i;
+				
+				// remove items value and weight - item is in package
+				maxValue -= costs[i];
+				capacity -= weights[i];
+			}
+		}
+		return numOfSelected;
 	}
 }
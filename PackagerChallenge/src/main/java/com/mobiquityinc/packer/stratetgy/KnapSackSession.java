@@ -0,0 +1,180 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.exception.APIException;
+
+/*
+ * Incremental knapsack - a package built item by item, with the best selection available after each change
+ *
+ * The session keeps the knapsack matrix of KnapSackPackagingStrategy as a stack of rows:
+ * row k holds the best cost of the first k items for every capacity 0..capacity, row 0 is all zeros.
+ *  - add(item)     pushes one row computed from the row below it - O(capacity)
+ *  - remove(id)    pops the rows of the item and of the items added after it, and pushes the later items back
+ *                  O((items added after it + 1) * capacity) - undoing the last item is O(1)
+ *  - getBestCost() reads the top row - O(1)
+ *  - getSelectedItems() walks down the rows - O(items)
+ * Every row holds all the capacities up to the session capacity, so the best selection for any smaller
+ * capacity is available as well (getSelectedItems(capacity)) without solving again.
+ *
+ * The items are kept in the order they were added and the selection is exactly the one of
+ * KnapSackPackagingStrategy on getItems() - the same tie break, the selected items from the latest
+ * added to the first. Popped rows are kept for the next pushes, so a session which adds and removes
+ * items in steady state does not allocate.
+ *
+ * Memory is (items + 1) * (capacity + 1) ints - at most MAX_CELLS, APIException beyond.
+ * Not thread safe - one session per package being built.
+ */
+
+public class KnapSackSession {
+
+	// 200MB of rows
+	public static final long MAX_CELLS = 50_000_000L;
+
+	private final int capacity;
+	private final List<ItemEntity> items = new ArrayList<>();
+	private final List<int[]> rows = new ArrayList<>();
+	private final Deque<int[]> spareRows = new ArrayDeque<>();
+	// number of matrix cells computed so far - add is capacity + 1 cells
+	private long cellsComputed;
+
+	// capacity in the units of the item weights (i.e. already multiplied by the weight factor of the parser)
+	public KnapSackSession(int capacity){
+		if (capacity < 0){
+			throw new APIException("Package capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		rows.add(new int[capacity + 1]);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	// in the order they were added
+	public List<ItemEntity> getItems() {
+		return Collections.unmodifiableList(items);
+	}
+
+	public int size(){
+		return items.size();
+	}
+
+	public long getCellsComputed() {
+		return cellsComputed;
+	}
+
+	/*
+	 * Changes
+	 */
+
+	// throw APIException for a negative weight or cost, an id already in the session or a matrix bigger than MAX_CELLS
+	public void add(ItemEntity item){
+		if (item.getWeight() < 0 || item.getCost() < 0){
+			throw new APIException("Item " + item.getId() + " weight and cost must not be negative");
+		}
+		if (indexOf(item.getId()) >= 0){
+			throw new APIException("Item " + item.getId() + " is already in the session");
+		}
+		if ((long) (rows.size() + 1) * (capacity + 1) > MAX_CELLS){
+			throw new APIException("Session of " + (items.size() + 1) + " items and capacity " + capacity + " is too large");
+		}
+		items.add(item);
+		pushRow(item);
+	}
+
+	// return false when there is no item with this id
+	public boolean remove(int id){
+		int index = indexOf(id);
+		if (index < 0){
+			return false;
+		}
+		// the rows of the items from index up are popped, the items after it are pushed back
+		while (rows.size() > index + 1){
+			spareRows.push(rows.remove(rows.size() - 1));
+		}
+		items.remove(index);
+		for (int k = index; k < items.size(); k++){
+			pushRow(items.get(k));
+		}
+		return true;
+	}
+
+	public void clear(){
+		while (rows.size() > 1){
+			spareRows.push(rows.remove(rows.size() - 1));
+		}
+		items.clear();
+	}
+
+	// the row of the item on top of the current top row
+	private void pushRow(ItemEntity item){
+		int[] previous = rows.get(rows.size() - 1);
+		int[] row = spareRows.isEmpty() ? new int[capacity + 1] : spareRows.pop();
+		int weight = item.getWeight();
+		int cost   = item.getCost();
+		int j = 0;
+		for (; j < weight && j <= capacity; j++){
+			row[j] = previous[j];
+		}
+		for (; j <= capacity; j++){
+			row[j] = Math.max(previous[j], previous[j - weight] + cost);
+		}
+		rows.add(row);
+		cellsComputed += capacity + 1;
+	}
+
+	private int indexOf(int id){
+		for (int k = items.size() - 1; k >= 0; k--){
+			if (items.get(k).getId() == id){
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Queries
+	 */
+
+	public int getBestCost(){
+		return getBestCost(capacity);
+	}
+
+	// 0 <= capacity <= getCapacity()
+	public int getBestCost(int capacity){
+		checkCapacity(capacity);
+		return rows.get(rows.size() - 1)[capacity];
+	}
+
+	public List<ItemEntity> getSelectedItems(){
+		return getSelectedItems(capacity);
+	}
+
+	// the selection of KnapSackPackagingStrategy on getItems() for this capacity, 0 <= capacity <= getCapacity()
+	public List<ItemEntity> getSelectedItems(int capacity){
+		checkCapacity(capacity);
+		List<ItemEntity> selectedItems = new ArrayList<>();
+		int value = rows.get(rows.size() - 1)[capacity];
+		for (int k = items.size(); k > 0 && value > 0; k--){
+			if (value != rows.get(k - 1)[capacity]){
+				ItemEntity item = items.get(k - 1);
+				selectedItems.add(item);
+				value    -= item.getCost();
+				capacity -= item.getWeight();
+			}
+		}
+		return selectedItems;
+	}
+
+	private void checkCapacity(int capacity){
+		if (capacity < 0 || capacity > this.capacity){
+			throw new APIException("Capacity " + capacity + " is out of the session range 0.." + this.capacity);
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
+
+/*
+ * Normalization stage between the parser and the packaging algorithm
+ *
+ * The parser multiplies all weights by one global weight factor (10^precision),
+ * so a line whose weights are whole numbers pays for a 100 times wider knapsack.
+ * This stage divides the weights of the line by their greatest common divisor g
+ * and the capacity by g (rounded down) before calling the wrapped algorithm:
+ *  - g contains the power of ten of the precision the line actually needs
+ *    e.g. weights 12.50 and 30.00 -> 1250 and 3000 -> g = 250 -> 5 and 12
+ *  - sum(w) <= C  <=>  sum(w / g) <= C / g  (rounded down, since the left side is an integer)
+ *    so exactly the same subsets fit and the result does not change, ties included
+ *
+ * Items heavier than the capacity can never be selected, they are dropped before computing g.
+ * The selected items returned are the original items of the list.
+ */
+
+public class NormalizingPackagingStrategy implements IPackagingAlgorithm {
+
+	private final IPackagingAlgorithm selector;
+	// optional - the distribution of the scaled capacities
+	private PackerMetrics metrics;
+
+	public NormalizingPackagingStrategy(IPackagingAlgorithm selector){
+		this.selector = selector;
+	}
+
+	public void setMetrics(PackerMetrics metrics){
+		this.metrics = metrics;
+	}
+
+	@Override
+	public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+		if (itemsList == null || itemsList.isEmpty() || capacity < 0){
+			return selector.selectItems(itemsList, capacity);
+		}
+
+		int divisor = weightsDivisor(itemsList, capacity);
+		if (metrics != null){
+			metrics.recordScaledCapacity(divisor <= 1 ? capacity : capacity / divisor);
+		}
+		if (divisor <= 1){
+			return selector.selectItems(itemsList, capacity);
+		}
+
+		// scaled copies of the items which fit, mapped back to the original items by id (the ids of a line
+		// are unique) - the wrapped algorithm may return other instances than the copies it was given
+		List<ItemEntity> scaledItems = new ArrayList<>(itemsList.size());
+		Map<Integer, ItemEntity> originals = new HashMap<>();
+		for (ItemEntity item : itemsList){
+			if (item.getWeight() <= capacity){
+				scaledItems.add(new ItemEntity(item.getId(), item.getWeight() / divisor, item.getCost()));
+				originals.put(item.getId(), item);
+			}
+		}
+
+		List<ItemEntity> selectedItems = selector.selectItems(scaledItems, capacity / divisor);
+		List<ItemEntity> result = new ArrayList<>(selectedItems.size());
+		for (ItemEntity selectedItem : selectedItems){
+			result.add(originals.get(selectedItem.getId()));
+		}
+		return result;
+	}
+
+	/*
+	 * Boxing free path - the selected weights are multiplied back by the divisor
+	 * (exact, since all the weights are multiples of it)
+	 */
+	@Override
+	public void selectItems(ItemBatch items, ItemBatch selected) {
+		int capacity = items.getCapacity();
+		int divisor  = capacity < 0 ? 0 : weightsDivisor(items);
+		if (metrics != null && capacity >= 0){
+			metrics.recordScaledCapacity(divisor <= 1 ? capacity : capacity / divisor);
+		}
+		if (divisor <= 1){
+			selector.selectItems(items, selected);
+			return;
+		}
+
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			ItemBatch scaledItems = arena.batch(ScratchArena.Use.SCALED);
+			scaledItems.reserve(items.getCount());
+			scaledItems.setCapacity(capacity / divisor);
+			for (int i = 0; i < items.getCount(); i++){
+				if (items.getWeight(i) <= capacity){
+					scaledItems.add(items.getId(i), items.getWeight(i) / divisor, items.getCost(i));
+				}
+			}
+
+			selector.selectItems(scaledItems, selected);
+		} finally {
+			arena.release();
+		}
+		selected.setCapacity(capacity);
+		int[] weights = selected.getWeights();
+		for (int i = 0; i < selected.getCount(); i++){
+			weights[i] *= divisor;
+		}
+	}
+
+	/*
+	 * Multi capacity API - one divisor for all the capacities: the GCD of the weights which fit the largest
+	 * capacity divides every subset which fits a smaller one, so C / g (rounded down) is exact for all of them
+	 */
+	@Override
+	public void selectItems(ItemBatch items, int[] capacities, List<ItemBatch> selectedLines) {
+		int maxCapacity = -1;
+		for (int capacity : capacities){
+			maxCapacity = Math.max(maxCapacity, capacity);
+		}
+		int capacity = items.getCapacity();
+		items.setCapacity(maxCapacity);
+		int divisor = maxCapacity < 0 ? 0 : weightsDivisor(items);
+		items.setCapacity(capacity);
+		if (divisor <= 1){
+			if (metrics != null){
+				for (int c : capacities){
+					if (c >= 0){
+						metrics.recordScaledCapacity(c);
+					}
+				}
+			}
+			selector.selectItems(items, capacities, selectedLines);
+			return;
+		}
+
+		int[] scaledCapacities = new int[capacities.length];
+		for (int k = 0; k < capacities.length; k++){
+			scaledCapacities[k] = capacities[k] < 0 ? capacities[k] : capacities[k] / divisor;
+			if (metrics != null && capacities[k] >= 0){
+				metrics.recordScaledCapacity(scaledCapacities[k]);
+			}
+		}
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			ItemBatch scaledItems = arena.batch(ScratchArena.Use.SCALED);
+			scaledItems.reserve(items.getCount());
+			for (int i = 0; i < items.getCount(); i++){
+				if (items.getWeight(i) <= maxCapacity){
+					scaledItems.add(items.getId(i), items.getWeight(i) / divisor, items.getCost(i));
+				}
+			}
+			selector.selectItems(scaledItems, scaledCapacities, selectedLines);
+		} finally {
+			arena.release();
+		}
+		for (int k = 0; k < capacities.length; k++){
+			ItemBatch selected = selectedLines.get(k);
+			selected.setCapacity(capacities[k]);
+			int[] weights = selected.getWeights();
+			for (int i = 0; i < selected.getCount(); i++){
+				weights[i] *= divisor;
+			}
+		}
+	}
+
+	// weightsDivisor of the items of the batch for its capacity
+	public static int weightsDivisor(ItemBatch items){
+		int divisor  = 0;
+		int capacity = items.getCapacity();
+		int[] weights = items.getWeights();
+		for (int i = 0; i < items.getCount(); i++){
+			if (weights[i] <= capacity){
+				divisor = gcd(divisor, weights[i]);
+				if (divisor == 1){
+					break;
+				}
+			}
+		}
+		return divisor;
+	}
+
+	/*
+	 * greatest common divisor of the weights of the items which fit the capacity
+	 * return 0 when there is no such item or all of them weight 0
+	 */
+	public static int weightsDivisor(List<ItemEntity> itemsList, int capacity){
+		int divisor = 0;
+		for (ItemEntity item : itemsList){
+			int weight = item.getWeight();
+			if (weight <= capacity){
+				divisor = gcd(divisor, weight);
+				if (divisor == 1){
+					break;
+				}
+			}
+		}
+		return divisor;
+	}
+
+	private static int gcd(int a, int b){
+		while (b != 0){
+			int remainder = a % b;
+			a = b;
+			b = remainder;
+		}
+		return a;
+	}
+}
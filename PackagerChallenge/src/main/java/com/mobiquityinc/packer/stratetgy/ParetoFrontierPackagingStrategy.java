@@ -0,0 +1,127 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Knapsack over the Pareto frontier of (weight, cost) states - Nemhauser-Ullmann
+ *
+ * F(i) = the non dominated (weight, cost) pairs of the subsets of the first i items which fit the capacity,
+ * sorted by weight with strictly increasing costs. A pair is dominated when another pair is not heavier
+ * and not cheaper. F(i) is the merge of F(i-1) and F(i-1) + item i, dropping the dominated pairs.
+ * The best value within a capacity c is the cost of the last pair of F(i) with weight <= c.
+ *
+ * Time and space: O(sum of |F(i)|) - |F(i)| is at most min(2^i, capacity + 1, sum of the costs + 1)
+ * and in practice (random weights and costs) much smaller, so it neither depends on the capacity
+ * nor needs a table of n * capacity. All the frontiers are kept to rebuild the selection.
+ *
+ * Ties are broken as in KnapSackPackagingStrategy (see AbstractPackagingStrategy):
+ * going down from the last item, an item is skipped whenever F(i-1) reaches the remaining value
+ * within the remaining capacity.
+ */
+
+public class ParetoFrontierPackagingStrategy extends AbstractPackagingStrategy {
+
+	private static final int INITIAL_SIZE = 1024;
+
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		int numOfItems = items.length;
+
+		// all the frontiers one after the other, F(i) is [start[i], start[i + 1])
+		int[]  weights = new int[INITIAL_SIZE];
+		long[] costs   = new long[INITIAL_SIZE];
+		int[]  start   = new int[numOfItems + 2];
+
+		// F(0) - the empty subset
+		weights[0] = 0;
+		costs[0]   = 0;
+		start[1]   = 1;
+
+		for (int i = 1; i <= numOfItems; i++){
+			int weight = items[i - 1].getWeight();
+			int cost   = items[i - 1].getCost();
+			int from = start[i - 1];
+			int to   = start[i];
+			int size = to;
+
+			// room for the worst case - twice the previous frontier
+			int needed = to + 2 * (to - from);
+			if (needed > weights.length){
+				int length = Math.max(needed, weights.length + (weights.length >> 1));
+				weights = Arrays.copyOf(weights, length);
+				costs   = Arrays.copyOf(costs, length);
+			}
+
+			// F(i-1) + item fits up to fitEnd (the weights are increasing)
+			int fitEnd = from;
+			while (fitEnd < to && weights[fitEnd] + weight <= capacity){
+				fitEnd++;
+			}
+
+			// merge by weight: a over F(i-1), b over F(i-1) + item
+			int a = from, b = from;
+			long lastCost = -1;
+			while (a < to || b < fitEnd){
+				int  pairWeight;
+				long pairCost;
+				boolean takeA;
+				if (b >= fitEnd){
+					takeA = true;
+				} else if (a >= to){
+					takeA = false;
+				} else {
+					// same weight - the higher cost first, the other one is dropped below
+					int weightB = weights[b] + weight;
+					takeA = weights[a] < weightB || (weights[a] == weightB && costs[a] >= costs[b] + cost);
+				}
+				if (takeA){
+					pairWeight = weights[a];
+					pairCost   = costs[a];
+					a++;
+				} else {
+					pairWeight = weights[b] + weight;
+					pairCost   = costs[b] + cost;
+					b++;
+				}
+				// the pairs come by increasing weight - keep only a strictly higher cost
+				if (pairCost > lastCost){
+					weights[size] = pairWeight;
+					costs[size]   = pairCost;
+					size++;
+					lastCost = pairCost;
+				}
+			}
+			start[i + 1] = size;
+		}
+
+		long value = bestValue(weights, costs, start[numOfItems], start[numOfItems + 1], capacity);
+		List<ItemEntity> choosenItems = new ArrayList<>();
+		for (int i = numOfItems; i > 0 && value > 0; i--){
+			if (bestValue(weights, costs, start[i - 1], start[i], capacity) < value){
+				// the value can't be reached without this item - add item to package
+				choosenItems.add(items[i - 1]);
+				value    -= items[i - 1].getCost();
+				capacity -= items[i - 1].getWeight();
+			}
+		}
+		return choosenItems;
+	}
+
+	// cost of the last pair of the frontier [from, to) with weight <= capacity (the frontier starts with weight 0)
+	private static long bestValue(int[] weights, long[] costs, int from, int to, int capacity){
+		int low = from, high = to - 1;
+		while (low < high){
+			int middle = (low + high + 1) >>> 1;
+			if (weights[middle] <= capacity){
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return costs[low];
+	}
+}
@@ -0,0 +1,177 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.metrics.PackerMetrics;
+
+/*
+ * Picks the exact packaging engine per line by a small cost model
+ *
+ * For every line the estimated number of basic steps of each engine is computed
+ * from the number of items n, the capacity C and the sum of the costs V:
+ *  CAPACITY_DP        : n * C   (rolling row knapsack)
+ *  VALUE_DP           : n * V   (plus its n * V table has to fit MAX_TABLE_CELLS)
+ *  SUBSET_ENUMERATION : 2^n for n <= 20, n * 2^(n/2) up to 40 items
+ *  BRANCH_AND_BOUND   : n^2 * 2^(n/4) - a rough guess, the real cost depends on the data
+ *  PARETO             : n * min(2^n, C, V) - the bound of the frontier size, usually far above the real size
+ * CAPACITY_DP is out when its n * C decision bits don't fit MAX_DECISION_BITS, PARETO is always possible.
+ * and the cheapest engine is used. All engines return the same selection (see AbstractPackagingStrategy)
+ * so the choice only affects the speed.
+ *
+ * The planner is thread safe and keeps per engine the number of lines, the sum of the
+ * estimates and the time spent, so the model can be compared with the real run (see report()).
+ */
+
+public class PlanningPackagingStrategy extends AbstractPackagingStrategy {
+
+	public enum Engine {
+		CAPACITY_DP,
+		VALUE_DP,
+		SUBSET_ENUMERATION,
+		BRANCH_AND_BOUND,
+		PARETO
+	}
+
+	// the value indexed table is n * V ints - about 200MB at most
+	public static final long MAX_TABLE_CELLS = 50_000_000L;
+	// the decisions of the rolling row knapsack - 512MB at most
+	public static final long MAX_DECISION_BITS = 4_000_000_000L;
+
+	// relative price of one step of each engine, measured roughly on the challenge input
+	private static final double CAPACITY_DP_STEP        = 1.0;
+	private static final double VALUE_DP_STEP           = 1.5;
+	private static final double SUBSET_ENUMERATION_STEP = 2.0;
+	private static final double BRANCH_AND_BOUND_STEP   = 4.0;
+	private static final double PARETO_STEP             = 4.0;
+
+	private static final int BRANCH_AND_BOUND_MAX_ITEMS = 120;
+
+	private final Map<Engine, AbstractPackagingStrategy> engines = new EnumMap<>(Engine.class);
+	private final Map<Engine, EngineStatistics> statistics = new EnumMap<>(Engine.class);
+
+	public PlanningPackagingStrategy(){
+		engines.put(Engine.CAPACITY_DP, new KnapSackPackagingStrategy(KnapSackPackagingStrategy.MemoryMode.ROLLING_ROW));
+		engines.put(Engine.VALUE_DP, new ValueIndexedPackagingStrategy());
+		engines.put(Engine.SUBSET_ENUMERATION, new SubsetEnumerationPackagingStrategy());
+		engines.put(Engine.BRANCH_AND_BOUND, new BranchAndBoundPackagingStrategy());
+		engines.put(Engine.PARETO, new ParetoFrontierPackagingStrategy());
+		for (Engine engine : Engine.values()){
+			statistics.put(engine, new EngineStatistics());
+		}
+	}
+
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		long totalCost = 0;
+		for (ItemEntity item : items){
+			totalCost += item.getCost();
+		}
+
+		Engine choosenEngine = Engine.CAPACITY_DP;
+		double lowestCost = Double.POSITIVE_INFINITY;
+		for (Engine engine : Engine.values()){
+			double cost = estimateCost(engine, items.length, capacity, totalCost);
+			if (cost < lowestCost){
+				lowestCost = cost;
+				choosenEngine = engine;
+			}
+		}
+
+		long start = System.nanoTime();
+		List<ItemEntity> choosenItems = engines.get(choosenEngine).findOptimalChoise(items, capacity);
+		statistics.get(choosenEngine).record(lowestCost, System.nanoTime() - start);
+		return choosenItems;
+	}
+
+	/*
+	 * estimated cost of solving a line with the engine
+	 * Double.POSITIVE_INFINITY when the engine can't (or shouldn't) solve it
+	 */
+	public static double estimateCost(Engine engine, int numOfItems, int capacity, long totalCost){
+		switch (engine){
+			case CAPACITY_DP:
+				if ((double) numOfItems * ((double) capacity + 1) > MAX_DECISION_BITS){
+					return Double.POSITIVE_INFINITY;
+				}
+				return CAPACITY_DP_STEP * numOfItems * ((double) capacity + 1);
+			case VALUE_DP:
+				if (totalCost >= Integer.MAX_VALUE || (numOfItems + 1) * (totalCost + 1) > MAX_TABLE_CELLS){
+					return Double.POSITIVE_INFINITY;
+				}
+				return VALUE_DP_STEP * numOfItems * ((double) totalCost + 1);
+			case SUBSET_ENUMERATION:
+				if (numOfItems <= SubsetEnumerationPackagingStrategy.GRAY_CODE_MAX_ITEMS){
+					return SUBSET_ENUMERATION_STEP * Math.pow(2, numOfItems);
+				} else if (numOfItems <= SubsetEnumerationPackagingStrategy.MITM_MAX_ITEMS){
+					return SUBSET_ENUMERATION_STEP * numOfItems * Math.pow(2, numOfItems / 2.0);
+				}
+				return Double.POSITIVE_INFINITY;
+			case BRANCH_AND_BOUND:
+				if (numOfItems > BRANCH_AND_BOUND_MAX_ITEMS){
+					return Double.POSITIVE_INFINITY;
+				}
+				return BRANCH_AND_BOUND_STEP * numOfItems * numOfItems * Math.pow(2, numOfItems / 4.0);
+			case PARETO:
+				double frontier = Math.min(Math.pow(2, numOfItems), Math.min((double) capacity + 1, (double) totalCost + 1));
+				return PARETO_STEP * numOfItems * frontier;
+			default:
+				throw new IllegalArgumentException("unknown engine " + engine);
+		}
+	}
+
+	// the DP cells of the capacity knapsack engine
+	public void setMetrics(PackerMetrics metrics){
+		((KnapSackPackagingStrategy) engines.get(Engine.CAPACITY_DP)).setMetrics(metrics);
+	}
+
+	public long getChoosenCount(Engine engine){
+		return statistics.get(engine).lines.sum();
+	}
+
+	public long getElapsedNanos(Engine engine){
+		return statistics.get(engine).elapsedNanos.sum();
+	}
+
+	public double getEstimatedCost(Engine engine){
+		return statistics.get(engine).estimatedCost.sum();
+	}
+
+	/*
+	 * one line per engine: lines solved, time spent and nanos per estimated step
+	 * e.g. SUBSET_ENUMERATION lines=5 elapsed=0.120ms nanos/step=1.875
+	 */
+	public String report(){
+		StringBuilder report = new StringBuilder();
+		for (Engine engine : Engine.values()){
+			long lines = getChoosenCount(engine);
+			long nanos = getElapsedNanos(engine);
+			double estimatedCost = getEstimatedCost(engine);
+			if (report.length() > 0){
+				report.append('\n');
+			}
+			report.append(engine)
+				  .append(" lines=").append(lines)
+				  .append(" elapsed=").append(String.format("%.3f", nanos / 1_000_000.0)).append("ms")
+				  .append(" nanos/step=").append(estimatedCost > 0 ? String.format("%.3f", nanos / estimatedCost) : "-");
+		}
+		return report.toString();
+	}
+
+	private static class EngineStatistics {
+
+		private final LongAdder lines = new LongAdder();
+		private final LongAdder elapsedNanos = new LongAdder();
+		private final DoubleAdder estimatedCost = new DoubleAdder();
+
+		private void record(double estimatedCost, long nanos){
+			lines.increment();
+			elapsedNanos.add(nanos);
+			this.estimatedCost.add(estimatedCost);
+		}
+	}
+}
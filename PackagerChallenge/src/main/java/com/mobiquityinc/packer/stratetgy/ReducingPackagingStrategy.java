@@ -0,0 +1,421 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.ScratchArena.Use;
+
+/*
+ * Reduction stage in front of the exact packaging algorithm
+ *
+ * Each item is either fixed OUT, fixed IN or left in the CORE, and only the core
+ * (with the capacity left by the IN items) goes to the wrapped algorithm:
+ *  1) items heavier than the capacity and items without cost are OUT
+ *  2) trivial fit - when all the other items fit together they are all IN, the algorithm is not called
+ *  3) dominance - item j is OUT when the items before it which are not heavier and not cheaper
+ *     weigh together more than capacity - w(j) (checked when the items are sorted by weight, as the parsers do)
+ *  4) bounds - with L the value of the greedy (by cost/weight) packing and U the LP (Dantzig) bound:
+ *     item j is IN  when U without j < L, i.e. every optimal packing contains it
+ *     item j is OUT when U with j    < L, i.e. no optimal packing contains it
+ *
+ * None of the steps changes the selection, ties included (see AbstractPackagingStrategy):
+ *  - 3) if j is selected, all the items before it which dominate it are selected too - otherwise swapping
+ *    one of them for j gives at least the same value with a smaller mask. So when they can't all fit with j,
+ *    j is not selected.
+ *  - 4) the bounds are strict so only items which are in all (or in none) of the optimal packings are fixed,
+ *    and the core keeps the order of the items, so the masks compare the same way.
+ *
+ * The selected items are the IN items and the items the algorithm selected from the core,
+ * from the highest index to the lowest. The items are told apart by their id in the ItemBatch path.
+ * Thread safe - the work buffers are the ScratchArena of the calling thread.
+ */
+
+public class ReducingPackagingStrategy implements IPackagingAlgorithm {
+
+	private static final int OUT  = 0;
+	private static final int IN   = 1;
+	private static final int CORE = 2;
+
+	private final IPackagingAlgorithm selector;
+
+	private final LongAdder lines       = new LongAdder();
+	private final LongAdder trivialFits = new LongAdder();
+	private final LongAdder items       = new LongAdder();
+	private final LongAdder dominated   = new LongAdder();
+	private final LongAdder fixedIn     = new LongAdder();
+	private final LongAdder fixedOut    = new LongAdder();
+	private final LongAdder coreItems   = new LongAdder();
+
+	public ReducingPackagingStrategy(IPackagingAlgorithm selector){
+		this.selector = selector;
+	}
+
+	@Override
+	public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+		if (itemsList == null || itemsList.isEmpty() || capacity < 0){
+			return selector.selectItems(itemsList, capacity);
+		}
+
+		int numOfItems = itemsList.size();
+		int[] weights = new int[numOfItems];
+		int[] costs   = new int[numOfItems];
+		for (int i = 0; i < numOfItems; i++){
+			weights[i] = itemsList.get(i).getWeight();
+			costs[i]   = itemsList.get(i).getCost();
+		}
+
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			int[] state = arena.ints(Use.STATE, numOfItems);
+			int coreCapacity = reduce(arena, weights, costs, numOfItems, capacity, state);
+
+			// the core - original items, so the selected ones are known by identity
+			List<ItemEntity> core = new ArrayList<>();
+			Map<ItemEntity, Integer> positions = new IdentityHashMap<>();
+			for (int i = 0; i < numOfItems; i++){
+				if (state[i] == CORE){
+					core.add(itemsList.get(i));
+					positions.put(itemsList.get(i), i);
+				}
+			}
+			if (!core.isEmpty()){
+				for (int i = 0; i < numOfItems; i++){
+					if (state[i] == CORE){
+						state[i] = OUT;
+					}
+				}
+				for (ItemEntity item : selector.selectItems(core, coreCapacity)){
+					state[positions.get(item)] = IN;
+				}
+			}
+
+			List<ItemEntity> selectedItems = new ArrayList<>();
+			for (int i = numOfItems - 1; i >= 0; i--){
+				if (state[i] == IN){
+					selectedItems.add(itemsList.get(i));
+				}
+			}
+			return selectedItems;
+		} finally {
+			arena.release();
+		}
+	}
+
+	// the reduction depends on the capacity - several capacities of the same items go to the wrapped algorithm as they are
+	@Override
+	public void selectItems(ItemBatch items, int[] capacities, List<ItemBatch> selectedLines) {
+		selector.selectItems(items, capacities, selectedLines);
+	}
+
+	@Override
+	public void selectItems(ItemBatch items, ItemBatch selected) {
+		int capacity   = items.getCapacity();
+		int numOfItems = items.getCount();
+		if (numOfItems == 0 || capacity < 0){
+			selector.selectItems(items, selected);
+			return;
+		}
+
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			int[] state = arena.ints(Use.STATE, numOfItems);
+			int coreCapacity = reduce(arena, items.getWeights(), items.getCosts(), numOfItems, capacity, state);
+
+			ItemBatch core = arena.batch(Use.CORE);
+			core.reserve(numOfItems);
+			core.setCapacity(coreCapacity);
+			for (int i = 0; i < numOfItems; i++){
+				if (state[i] == CORE){
+					core.add(items.getId(i), items.getWeight(i), items.getCost(i));
+				}
+			}
+			if (core.getCount() > 0){
+				ItemBatch coreSelected = arena.batch(Use.CORE_SELECTED);
+				selector.selectItems(core, coreSelected);
+				markSelected(items, state, coreSelected);
+			}
+
+			selected.clear();
+			selected.setCapacity(capacity);
+			for (int i = numOfItems - 1; i >= 0; i--){
+				if (state[i] == IN){
+					selected.add(items.getId(i), items.getWeight(i), items.getCost(i));
+				}
+			}
+		} finally {
+			arena.release();
+		}
+	}
+
+	// CORE -> IN for the selected core items, OUT for the others
+	// the selection comes from the highest index down, so one pass matches it (a scan otherwise)
+	private static void markSelected(ItemBatch items, int[] state, ItemBatch coreSelected){
+		int next = 0;
+		for (int i = items.getCount() - 1; i >= 0; i--){
+			if (state[i] == CORE){
+				if (next < coreSelected.getCount() && coreSelected.getId(next) == items.getId(i)){
+					state[i] = IN;
+					next++;
+				} else {
+					state[i] = OUT;
+				}
+			}
+		}
+		for (; next < coreSelected.getCount(); next++){
+			for (int i = 0; i < items.getCount(); i++){
+				if (items.getId(i) == coreSelected.getId(next) && state[i] != IN){
+					state[i] = IN;
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * set the state of each item, return the capacity left for the core
+	 */
+	private int reduce(ScratchArena arena, int[] weights, int[] costs, int numOfItems, int capacity, int[] state){
+		lines.increment();
+		items.add(numOfItems);
+
+		// 1) what can't be selected
+		long totalWeight = 0;
+		int numOfCore = 0;
+		for (int i = 0; i < numOfItems; i++){
+			if (weights[i] <= capacity && costs[i] > 0){
+				state[i] = CORE;
+				totalWeight += weights[i];
+				numOfCore++;
+			} else {
+				state[i] = OUT;
+			}
+		}
+
+		// 2) everything fits
+		if (totalWeight <= capacity){
+			for (int i = 0; i < numOfItems; i++){
+				if (state[i] == CORE){
+					state[i] = IN;
+				}
+			}
+			trivialFits.increment();
+			fixedIn.add(numOfCore);
+			return capacity;
+		}
+
+		numOfCore -= removeDominated(arena, weights, costs, numOfItems, capacity, state);
+		int coreCapacity = fixByBounds(arena, weights, costs, numOfItems, numOfCore, capacity, state);
+
+		for (int i = 0; i < numOfItems; i++){
+			if (state[i] == CORE){
+				coreItems.increment();
+			}
+		}
+		return coreCapacity;
+	}
+
+	/*
+	 * 3) dominance - only when the core is sorted by weight, then every item before j is not heavier
+	 * the weights of the items before j by cost rank are kept in a Fenwick tree
+	 * return the number of items removed
+	 */
+	private int removeDominated(ScratchArena arena, int[] weights, int[] costs, int numOfItems, int capacity, int[] state){
+		int numOfCosts = 0;
+		int previousWeight = 0;
+		int[] sortedCosts = arena.ints(Use.RANKS, numOfItems);
+		for (int i = 0; i < numOfItems; i++){
+			if (state[i] == CORE){
+				if (weights[i] < previousWeight){
+					return 0;
+				}
+				previousWeight = weights[i];
+				sortedCosts[numOfCosts++] = costs[i];
+			}
+		}
+		Arrays.sort(sortedCosts, 0, numOfCosts);
+
+		long[] tree = arena.longs(Use.FENWICK, numOfCosts + 1);
+		Arrays.fill(tree, 0, numOfCosts + 1, 0L);
+		long treeTotal = 0;
+		int removed = 0;
+		for (int j = 0; j < numOfItems; j++){
+			if (state[j] != CORE){
+				continue;
+			}
+			// rank = 1 + number of costs below costs[j]
+			int rank = lowerBound(sortedCosts, numOfCosts, costs[j]) + 1;
+			long notCheaper = treeTotal - prefixSum(tree, rank - 1);
+			// removed items still count - they dominate j whether selected or not
+			for (int k = rank; k <= numOfCosts; k += k & -k){
+				tree[k] += weights[j];
+			}
+			treeTotal += weights[j];
+			if (notCheaper > capacity - weights[j]){
+				state[j] = OUT;
+				removed++;
+			}
+		}
+		dominated.add(removed);
+		return removed;
+	}
+
+	private static int lowerBound(int[] sorted, int length, int value){
+		int low = 0, high = length;
+		while (low < high){
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < value){
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static long prefixSum(long[] tree, int index){
+		long sum = 0;
+		for (int k = index; k > 0; k -= k & -k){
+			sum += tree[k];
+		}
+		return sum;
+	}
+
+	/*
+	 * 4) fix items IN/OUT by the greedy lower bound and the LP upper bounds
+	 * return the capacity left for the core
+	 */
+	private int fixByBounds(ScratchArena arena, int[] weights, int[] costs, int numOfItems, int numOfCore, int capacity, int[] state){
+		// core items by cost/weight, highest first
+		int[] order = arena.ints(Use.ORDER, numOfCore);
+		int m = 0;
+		for (int i = 0; i < numOfItems; i++){
+			if (state[i] == CORE){
+				order[m++] = i;
+			}
+		}
+		sortByRatio(order, m, arena.ints(Use.ORDER_MERGE, m), weights, costs);
+
+		long[] prefixWeights = arena.longs(Use.PREFIX_WEIGHTS, m + 1);
+		long[] prefixCosts   = arena.longs(Use.PREFIX_COSTS, m + 1);
+		prefixWeights[0] = 0;
+		prefixCosts[0]   = 0;
+		long lowerBound = 0;
+		long room = capacity;
+		for (int p = 0; p < m; p++){
+			int i = order[p];
+			prefixWeights[p + 1] = prefixWeights[p] + weights[i];
+			prefixCosts[p + 1]   = prefixCosts[p] + costs[i];
+			if (weights[i] <= room){
+				room -= weights[i];
+				lowerBound += costs[i];
+			}
+		}
+
+		int coreCapacity = capacity;
+		for (int p = 0; p < m; p++){
+			int i = order[p];
+			if (lpBound(order, m, prefixWeights, prefixCosts, weights, costs, p, capacity) < lowerBound){
+				state[i] = IN;
+				coreCapacity -= weights[i];
+				fixedIn.increment();
+			} else if (costs[i] + lpBound(order, m, prefixWeights, prefixCosts, weights, costs, p, capacity - weights[i]) < lowerBound){
+				state[i] = OUT;
+				fixedOut.increment();
+			}
+		}
+		return coreCapacity;
+	}
+
+	/*
+	 * LP bound of the core without the item at position excluded of the order, rounded down
+	 * the items are taken whole by the order while they fit, then a fraction of the next one
+	 */
+	private static long lpBound(int[] order, int m, long[] prefixWeights, long[] prefixCosts,
+								int[] weights, int[] costs, int excluded, long capacity){
+		long excludedWeight = weights[order[excluded]];
+		long excludedCost   = costs[order[excluded]];
+		// the largest k for which the first k positions without excluded fit
+		int low = 0, high = m;
+		while (low < high){
+			int k = (low + high + 1) >>> 1;
+			long weight = prefixWeights[k] - (excluded < k ? excludedWeight : 0);
+			if (weight <= capacity){
+				low = k;
+			} else {
+				high = k - 1;
+			}
+		}
+		int k = low;
+		long weight = prefixWeights[k] - (excluded < k ? excludedWeight : 0);
+		long bound  = prefixCosts[k] - (excluded < k ? excludedCost : 0);
+		// k is never excluded itself - the positions up to excluded + 1 weigh the same as up to excluded
+		if (k < m){
+			int next = order[k];
+			bound += (capacity - weight) * costs[next] / weights[next];
+		}
+		return bound;
+	}
+
+	// stable merge sort of the indexes by cost/weight, highest first (compared by cross multiplication)
+	static void sortByRatio(int[] order, int length, int[] buffer, int[] weights, int[] costs){
+		for (int width = 1; width < length; width *= 2){
+			for (int from = 0; from < length - width; from += 2 * width){
+				int middle = from + width;
+				int to = Math.min(from + 2 * width, length);
+				int a = from, b = middle, k = from;
+				while (a < middle && b < to){
+					int i = order[a], j = order[b];
+					if ((long) costs[j] * weights[i] > (long) costs[i] * weights[j]){
+						buffer[k++] = order[b++];
+					} else {
+						buffer[k++] = order[a++];
+					}
+				}
+				while (a < middle){
+					buffer[k++] = order[a++];
+				}
+				while (b < to){
+					buffer[k++] = order[b++];
+				}
+				System.arraycopy(buffer, from, order, from, to - from);
+			}
+		}
+	}
+
+	public long getLines(){
+		return lines.sum();
+	}
+
+	public long getTrivialFits(){
+		return trivialFits.sum();
+	}
+
+	public long getDominated(){
+		return dominated.sum();
+	}
+
+	public long getFixedIn(){
+		return fixedIn.sum();
+	}
+
+	public long getFixedOut(){
+		return fixedOut.sum();
+	}
+
+	public long getCoreItems(){
+		return coreItems.sum();
+	}
+
+	// e.g. reduction lines=100 items=1500 trivial=10 dominated=300 fixedIn=200 fixedOut=400 core=450
+	public String report(){
+		return "reduction lines=" + getLines() + " items=" + items.sum() + " trivial=" + getTrivialFits()
+				+ " dominated=" + getDominated() + " fixedIn=" + getFixedIn() + " fixedOut=" + getFixedOut()
+				+ " core=" + getCoreItems();
+	}
+}
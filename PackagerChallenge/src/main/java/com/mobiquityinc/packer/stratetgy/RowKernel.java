@@ -0,0 +1,39 @@
+package com.mobiquityinc.packer.stratetgy;
+
+/*
+ * Update of the rolling row of KnapSackPackagingStrategy by one item
+ *
+ * for every j from capacity down to weight: row[j] = max(row[j], row[j - weight] + cost)
+ * and the bit j of the decisions of the item (decisions[base + (j >>> 6)]) is set when the item is strictly better.
+ * The row holds the values of the previous items when called and of this item when done.
+ *
+ * SCALAR is the plain loop, VectorRowKernel the same update with the Java Vector API
+ * (see VectorKnapSackPackagingStrategy)
+ */
+
+interface RowKernel {
+
+	void update(int[] row, long[] decisions, int base, int weight, int cost, int capacity);
+
+	// e.g. scalar, IntVector 512 bits x 16
+	String getName();
+
+	RowKernel SCALAR = new RowKernel() {
+
+		@Override
+		public void update(int[] row, long[] decisions, int base, int weight, int cost, int capacity) {
+			for (int j = capacity; j >= weight; j--){
+				int candidate = row[j - weight] + cost;
+				if (candidate > row[j]){
+					row[j] = candidate;
+					decisions[base + (j >>> 6)] |= 1L << j;
+				}
+			}
+		}
+
+		@Override
+		public String getName() {
+			return "scalar";
+		}
+	};
+}
@@ -0,0 +1,232 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.mobiquityinc.entities.ItemBatch;
+
+/*
+ * Per thread scratch buffers of the packaging hot path
+ *
+ * Every thread gets its own arena. Its buffers only grow - they are sized to the largest line
+ * the thread has solved so far - so in steady state solving a line allocates nothing.
+ *
+ * usage:
+ *   ScratchArena arena = ScratchArena.acquire();
+ *   try {
+ *       int[] row = arena.ints(Use.ROW, capacity + 1);
+ *       ...
+ *   } finally {
+ *       arena.release();
+ *   }
+ * acquire/release may be nested (e.g. a decorator and the strategy it wraps),
+ * as long as each Use is taken by one level only.
+ *
+ * Buffers of an arena which has not been acquired for getIdleTimeoutMillis() are dropped by a daemon
+ * sweeper thread, so a burst of big lines does not keep its memory forever. The arena itself stays,
+ * it simply grows again on the next use. Arenas of threads which are gone are garbage collected.
+ */
+
+public final class ScratchArena {
+
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30_000;
+	private static final long SWEEP_PERIOD_MILLIS = 1_000;
+
+	// purpose of a buffer - each purpose has its own buffer
+	public enum Use {
+		ROW,
+		DECISIONS,
+		SELECTED_INDEXES,
+		LINES,
+		SELECTED,
+		SCALED,
+		// ReducingPackagingStrategy and FptasPackagingStrategy
+		STATE,
+		RANKS,
+		FENWICK,
+		ORDER,
+		ORDER_MERGE,
+		PREFIX_WEIGHTS,
+		PREFIX_COSTS,
+		CORE,
+		CORE_SELECTED,
+		INDEXES
+	}
+
+	private static volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+	private static final ConcurrentLinkedQueue<WeakReference<ScratchArena>> arenas = new ConcurrentLinkedQueue<>();
+	private static final ThreadLocal<ScratchArena> currentArena = ThreadLocal.withInitial(ScratchArena::register);
+	private static ScheduledExecutorService sweeper;
+
+	private final Map<Use, int[]>  intBuffers  = new EnumMap<>(Use.class);
+	private final Map<Use, long[]> longBuffers = new EnumMap<>(Use.class);
+	private final Map<Use, List<ItemBatch>> batchBuffers = new EnumMap<>(Use.class);
+
+	// guarded by this - the owner thread and the sweeper
+	private int depth;
+	private long lastUsedNanos = System.nanoTime();
+	private long releases;
+
+	private ScratchArena(){
+	}
+
+	private static ScratchArena register(){
+		ScratchArena arena = new ScratchArena();
+		arenas.add(new WeakReference<>(arena));
+		startSweeper();
+		return arena;
+	}
+
+	private static synchronized void startSweeper(){
+		if (sweeper == null){
+			sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "packer-scratch-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			sweeper.scheduleWithFixedDelay(() -> releaseIdle(TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis)),
+										   SWEEP_PERIOD_MILLIS, SWEEP_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// the arena of the current thread, marked as in use until release()
+	public static ScratchArena acquire(){
+		ScratchArena arena = currentArena.get();
+		synchronized (arena){
+			arena.depth++;
+		}
+		return arena;
+	}
+
+	public void release(){
+		synchronized (this){
+			depth--;
+			lastUsedNanos = System.nanoTime();
+		}
+	}
+
+	/*
+	 * Buffers - the content is left over from the previous use unless said otherwise
+	 */
+
+	public int[] ints(Use use, int size){
+		int[] buffer = intBuffers.get(use);
+		if (buffer == null || buffer.length < size){
+			buffer = new int[grow(buffer == null ? 0 : buffer.length, size)];
+			intBuffers.put(use, buffer);
+		}
+		return buffer;
+	}
+
+	public long[] longs(Use use, int size){
+		long[] buffer = longBuffers.get(use);
+		if (buffer == null || buffer.length < size){
+			buffer = new long[grow(buffer == null ? 0 : buffer.length, size)];
+			longBuffers.put(use, buffer);
+		}
+		return buffer;
+	}
+
+	// count batches, each one cleared
+	public List<ItemBatch> batches(Use use, int count){
+		List<ItemBatch> buffer = batchBuffers.get(use);
+		if (buffer == null){
+			buffer = new ArrayList<>(count);
+			batchBuffers.put(use, buffer);
+		}
+		while (buffer.size() < count){
+			buffer.add(new ItemBatch());
+		}
+		List<ItemBatch> batches = buffer.size() == count ? buffer : buffer.subList(0, count);
+		for (int i = 0; i < count; i++){
+			batches.get(i).clear();
+		}
+		return batches;
+	}
+
+	// a single cleared batch
+	public ItemBatch batch(Use use){
+		return batches(use, 1).get(0);
+	}
+
+	// grow by half at least - a slowly growing line size does not reallocate on every line
+	private static int grow(int length, int size){
+		return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(size, length + (long) (length >> 1)));
+	}
+
+	/*
+	 * Idle release
+	 */
+
+	public static long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public static void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		if (idleTimeoutMillis < 0){
+			throw new IllegalArgumentException("Idle timeout must not be negative: " + idleTimeoutMillis);
+		}
+		ScratchArena.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/*
+	 * drop the buffers of all the arenas which are not in use and were not used for idleNanos
+	 * return the number of arenas released (called by the sweeper, public for tests and tools)
+	 */
+	public static int releaseIdle(long idleNanos){
+		int released = 0;
+		long now = System.nanoTime();
+		Iterator<WeakReference<ScratchArena>> iterator = arenas.iterator();
+		while (iterator.hasNext()){
+			ScratchArena arena = iterator.next().get();
+			if (arena == null){
+				iterator.remove();
+			} else if (arena.releaseIfIdle(now, idleNanos)){
+				released++;
+			}
+		}
+		return released;
+	}
+
+	private synchronized boolean releaseIfIdle(long now, long idleNanos){
+		if (depth > 0 || now - lastUsedNanos < idleNanos || retainedBytes() == 0){
+			return false;
+		}
+		intBuffers.clear();
+		longBuffers.clear();
+		batchBuffers.clear();
+		releases++;
+		return true;
+	}
+
+	// number of times the buffers of this arena were dropped
+	public synchronized long getReleases(){
+		return releases;
+	}
+
+	// approximate size of the buffers held by this arena - from the owner thread only
+	public synchronized long retainedBytes(){
+		long bytes = 0;
+		for (int[] buffer : intBuffers.values()){
+			bytes += 4L * buffer.length;
+		}
+		for (long[] buffer : longBuffers.values()){
+			bytes += 8L * buffer.length;
+		}
+		for (List<ItemBatch> batches : batchBuffers.values()){
+			for (ItemBatch batch : batches){
+				bytes += 12L * batch.getIds().length;
+			}
+		}
+		return bytes;
+	}
+}
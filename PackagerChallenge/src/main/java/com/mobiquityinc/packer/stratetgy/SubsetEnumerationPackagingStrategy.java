@@ -0,0 +1,186 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Exact packaging by enumerating subsets of items
+ * The cost does not depend on the capacity or on the weight precision at all
+ * which makes it the fastest choice for the short lines of the challenge (up to 15 items)
+ *
+ * n <= GRAY_CODE_MAX_ITEMS : all 2^n subsets are visited in Gray code order,
+ *                            each subset differs from the previous one by a single item
+ *                            so its weight and cost are updated in O(1)
+ *                            Time: O(2^n)  Space: O(1)
+ * n <= MITM_MAX_ITEMS      : meet in the middle - the subsets of the lower half of the items are sorted
+ *                            by weight, then each subset of the upper half is completed by
+ *                            the best fitting lower subset (binary search)
+ *                            Time: O(2^(n/2) * n)  Space: O(2^(n/2))
+ * otherwise                : the instance is too big for enumeration, the rolling row knapsack is used
+ *
+ * Ties are broken as in KnapSackPackagingStrategy (see AbstractPackagingStrategy):
+ * the optimal subset with the smallest mask is selected
+ */
+
+public class SubsetEnumerationPackagingStrategy extends AbstractPackagingStrategy {
+
+	public static final int GRAY_CODE_MAX_ITEMS = 20;
+	public static final int MITM_MAX_ITEMS      = 40;
+
+	private final IPackagingAlgorithm fallback = new KnapSackPackagingStrategy(KnapSackPackagingStrategy.MemoryMode.ROLLING_ROW);
+
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		if (items.length <= GRAY_CODE_MAX_ITEMS){
+			return itemsOfMask(items, enumerateGrayCode(items, capacity));
+		} else if (items.length <= MITM_MAX_ITEMS){
+			return itemsOfMask(items, meetInTheMiddle(items, capacity));
+		}
+		return fallback.selectItems(Arrays.asList(items), capacity);
+	}
+
+	/*
+	 * Visit all the subsets in Gray code order: the k-th subset is k ^ (k >> 1)
+	 * and it differs from the previous subset by the bit numberOfTrailingZeros(k)
+	 */
+	private long enumerateGrayCode(ItemEntity[] items, int capacity){
+		int numOfItems = items.length;
+		int[] weights = new int[numOfItems];
+		int[] costs   = new int[numOfItems];
+		for (int i = 0; i < numOfItems; i++){
+			weights[i] = items[i].getWeight();
+			costs[i]   = items[i].getCost();
+		}
+
+		// the empty subset always fits
+		long bestValue = 0;
+		int  bestMask  = 0;
+
+		long weight = 0;
+		long value  = 0;
+		int  mask   = 0;
+		int  subsets = 1 << numOfItems;
+		for (int k = 1; k < subsets; k++){
+			int bit = Integer.numberOfTrailingZeros(k);
+			mask ^= 1 << bit;
+			if ((mask & (1 << bit)) != 0){
+				weight += weights[bit];
+				value  += costs[bit];
+			} else {
+				weight -= weights[bit];
+				value  -= costs[bit];
+			}
+			if (weight <= capacity && (value > bestValue || (value == bestValue && mask < bestMask))){
+				bestValue = value;
+				bestMask  = mask;
+			}
+		}
+		return bestMask;
+	}
+
+	/*
+	 * Meet in the middle
+	 * lower half: items [0, half)       upper half: items [half, n)
+	 * mask = (upper mask << half) | lower mask
+	 * so the smallest mask is the smallest upper mask, then the smallest lower mask
+	 */
+	private long meetInTheMiddle(ItemEntity[] items, int capacity){
+		int numOfItems = items.length;
+		int half       = numOfItems / 2;
+		int lowerCount = 1 << half;
+
+		// all lower subsets sorted by weight - the mask is kept in the low bits of the sort key
+		long[] keys = new long[lowerCount];
+		long weight = 0;
+		long value  = 0;
+		int  mask   = 0;
+		keys[0] = 0;
+		for (int k = 1; k < lowerCount; k++){
+			int bit = Integer.numberOfTrailingZeros(k);
+			mask ^= 1 << bit;
+			if ((mask & (1 << bit)) != 0){
+				weight += items[bit].getWeight();
+			} else {
+				weight -= items[bit].getWeight();
+			}
+			keys[k] = (weight << half) | mask;
+		}
+		Arrays.sort(keys);
+
+		// prefix best: the best lower subset among the first k subsets (i.e. up to a weight)
+		long[] sortedWeights = new long[lowerCount];
+		int[]  prefixMasks   = new int[lowerCount];
+		long[] prefixValues  = new long[lowerCount];
+		int lowerMaskBits = lowerCount - 1;
+		for (int k = 0; k < lowerCount; k++){
+			int lowerMask = (int) (keys[k] & lowerMaskBits);
+			long lowerValue  = valueOf(items, 0, lowerMask);
+			sortedWeights[k] = keys[k] >>> half;
+			if (k == 0 || lowerValue > prefixValues[k - 1] ||
+				(lowerValue == prefixValues[k - 1] && lowerMask < prefixMasks[k - 1])){
+				prefixValues[k] = lowerValue;
+				prefixMasks[k]  = lowerMask;
+			} else {
+				prefixValues[k] = prefixValues[k - 1];
+				prefixMasks[k]  = prefixMasks[k - 1];
+			}
+		}
+
+		long bestValue = -1;
+		long bestMask  = 0;
+		int upperCount = 1 << (numOfItems - half);
+		weight = 0;
+		value  = 0;
+		mask   = 0;
+		for (int k = 0; k < upperCount; k++){
+			if (k > 0){
+				int bit = Integer.numberOfTrailingZeros(k);
+				mask ^= 1 << bit;
+				ItemEntity item = items[half + bit];
+				if ((mask & (1 << bit)) != 0){
+					weight += item.getWeight();
+					value  += item.getCost();
+				} else {
+					weight -= item.getWeight();
+					value  -= item.getCost();
+				}
+			}
+			if (weight > capacity){
+				continue;
+			}
+			int last = lastFitting(sortedWeights, capacity - weight);
+			long total = value + prefixValues[last];
+			long totalMask = ((long) mask << half) | prefixMasks[last];
+			if (total > bestValue || (total == bestValue && totalMask < bestMask)){
+				bestValue = total;
+				bestMask  = totalMask;
+			}
+		}
+		return bestMask;
+	}
+
+	private static long valueOf(ItemEntity[] items, int first, int mask){
+		long value = 0;
+		for (int bits = mask; bits != 0; bits &= bits - 1){
+			value += items[first + Integer.numberOfTrailingZeros(bits)].getCost();
+		}
+		return value;
+	}
+
+	// index of the last subset with weight <= remaining (the empty subset, index 0, always fits)
+	private static int lastFitting(long[] sortedWeights, long remaining){
+		int low  = 0;
+		int high = sortedWeights.length - 1;
+		while (low < high){
+			int middle = (low + high + 1) >>> 1;
+			if (sortedWeights[middle] <= remaining){
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,73 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mobiquityinc.entities.ItemEntity;
+
+/*
+ * Knapsack by dynamic programming over the total cost instead of the capacity
+ *
+ * minWeight[i][v] = the minimal weight of a subset of the first i items with a total cost of exactly v
+ * The best value is the highest v with minWeight[n][v] <= capacity.
+ *
+ * Time: O(n * V)  Space: O(n * V)  where V is the sum of the costs
+ * i.e. it does not depend on the capacity, which makes it the better choice
+ * for high weight precisions with small costs.
+ *
+ * Ties are broken as in KnapSackPackagingStrategy (see AbstractPackagingStrategy):
+ * going down from the last item, an item is skipped whenever the remaining value
+ * can be reached by the items before it within the remaining capacity.
+ */
+
+public class ValueIndexedPackagingStrategy extends AbstractPackagingStrategy {
+
+	private static final int NOT_REACHABLE = Integer.MAX_VALUE;
+
+	@Override
+	protected List<ItemEntity> findOptimalChoise(ItemEntity[] items, int capacity) {
+		int numOfItems = items.length;
+		int totalCost = 0;
+		for (ItemEntity item : items){
+			totalCost += item.getCost();
+		}
+
+		int[][] minWeight = new int[numOfItems + 1][totalCost + 1];
+		for (int v = 1; v <= totalCost; v++){
+			minWeight[0][v] = NOT_REACHABLE;
+		}
+
+		// subsets heavier than the capacity are of no interest and are kept as not reachable
+		int reachedCost = 0;
+		for (int i = 1; i <= numOfItems; i++){
+			int weight = items[i - 1].getWeight();
+			int cost   = items[i - 1].getCost();
+			int[] previous = minWeight[i - 1];
+			int[] current  = minWeight[i];
+			System.arraycopy(previous, 0, current, 0, totalCost + 1);
+			reachedCost += cost;
+			for (int v = cost; v <= reachedCost; v++){
+				int without = previous[v - cost];
+				if (without != NOT_REACHABLE && without + weight <= capacity && without + weight < current[v]){
+					current[v] = without + weight;
+				}
+			}
+		}
+
+		int maxValue = totalCost;
+		while (minWeight[numOfItems][maxValue] > capacity){
+			maxValue--;
+		}
+
+		List<ItemEntity> choosenItems = new ArrayList<>();
+		for (int i = numOfItems; i > 0 && maxValue > 0; i--){
+			if (minWeight[i - 1][maxValue] > capacity){
+				// the value can't be reached without this item - add item to package
+				choosenItems.add(items[i - 1]);
+				maxValue -= items[i - 1].getCost();
+				capacity -= items[i - 1].getWeight();
+			}
+		}
+		return choosenItems;
+	}
+}
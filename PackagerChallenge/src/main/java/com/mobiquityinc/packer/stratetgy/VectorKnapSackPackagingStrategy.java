@@ -0,0 +1,42 @@
+package com.mobiquityinc.packer.stratetgy;
+
+/*
+ * KnapSackPackagingStrategy (ROLLING_ROW) with the row update vectorized by the Java Vector API
+ *
+ * The update of the row by one item - row[j] = max(row[j], row[j - weight] + cost) for all j - is the same
+ * max-plus operation on contiguous ints for every capacity, so it runs on IntVector lanes (8 ints with AVX2,
+ * 16 with AVX-512) and compares/blends instead of a branch per cell. Same decisions bits, same selection,
+ * ties included - only the row update is different (VectorRowKernel).
+ *
+ * The Vector API is an incubator module: the JVM must be started with --add-modules jdk.incubator.vector.
+ * Without it (or on a JVM without the module) the scalar loop is used and isVectorized() is false,
+ * so the strategy always works and returns the same results.
+ */
+
+public class VectorKnapSackPackagingStrategy extends KnapSackPackagingStrategy {
+
+	private static final String VECTOR_KERNEL_CLASS = "com.mobiquityinc.packer.stratetgy.VectorRowKernel";
+
+	public VectorKnapSackPackagingStrategy(){
+		super(MemoryMode.ROLLING_ROW, loadVectorKernel());
+	}
+
+	public boolean isVectorized(){
+		return getRowKernel() != RowKernel.SCALAR;
+	}
+
+	// e.g. vector dp kernel=IntVector 512 bits x 16
+	public String report(){
+		return "vector dp kernel=" + getRowKernel().getName()
+				+ (isVectorized() ? "" : " (jdk.incubator.vector is not available - run with --add-modules jdk.incubator.vector)");
+	}
+
+	// the vector kernel when the incubator module is in the JVM, SCALAR otherwise
+	private static RowKernel loadVectorKernel(){
+		try {
+			return (RowKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			return RowKernel.SCALAR;
+		}
+	}
+}
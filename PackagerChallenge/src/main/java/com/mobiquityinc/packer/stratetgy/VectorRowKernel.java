@@ -0,0 +1,65 @@
+package com.mobiquityinc.packer.stratetgy;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * RowKernel with the Java Vector API (incubator module jdk.incubator.vector)
+ *
+ * The row is updated from the highest capacity down, one vector of LANES capacities [low, low + LANES) at a time:
+ * both row[low..] and row[low - weight..] are loaded before the vector is stored, and everything stored so far is
+ * above low + LANES, so every load still reads the values of the previous item - same as the scalar loop.
+ * The compare mask of a vector gives the decisions bits of its capacities (LANE_BITS blended and OR-ed together),
+ * set with one shift (two words when the vector crosses a 64 bits boundary). The capacities below the last full vector
+ * are done by the scalar loop.
+ *
+ * Only loaded by reflection (VectorKnapSackPackagingStrategy) - the JVM needs --add-modules jdk.incubator.vector
+ */
+
+class VectorRowKernel implements RowKernel {
+
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	// lane k holds 1 << k - blended by the compare mask and OR-ed together to the decisions bits of a vector
+	// (VectorMask.toLong() is not an intrinsic on every JDK and allocates where it isn't)
+	private static final IntVector ZERO      = IntVector.zero(SPECIES);
+	private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1).lanewise(VectorOperators.LSHL, ZERO.addIndex(1));
+
+	VectorRowKernel(){
+		// the decisions bits of a vector must fit one int
+		if (LANES > 32){
+			throw new IllegalStateException("Unsupported vector length: " + LANES);
+		}
+	}
+
+	@Override
+	public void update(int[] row, long[] decisions, int base, int weight, int cost, int capacity) {
+		IntVector costs = IntVector.broadcast(SPECIES, cost);
+		int top = capacity + 1;
+		while (top - LANES >= weight){
+			int low = top - LANES;
+			IntVector current   = IntVector.fromArray(SPECIES, row, low);
+			IntVector candidate = IntVector.fromArray(SPECIES, row, low - weight).add(costs);
+			VectorMask<Integer> better = candidate.compare(VectorOperators.GT, current);
+			if (better.anyTrue()){
+				current.blend(candidate, better).intoArray(row, low);
+				long bits  = ZERO.blend(LANE_BITS, better).reduceLanes(VectorOperators.OR) & 0xFFFFFFFFL;
+				int word   = base + (low >>> 6);
+				int shift  = low & 63;
+				decisions[word] |= bits << shift;
+				if (shift + LANES > 64){
+					decisions[word + 1] |= bits >>> (64 - shift);
+				}
+			}
+			top = low;
+		}
+		RowKernel.SCALAR.update(row, decisions, base, weight, cost, top - 1);
+	}
+
+	@Override
+	public String getName() {
+		return "IntVector " + SPECIES.vectorBitSize() + " bits x " + LANES;
+	}
+}
@@ -0,0 +1,107 @@
+package com.mobiquityinc.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.Packer;
+import com.mobiquityinc.packer.parsers.DefaultPackerParser;
+
+public class TestWorkloadGenerator {
+
+	@Test
+	public void testSameSeedSameBytes(){
+		WorkloadConfiguration configuration = new WorkloadConfiguration();
+		configuration.setLines(500);
+		configuration.setDuplicateFraction(0.2);
+		configuration.setInvalidFraction(0.1);
+		assertArrayEquals(generate(configuration), generate(configuration));
+
+		byte[] first = generate(configuration);
+		configuration.setSeed(2);
+		assertEquals(false, Arrays.equals(first, generate(configuration)));
+	}
+
+	@Test
+	public void testValidLinesAccepted(){
+		WorkloadConfiguration configuration = new WorkloadConfiguration();
+		configuration.setLines(2000);
+		configuration.setPrecision(3);
+		configuration.setDistribution(WorkloadConfiguration.ItemCountDistribution.SKEWED);
+		configuration.setCurrencySign("$");
+		DefaultPackerParser parser = new DefaultPackerParser(1000);
+		for (String line : lines(configuration)){
+			assertNotNull(parser.parse(line));
+			assertEquals(true, line.contains("$"));
+		}
+	}
+
+	@Test
+	public void testInvalidLinesRejected(){
+		WorkloadConfiguration configuration = new WorkloadConfiguration();
+		configuration.setLines(1000);
+		configuration.setInvalidFraction(1);
+		DefaultPackerParser parser = new DefaultPackerParser();
+		for (String line : lines(configuration)){
+			try {
+				parser.parse(line);
+				fail("invalid line accepted: " + line);
+			} catch (APIException e){
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicates(){
+		WorkloadConfiguration configuration = new WorkloadConfiguration();
+		configuration.setLines(1000);
+		configuration.setDuplicateFraction(0.5);
+		WorkloadGenerator generator = new WorkloadGenerator(configuration);
+		generator.generate(new ByteArrayOutputStream());
+
+		Set<String> distinctLines = new HashSet<>();
+		for (String line : lines(configuration)){
+			distinctLines.add(line);
+		}
+		System.out.println(generator.report());
+		assertEquals(1000, generator.getLinesWritten());
+		assertEquals(1000 - generator.getDuplicateLines(), distinctLines.size());
+	}
+
+	@Test
+	public void testPackGeneratedFile() throws Exception{
+		WorkloadConfiguration configuration = new WorkloadConfiguration();
+		configuration.setLines(300);
+		Path file = Files.createTempFile("workload", ".txt");
+		try {
+			new WorkloadGenerator(configuration).generate(file);
+			String[] results = Packer.pack(file.toString()).split("\n");
+			assertEquals(300, results.length);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private byte[] generate(WorkloadConfiguration configuration){
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new WorkloadGenerator(configuration).generate(out);
+		return out.toByteArray();
+	}
+
+	private String[] lines(WorkloadConfiguration configuration){
+		return new String(generate(configuration), StandardCharsets.UTF_8).split("\n");
+	}
+}
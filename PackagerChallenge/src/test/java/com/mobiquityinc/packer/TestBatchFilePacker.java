@@ -0,0 +1,143 @@
+package com.mobiquityinc.packer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mobiquityinc.exception.APIException;
+
+public class TestBatchFilePacker {
+
+	private static final String[] VALID_FILES = { "exampleFile.txt", "fullCapacityLowerToHigerWeight.txt", "cumulativeValue.txt" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path inputDirectory;
+
+	@Before
+	public void copyInputs() throws IOException {
+		inputDirectory = folder.newFolder("in").toPath();
+		for (String name : VALID_FILES){
+			Files.copy(Paths.get("./src/test/resources", name), inputDirectory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/* testResolve:
+	 * A directory and a glob pattern give the same sorted files, duplicates are dropped
+	 */
+	@Test
+	public void testResolve(){
+		List<Path> fromDirectory = BatchFilePacker.resolve(Collections.singletonList(inputDirectory.toString()));
+		List<Path> fromGlob = BatchFilePacker.resolve(Arrays.asList(inputDirectory + "/*.txt", inputDirectory + "/e*.txt"));
+		assertEquals(VALID_FILES.length, fromDirectory.size());
+		assertEquals(fromDirectory, fromGlob);
+		assertEquals("cumulativeValue.txt", fromDirectory.get(0).getFileName().toString());
+		System.out.println("Test passed. Batch resolve: " + fromGlob);
+	}
+
+	/* testResolveMissing:
+	 * A file which does not exist or a pattern without files fail the whole run
+	 */
+	@Test(expected = APIException.class)
+	public void testResolveMissing(){
+		BatchFilePacker.resolve(Collections.singletonList(inputDirectory + "/*.csv"));
+	}
+
+	/* testPackToDirectory:
+	 * One .out file per input with the Packer results, an invalid file fails alone
+	 */
+	@Test
+	public void testPackToDirectory() throws IOException {
+		Files.copy(Paths.get("./src/test/resources/moreThan15Items.txt"), inputDirectory.resolve("moreThan15Items.txt"));
+		Path outputDirectory = folder.getRoot().toPath().resolve("out");
+		BatchFilePacker batchPacker = new BatchFilePacker(new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 4));
+		BatchFilePacker.Summary summary = batchPacker.packToDirectory(
+				BatchFilePacker.resolve(Collections.singletonList(inputDirectory.toString())), outputDirectory);
+
+		assertEquals(VALID_FILES.length + 1, summary.getFiles().size());
+		assertEquals(1, summary.getFailedFiles().size());
+		assertEquals("moreThan15Items.txt", summary.getFailedFiles().get(0).getInput().getFileName().toString());
+		assertFalse(Files.exists(outputDirectory.resolve("moreThan15Items.txt" + BatchFilePacker.OUTPUT_SUFFIX)));
+		long lines = 0;
+		for (String name : VALID_FILES){
+			String expected = Packer.pack(inputDirectory.resolve(name).toString());
+			String actual = new String(Files.readAllBytes(outputDirectory.resolve(name + BatchFilePacker.OUTPUT_SUFFIX)), StandardCharsets.UTF_8);
+			assertEquals(expected + "\n", actual);
+			lines += expected.split("\n").length;
+		}
+		assertEquals(lines, summary.getLines());
+		System.out.println("Test passed. Batch to directory: " + summary.report());
+	}
+
+	/* testPackTagged:
+	 * One stream, each file after its "# <path>" line - in input order with one thread
+	 */
+	@Test
+	public void testPackTagged(){
+		List<Path> inputs = BatchFilePacker.resolve(Collections.singletonList(inputDirectory + "/*.txt"));
+		StringWriter out = new StringWriter();
+		BatchFilePacker.Summary summary = new BatchFilePacker(new PackerConfiguration()).packTagged(inputs, out);
+
+		StringBuilder expected = new StringBuilder();
+		for (Path input : inputs){
+			expected.append(BatchFilePacker.TAG_PREFIX).append(input).append('\n')
+					.append(Packer.pack(input.toString())).append('\n');
+		}
+		assertEquals(expected.toString(), out.toString());
+		assertTrue(summary.getFailedFiles().isEmpty());
+		assertTrue(summary.report().startsWith("files=" + VALID_FILES.length + " failed=0 lines="));
+		System.out.println("Test passed. Batch tagged: " + summary.report());
+	}
+
+	/* testSkipInvalidLines:
+	 * With --skip-invalid the file with an invalid line is packed too, its error record names the file
+	 */
+	@Test
+	public void testSkipInvalidLines() throws IOException {
+		Path invalidFile = inputDirectory.resolve("withInvalidLine.txt");
+		Files.write(invalidFile, Arrays.asList("81 : (1,53.38,$45)", "8 : (1,15.3,$0)", "75 : (1,85.31,$29)"), StandardCharsets.UTF_8);
+		PackerCommandLine commandLine = PackerCommandLine.parse(new String[] { inputDirectory.toString(), "--skip-invalid", "--parallel", "2" });
+		BatchFilePacker batchPacker = new BatchFilePacker(commandLine.getConfiguration());
+		StringWriter errors = new StringWriter();
+		batchPacker.setErrorWriter(errors);
+		BatchFilePacker.Summary summary = batchPacker.packToDirectory(BatchFilePacker.resolve(commandLine.getInputPaths()),
+				folder.getRoot().toPath().resolve("out"));
+
+		assertTrue(summary.getFailedFiles().isEmpty());
+		String results = new String(Files.readAllBytes(folder.getRoot().toPath().resolve("out/withInvalidLine.txt.out")), StandardCharsets.UTF_8);
+		assertEquals("1\n" + Packer.INVALID_LINE_RESULT + "\n-\n", results);
+		assertTrue(errors.toString(), errors.toString().startsWith(invalidFile + ":2: "));
+		assertTrue(batchPacker.packerReport().contains("invalid lines=1 of " + summary.getLines()));
+		System.out.println("Test passed. Batch skip invalid lines: " + errors.toString().trim());
+	}
+
+	/* testCommandLine:
+	 * Several paths or a directory switch the Packer to the batch mode
+	 */
+	@Test
+	public void testCommandLine(){
+		assertFalse(PackerCommandLine.parse(new String[] { inputDirectory.resolve(VALID_FILES[0]).toString() }).isBatch());
+		assertTrue(PackerCommandLine.parse(new String[] { inputDirectory.toString() }).isBatch());
+		PackerCommandLine commandLine = PackerCommandLine.parse(new String[] { "a.txt", "b.txt", "--output-dir", "out", "--parallel", "2" });
+		assertTrue(commandLine.isBatch());
+		assertEquals(Arrays.asList("a.txt", "b.txt"), commandLine.getInputPaths());
+		System.out.println("Test passed. Batch command line.");
+	}
+}
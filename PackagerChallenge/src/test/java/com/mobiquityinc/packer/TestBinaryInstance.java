@@ -0,0 +1,173 @@
+package com.mobiquityinc.packer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.generator.WorkloadConfiguration;
+import com.mobiquityinc.generator.WorkloadGenerator;
+import com.mobiquityinc.packer.parsers.BinaryInstanceReader;
+import com.mobiquityinc.packer.parsers.DefaultPackerParser;
+
+public class TestBinaryInstance {
+
+	private static final String EXAMPLE_FILE = "./src/test/resources/exampleFile.txt";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* testReplay:
+	 * The binary input gets the results of its text input, sequential and parallel
+	 */
+	@Test
+	public void testReplay() throws IOException {
+		Path binary = convert(Paths.get(EXAMPLE_FILE), new PackerConfiguration());
+		assertTrue(BinaryInstanceReader.isBinary(binary));
+		assertFalse(BinaryInstanceReader.isBinary(Paths.get(EXAMPLE_FILE)));
+		String expected = Packer.pack(EXAMPLE_FILE);
+		assertEquals(expected, Packer.pack(binary.toString()));
+		assertEquals(expected, Packer.pack(binary.toString(), 3));
+		System.out.println("Test passed. Binary replay of the example file.");
+	}
+
+	/* testReplayInvalidLines:
+	 * Lines the parser rejected are replayed with the same errors, the first one stops the run by default
+	 */
+	@Test
+	public void testReplayInvalidLines() throws IOException {
+		WorkloadConfiguration workload = new WorkloadConfiguration();
+		workload.setLines(5000);
+		workload.setInvalidFraction(0.02);
+		Path text = folder.getRoot().toPath().resolve("workload.txt");
+		new WorkloadGenerator(workload).generate(text);
+		PackerConfiguration configuration = new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 2);
+		configuration.setSkipInvalidLines(true);
+		Path binary = convert(text, configuration);
+
+		StringWriter textErrors   = new StringWriter();
+		StringWriter binaryErrors = new StringWriter();
+		assertEquals(pack(text, configuration, textErrors), pack(binary, configuration, binaryErrors));
+		// the records differ by the file name only
+		assertEquals(textErrors.toString().replace(text.toString(), "input"),
+					 binaryErrors.toString().replace(binary.toString(), "input"));
+		assertTrue(binaryErrors.toString().length() > 0);
+
+		try {
+			Packer.pack(binary.toString());
+			fail("APIException was expected");
+		} catch (APIException e) {
+			try {
+				Packer.pack(text.toString());
+				fail("APIException was expected");
+			} catch (APIException textException) {
+				assertEquals(textException.getMessage(), e.getMessage());
+			}
+		}
+		System.out.println("Test passed. Binary replay of " + binaryErrors.toString().split("\n").length + " invalid lines.");
+	}
+
+	/* testReader:
+	 * Each line is the batch of the parser, read by line number
+	 */
+	@Test
+	public void testReader() throws IOException {
+		Path binary = convert(Paths.get(EXAMPLE_FILE), new PackerConfiguration());
+		DefaultPackerParser parser = new DefaultPackerParser();
+		try (BinaryInstanceReader reader = BinaryInstanceReader.open(binary)){
+			assertEquals(100, reader.getWeightFactor());
+			String[] lines = new String(Files.readAllBytes(Paths.get(EXAMPLE_FILE)), "UTF-8").split("\r?\n");
+			assertEquals(lines.length, reader.size());
+			ItemBatch expected = new ItemBatch();
+			ItemBatch batch    = new ItemBatch();
+			for (int line = (int) reader.size() - 1; line >= 0; line--){
+				parser.parse(lines[line], expected);
+				reader.read(line, batch);
+				assertEquals(expected.toString(), batch.toString());
+			}
+			try {
+				reader.read(reader.size(), batch);
+				fail("APIException was expected");
+			} catch (APIException e) {
+				// out of range
+			}
+		}
+		System.out.println("Test passed. Binary reader.");
+	}
+
+	/* testWeightFactor:
+	 * A binary input is replayed with the weight precision it was converted with only
+	 */
+	@Test(expected = APIException.class)
+	public void testWeightFactor() throws IOException {
+		Path binary = convert(Paths.get(EXAMPLE_FILE), new PackerConfiguration(3, 1));
+		Packer.pack(binary.toString());
+	}
+
+	/* testTruncated:
+	 * A binary input which does not match its header is rejected
+	 */
+	@Test(expected = APIException.class)
+	public void testTruncated() throws IOException {
+		Path binary = convert(Paths.get(EXAMPLE_FILE), new PackerConfiguration());
+		byte[] bytes = Files.readAllBytes(binary);
+		Files.write(binary, Arrays.copyOf(bytes, bytes.length - 8));
+		Packer.pack(binary.toString());
+	}
+
+	/* testCorruptInput:
+	 * A gzip input which ends in the middle is not converted - no partial binary input is left behind
+	 */
+	@Test
+	public void testCorruptInput() throws IOException {
+		WorkloadConfiguration workload = new WorkloadConfiguration();
+		workload.setLines(5000);
+		Path text = folder.getRoot().toPath().resolve("workload.txt");
+		new WorkloadGenerator(workload).generate(text);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(bytes)){
+			out.write(Files.readAllBytes(text));
+		}
+		Path gzip = folder.getRoot().toPath().resolve("workload.txt.gz");
+		Files.write(gzip, Arrays.copyOf(bytes.toByteArray(), bytes.size() / 2));
+		try {
+			convert(gzip, new PackerConfiguration());
+			fail("APIException was expected");
+		} catch (APIException e) {
+			// the input could not be read
+		}
+		assertFalse(Files.exists(folder.getRoot().toPath().resolve("workload.txt.gz.bin")));
+		System.out.println("Test passed. No binary input of a corrupt gzip input.");
+	}
+
+	private Path convert(Path text, PackerConfiguration configuration){
+		Path binary = folder.getRoot().toPath().resolve(text.getFileName() + ".bin");
+		BinaryInstanceConverter converter = new BinaryInstanceConverter(configuration);
+		converter.convert(text, binary);
+		return binary;
+	}
+
+	private static String pack(Path input, PackerConfiguration configuration, StringWriter errors){
+		Packer packer = new Packer(input.toString(), configuration);
+		packer.setErrorWriter(errors);
+		StringWriter out = new StringWriter();
+		packer.process(input.toString(), out, configuration.getParallelism());
+		return out.toString();
+	}
+}
@@ -0,0 +1,188 @@
+package com.mobiquityinc.packer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mobiquityinc.exception.APIException;
+
+public class TestCheckpoint {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* testLineOffsetReader:
+	 * Same lines as BufferedReader (all the terminators, empty lines, malformed bytes, no last terminator)
+	 * and the offset of each line end
+	 */
+	@Test
+	public void testLineOffsetReader() throws IOException {
+		byte[] bytes = "81 : (1,53.38,$45)\r\n\n8 : (1,15.3,\u20AC34)\r75 : x\r\r\nlast".getBytes(StandardCharsets.UTF_8);
+		bytes[bytes.length - 1] = (byte) 0x80;
+		BufferedReader expected = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+		LineOffsetReader reader = new LineOffsetReader(new ByteArrayInputStream(bytes), 0);
+		List<Long> offsets = new ArrayList<>();
+		String line;
+		while ((line = expected.readLine()) != null){
+			assertEquals(line, reader.readLine());
+			offsets.add(reader.getOffset());
+		}
+		assertNull(reader.readLine());
+		assertEquals(6, offsets.size());
+		assertEquals(20, (long) offsets.get(0));
+		assertEquals(21, (long) offsets.get(1));
+		assertEquals(bytes.length, (long) offsets.get(5));
+		reader.close();
+		System.out.println("Test passed. Line offset reader.");
+	}
+
+	/* testUninterrupted:
+	 * The output is the one of --output and the checkpoint is deleted at the end, sequential and parallel
+	 */
+	@Test
+	public void testUninterrupted() throws IOException {
+		Path input = writeLines(0);
+		String expected = Packer.pack(input.toString()) + System.lineSeparator();
+		for (int parallelism : new int[] {1, 3}){
+			Path output = folder.getRoot().toPath().resolve("out" + parallelism + ".txt");
+			Packer packer = new Packer(input.toString(), new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, parallelism));
+			assertEquals(3000, packer.processWithCheckpoints(output, 300));
+			assertEquals(expected, new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+			assertFalse(Files.exists(Checkpoint.pathOf(output)));
+		}
+		System.out.println("Test passed. Checkpoints of an uninterrupted run.");
+	}
+
+	/* testResume:
+	 * A run stopped at line 2500 leaves the checkpoint of line 2400,
+	 * the next run resumes from it and the output is the one of an uninterrupted run
+	 */
+	@Test
+	public void testResume() throws IOException {
+		Path input = writeLines(2500);
+		PackerConfiguration configuration = new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 2);
+		configuration.setSkipInvalidLines(true);
+		Path expectedOutput = folder.getRoot().toPath().resolve("expected.txt");
+		new Packer(input.toString(), configuration).processWithCheckpoints(expectedOutput, 300);
+
+		// the first run stops at the invalid line
+		Path output = folder.getRoot().toPath().resolve("out.txt");
+		PackerConfiguration stopping = new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 2);
+		stopping.setSkipInvalidLines(true);
+		stopping.setMaxInvalidLines(0);
+		try {
+			new Packer(input.toString(), stopping).processWithCheckpoints(output, 300);
+			fail("APIException was expected");
+		} catch (APIException e) {
+			// stopped
+		}
+		Checkpoint checkpoint = Checkpoint.read(Checkpoint.pathOf(output));
+		assertEquals(2400, checkpoint.getLineNumber());
+		assertEquals(0, checkpoint.getInvalidLines());
+		assertTrue(Files.size(output) >= checkpoint.getOutputOffset());
+
+		Packer resumed = new Packer(input.toString(), configuration);
+		assertEquals(3000, resumed.processWithCheckpoints(output, 300));
+		assertEquals(new String(Files.readAllBytes(expectedOutput), StandardCharsets.UTF_8),
+					 new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+		assertEquals(1, resumed.getInvalidLines());
+		assertFalse(Files.exists(Checkpoint.pathOf(output)));
+		System.out.println("Test passed. Resume from " + checkpoint);
+	}
+
+	/* testResumeErrors:
+	 * A run with an errors file stopped at its third invalid line (2500) leaves the checkpoint of line 2400,
+	 * the next run truncates the errors file to the checkpoint - the output, the errors file and the counts
+	 * are the ones of an uninterrupted run
+	 */
+	@Test
+	public void testResumeErrors() throws IOException {
+		Path input = writeLines(500, 1700, 2500, 2900);
+		PackerConfiguration configuration = new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 2);
+		configuration.setSkipInvalidLines(true);
+		Path expectedOutput = folder.getRoot().toPath().resolve("expected.txt");
+		Path expectedErrors = folder.getRoot().toPath().resolve("expected.err");
+		Packer uninterrupted = new Packer(input.toString(), configuration);
+		uninterrupted.processWithCheckpoints(expectedOutput, 300, expectedErrors);
+
+		Path output = folder.getRoot().toPath().resolve("out.txt");
+		Path errors = folder.getRoot().toPath().resolve("out.err");
+		PackerConfiguration stopping = new PackerConfiguration(PackerConfiguration.DEFAULT_WEIGHT_PRECISION, 2);
+		stopping.setSkipInvalidLines(true);
+		stopping.setMaxInvalidLines(2);
+		try {
+			new Packer(input.toString(), stopping).processWithCheckpoints(output, 300, errors);
+			fail("APIException was expected");
+		} catch (APIException e) {
+			// stopped
+		}
+		Checkpoint checkpoint = Checkpoint.read(Checkpoint.pathOf(output));
+		assertEquals(2400, checkpoint.getLineNumber());
+		assertEquals(2, checkpoint.getInvalidLines());
+		// the record of line 2500 is after the checkpoint
+		assertEquals(3, Files.readAllLines(errors, StandardCharsets.UTF_8).size());
+		assertTrue(Files.size(errors) > checkpoint.getErrorsOffset());
+
+		Packer resumed = new Packer(input.toString(), configuration);
+		assertEquals(3000, resumed.processWithCheckpoints(output, 300, errors));
+		assertEquals(new String(Files.readAllBytes(expectedOutput), StandardCharsets.UTF_8),
+					 new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+		assertEquals(new String(Files.readAllBytes(expectedErrors), StandardCharsets.UTF_8),
+					 new String(Files.readAllBytes(errors), StandardCharsets.UTF_8));
+		assertEquals(4, Files.readAllLines(errors, StandardCharsets.UTF_8).size());
+		assertEquals(4, resumed.getInvalidLines());
+		// the solver counters are of the resumed lines only, the invalid lines count is of the whole input
+		assertTrue(uninterrupted.report().contains("invalid lines=4 of 3000"));
+		assertTrue(resumed.report().contains("invalid lines=4 of 3000"));
+		System.out.println("Test passed. Resume with the errors file from " + checkpoint);
+	}
+
+	/* testInputChanged:
+	 * A checkpoint of another input is not used
+	 */
+	@Test(expected = APIException.class)
+	public void testInputChanged() throws IOException {
+		Path input = writeLines(0);
+		Path output = folder.getRoot().toPath().resolve("out.txt");
+		new Checkpoint(300, 100, 0, 0, 0, Files.size(input) + 1, Files.getLastModifiedTime(input).toMillis())
+				.write(Checkpoint.pathOf(output));
+		new Packer(input.toString()).processWithCheckpoints(output, 300);
+	}
+
+	// 3000 lines, the lines invalidLines (from 1) are invalid, 0 - none
+	private Path writeLines(int... invalidLines) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 3000; i++){
+			lines.add(isInvalid(i, invalidLines) ? "not a line"
+					: (i % 100) + " : (1,53.38,\u20AC45) (2,88.62,\u20AC98) (3,78.48,\u20AC3) (4," + (i % 90 + 1) + ".5,\u20AC" + (i % 50 + 1) + ")");
+		}
+		Path input = folder.getRoot().toPath().resolve("in.txt");
+		Files.write(input, lines, StandardCharsets.UTF_8);
+		return input;
+	}
+
+	private static boolean isInvalid(int line, int[] invalidLines){
+		for (int invalidLine : invalidLines){
+			if (line == invalidLine){
+				return true;
+			}
+		}
+		return false;
+	}
+}
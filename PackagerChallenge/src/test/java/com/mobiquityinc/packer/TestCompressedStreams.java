@@ -0,0 +1,177 @@
+package com.mobiquityinc.packer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.CompressedStreams.Compression;
+
+public class TestCompressedStreams {
+
+	private static final String EXAMPLE_FILE = "./src/test/resources/exampleFile.txt";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* testCompressedInputs:
+	 * gzip and deflate copies of the example file get the results of the file itself, sequential and parallel
+	 */
+	@Test
+	public void testCompressedInputs() throws IOException {
+		byte[] bytes = Files.readAllBytes(Paths.get(EXAMPLE_FILE));
+		String expected = Packer.pack(EXAMPLE_FILE);
+		Path gzip    = write("example.txt.gz", gzip(bytes));
+		Path deflate = write("example.txt.zz", deflate(bytes));
+		assertEquals(Compression.GZIP, CompressedStreams.detect(gzip));
+		assertEquals(Compression.DEFLATE, CompressedStreams.detect(deflate));
+		assertEquals(Compression.NONE, CompressedStreams.detect(Paths.get(EXAMPLE_FILE)));
+		assertEquals(expected, Packer.pack(gzip.toString()));
+		assertEquals(expected, Packer.pack(deflate.toString()));
+		assertEquals(expected, Packer.pack(gzip.toString(), 3));
+		System.out.println("Test passed. Compressed inputs.");
+	}
+
+	/* testDetectedByContent:
+	 * A gzip file named .txt is decompressed, a plain file named .gz is not
+	 */
+	@Test
+	public void testDetectedByContent() throws IOException {
+		byte[] bytes = Files.readAllBytes(Paths.get(EXAMPLE_FILE));
+		String expected = Packer.pack(EXAMPLE_FILE);
+		Path gzipNamedText = write("gzip.txt", gzip(bytes));
+		Path textNamedGzip = write("text.gz", bytes);
+		assertEquals(Compression.GZIP, CompressedStreams.detect(gzipNamedText));
+		assertEquals(Compression.NONE, CompressedStreams.detect(textNamedGzip));
+		assertEquals(expected, Packer.pack(gzipNamedText.toString()));
+		assertEquals(expected, Packer.pack(textNamedGzip.toString()));
+		// "x" is the first byte of a zlib header, without a deflate second byte the file is plain
+		assertEquals(Compression.NONE, CompressedStreams.detect(write("x.txt", "x : (1,1,\u20AC1)".getBytes(StandardCharsets.UTF_8))));
+		System.out.println("Test passed. Compression detected by content.");
+	}
+
+	/* testLargeInput:
+	 * An input of several read ahead blocks, in two concatenated gzip members
+	 */
+	@Test
+	public void testLargeInput() throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 30000; i++){
+			lines.add((i % 100) + " : (1,53.38,\u20AC45) (2,88.62,\u20AC98) (3,78.48,\u20AC3) (4," + (i % 90 + 1) + ".5,\u20AC" + (i % 50 + 1) + ")");
+		}
+		Path plain = folder.getRoot().toPath().resolve("large.txt");
+		Files.write(plain, lines, StandardCharsets.UTF_8);
+		byte[] bytes = Files.readAllBytes(plain);
+		int half = bytes.length / 2;
+		ByteArrayOutputStream members = new ByteArrayOutputStream();
+		members.write(gzip(Arrays.copyOfRange(bytes, 0, half)));
+		members.write(gzip(Arrays.copyOfRange(bytes, half, bytes.length)));
+		Path gzip = write("large.gz", members.toByteArray());
+		assertEquals(Packer.pack(plain.toString()), Packer.pack(gzip.toString(), 2));
+		try (InputStream in = CompressedStreams.openInput(gzip, half + 1)){
+			assertEquals(bytes.length - half - 1, in.readAllBytes().length);
+		}
+		System.out.println("Test passed. Large gzip input of " + bytes.length + " bytes.");
+	}
+
+	/* testTruncatedInput:
+	 * The error of the decompression thread is thrown to the Packer
+	 */
+	@Test(expected = APIException.class)
+	public void testTruncatedInput() throws IOException {
+		byte[] gzip = gzip(Files.readAllBytes(Paths.get(EXAMPLE_FILE)));
+		Path truncated = write("truncated.gz", Arrays.copyOf(gzip, gzip.length / 2));
+		Packer.pack(truncated.toString());
+	}
+
+	/* testCompressedOutput:
+	 * --output-dir files compressed with gzip, named .out.gz
+	 */
+	@Test
+	public void testCompressedOutput() throws IOException {
+		Path directory = folder.getRoot().toPath().resolve("out");
+		BatchFilePacker batchPacker = new BatchFilePacker(new PackerConfiguration());
+		batchPacker.setOutputCompression(Compression.GZIP);
+		batchPacker.packToDirectory(Arrays.asList(Paths.get(EXAMPLE_FILE)), directory);
+		Path output = directory.resolve("exampleFile.txt" + BatchFilePacker.OUTPUT_SUFFIX + ".gz");
+		assertEquals(Compression.GZIP, CompressedStreams.detect(output));
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(output))){
+			assertEquals(Packer.pack(EXAMPLE_FILE) + "\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		System.out.println("Test passed. Compressed output.");
+	}
+
+	/* testResumeCompressedInput:
+	 * Checkpoints of a gzip input hold offsets of the decompressed lines, the resumed output is the same
+	 */
+	@Test
+	public void testResumeCompressedInput() throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 3000; i++){
+			lines.add(i == 2500 ? "not a line" : (i % 100) + " : (1,53.38,\u20AC45) (2," + (i % 90 + 1) + ".5,\u20AC" + (i % 50 + 1) + ")");
+		}
+		Path input = write("in.gz", gzip(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)));
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setSkipInvalidLines(true);
+		Path expectedOutput = folder.getRoot().toPath().resolve("expected.txt");
+		new Packer(input.toString(), configuration).processWithCheckpoints(expectedOutput, 300);
+
+		Path output = folder.getRoot().toPath().resolve("out.txt");
+		PackerConfiguration stopping = new PackerConfiguration();
+		stopping.setSkipInvalidLines(true);
+		stopping.setMaxInvalidLines(0);
+		try {
+			new Packer(input.toString(), stopping).processWithCheckpoints(output, 300);
+			fail("APIException was expected");
+		} catch (APIException e) {
+			// stopped
+		}
+		assertEquals(2400, Checkpoint.read(Checkpoint.pathOf(output)).getLineNumber());
+		assertEquals(3000, new Packer(input.toString(), configuration).processWithCheckpoints(output, 300));
+		assertEquals(new String(Files.readAllBytes(expectedOutput), StandardCharsets.UTF_8),
+					 new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+		assertFalse(Files.exists(Checkpoint.pathOf(output)));
+		System.out.println("Test passed. Resume from a checkpoint of a gzip input.");
+	}
+
+	private Path write(String name, byte[] bytes) throws IOException {
+		Path path = folder.getRoot().toPath().resolve(name);
+		Files.write(path, bytes);
+		return path;
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(buffer)){
+			out.write(bytes);
+		}
+		return buffer.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] bytes) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (OutputStream out = new DeflaterOutputStream(buffer)){
+			out.write(bytes);
+		}
+		return buffer.toByteArray();
+	}
+}
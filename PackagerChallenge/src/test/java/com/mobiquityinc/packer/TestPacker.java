@@ -1,8 +1,18 @@
 package com.mobiquityinc.packer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 import com.mobiquityinc.exception.APIException;
@@ -138,4 +148,191 @@ public class TestPacker {
 		assertEquals(expectedResult, itemsResults);
 		System.out.println("Test passed. AllItems.");
 	}
+	
+	/* testParallelExample:
+	 * Parallel mode returns the same results as the sequential one
+	 */
+	@Test
+	public void testParallelExample(){
+		String expectedResult = "4\n-\n2,7\n8,9";
+		String itemsResults = Packer.pack("./src/test/resources/exampleFile.txt", 4);
+		assertEquals(expectedResult, itemsResults);
+		System.out.println("Test passed. Parallel example file.");
+	}
+	
+	/* testParallelKeepsOrder:
+	 * A file with several chunks of lines - results must be in the input lines order
+	 */
+	@Test
+	public void testParallelKeepsOrder() throws IOException{
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 3000; i++){
+			lines.add((i % 100) + " : (1,53.38,$45) (2,88.62,$98) (3,78.48,$3) (4,72.30,$76) (5,30.18,$9) (6,46.34,$48) (7," + (i % 90 + 1) + ".5,$" + i + ")");
+		}
+		File file = File.createTempFile("parallelOrder", ".txt");
+		file.deleteOnExit();
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		
+		String sequentialResults = Packer.pack(file.getPath());
+		String parallelResults   = Packer.pack(file.getPath(), 4);
+		assertEquals(sequentialResults, parallelResults);
+		System.out.println("Test passed. Parallel order.");
+	}
+	
+	/* testParallelInvalidLine:
+	 * An invalid line stops the parallel processing with APIException
+	 */
+	@Test(expected = APIException.class)
+	public void testParallelInvalidLine(){
+		Packer.pack("./src/test/resources/moreThan15Items.txt", 4);
+	}
+	
+	/* testStreamingExample:
+	 * Streaming API writes the same results as the String API
+	 */
+	@Test
+	public void testStreamingExample(){
+		String expectedResult = "4\n-\n2,7\n8,9";
+		StringWriter writer = new StringWriter();
+		Packer.pack(Paths.get("./src/test/resources/exampleFile.txt"), writer);
+		assertEquals(expectedResult, writer.toString());
+		System.out.println("Test passed. Streaming example file.");
+	}
+	
+	/* testByteScannerExample:
+	 * The byte scanning parser returns the same results as the default parser
+	 */
+	@Test
+	public void testByteScannerExample(){
+		String expectedResult = "4\n-\n2,7\n8,9";
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setParserType(PackerConfiguration.ParserType.BYTE_SCANNER);
+		String itemsResults = Packer.pack("./src/test/resources/exampleFile.txt", configuration);
+		assertEquals(expectedResult, itemsResults);
+		System.out.println("Test passed. Byte scanner example file.");
+	}
+	
+	/* testGroupedItems:
+	 * Lines with the same items and different capacities solved together return the same results,
+	 * in the input lines order, sequential and parallel
+	 */
+	@Test
+	public void testGroupedItems() throws IOException{
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 3000; i++){
+			lines.add((89 + i % 11) + " : (1,53.38,$45) (2,88.62,$98) (3,78.48,$3) (4,72.30,$76) (5,30.18,$9) (6,46.34,$48) (7," + (i % 7 + 1) + ".5,$" + (i % 3 + 1) + ")");
+		}
+		File file = File.createTempFile("groupedItems", ".txt");
+		file.deleteOnExit();
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setGroupLines(true);
+		String expectedResults = Packer.pack(file.getPath());
+		assertEquals(expectedResults, Packer.pack(file.getPath(), configuration));
+		configuration.setParallelism(4);
+		assertEquals(expectedResults, Packer.pack(file.getPath(), configuration));
+		
+		Packer packer = new Packer(configuration);
+		assertEquals(String.join("\n", packer.packLines(lines)), expectedResults);
+		// all the items fit every capacity (the parser keeps them all) - 21 item lists, one chunk
+		assertTrue(packer.report().contains("grouping groups=21 lines=3000"));
+		System.out.println("Test passed. Grouped items.");
+	}
+	
+	/* testSkipInvalidLines:
+	 * Invalid lines get the placeholder and an error record with their line number, the other lines are packed,
+	 * sequential and parallel
+	 */
+	@Test
+	public void testSkipInvalidLines() throws IOException{
+		List<String> lines = new ArrayList<>();
+		List<String> validLines = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++){
+			if (i % 100 == 7){
+				lines.add("50 : (1,53.38,$45) (2,8.62,$0)");
+			} else if (i % 250 == 0){
+				lines.add("");
+			} else {
+				String line = (i % 100) + " : (1,53.38,$45) (2,88.62,$98) (3,78.48,$3) (4," + (i % 90 + 1) + ".5,$" + i % 50 + ")";
+				lines.add(line.replace("$0)", "$1)"));
+				validLines.add(lines.get(lines.size() - 1));
+			}
+		}
+		File file = writeTempFile("skipInvalid", lines);
+		File validFile = writeTempFile("skipInvalidValid", validLines);
+		String[] validResults = Packer.pack(validFile.getPath()).split("\n");
+		
+		for (int parallelism : new int[] {1, 4}){
+			PackerConfiguration configuration = new PackerConfiguration();
+			configuration.setSkipInvalidLines(true);
+			configuration.setParallelism(parallelism);
+			Packer packer = new Packer(file.getPath(), configuration);
+			StringWriter errors = new StringWriter();
+			packer.setErrorWriter(errors);
+			StringWriter out = new StringWriter();
+			assertEquals(1000, packer.process(file.getPath(), out, parallelism));
+			
+			String[] results = out.toString().split("\n", -1);
+			String[] records = errors.toString().split(System.lineSeparator());
+			assertEquals(1000, results.length);
+			assertEquals(14, records.length);
+			assertEquals(file.getPath() + ":7: ", records[0].substring(0, records[0].indexOf(": ") + 2));
+			assertTrue(records[0], records[0].contains("Cost must be positive"));
+			assertEquals(file.getPath() + ":250: Line is empty", records[3]);
+			for (int i = 0, k = 0; i < results.length; i++){
+				boolean invalid = (i + 1) % 100 == 7 || (i + 1) % 250 == 0;
+				assertEquals(invalid ? Packer.INVALID_LINE_RESULT : validResults[k++], results[i]);
+			}
+			assertEquals(14, packer.getInvalidLines());
+			assertTrue(packer.report(), packer.report().contains("invalid lines=14 of 1000 max=none"));
+		}
+		System.out.println("Test passed. Skip invalid lines.");
+	}
+	
+	/* testMaxInvalidLines:
+	 * The run stops at the first invalid line over the budget, the results before it are kept
+	 * and the next runs of the Packer stop right away
+	 */
+	@Test
+	public void testMaxInvalidLines() throws IOException{
+		List<String> lines = new ArrayList<>();
+		for (int i = 1; i <= 600; i++){
+			lines.add(i % 200 == 0 ? "not a line" : "81 : (1,53.38,$45) (2,88.62,$98) (3,78.48,$3) (4,72.30,$76)");
+		}
+		File file = writeTempFile("maxInvalid", lines);
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setMaxInvalidLines(1);
+		configuration.setSkipInvalidLines(true);
+		Packer packer = new Packer(configuration);
+		StringWriter errors = new StringWriter();
+		packer.setErrorWriter(errors);
+		StringWriter out = new StringWriter();
+		try {
+			packer.packFile(file.toPath(), out);
+			fail("APIException was expected");
+		} catch (APIException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("More than 1 invalid lines"));
+			assertTrue(e.getMessage(), e.getMessage().contains(":400: "));
+		}
+		String[] results = out.toString().split("\n");
+		assertEquals(400, results.length);
+		assertEquals(Packer.INVALID_LINE_RESULT, results[199]);
+		assertEquals(Packer.INVALID_LINE_RESULT, results[399]);
+		assertEquals(2, errors.toString().split(System.lineSeparator()).length);
+		try {
+			packer.packFile(file.toPath(), new StringWriter());
+			fail("APIException was expected");
+		} catch (APIException e) {
+			assertEquals(2, packer.getInvalidLines());
+		}
+		System.out.println("Test passed. Max invalid lines.");
+	}
+	
+	private static File writeTempFile(String prefix, List<String> lines) throws IOException{
+		File file = File.createTempFile(prefix, ".txt");
+		file.deleteOnExit();
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		return file;
+	}
 }
\ No newline at end of file
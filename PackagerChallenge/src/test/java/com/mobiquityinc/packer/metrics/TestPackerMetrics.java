@@ -0,0 +1,156 @@
+package com.mobiquityinc.packer.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.Packer;
+import com.mobiquityinc.packer.PackerConfiguration;
+import com.mobiquityinc.packer.metrics.PackerMetrics.Stage;
+
+public class TestPackerMetrics {
+
+	/* testHistogram:
+	 * Mean and max are exact, percentiles are the upper end of their power of two bucket
+	 */
+	@Test
+	public void testHistogram(){
+		Histogram histogram = new Histogram();
+		for (int value = 1; value <= 1000; value++){
+			histogram.record(value);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMean(), 1e-9);
+		assertEquals(1000, histogram.getMax());
+		assertEquals(511, histogram.getPercentile(50));
+		assertEquals(1000, histogram.getPercentile(99));
+		histogram.reset();
+		assertEquals(0, histogram.getPercentile(50));
+		System.out.println("Test passed. Histogram.");
+	}
+
+	/* testPackerStages:
+	 * Every stage of the Packer is measured, the lines and their items are counted
+	 */
+	@Test
+	public void testPackerStages() throws IOException {
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setMetrics(true);
+		Packer packer = new Packer(configuration);
+		List<String> lines = readLines("./src/test/resources/exampleFile.txt");
+		String[] results = packer.packLines(lines);
+		assertEquals("4", results[0]);
+
+		PackerMetrics metrics = packer.getMetrics();
+		assertEquals(lines.size(), metrics.getLines());
+		assertEquals(0, metrics.getRejectedLines());
+		assertTrue(metrics.getDpCells() > 0);
+		assertEquals(1, metrics.getStage(Stage.PARSE).getCount());
+		assertEquals(1, metrics.getStage(Stage.SOLVE).getCount());
+		assertEquals(1, metrics.getStage(Stage.RENDER).getCount());
+		assertEquals(lines.size(), metrics.getItemsPerLine().getCount());
+		// the parser drops the items heavier than the package
+		assertTrue(metrics.getItemsPerLine().getMax() > 0 && metrics.getItemsPerLine().getMax() <= 9);
+		assertTrue(metrics.getScaledCapacity().getCount() > 0);
+		assertTrue(packer.report().contains("metrics lines=" + lines.size()));
+		assertTrue(packer.report().contains("reduction lines="));
+
+		// a default run (reduction on, no metrics) reports nothing
+		Packer quiet = new Packer(new PackerConfiguration());
+		quiet.packLines(lines);
+		assertEquals("", quiet.report());
+		System.out.println("Test passed. Packer metrics:\n" + metrics.getReport());
+	}
+
+	/* testRejectedLine:
+	 * A line the parser rejects is counted
+	 */
+	@Test
+	public void testRejectedLine() throws IOException {
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setMetrics(true);
+		Packer packer = new Packer(configuration);
+		try {
+			packer.packLines(readLines("./src/test/resources/moreThan15Items.txt"));
+			fail("APIException was expected");
+		} catch (APIException e) {
+			assertEquals(1, packer.getMetrics().getRejectedLines());
+		}
+		System.out.println("Test passed. Rejected line counted.");
+	}
+
+	/* testMeteredStream:
+	 * The bytes read through the metered stream are counted and each read is timed
+	 */
+	@Test
+	public void testMeteredStream() throws IOException {
+		PackerMetrics metrics = new PackerMetrics();
+		byte[] bytes = new byte[10_000];
+		try (InputStream in = metrics.meter(new ByteArrayInputStream(bytes))){
+			byte[] buffer = new byte[4096];
+			while (in.read(buffer) > 0){
+				// read all
+			}
+			assertEquals(-1, in.read());
+		}
+		assertEquals(bytes.length, metrics.getBytesRead());
+		assertEquals(5, metrics.getStage(Stage.READ).getCount());
+		System.out.println("Test passed. Metered stream.");
+	}
+
+	/* testMBean:
+	 * The metrics are readable over JMX, a second registration with the same name gets a number
+	 */
+	@Test
+	public void testMBean() throws JMException {
+		PackerMetrics metrics = new PackerMetrics();
+		PackerMetrics other = new PackerMetrics();
+		metrics.recordLine(3);
+		ObjectName name = metrics.registerMBean("test");
+		ObjectName otherName = other.registerMBean("test");
+		try {
+			assertNotEquals(name, otherName);
+			assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Lines"));
+			assertTrue(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Values") != null);
+			Map<String, Long> values = metrics.getValues();
+			assertEquals(Long.valueOf(3), values.get("itemsPerLine.max"));
+		} finally {
+			metrics.unregisterMBean();
+			other.unregisterMBean();
+		}
+		assertTrue(!ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+		System.out.println("Test passed. Metrics MBean " + name + " " + otherName);
+	}
+
+	// same decoding as the Packer - the resources are not all valid UTF-8
+	private static List<String> readLines(String path) throws IOException {
+		return Arrays.asList(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8).split("\r?\n"));
+	}
+
+	/* testDisabled:
+	 * Without the option there are no metrics
+	 */
+	@Test
+	public void testDisabled(){
+		assertNull(new Packer(new PackerConfiguration()).getMetrics());
+	}
+}
@@ -0,0 +1,184 @@
+package com.mobiquityinc.packer.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.Packer;
+
+public class TestPackerServer {
+
+	private PackerServer server;
+
+	@Before
+	public void startServer(){
+		ServerConfiguration configuration = new ServerConfiguration();
+		configuration.setPort(0);
+		configuration.setShutdownSeconds(1);
+		server = PackerServer.start(configuration);
+	}
+
+	@After
+	public void stopServer(){
+		server.stop();
+	}
+
+	/* testSingleLine:
+	 * One line in, its result out
+	 */
+	@Test
+	public void testSingleLine() throws IOException {
+		Response response = request("POST", PackerServer.PACK_PATH, "81 : (1,53.38,\u20AC45) (2,88.62,\u20AC98) (3,78.48,\u20AC3) (4,72.30,\u20AC76) (5,30.18,\u20AC9) (6,46.34,\u20AC48)");
+		assertEquals(200, response.status);
+		assertEquals("4", response.body);
+		System.out.println("Test passed. Server single line.");
+	}
+
+	/* testBatch:
+	 * The example file in one request returns the same text as the Packer
+	 */
+	@Test
+	public void testBatch() throws IOException {
+		String example = new String(Files.readAllBytes(Paths.get("./src/test/resources/exampleFile.txt")), StandardCharsets.UTF_8);
+		Response response = request("POST", PackerServer.PACK_PATH, example);
+		assertEquals(200, response.status);
+		assertEquals(Packer.pack("./src/test/resources/exampleFile.txt"), response.body);
+		System.out.println("Test passed. Server batch.");
+	}
+
+	/* testConcurrentRequests:
+	 * Requests sent at the same time get their own results
+	 */
+	@Test
+	public void testConcurrentRequests() throws Exception {
+		String[] requestLines = {
+			"81 : (1,53.38,\u20AC45) (2,88.62,\u20AC98) (3,78.48,\u20AC3) (4,72.30,\u20AC76) (5,30.18,\u20AC9) (6,46.34,\u20AC48)",
+			"8 : (1,15.3,\u20AC34)",
+			"75 : (1,85.31,\u20AC29) (2,14.55,\u20AC74) (3,3.98,\u20AC16) (4,26.24,\u20AC55) (5,63.69,\u20AC52) (6,76.25,\u20AC75) (7,60.02,\u20AC74) (8,93.18,\u20AC35) (9,89.95,\u20AC78)"
+		};
+		String[] expected = { "4", "-", "2,7" };
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Response>> responses = new ArrayList<>();
+			for (int i = 0; i < 60; i++){
+				String line = requestLines[i % requestLines.length];
+				responses.add(clients.submit(() -> request("POST", PackerServer.PACK_PATH, line)));
+			}
+			for (int i = 0; i < responses.size(); i++){
+				Response response = responses.get(i).get();
+				assertEquals(200, response.status);
+				assertEquals(expected[i % expected.length], response.body);
+			}
+		} finally {
+			clients.shutdown();
+		}
+		System.out.println("Test passed. Server concurrent requests.");
+	}
+
+	/* testInvalidLine:
+	 * A line with more than 15 items is rejected with 400 and the parser message
+	 */
+	@Test
+	public void testInvalidLine() throws IOException {
+		String line = new String(Files.readAllBytes(Paths.get("./src/test/resources/moreThan15Items.txt")), StandardCharsets.UTF_8);
+		Response response = request("POST", PackerServer.PACK_PATH, line);
+		assertEquals(400, response.status);
+		assertTrue(!response.body.isEmpty());
+		// the server keeps serving
+		assertEquals(200, request("POST", PackerServer.PACK_PATH, "8 : (1,15.3,\u20AC34)").status);
+		System.out.println("Test passed. Server invalid line: " + response.body);
+	}
+
+	/* testHealth:
+	 * UP with the counters while running, STOPPING (503) after stop()
+	 */
+	@Test
+	public void testHealth() throws IOException {
+		request("POST", PackerServer.PACK_PATH, "8 : (1,15.3,\u20AC34)\n");
+		Response response = request("GET", PackerServer.HEALTH_PATH, null);
+		assertEquals(200, response.status);
+		assertTrue(response.body.startsWith("UP\n"));
+		assertTrue(response.body.contains("requests=1 lines=1"));
+		System.out.println("Test passed. Server health:\n" + response.body);
+
+		server.stop();
+		assertTrue(server.isStopping());
+		try {
+			request("GET", PackerServer.HEALTH_PATH, null);
+		} catch (IOException e) {
+			// expected - the server does not listen anymore
+			System.out.println("Test passed. Server stopped.");
+		}
+	}
+
+	/* testSplitLines:
+	 * '\n' and "\r\n" separators, the last new line is optional
+	 */
+	@Test
+	public void testSplitLines(){
+		assertEquals(2, PackerServer.splitLines("a\r\nb\n").size());
+		assertEquals("b", PackerServer.splitLines("a\r\nb").get(1));
+		assertEquals(0, PackerServer.splitLines("").size());
+		System.out.println("Test passed. Server split lines.");
+	}
+
+	/* testUnknownParameter:
+	 * The server command line rejects unknown options and --parallel
+	 */
+	@Test(expected = APIException.class)
+	public void testUnknownParameter(){
+		ServerCommandLine.parse(new String[] { "--port", "0", "--parallel", "4" });
+	}
+
+	private static class Response {
+		private int status;
+		private String body;
+	}
+
+	private Response request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null){
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()){
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		Response response = new Response();
+		response.status = connection.getResponseCode();
+		InputStream in = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (in != null){
+			try {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) > 0){
+					bytes.write(buffer, 0, read);
+				}
+			} finally {
+				in.close();
+			}
+		}
+		response.body = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		return response;
+	}
+}
@@ -0,0 +1,168 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.CachingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.IPackagingAlgorithm;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+
+public class TestCachingPackagingStrategy {
+
+	private final KnapSackPackagingStrategy knapSack = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+
+	@Test
+	public void testHitReturnsItemsOfTheList(){
+		CachingPackagingStrategy cache = new CachingPackagingStrategy(knapSack, 10);
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 10, 5));
+		items.add(new ItemEntity(2, 20, 30));
+		items.add(new ItemEntity(3, 30, 40));
+		cache.selectItems(items, 50);
+
+		// same line - new item objects
+		List<ItemEntity> sameItems = new ArrayList<>();
+		sameItems.add(new ItemEntity(1, 10, 5));
+		sameItems.add(new ItemEntity(2, 20, 30));
+		sameItems.add(new ItemEntity(3, 30, 40));
+		List<ItemEntity> selectedItems = cache.selectItems(sameItems, 50);
+
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(2, selectedItems.size());
+		assertSame(sameItems.get(2), selectedItems.get(0));
+		assertSame(sameItems.get(1), selectedItems.get(1));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted(){
+		CachingPackagingStrategy cache = new CachingPackagingStrategy(knapSack, 2);
+		List<ItemEntity> items = Collections.singletonList(new ItemEntity(1, 10, 5));
+		cache.selectItems(items, 10);
+		cache.selectItems(items, 20);
+		cache.selectItems(items, 10);	// hit - capacity 20 is now the least recently used
+		cache.selectItems(items, 30);	// evicts capacity 20
+		cache.selectItems(items, 10);	// hit
+		cache.selectItems(items, 20);	// miss
+
+		assertEquals(2, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(2, cache.getEvictions());
+		assertEquals(2, cache.size());
+		System.out.println(cache.report());
+	}
+
+	// equal weights in a different order may change the selection - must not share a cache entry
+	@Test
+	public void testOrderOfTiesKept(){
+		CachingPackagingStrategy cache = new CachingPackagingStrategy(knapSack, 10);
+		ItemEntity first  = new ItemEntity(1, 10, 7);
+		ItemEntity second = new ItemEntity(2, 10, 7);
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(first);
+		items.add(second);
+		List<ItemEntity> reversed = new ArrayList<>();
+		reversed.add(second);
+		reversed.add(first);
+
+		assertEquals(knapSack.selectItems(items, 10), cache.selectItems(items, 10));
+		assertEquals(knapSack.selectItems(reversed, 10), cache.selectItems(reversed, 10));
+		assertEquals(2, cache.getMisses());
+	}
+
+	/* testBatchPath:
+	 * Batch calls stay on the batch path of the wrapped algorithm (never its list method)
+	 * and share the entries of the list calls
+	 */
+	@Test
+	public void testBatchPath(){
+		IPackagingAlgorithm batchOnly = new IPackagingAlgorithm() {
+			@Override
+			public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+				throw new AssertionError("list path used");
+			}
+
+			@Override
+			public void selectItems(ItemBatch items, ItemBatch selected) {
+				knapSack.selectItems(items, selected);
+			}
+
+			@Override
+			public void selectItems(List<ItemBatch> lines, List<ItemBatch> selectedLines) {
+				knapSack.selectItems(lines, selectedLines);
+			}
+		};
+		CachingPackagingStrategy cache = new CachingPackagingStrategy(batchOnly, 50);
+		Random random = new Random(37);
+		for (int test = 0; test < 200; test++){
+			List<ItemBatch> lines = new ArrayList<>();
+			List<ItemBatch> selectedLines = new ArrayList<>();
+			List<ItemBatch> expectedLines = new ArrayList<>();
+			for (int k = 0; k < 16; k++){
+				Random line = new Random(random.nextInt(80));
+				ItemBatch items = new ItemBatch();
+				int numOfItems = line.nextInt(10);
+				for (int i = 1; i <= numOfItems; i++){
+					items.add(i, line.nextInt(5) + 1, line.nextInt(5));
+				}
+				items.sortByWeight();
+				items.setCapacity(line.nextInt(20));
+				lines.add(items);
+				selectedLines.add(new ItemBatch());
+				expectedLines.add(new ItemBatch());
+			}
+			cache.selectItems(lines, selectedLines);
+			knapSack.selectItems(lines, expectedLines);
+			for (int k = 0; k < lines.size(); k++){
+				assertEquals(expectedLines.get(k).toString(), selectedLines.get(k).toString());
+				ItemBatch selected = new ItemBatch();
+				cache.selectItems(lines.get(k), selected);
+				assertEquals(expectedLines.get(k).toString(), selected.toString());
+			}
+		}
+		assertEquals(true, cache.getHits() > 0 && cache.getEvictions() > 0);
+
+		// a list call and a batch call of the same line share the entry
+		CachingPackagingStrategy shared = new CachingPackagingStrategy(knapSack, 10);
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 10, 5));
+		items.add(new ItemEntity(2, 20, 30));
+		items.add(new ItemEntity(3, 30, 40));
+		shared.selectItems(items, 50);
+		ItemBatch selected = new ItemBatch();
+		shared.selectItems(ItemBatch.of(items, 50), selected);
+		assertEquals(1, shared.getHits());
+		assertEquals(ItemBatch.of(knapSack.selectItems(items, 50), 50).toString(), selected.toString());
+		System.out.println("Test passed. Cache batch path: " + cache.report());
+	}
+
+	@Test
+	public void testSameAsKnapSack(){
+		CachingPackagingStrategy cache = new CachingPackagingStrategy(knapSack, 50);
+		Random random = new Random(29);
+		for (int test = 0; test < 2000; test++){
+			// few distinct lines to get hits, evictions and shuffled repeats
+			Random line = new Random(random.nextInt(80));
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = line.nextInt(10);
+			for (int i = 1; i <= numOfItems; i++){
+				items.add(new ItemEntity(i, line.nextInt(5) + 1, line.nextInt(5)));
+			}
+			Collections.shuffle(items, random);
+			Collections.sort(items);
+			int capacity = line.nextInt(20);
+			assertEquals(knapSack.selectItems(items, capacity), cache.selectItems(items, capacity));
+		}
+		assertEquals(true, cache.getHits() > 0 && cache.getEvictions() > 0);
+	}
+}
@@ -0,0 +1,99 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.stratetgy.FptasPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.FptasPackagingStrategy.Approximation;
+import com.mobiquityinc.packer.stratetgy.ParetoFrontierPackagingStrategy;
+
+public class TestFptasPackagingStrategy {
+
+	private final ParetoFrontierPackagingStrategy exact = new ParetoFrontierPackagingStrategy();
+
+	private static long value(List<ItemEntity> items){
+		long value = 0;
+		for (ItemEntity item : items){
+			value += item.getCost();
+		}
+		return value;
+	}
+
+	private static long weight(List<ItemEntity> items){
+		long weight = 0;
+		for (ItemEntity item : items){
+			weight += item.getWeight();
+		}
+		return weight;
+	}
+
+	@Test
+	public void testWithinBound(){
+		Random random = new Random(31);
+		FptasPackagingStrategy fptas = new FptasPackagingStrategy();
+		for (int test = 0; test < 300; test++){
+			double epsilon = test % 3 == 0 ? 0.5 : test % 3 == 1 ? 0.1 : 0.01;
+			int numOfItems = 1 + random.nextInt(200);
+			List<ItemEntity> items = new ArrayList<>();
+			for (int i = 1; i <= numOfItems; i++){
+				// large costs - so the costs are scaled
+				items.add(new ItemEntity(i, random.nextInt(10000) + 1, random.nextInt(1_000_000) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(10000 * Math.max(1, numOfItems / 4));
+
+			Approximation approximation = fptas.approximate(items, capacity, epsilon);
+			long optimum = value(exact.selectItems(items, capacity));
+			assertTrue(weight(approximation.getItems()) <= capacity);
+			assertEquals(value(approximation.getItems()), approximation.getValue());
+			assertTrue(approximation.getValue() >= (1 - epsilon) * optimum);
+			assertTrue(approximation.getUpperBound() >= optimum);
+			assertTrue(approximation.getAchievedBound() >= 1 - epsilon - 1e-9);
+			assertTrue(optimum == 0 || approximation.getAchievedBound() <= (double) approximation.getValue() / optimum + 1e-9);
+		}
+		System.out.println(fptas.report());
+		// only the lines of the configured epsilon are counted
+		assertEquals(100, fptas.getLines());
+		assertTrue(fptas.getExactLines() < fptas.getLines());
+		assertTrue(fptas.getWorstAchievedBound() >= 1 - fptas.getEpsilon() - 1e-9);
+	}
+
+	@Test
+	public void testBatchSameAsList(){
+		Random random = new Random(37);
+		FptasPackagingStrategy fptas = new FptasPackagingStrategy(0.05);
+		for (int test = 0; test < 100; test++){
+			List<ItemEntity> items = new ArrayList<>();
+			for (int i = 1; i <= 50; i++){
+				items.add(new ItemEntity(i, random.nextInt(1000) + 1, random.nextInt(100_000) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(10000);
+
+			ItemBatch selected = new ItemBatch();
+			fptas.selectItems(ItemBatch.of(items, capacity), selected);
+			assertEquals(ItemBatch.of(fptas.selectItems(items, capacity), capacity).toString(), selected.toString());
+		}
+	}
+
+	@Test
+	public void testInvalidEpsilon(){
+		try {
+			new FptasPackagingStrategy(1.0);
+			fail("epsilon must be below 1");
+		} catch (APIException e){
+			System.out.println(e.getMessage());
+		}
+	}
+}
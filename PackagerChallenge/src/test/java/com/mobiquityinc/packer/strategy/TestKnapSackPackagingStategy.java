@@ -5,11 +5,17 @@ import static org.junit.Assert.assertEquals;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
+import com.mobiquityinc.com.viewer.DefaultPackagingViewer;
+import com.mobiquityinc.entities.ItemBatch;
 import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.IPackagingAlgorithm;
 import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.NormalizingPackagingStrategy;
 
 public class TestKnapSackPackagingStategy {
 
@@ -83,4 +89,102 @@ public class TestKnapSackPackagingStategy {
 		assertEquals(Integer.valueOf(64), selectedItems.get(1).getCost());
 	}
 	
+	@Test
+	public void testRollingRowSameAsFullMatrix(){
+		// the rolling row mode must select exactly the same items, including ties
+		KnapSackPackagingStrategy rollingRowPacker = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+		Random random = new Random(7);
+		for (int test = 0; test < 500; test++){
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = random.nextInt(16);
+			for (int i = 1; i <= numOfItems; i++){
+				// small ranges to get many equal weights and costs
+				items.add(new ItemEntity(i, random.nextInt(test % 2 == 0 ? 10 : 3000) + 1, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(test % 2 == 0 ? 60 : 10000);
+			assertEquals(packer.selectItems(items, capacity), rollingRowPacker.selectItems(items, capacity));
+		}
+	}
+	
+	@Test
+	public void testItemBatchSameAsList(){
+		// the boxing free path must select the same items in the same order, for both modes and normalized
+		List<IPackagingAlgorithm> strategies = new ArrayList<>();
+		strategies.add(packer);
+		strategies.add(new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW));
+		strategies.add(new NormalizingPackagingStrategy(new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW)));
+		DefaultPackagingViewer viewer = new DefaultPackagingViewer();
+		ItemBatch selected = new ItemBatch();
+		Random random = new Random(31);
+		for (int test = 0; test < 500; test++){
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = random.nextInt(16);
+			for (int i = 1; i <= numOfItems; i++){
+				items.add(new ItemEntity(i, (random.nextInt(test % 2 == 0 ? 10 : 300) + 1) * 10, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(test % 2 == 0 ? 600 : 30000);
+			for (IPackagingAlgorithm strategy : strategies){
+				List<ItemEntity> selectedItems = strategy.selectItems(items, capacity);
+				strategy.selectItems(ItemBatch.of(items, capacity), selected);
+				assertEquals(selectedItems.toString(), selected.toList().toString());
+				assertEquals(viewer.convertToString(selectedItems), viewer.convertToString(selected));
+			}
+		}
+	}
+	
+	@Test
+	public void testMultiCapacitySameAsSingle(){
+		// one run for several capacities must select the same items as one run per capacity, also normalized
+		List<IPackagingAlgorithm> strategies = new ArrayList<>();
+		strategies.add(new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW));
+		strategies.add(new NormalizingPackagingStrategy(new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW)));
+		DefaultPackagingViewer viewer = new DefaultPackagingViewer();
+		Random random = new Random(20);
+		for (int test = 0; test < 300; test++){
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = random.nextInt(16);
+			for (int i = 1; i <= numOfItems; i++){
+				items.add(new ItemEntity(i, (random.nextInt(test % 2 == 0 ? 10 : 300) + 1) * 10, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int[] capacities = new int[1 + random.nextInt(6)];
+			for (int k = 0; k < capacities.length; k++){
+				capacities[k] = random.nextInt(test % 2 == 0 ? 600 : 30000);
+			}
+			for (IPackagingAlgorithm strategy : strategies){
+				List<ItemBatch> selectedLines = new ArrayList<>();
+				for (int k = 0; k < capacities.length; k++){
+					selectedLines.add(new ItemBatch());
+				}
+				ItemBatch batch = ItemBatch.of(items, capacities[0]);
+				strategy.selectItems(batch, capacities, selectedLines);
+				assertEquals(capacities[0], batch.getCapacity());
+				for (int k = 0; k < capacities.length; k++){
+					assertEquals(viewer.convertToString(strategy.selectItems(items, capacities[k])),
+							viewer.convertToString(selectedLines.get(k)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testMultiCapacityList(){
+		// 81 and 56 of the example file, one run at capacity 81
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 5338, 45));
+		items.add(new ItemEntity(2, 8862, 98));
+		items.add(new ItemEntity(3, 7848, 3));
+		items.add(new ItemEntity(4, 7230, 76));
+		items.add(new ItemEntity(5, 3018, 9));
+		items.add(new ItemEntity(6, 4634, 48));
+		Collections.sort(items);
+		List<List<ItemEntity>> selectedLines = packer.selectItems(items, new int[] {8100, 5600, 1000});
+		assertEquals(3, selectedLines.size());
+		assertEquals(packer.selectItems(items, 8100), selectedLines.get(0));
+		assertEquals(packer.selectItems(items, 5600), selectedLines.get(1));
+		assertEquals(0, selectedLines.get(2).size());
+	}
+	
 }
@@ -0,0 +1,105 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackSession;
+
+public class TestKnapSackSession {
+
+	private final KnapSackPackagingStrategy knapSack = new KnapSackPackagingStrategy();
+
+	/* testAddOneByOne:
+	 * After every add the selection is the one of the strategy on all the items, each add is one row
+	 */
+	@Test
+	public void testAddOneByOne(){
+		KnapSackSession session = new KnapSackSession(8100);
+		List<ItemEntity> items = new ArrayList<>();
+		int[][] example = { {1, 5338, 45}, {2, 8862, 98}, {3, 7848, 3}, {4, 7230, 76}, {5, 3018, 9}, {6, 4634, 48} };
+		for (int[] values : example){
+			ItemEntity item = new ItemEntity(values[0], values[1], values[2]);
+			items.add(item);
+			session.add(item);
+			assertEquals(knapSack.selectItems(items, 8100), session.getSelectedItems());
+		}
+		assertEquals(76, session.getBestCost());
+		assertEquals(4, (int) session.getSelectedItems().get(0).getId());
+		assertEquals(example.length * 8101L, session.getCellsComputed());
+		System.out.println("Test passed. Session add one by one.");
+	}
+
+	/* testRandomChanges:
+	 * Random adds and removes (including ties and zero costs) always match the strategy,
+	 * for the session capacity and for smaller ones
+	 */
+	@Test
+	public void testRandomChanges(){
+		Random random = new Random(19);
+		int capacity = 500;
+		KnapSackSession session = new KnapSackSession(capacity);
+		List<ItemEntity> items = new ArrayList<>();
+		int nextId = 1;
+		for (int step = 0; step < 2000; step++){
+			if (items.isEmpty() || random.nextInt(3) > 0){
+				ItemEntity item = new ItemEntity(nextId++, 1 + random.nextInt(200), random.nextInt(20));
+				items.add(item);
+				session.add(item);
+			} else {
+				ItemEntity item = items.remove(random.nextInt(items.size()));
+				assertTrue(session.remove(item.getId()));
+			}
+			if (items.size() > 40){
+				// keep the lines short
+				session.clear();
+				items.clear();
+			}
+			int queryCapacity = random.nextInt(capacity + 1);
+			assertEquals(knapSack.selectItems(items, capacity), session.getSelectedItems());
+			assertEquals(knapSack.selectItems(items, queryCapacity), session.getSelectedItems(queryCapacity));
+			assertEquals(items, session.getItems());
+		}
+		System.out.println("Test passed. Session random changes.");
+	}
+
+	/* testRemoveLastIsCheap:
+	 * Removing the item added last pops its row only, removing the first one rebuilds the rows above it
+	 */
+	@Test
+	public void testRemoveLastIsCheap(){
+		KnapSackSession session = new KnapSackSession(1000);
+		for (int id = 1; id <= 10; id++){
+			session.add(new ItemEntity(id, id * 37, id * 11));
+		}
+		long cells = session.getCellsComputed();
+		assertTrue(session.remove(10));
+		assertEquals(cells, session.getCellsComputed());
+		assertTrue(session.remove(1));
+		assertEquals(cells + 8 * 1001L, session.getCellsComputed());
+		assertFalse(session.remove(1));
+		assertEquals(8, session.size());
+		System.out.println("Test passed. Session remove.");
+	}
+
+	@Test(expected = APIException.class)
+	public void testDuplicateId(){
+		KnapSackSession session = new KnapSackSession(100);
+		session.add(new ItemEntity(1, 10, 10));
+		session.add(new ItemEntity(1, 20, 10));
+	}
+
+	@Test(expected = APIException.class)
+	public void testCapacityOutOfRange(){
+		new KnapSackSession(100).getSelectedItems(101);
+	}
+}
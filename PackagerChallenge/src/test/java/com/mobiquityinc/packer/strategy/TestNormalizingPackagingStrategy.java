@@ -0,0 +1,96 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.IPackagingAlgorithm;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.NormalizingPackagingStrategy;
+
+public class TestNormalizingPackagingStrategy {
+
+	private final KnapSackPackagingStrategy    knapSack   = new KnapSackPackagingStrategy();
+	private final NormalizingPackagingStrategy normalizer = new NormalizingPackagingStrategy(knapSack);
+
+	@Test
+	public void testWholeNumberWeights(){
+		// 30.00, 20.00, 40.00 with precision 2 -> the knapsack should be 1000 times narrower
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 2000, 100));
+		items.add(new ItemEntity(2, 3000, 100));
+		items.add(new ItemEntity(3, 4000, 100));
+		items.add(new ItemEntity(4, 9900, 500));
+
+		final int[] solvedCapacity = new int[1];
+		IPackagingAlgorithm recorder = new IPackagingAlgorithm() {
+			@Override
+			public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+				solvedCapacity[0] = capacity;
+				return knapSack.selectItems(itemsList, capacity);
+			}
+		};
+		List<ItemEntity> selectedItems = new NormalizingPackagingStrategy(recorder).selectItems(items, 9000);
+
+		assertEquals(9, solvedCapacity[0]);
+		assertEquals(knapSack.selectItems(items, 9000), selectedItems);
+		// the original items are returned
+		assertSame(items.get(2), selectedItems.get(0));
+	}
+
+	@Test
+	public void testRebuiltSelection(){
+		// a wrapped algorithm which returns new instances (e.g. a round trip through ItemBatch)
+		IPackagingAlgorithm rebuilding = new IPackagingAlgorithm() {
+			@Override
+			public List<ItemEntity> selectItems(List<ItemEntity> itemsList, int capacity) {
+				return ItemBatch.of(knapSack.selectItems(itemsList, capacity), capacity).toList();
+			}
+		};
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 2000, 100));
+		items.add(new ItemEntity(2, 3000, 100));
+		items.add(new ItemEntity(3, 4000, 100));
+		List<ItemEntity> selectedItems = new NormalizingPackagingStrategy(rebuilding).selectItems(items, 7000);
+		assertEquals(knapSack.selectItems(items, 7000), selectedItems);
+		// mapped back to the original items by id
+		for (ItemEntity selectedItem : selectedItems){
+			assertSame(items.get(selectedItem.getId() - 1), selectedItem);
+		}
+	}
+
+	@Test
+	public void testDivisor(){
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 1250, 1));
+		items.add(new ItemEntity(2, 3000, 1));
+		items.add(new ItemEntity(3, 7777, 1));
+		assertEquals(250, NormalizingPackagingStrategy.weightsDivisor(items, 3000));
+		assertEquals(1, NormalizingPackagingStrategy.weightsDivisor(items, 8000));
+	}
+
+	@Test
+	public void testSameAsKnapSack(){
+		Random random = new Random(17);
+		int[] steps = {1, 10, 25, 100, 1000};
+		for (int test = 0; test < 1000; test++){
+			int step = steps[test % steps.length];
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = random.nextInt(16);
+			for (int i = 1; i <= numOfItems; i++){
+				items.add(new ItemEntity(i, (random.nextInt(40) + 1) * step, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(100 * step);
+			assertEquals(knapSack.selectItems(items, capacity), normalizer.selectItems(items, capacity));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.ParetoFrontierPackagingStrategy;
+
+public class TestParetoFrontierPackagingStrategy {
+
+	private final KnapSackPackagingStrategy       knapSack = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+	private final ParetoFrontierPackagingStrategy pareto   = new ParetoFrontierPackagingStrategy();
+
+	@Test
+	public void testEmptyList(){
+		assertEquals(0, pareto.selectItems(new ArrayList<ItemEntity>(), 50).size());
+	}
+
+	@Test
+	public void testSameAsKnapSack(){
+		Random random = new Random(17);
+		for (int test = 0; test < 1000; test++){
+			int numOfItems  = random.nextInt(40);
+			int weightRange = test % 2 == 0 ? 10 : 3000;
+			List<ItemEntity> items = new ArrayList<>();
+			for (int i = 1; i <= numOfItems; i++){
+				// small ranges to get many ties
+				items.add(new ItemEntity(i, random.nextInt(weightRange) + 1, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(weightRange * Math.max(1, numOfItems / 3));
+			assertEquals(knapSack.selectItems(items, capacity), pareto.selectItems(items, capacity));
+		}
+	}
+
+	// 2000 items and a capacity of 10^7 - a rolling row knapsack would need 2.5GB of decisions
+	@Test(timeout = 30_000)
+	public void testLargeInstance(){
+		Random random = new Random(19);
+		List<ItemEntity> items = new ArrayList<>();
+		long totalWeight = 0;
+		for (int i = 1; i <= 2000; i++){
+			int weight = random.nextInt(1_000_000) + 1;
+			items.add(new ItemEntity(i, weight, random.nextInt(100) + 1));
+			totalWeight += weight;
+		}
+		Collections.sort(items);
+		int capacity = 10_000_000;
+
+		long start = System.nanoTime();
+		List<ItemEntity> selectedItems = pareto.selectItems(items, capacity);
+		System.out.println("pareto 2000 items: " + (System.nanoTime() - start) / 1_000_000 + "ms, selected " + selectedItems.size());
+
+		long weight = 0;
+		for (ItemEntity item : selectedItems){
+			weight += item.getWeight();
+		}
+		assertTrue(weight <= capacity);
+		assertTrue(totalWeight > capacity);
+		assertTrue(selectedItems.size() > 0);
+	}
+}
@@ -0,0 +1,102 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.BranchAndBoundPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.PlanningPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.PlanningPackagingStrategy.Engine;
+import com.mobiquityinc.packer.stratetgy.ValueIndexedPackagingStrategy;
+
+public class TestPlanningPackagingStrategy {
+
+	private final KnapSackPackagingStrategy       knapSack       = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+	private final ValueIndexedPackagingStrategy   valueIndexed   = new ValueIndexedPackagingStrategy();
+	private final BranchAndBoundPackagingStrategy branchAndBound = new BranchAndBoundPackagingStrategy();
+
+	@Test
+	public void testValueIndexedSameAsKnapSack(){
+		Random random = new Random(17);
+		for (int test = 0; test < 1000; test++){
+			List<ItemEntity> items = randomItems(random, random.nextInt(30), test % 2 == 0 ? 10 : 3000);
+			int capacity = randomCapacity(random, items);
+			assertEquals(knapSack.selectItems(items, capacity), valueIndexed.selectItems(items, capacity));
+		}
+	}
+
+	@Test
+	public void testBranchAndBoundSameAsKnapSack(){
+		Random random = new Random(19);
+		for (int test = 0; test < 1000; test++){
+			List<ItemEntity> items = randomItems(random, random.nextInt(30), test % 2 == 0 ? 10 : 3000);
+			int capacity = randomCapacity(random, items);
+			assertEquals(knapSack.selectItems(items, capacity), branchAndBound.selectItems(items, capacity));
+		}
+	}
+
+	@Test
+	public void testPlannerSameAsKnapSack(){
+		PlanningPackagingStrategy planner = new PlanningPackagingStrategy();
+		Random random = new Random(23);
+		for (int test = 0; test < 300; test++){
+			List<ItemEntity> items = randomItems(random, random.nextInt(60), test % 3 == 0 ? 10 : 100000);
+			int capacity = randomCapacity(random, items);
+			assertEquals(knapSack.selectItems(items, capacity), planner.selectItems(items, capacity));
+		}
+		long lines = 0;
+		for (Engine engine : Engine.values()){
+			lines += planner.getChoosenCount(engine);
+		}
+		System.out.println(planner.report());
+		// lines without any fitting item are not planned
+		assertEquals(true, lines > 0 && lines <= 300);
+	}
+
+	@Test
+	public void testPlannerChoice(){
+		PlanningPackagingStrategy planner = new PlanningPackagingStrategy();
+
+		// few items with large costs and capacity - enumeration does not depend on either
+		List<ItemEntity> items = new ArrayList<>();
+		for (int i = 1; i <= 12; i++){
+			items.add(new ItemEntity(i, 1000 * i, 1000 + i));
+		}
+		planner.selectItems(items, 10000);
+		assertEquals(1, planner.getChoosenCount(Engine.SUBSET_ENUMERATION));
+
+		// many items with a small capacity - the capacity knapsack
+		planner.selectItems(randomItems(new Random(2), 200, 50), 100);
+		assertEquals(1, planner.getChoosenCount(Engine.CAPACITY_DP));
+
+		// many items with a huge capacity and small costs - the knapsack indexed by the cost
+		planner.selectItems(randomItems(new Random(3), 200, 10000000), 100000000);
+		assertEquals(1, planner.getChoosenCount(Engine.VALUE_DP));
+	}
+
+	private List<ItemEntity> randomItems(Random random, int numOfItems, int weightRange){
+		List<ItemEntity> items = new ArrayList<>();
+		for (int i = 1; i <= numOfItems; i++){
+			// small ranges to get many ties, zero costs included
+			items.add(new ItemEntity(i, random.nextInt(weightRange) + 1, random.nextInt(21)));
+		}
+		Collections.sort(items);
+		return items;
+	}
+
+	private int randomCapacity(Random random, List<ItemEntity> items){
+		long totalWeight = 0;
+		for (ItemEntity item : items){
+			totalWeight += item.getWeight();
+		}
+		return random.nextInt((int) Math.min(Integer.MAX_VALUE - 1, totalWeight / 2 + 1) + 1);
+	}
+}
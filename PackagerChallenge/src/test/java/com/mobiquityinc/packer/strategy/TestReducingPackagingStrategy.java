@@ -0,0 +1,104 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.NormalizingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.ReducingPackagingStrategy;
+
+public class TestReducingPackagingStrategy {
+
+	private final KnapSackPackagingStrategy knapSack = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+
+	@Test
+	public void testTrivialFit(){
+		ReducingPackagingStrategy reducing = new ReducingPackagingStrategy(knapSack);
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 10, 5));
+		items.add(new ItemEntity(2, 20, 30));
+		items.add(new ItemEntity(3, 90, 40));	// too heavy
+		items.add(new ItemEntity(4, 30, 40));
+
+		List<ItemEntity> selectedItems = reducing.selectItems(items, 60);
+		assertEquals(knapSack.selectItems(items, 60), selectedItems);
+		assertEquals(3, selectedItems.size());
+		assertEquals(1, reducing.getTrivialFits());
+		assertEquals(0, reducing.getCoreItems());
+	}
+
+	// item 3 is heavier and cheaper than items 1 and 2, which fill the capacity
+	@Test
+	public void testDominatedItemRemoved(){
+		ReducingPackagingStrategy reducing = new ReducingPackagingStrategy(knapSack);
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 20, 50));
+		items.add(new ItemEntity(2, 25, 40));
+		items.add(new ItemEntity(3, 30, 10));
+		items.add(new ItemEntity(4, 35, 45));
+
+		assertEquals(knapSack.selectItems(items, 50), reducing.selectItems(items, 50));
+		assertTrue(reducing.getDominated() >= 1);
+	}
+
+	@Test
+	public void testSameAsKnapSack(){
+		Random random = new Random(23);
+		ReducingPackagingStrategy reducing = new ReducingPackagingStrategy(knapSack);
+		for (int test = 0; test < 2000; test++){
+			int numOfItems  = 1 + random.nextInt(30);
+			int weightRange = test % 3 == 0 ? 10 : 3000;
+			List<ItemEntity> items = new ArrayList<>();
+			for (int i = 1; i <= numOfItems; i++){
+				// small ranges to get many ties
+				items.add(new ItemEntity(i, random.nextInt(weightRange) + 1, random.nextInt(test % 2 == 0 ? 5 : 100) + 1));
+			}
+			// every fourth list is not sorted - no dominance step then
+			if (test % 4 != 0){
+				Collections.sort(items);
+			}
+			int capacity = random.nextInt(weightRange * Math.max(1, numOfItems / 3));
+
+			List<ItemEntity> expected = knapSack.selectItems(items, capacity);
+			assertEquals(expected, reducing.selectItems(items, capacity));
+
+			ItemBatch selected = new ItemBatch();
+			reducing.selectItems(ItemBatch.of(items, capacity), selected);
+			assertEquals(ItemBatch.of(expected, capacity).toString(), selected.toString());
+		}
+		System.out.println(reducing.report());
+		assertTrue(reducing.getDominated() > 0);
+		assertTrue(reducing.getFixedIn() > 0);
+		assertTrue(reducing.getFixedOut() > 0);
+	}
+
+	@Test
+	public void testWithNormalizing(){
+		Random random = new Random(29);
+		ReducingPackagingStrategy reducing = new ReducingPackagingStrategy(new NormalizingPackagingStrategy(knapSack));
+		for (int test = 0; test < 500; test++){
+			int numOfItems = 1 + random.nextInt(15);
+			List<ItemEntity> items = new ArrayList<>();
+			for (int i = 1; i <= numOfItems; i++){
+				items.add(new ItemEntity(i, 100 * (random.nextInt(100) + 1), random.nextInt(100) + 1));
+			}
+			Collections.sort(items);
+			int capacity = 100 * random.nextInt(300);
+
+			ItemBatch batch = ItemBatch.of(items, capacity);
+			ItemBatch selected = new ItemBatch();
+			reducing.selectItems(batch, selected);
+			assertEquals(ItemBatch.of(knapSack.selectItems(items, capacity), capacity).toString(), selected.toString());
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.NormalizingPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.ScratchArena;
+import com.mobiquityinc.packer.stratetgy.ScratchArena.Use;
+
+public class TestScratchArena {
+
+	private static List<ItemBatch> randomLines(long seed, int numOfLines){
+		Random random = new Random(seed);
+		List<ItemBatch> lines = new ArrayList<>();
+		for (int l = 0; l < numOfLines; l++){
+			ItemBatch line = new ItemBatch();
+			int numOfItems = 1 + random.nextInt(15);
+			for (int i = 1; i <= numOfItems; i++){
+				line.add(i, 1 + random.nextInt(10000), 1 + random.nextInt(100));
+			}
+			line.sortByWeight();
+			line.setCapacity(random.nextInt(10000));
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	@Test
+	public void testBuffersReusedAndGrown(){
+		ScratchArena arena = ScratchArena.acquire();
+		try {
+			// the arena of this thread may have been used by other tests
+			int[] row = arena.ints(Use.ROW, 100);
+			assertSame(row, arena.ints(Use.ROW, 50));
+			assertSame(row, arena.ints(Use.ROW, row.length));
+			int[] bigger = arena.ints(Use.ROW, row.length + 1);
+			assertNotSame(row, bigger);
+			assertTrue(bigger.length >= row.length * 3 / 2);
+
+			List<ItemBatch> batches = arena.batches(Use.LINES, 3);
+			assertEquals(3, batches.size());
+			batches.get(0).add(1, 1, 1);
+			assertSame(batches.get(0), arena.batch(Use.LINES));
+			assertEquals(0, arena.batch(Use.LINES).getCount());
+		} finally {
+			arena.release();
+		}
+	}
+
+	@Test
+	public void testIdleArenaReleased(){
+		ScratchArena arena = ScratchArena.acquire();
+		long releases = arena.getReleases();
+		try {
+			arena.longs(Use.DECISIONS, 1000);
+			// in use - never released
+			ScratchArena.releaseIdle(0);
+			assertEquals(releases, arena.getReleases());
+			assertTrue(arena.retainedBytes() >= 8000);
+		} finally {
+			arena.release();
+		}
+
+		ScratchArena.releaseIdle(0);
+		assertEquals(releases + 1, arena.getReleases());
+		assertEquals(0, arena.retainedBytes());
+	}
+
+	@Test
+	public void testBatchSameAsSingleLines(){
+		List<ItemBatch> lines = randomLines(12, 500);
+		NormalizingPackagingStrategy strategy = new NormalizingPackagingStrategy(new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW));
+
+		List<ItemBatch> selectedLines = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++){
+			selectedLines.add(new ItemBatch());
+		}
+		strategy.selectItems(lines, selectedLines);
+
+		for (int i = 0; i < lines.size(); i++){
+			ItemBatch selected = new ItemBatch();
+			strategy.selectItems(lines.get(i), selected);
+			assertEquals(selected.toString(), selectedLines.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testSteadyStateAllocation(){
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+		List<ItemBatch> lines = randomLines(7, 1000);
+		List<ItemBatch> selectedLines = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++){
+			selectedLines.add(new ItemBatch());
+		}
+		KnapSackPackagingStrategy strategy = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+
+		// warm up - the buffers grow to the largest line
+		for (int i = 0; i < 20; i++){
+			strategy.selectItems(lines, selectedLines);
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 10; i++){
+			strategy.selectItems(lines, selectedLines);
+		}
+		long bytesPerLine = (threadBean.getThreadAllocatedBytes(threadId) - before) / (10L * lines.size());
+		System.out.println("bytes allocated per line: " + bytesPerLine);
+		assertTrue("bytes per line " + bytesPerLine, bytesPerLine < 16);
+	}
+}
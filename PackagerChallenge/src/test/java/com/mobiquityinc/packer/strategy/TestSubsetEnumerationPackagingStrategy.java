@@ -0,0 +1,75 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.SubsetEnumerationPackagingStrategy;
+
+public class TestSubsetEnumerationPackagingStrategy {
+
+	private final KnapSackPackagingStrategy          knapSack    = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+	private final SubsetEnumerationPackagingStrategy enumeration = new SubsetEnumerationPackagingStrategy();
+
+	@Test
+	public void testEmptyList(){
+		assertEquals(0, enumeration.selectItems(new ArrayList<ItemEntity>(), 50).size());
+	}
+
+	// 56 : (1,90.72,$13) (2,33.80,$40) (3,43.15,$10) (4,37.97,$16) (5,46.81,$36) (6,48.77,$79) (7,81.80,$45) (8,19.36,$79) (9,6.76,$64)
+	@Test
+	public void testCapacityThreshold(){
+		List<ItemEntity> items = new ArrayList<>();
+		items.add(new ItemEntity(1, 9072, 13));
+		items.add(new ItemEntity(2, 3380, 40));
+		items.add(new ItemEntity(3, 4315, 10));
+		items.add(new ItemEntity(4, 3797, 16));
+		items.add(new ItemEntity(5, 4681, 36));
+		items.add(new ItemEntity(6, 4877, 79));
+		items.add(new ItemEntity(7, 8180, 45));
+		items.add(new ItemEntity(8, 1936, 79));
+		items.add(new ItemEntity(9, 676, 64));
+		Collections.sort(items);
+
+		List<ItemEntity> selectedItems = enumeration.selectItems(items, 5600);
+		assertEquals(2, selectedItems.size());
+		assertEquals(Integer.valueOf(8), selectedItems.get(0).getId());
+		assertEquals(Integer.valueOf(9), selectedItems.get(1).getId());
+	}
+
+	@Test
+	public void testGrayCodeSameAsKnapSack(){
+		Random random = new Random(11);
+		for (int test = 0; test < 1000; test++){
+			compareWithKnapSack(random, random.nextInt(16), test % 2 == 0 ? 10 : 3000);
+		}
+	}
+
+	@Test
+	public void testMeetInTheMiddleSameAsKnapSack(){
+		Random random = new Random(13);
+		for (int test = 0; test < 20; test++){
+			compareWithKnapSack(random, SubsetEnumerationPackagingStrategy.GRAY_CODE_MAX_ITEMS + 1 + random.nextInt(6),
+								test % 2 == 0 ? 10 : 3000);
+		}
+	}
+
+	private void compareWithKnapSack(Random random, int numOfItems, int weightRange){
+		List<ItemEntity> items = new ArrayList<>();
+		for (int i = 1; i <= numOfItems; i++){
+			// small ranges to get many ties
+			items.add(new ItemEntity(i, random.nextInt(weightRange) + 1, random.nextInt(20) + 1));
+		}
+		Collections.sort(items);
+		int capacity = random.nextInt(weightRange * Math.max(1, numOfItems / 3));
+		assertEquals(knapSack.selectItems(items, capacity), enumeration.selectItems(items, capacity));
+	}
+}
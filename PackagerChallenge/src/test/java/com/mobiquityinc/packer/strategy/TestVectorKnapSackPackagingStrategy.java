@@ -0,0 +1,94 @@
+package com.mobiquityinc.packer.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.com.viewer.DefaultPackagingViewer;
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ItemEntity;
+import com.mobiquityinc.packer.Packer;
+import com.mobiquityinc.packer.PackerConfiguration;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy;
+import com.mobiquityinc.packer.stratetgy.KnapSackPackagingStrategy.MemoryMode;
+import com.mobiquityinc.packer.stratetgy.VectorKnapSackPackagingStrategy;
+
+public class TestVectorKnapSackPackagingStrategy {
+
+	private final KnapSackPackagingStrategy knapSack = new KnapSackPackagingStrategy(MemoryMode.ROLLING_ROW);
+	private final VectorKnapSackPackagingStrategy vectorKnapSack = new VectorKnapSackPackagingStrategy();
+
+	/* testVectorized:
+	 * The tests run with --add-modules jdk.incubator.vector (see the pom) - the vector kernel is used
+	 */
+	@Test
+	public void testVectorized(){
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()){
+			assertTrue(vectorKnapSack.report(), vectorKnapSack.isVectorized());
+		}
+		System.out.println("Test passed. " + vectorKnapSack.report());
+	}
+
+	/* testSameAsScalar:
+	 * Same selection as the scalar knapsack, ties included - weights below and above the vector length,
+	 * capacities which are not a multiple of it and wide high precision capacities
+	 */
+	@Test
+	public void testSameAsScalar(){
+		DefaultPackagingViewer viewer = new DefaultPackagingViewer();
+		ItemBatch selected = new ItemBatch();
+		Random random = new Random(21);
+		for (int test = 0; test < 600; test++){
+			List<ItemEntity> items = new ArrayList<>();
+			int numOfItems = random.nextInt(16);
+			int maxWeight  = test % 3 == 0 ? 20 : test % 3 == 1 ? 3000 : 100000;
+			for (int i = 1; i <= numOfItems; i++){
+				// small cost range to get many ties
+				items.add(new ItemEntity(i, random.nextInt(maxWeight) + 1, random.nextInt(20) + 1));
+			}
+			Collections.sort(items);
+			int capacity = random.nextInt(maxWeight * 4);
+			List<ItemEntity> expected = knapSack.selectItems(items, capacity);
+			assertEquals(expected, vectorKnapSack.selectItems(items, capacity));
+			vectorKnapSack.selectItems(ItemBatch.of(items, capacity), selected);
+			assertEquals(viewer.convertToString(expected), viewer.convertToString(selected));
+		}
+		System.out.println("Test passed. Vector knapsack same as scalar.");
+	}
+
+	/* testMultiCapacity:
+	 * The multi capacity API reads the decisions of the vector kernel for every capacity
+	 */
+	@Test
+	public void testMultiCapacity(){
+		List<ItemEntity> items = new ArrayList<>();
+		Random random = new Random(5);
+		for (int i = 1; i <= 15; i++){
+			items.add(new ItemEntity(i, random.nextInt(10000) + 1, random.nextInt(100) + 1));
+		}
+		Collections.sort(items);
+		int[] capacities = {10000, 3333, 777, 64, 65, 0};
+		List<List<ItemEntity>> selectedLines = vectorKnapSack.selectItems(items, capacities);
+		for (int k = 0; k < capacities.length; k++){
+			assertEquals(knapSack.selectItems(items, capacities[k]), selectedLines.get(k));
+		}
+		System.out.println("Test passed. Vector knapsack multi capacity.");
+	}
+
+	/* testPackerExample:
+	 * The Packer with --solver vector returns the results of the example file
+	 */
+	@Test
+	public void testPackerExample(){
+		PackerConfiguration configuration = new PackerConfiguration();
+		configuration.setSolverType(PackerConfiguration.SolverType.VECTOR_DP);
+		assertEquals("4\n-\n2,7\n8,9", Packer.pack("./src/test/resources/exampleFile.txt", configuration));
+		System.out.println("Test passed. Vector knapsack example file.");
+	}
+}
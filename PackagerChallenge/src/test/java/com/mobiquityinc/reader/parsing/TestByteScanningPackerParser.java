@@ -0,0 +1,155 @@
+package com.mobiquityinc.reader.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.mobiquityinc.entities.ItemBatch;
+import com.mobiquityinc.entities.ParsedLineEntity;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.parsers.ByteScanningPackerParser;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
+import com.mobiquityinc.packer.parsers.DefaultPackerParser;
+import com.mobiquityinc.packer.parsers.IParsingAlgorithm;
+
+/*
+ * ByteScanningPackerParser must accept and reject the same lines as DefaultPackerParser
+ * with the same results and the same APIException messages
+ */
+
+public class TestByteScanningPackerParser {
+
+	private final DefaultPackerParser      defaultParser = new DefaultPackerParser();
+	private final ByteScanningPackerParser bytesParser   = new ByteScanningPackerParser();
+
+	private static final String[] LINES = {
+		"81 : (1,53.38,\u20ac45) (2,88.62,\u20ac98) (3,78.48,\u20ac3) (4,72.30,\u20ac76) (5,30.18,\u20ac9) (6,46.34,\u20ac48)",
+		"8 : (1,15.3,\u20ac34)",
+		"75 : (1,85.31,\u20ac29) (2,14.55,\u20ac74) (3,3.98,\u20ac16) (4,26.24,\u20ac55) (5,63.69,\u20ac52) (6,76.25,\u20ac75) (7,60.02,\u20ac74) (8,93.18,\u20ac35) (9,89.95,\u20ac78)",
+		"  100  :  (1,1.0,$1) (2,1.0,$1)\t(3,1.0,$1)   (4,1.0,$1) ",
+		"81 : (1,80.001,$45) (3,1.001,$3) (5,90.18,$9) ",
+		"90 : (1,30.00,$100) (2,30.00,$100) (3,30.00,$100) (4,20.00,$100) (5,40.00,$100)",
+		"100 : (1,100.001,$40) ",
+		"50 : (1, 10.5 , $ 7) (2,+3.25,$+8) (3,5.,$1) (4,.5,$2)",
+		"50 : (1,10,$7) :",
+		" : (1,53.38,\u20ac45) (2,88.62,\u20ac98)",
+		" (1,53.38,\u20ac45) (2,88.62,\u20ac98)",
+		" (1,53.38,\u20ac45) (2,88.62,\u20ac98) : 82",
+		" 8200 : (1,53.38,\u20ac45) (2,88.62,98)",
+		" 82 : (1,53.38,\u20ac45,26) (2,88.62,98,55)",
+		" 82 : (1,53.38) (2,88.62,98,55,90)",
+		" 82 : (1.53.38,13,15) (2,88.62,98)",
+		" 82 : (1,53.38.13,15) (2,88.62,98)",
+		" 82 : (1|53.38|\u20ac45) (2,88.62,\u20ac98)",
+		" 82 : (1,53.38,\u20ac45)(2,88.62,\u20ac98)",
+		" 82 : (A,53.38,\u20ac45) (2,88.62,\u20ac98)",
+		" 82 : (1,150.3,\u20ac45) (2,88.62,\u20ac98)",
+		" 82 : (1,-153.38,\u20ac45) (2,88.62,\u20ac98)",
+		" 82 : (1,53.38,\u20ac45) (2,0,\u20ac98)",
+		" 82 : (1,100.01,$40)",
+		" 82 : (1,53.38,45\u20ac) (2,34.55,98\u20ac)",
+		" -5 : (1,53.38,\u20ac45) (2,14.55,\u20ac98)",
+		"105 : (1,53.38,\u20ac45) (2,14.55,\u20ac98)",
+		"abc : (1,53.38,\u20ac45)",
+		" 82 : (1,53.38,$45) (2,44.78,\u20ac98)",
+		" 82 : () (2,44.78,\u20ac98)",
+		" 82 : (1,44.78,\u20ac98) (2,44.78,\u20ac98) (2,44.78,\u20ac98) (3,44.78,\u20ac98)",
+		" 82 : (1,44.78,\u20ac-98) (2,44.78,\u20ac98)",
+		" 82 : (-1,44.78,\u20ac98) (2,44.78,\u20ac98)",
+		" 82 : (1,44.78,\u20ac0)",
+		" 82 : (1,44.78,\u20ac98,,)",
+		" 82 : (1,44.78,)",
+		" 82 : 1,44.78,$9)",
+		"12 :: (1,44.78,$9)",
+		"   ",
+		" 82 : (1,1,$1) (2,1,$1) (3,1,$1) (4,1,$1) (5,1,$1) (6,1,$1) (7,1,$1) (8,1,$1) (9,1,$1) (10,1,$1) (11,1,$1) (12,1,$1) (13,1,$1) (14,1,$1) (15,1,$1) (16,1,$1)",
+	};
+
+	@Test
+	public void testSameResultsAsDefaultParser(){
+		for (String line : LINES){
+			assertEquals(line, parseWith(defaultParser, line), parseWith(bytesParser, line));
+		}
+	}
+
+	// triplets which end (or start) in a multi byte sign - the whole character is dropped, not its last byte
+	@Test
+	public void testTripletEndsInSign(){
+		String[] lines = {
+			"10 : (1,5.00,\u20ac1) (2,5.00,\u20ac )",
+			"(1,75.19,\u20ac44) (1,53.15,\u20ac )",
+			"20 : (1,21.25,\u20ac )",
+			"20 : (1,21.25,\u20ac",
+			"20 : (1,21.25,\u20ac3\u20ac",
+			"20 : \u20ac1,21.25,\u20ac3\u20ac",
+		};
+		for (String line : lines){
+			assertEquals(line, parseWith(defaultParser, line), parseWith(bytesParser, line));
+		}
+	}
+
+	// a long line of the large profile with many equal weights - same (stable) order of the items
+	@Test
+	public void testLongLineOrder(){
+		StringBuilder line = new StringBuilder("90000 :");
+		Random random = new Random(7);
+		for (int i = 1; i <= 5000; i++){
+			line.append(" (").append(i).append(',').append(1 + random.nextInt(50)).append('.').append(random.nextInt(2) * 5)
+				.append(",$").append(1 + random.nextInt(100)).append(')');
+		}
+		DefaultPackerParser      largeDefault = new DefaultPackerParser(100, ConstraintProfile.LARGE);
+		ByteScanningPackerParser largeBytes   = new ByteScanningPackerParser(100, ConstraintProfile.LARGE);
+		String expected = parseWith(largeDefault, line.toString());
+		assertEquals(expected, parseWith(largeBytes, line.toString()));
+		assertTrue(expected.length() > 50000);
+	}
+
+	@Test
+	public void testEmptyLine(){
+		assertNull(bytesParser.parse(""));
+		assertNull(bytesParser.parse(null));
+		assertFalse(bytesParser.scan(new byte[0], 0, 0, new ItemBatch()));
+	}
+
+	@Test
+	public void testScanBytes(){
+		byte[] bytes = ("xx" + LINES[0] + "\n").getBytes(StandardCharsets.UTF_8);
+		ItemBatch itemBatch = new ItemBatch();
+		assertTrue(bytesParser.scan(bytes, 2, bytes.length - 3, itemBatch));
+		assertEquals(8100, itemBatch.getCapacity());
+		assertEquals(5, itemBatch.getCount());
+		// sorted by weight
+		assertEquals(5, itemBatch.getId(0));
+		assertEquals(3018, itemBatch.getWeight(0));
+		assertEquals(9, itemBatch.getCost(0));
+		assertEquals(defaultParser.parse(LINES[0]).toString(), itemBatch.toParsedLineEntity().toString());
+	}
+
+	@Test
+	public void testFixedPointWeight(){
+		// 0.29f * 100 is 28.999998 as a float - the scanner reads the digits and gets exactly 29
+		ParsedLineEntity parsedLine = bytesParser.parse("1 : (1,0.29,$5)");
+		assertEquals(Integer.valueOf(29), parsedLine.getItemsList().get(0).getWeight());
+	}
+
+	@Test(expected = APIException.class)
+	public void testExponentIsNotAWeight(){
+		bytesParser.parse("10 : (1,1e1,$5)");
+	}
+
+	private static String parseWith(IParsingAlgorithm parser, String line){
+		try {
+			return String.valueOf(parser.parse(line));
+		} catch (APIException e){
+			return "APIException: " + e.getMessage();
+		} catch (RuntimeException e){
+			return e.getClass().getSimpleName();
+		}
+	}
+}
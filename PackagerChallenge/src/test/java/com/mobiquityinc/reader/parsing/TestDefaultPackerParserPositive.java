@@ -8,6 +8,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.mobiquityinc.entities.ParsedLineEntity;
+import com.mobiquityinc.exception.APIException;
+import com.mobiquityinc.packer.parsers.ByteScanningPackerParser;
+import com.mobiquityinc.packer.parsers.ConstraintProfile;
 import com.mobiquityinc.packer.parsers.DefaultPackerParser;
 
 /*
@@ -53,6 +56,30 @@ public class TestDefaultPackerParserPositive {
 		assertEquals(Integer.valueOf(8100), parsedLine.getMaxWeight());
 	}
 		
+	// 20 items against a capacity of 5000 - only valid with the large profile
+	@Test
+	public void testLargeProfile(){
+		StringBuilder builder = new StringBuilder("5000 :");
+		for (int i = 1; i <= 20; i++){
+			builder.append(" (").append(i).append(",").append(i * 150).append(".25,$").append(i).append(")");
+		}
+		String line = builder.toString();
+		
+		DefaultPackerParser largeParser = new DefaultPackerParser(100, ConstraintProfile.LARGE);
+		// a parser with other limits does not change the limits of the others
+		new DefaultPackerParser(10f, 2, 10, 100);
+		ParsedLineEntity parsedLine = largeParser.parse(line);
+		assertEquals(20, parsedLine.getItemsList().size());
+		assertEquals(Integer.valueOf(500000), parsedLine.getMaxWeight());
+		assertEquals(20, new ByteScanningPackerParser(100, ConstraintProfile.LARGE).parse(line).getItemsList().size());
+		
+		try {
+			parser.parse(line);
+			fail("the challenge profile accepts at most 15 items");
+		} catch (APIException e){
+			printTestedLine(line);
+		}
+	}
 
 	private ParsedLineEntity genericTest(String line){
 		ParsedLineEntity parsedLine = null;